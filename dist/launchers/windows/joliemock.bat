@@ -0,0 +1,2 @@
+@echo off
+jolie %JOLIE_HOME%\tools\joliemock.ol %*
\ No newline at end of file
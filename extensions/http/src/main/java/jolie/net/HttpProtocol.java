@@ -25,6 +25,8 @@ import jolie.js.JsUtils;
 import jolie.lang.Constants;
 import jolie.lang.NativeType;
 import jolie.monitoring.events.ProtocolMessageEvent;
+import jolie.monitoring.tracing.TraceContext;
+import jolie.net.http.Http2Connection;
 import jolie.net.http.HttpMessage;
 import jolie.net.http.HttpParser;
 import jolie.net.http.HttpUtils;
@@ -75,11 +77,14 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -211,6 +216,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String OUTGOING_HEADERS = "outHeaders";
 		private static final String INCOMING_HEADERS = "inHeaders";
 		private static final String STATUS_CODES = "statusCodes";
+		private static final String HTTP2 = "http2";
+		private static final String TRACE_CONTEXT = "traceContext";
 
 		private static class MultiPartHeaders {
 			private static final String FILENAME = "filename";
@@ -221,6 +228,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String CONTENT_TYPE = "Content-Type";
 		private static final String JOLIE_MESSAGE_ID = "X-Jolie-MessageID";
 		private static final String JOLIE_RESOURCE_PATH = "X-Jolie-ServicePath";
+		private static final String TRACEPARENT = "traceparent";
 	}
 
 	private static class ContentTypes {
@@ -235,6 +243,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private final URI uri;
 	private final boolean inInputPort;
 	private MultiPartFormDataParser multiPartFormDataParser = null;
+	private Http2Connection http2 = null;
+	private boolean prefaceChecked = false;
+	// Decided on creation: the selector asks for it without a session to evaluate the parameters in
+	private final boolean multiplexing;
 
 	@Override
 	public String name() {
@@ -243,7 +255,13 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 	@Override
 	public boolean isThreadSafe() {
-		return checkBooleanParameter( Parameters.CONCURRENT );
+		return checkBooleanParameter( Parameters.CONCURRENT ) || checkBooleanParameter( Parameters.HTTP2 );
+	}
+
+	@Override
+	public boolean isMultiplexing() {
+		// Each request gets its own HTTP/2 stream, so callers can share the connection
+		return multiplexing;
 	}
 
 	public HttpProtocol(
@@ -260,6 +278,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		this.transformer = transformerFactory.newTransformer();
 		this.docBuilderFactory = docBuilderFactory;
 		this.docBuilder = docBuilder;
+		this.multiplexing = !inInputPort && checkBooleanParameter( Parameters.HTTP2 );
 
 		transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "yes" );
 		transformer.setOutputProperty( OutputKeys.INDENT, "no" );
@@ -357,6 +376,30 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private String responseFormat = null;
 	private boolean headRequest = false;
 
+	/**
+	 * The state needed to respond to a request received on an input port. HTTP/1.1 clients may pipeline
+	 * requests on a keep-alive connection, so we might receive a request before having responded to the
+	 * previous ones: responses must then be sent in the same order of the requests.
+	 */
+	private static class PendingResponse {
+		private final long requestId;
+		private final String encoding;
+		private final String responseFormat;
+		private final boolean headRequest;
+		// The encoded response, if it is ready but has to wait for those to the previous requests
+		private byte[] content = null;
+
+		private PendingResponse( long requestId, String encoding, String responseFormat, boolean headRequest ) {
+			this.requestId = requestId;
+			this.encoding = encoding;
+			this.responseFormat = responseFormat;
+			this.headRequest = headRequest;
+		}
+	}
+
+	// Accessed only while holding the channel lock, by recv (requests) and send (responses)
+	private final Deque< PendingResponse > pendingResponses = new ArrayDeque<>();
+
 	private void send_appendQuerystring( Value value, StringBuilder headerBuilder, CommMessage message )
 		throws IOException {
 		getOperationSpecificParameterFirstValue( message.operationName(),
@@ -397,46 +440,94 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	private static final int PARSED_ALIASES_LIMIT = 1024;
+	private static final Pattern ALIAS_PATTERN = Pattern.compile( "%(!)?\\{[^\\}]*\\}" );
+	// Least recently used aliases are evicted first, so dynamic aliases do not evict the configured ones
+	private static final Map< String, ParsedAlias > PARSED_ALIASES =
+		new LinkedHashMap< String, ParsedAlias >( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry< String, ParsedAlias > eldest ) {
+				return size() > PARSED_ALIASES_LIMIT;
+			}
+		};
+
+	/**
+	 * An alias split into its literal parts and its %{key} (or %!{key}) placeholders. Aliases come from
+	 * the port configuration, so we parse each of them only once.
+	 */
+	private static class ParsedAlias {
+		// literals[i] precedes keys[i]; the last literal follows the last key
+		private final String[] literals;
+		private final String[] keys;
+		// true if the value for keys[i] must be inserted raw (%!{key}), false if it must be URL-encoded
+		private final boolean[] raw;
+
+		private ParsedAlias( String alias ) {
+			final List< String > literalList = new ArrayList<>();
+			final List< String > keyList = new ArrayList<>();
+			final List< Boolean > rawList = new ArrayList<>();
+			final Matcher m = ALIAS_PATTERN.matcher( alias );
+			int last = 0;
+			while( m.find() ) {
+				final boolean isRaw = m.group( 1 ) != null;
+				literalList.add( alias.substring( last, m.start() ) );
+				keyList.add( alias.substring( m.start() + (isRaw ? 3 : 2), m.end() - 1 ) );
+				rawList.add( isRaw );
+				last = m.end();
+			}
+			literalList.add( alias.substring( last ) );
+
+			literals = literalList.toArray( new String[ 0 ] );
+			keys = keyList.toArray( new String[ 0 ] );
+			raw = new boolean[ rawList.size() ];
+			for( int i = 0; i < raw.length; i++ ) {
+				raw[ i ] = rawList.get( i );
+			}
+		}
+	}
+
+	private static ParsedAlias getParsedAlias( String alias ) {
+		ParsedAlias parsedAlias;
+		synchronized( PARSED_ALIASES ) {
+			parsedAlias = PARSED_ALIASES.get( alias );
+		}
+		if( parsedAlias == null ) {
+			parsedAlias = new ParsedAlias( alias );
+			synchronized( PARSED_ALIASES ) {
+				final ParsedAlias existing = PARSED_ALIASES.putIfAbsent( alias, parsedAlias );
+				if( existing != null ) {
+					parsedAlias = existing;
+				}
+			}
+		}
+		return parsedAlias;
+	}
+
 	private static void send_appendParsedAlias( String alias, Value value, StringBuilder headerBuilder )
 		throws IOException {
-		int offset = 0;
+		final ParsedAlias parsedAlias = getParsedAlias( alias );
 		List< String > aliasKeys = new ArrayList<>();
 		String currStrValue;
 		String currKey;
-		StringBuilder result = new StringBuilder( alias );
-		Matcher m = Pattern.compile( "%(!)?\\{[^\\}]*\\}" ).matcher( alias );
-
-		while( m.find() ) {
-			int displacement = 2;
-			if( m.group( 1 ) == null ) { // ! is missing after %: We have to use URLEncoder
-				currKey = alias.substring( m.start() + displacement, m.end() - 1 );
-				if( "$".equals( currKey ) ) {
-					currStrValue = URLEncoder.encode( value.strValue(), HttpUtils.URL_DECODER_ENC );
-				} else {
-					currStrValue =
-						URLEncoder.encode( value.getFirstChild( currKey ).strValue(), HttpUtils.URL_DECODER_ENC );
-					aliasKeys.add( currKey );
-				}
-			} else { // ! is given after %: We have to insert the string raw
-				displacement = 3;
-				currKey = alias.substring( m.start() + displacement, m.end() - 1 );
-				if( "$".equals( currKey ) ) {
-					currStrValue = value.strValue();
-				} else {
-					currStrValue = value.getFirstChild( currKey ).strValue();
-					aliasKeys.add( currKey );
-				}
+		for( int i = 0; i < parsedAlias.keys.length; i++ ) {
+			headerBuilder.append( parsedAlias.literals[ i ] );
+			currKey = parsedAlias.keys[ i ];
+			if( "$".equals( currKey ) ) {
+				currStrValue = value.strValue();
+			} else {
+				currStrValue = value.getFirstChild( currKey ).strValue();
+				aliasKeys.add( currKey );
 			}
-
-			result.replace(
-				m.start() + offset, m.end() + offset,
-				currStrValue );
-			displacement++; // considering also }
-			offset += currStrValue.length() - displacement - currKey.length();
+			if( !parsedAlias.raw[ i ] ) { // ! is missing after %: We have to use URLEncoder
+				currStrValue = URLEncoder.encode( currStrValue, HttpUtils.URL_DECODER_ENC );
+			}
+			headerBuilder.append( currStrValue );
 		}
+		headerBuilder.append( parsedAlias.literals[ parsedAlias.keys.length ] );
 		// removing used keys
 		aliasKeys.forEach( value.children()::remove );
-		headerBuilder.append( result );
 	}
 
 	private String send_getFormat() {
@@ -881,6 +972,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			}
 		}
 		send_appendHeader( headerBuilder );
+		if( message.traceContext() != null && checkBooleanParameter( Parameters.TRACE_CONTEXT, true ) ) {
+			headerBuilder.append( Headers.TRACEPARENT ).append( ": " ).append( message.traceContext() )
+				.append( HttpUtils.CRLF );
+		}
 
 		if( hasOperationSpecificParameter( message.operationName(), Parameters.OUTGOING_HEADERS ) ) {
 			send_operationSpecificHeader( message.value(),
@@ -911,7 +1006,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 				channel().setToBeClosed( true );
 			headerBuilder.append( "Connection: close" ).append( HttpUtils.CRLF );
 		}
-		if( checkBooleanParameter( Parameters.CONCURRENT, true ) ) {
+		if( http2 == null && checkBooleanParameter( Parameters.CONCURRENT, true ) ) {
+			// HTTP/2 binds message ids to streams instead
 			headerBuilder.append( Headers.JOLIE_MESSAGE_ID ).append( ": " ).append( message.requestId() )
 				.append( HttpUtils.CRLF );
 		}
@@ -999,14 +1095,66 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	private PendingResponse getPendingResponse( long requestId ) {
+		for( PendingResponse pending : pendingResponses ) {
+			if( pending.requestId == requestId ) {
+				return pending;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public void send_internal( OutputStream ostream, CommMessage message, InputStream istream )
+		throws IOException {
+		final PendingResponse pending = inInputPort ? getPendingResponse( message.requestId() ) : null;
+		if( pending == null ) {
+			send_message( ostream, message );
+			return;
+		}
+
+		encoding = pending.encoding;
+		responseFormat = pending.responseFormat;
+		headRequest = pending.headRequest;
+		if( isThreadSafe() ) {
+			// Responses are matched by message id, the order does not matter
+			pendingResponses.remove( pending );
+			send_message( ostream, message );
+		} else if( pending != pendingResponses.peekFirst() ) {
+			// We still have to respond to a previous request
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			send_message( buffer, message );
+			pending.content = buffer.toByteArray();
+		} else {
+			pendingResponses.pollFirst();
+			send_message( ostream, message );
+			while( !pendingResponses.isEmpty() && pendingResponses.peekFirst().content != null ) {
+				ostream.write( pendingResponses.pollFirst().content );
+			}
+		}
+	}
+
+	private void send_message( OutputStream ostream, CommMessage message )
+		throws IOException {
+		StringBuilder headerBuilder = new StringBuilder();
+		byte[] content = send_encodeMessage( message, headerBuilder );
+		ostream.write( headerBuilder.toString().getBytes( HttpUtils.URL_DECODER_ENC ) );
+		if( content != null ) {
+			ostream.write( content );
+		}
+	}
+
+	/**
+	 * Encodes a message, appending its start line and headers to <code>headerBuilder</code>.
+	 *
+	 * @return the body to send, or <code>null</code> if there is none
+	 */
+	private byte[] send_encodeMessage( CommMessage message, StringBuilder headerBuilder )
 		throws IOException {
 		Method method = send_getRequestMethod( message );
 		String charset = HttpUtils.getCharset( getStringParameter( Parameters.CHARSET, "utf-8" ), null );
 		String format = send_getFormat();
 		String contentType = null;
-		StringBuilder headerBuilder = new StringBuilder();
 
 		if( inInputPort ) {
 			// We're responding to a request
@@ -1065,17 +1213,56 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		inputId = message.operationName();
 
-		ostream.write( headerBuilder.toString().getBytes( HttpUtils.URL_DECODER_ENC ) );
-		if( encodedContent.content != null && !headRequest ) {
-			ostream.write( encodedContent.content.getBytes() );
-		}
+		byte[] content = encodedContent.content != null && !headRequest ? encodedContent.content.getBytes() : null;
 		headRequest = false;
+		return content;
+	}
+
+	private String http2Scheme() {
+		return "https".equals( configurationPath().getValue().strValue() ) ? "https" : "http";
 	}
 
 	@Override
 	public void send( OutputStream ostream, CommMessage message, InputStream istream )
 		throws IOException {
-		HttpUtils.send( ostream, message, istream, inInputPort, channel(), this );
+		if( http2 == null && multiplexing ) {
+			http2 = new Http2Connection( true, http2Scheme() );
+		}
+		if( http2 == null ) {
+			HttpUtils.send( ostream, message, istream, inInputPort, channel(), this );
+		} else {
+			send_http2( ostream, message );
+		}
+	}
+
+	private void send_http2( OutputStream ostream, CommMessage message )
+		throws IOException {
+		final StringBuilder headerBuilder = new StringBuilder();
+		final byte[] content;
+		try {
+			// Responses may be decoded by the receiving thread at the same time
+			synchronized( this ) {
+				final PendingResponse pending = inInputPort ? getPendingResponse( message.requestId() ) : null;
+				if( pending != null ) {
+					pendingResponses.remove( pending );
+					encoding = pending.encoding;
+					responseFormat = pending.responseFormat;
+					headRequest = pending.headRequest;
+				}
+				content = send_encodeMessage( message, headerBuilder );
+			}
+		} catch( IOException e ) {
+			if( inInputPort && channel().isOpen() ) {
+				final StringBuilder errorHeader = new StringBuilder();
+				final byte[] errorContent = HttpUtils.errorResponse( e, errorHeader );
+				http2.writeMessage( ostream, message.requestId(), null, errorHeader, errorContent );
+			}
+			throw e;
+		}
+		http2.writeMessage( ostream, message.requestId(), message.operationName(), headerBuilder, content );
+		if( http2.isClosing() ) {
+			channel().setToBeClosed( true );
+		}
 	}
 
 	private void parseXML( HttpMessage message, Value value, String charset )
@@ -1339,9 +1526,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
-	private void recv_parseMessage( HttpMessage message, DecodedMessage decodedMessage, String type, String charset )
+	private void recv_parseMessage( HttpMessage message, DecodedMessage decodedMessage, String type, String charset,
+		String requestOperation )
 		throws IOException {
-		final String operationName = message.isResponse() ? inputId : decodedMessage.operationName;
+		final String operationName = message.isResponse() ? requestOperation : decodedMessage.operationName;
 		if( getOperationSpecificStringParameter( operationName, Parameters.FORCE_CONTENT_DECODING )
 			.equals( NativeType.STRING.id() ) ) {
 			decodedMessage.value.setValue( new String( message.content(), charset ) );
@@ -1384,8 +1572,9 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		return null;
 	}
 
-	private String cutBeforeQuerystring( String requestPath ) {
-		return requestPath.split( "\\?", 2 )[ 0 ];
+	private static String cutBeforeQuerystring( String requestPath ) {
+		final int index = requestPath.indexOf( '?' );
+		return index < 0 ? requestPath : requestPath.substring( 0, index );
 	}
 
 	private void recv_checkReceivingOperation( HttpMessage message, DecodedMessage decodedMessage ) {
@@ -1427,13 +1616,18 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			Entry< String, ValueVector > configEntry = configurationIterator.next();
 
 			Value opConfig = configEntry.getValue().get( 0 );
-			Value uriTemplateResult = Value.create();
-			if( opConfig.hasChildren( Parameters.TEMPLATE ) ) {
-				uriTemplateResult = UriUtils.match( opConfig.getFirstChild( Parameters.TEMPLATE ).strValue(), uri );
+			if( !opConfig.hasChildren( Parameters.TEMPLATE ) ) {
+				continue;
 			}
+			// Comparing the method is much cheaper than matching the template, so we do it first
 			String opConfigMethod = opConfig.getFirstChild( Parameters.METHOD ).strValue();
+			if( !message.getMethod().equalsIgnoreCase( opConfigMethod ) ) {
+				continue;
+			}
+			Value uriTemplateResult =
+				UriUtils.match( opConfig.getFirstChild( Parameters.TEMPLATE ).strValue(), uri );
 
-			if( uriTemplateResult.boolValue() && message.getMethod().equalsIgnoreCase( opConfigMethod ) ) {
+			if( uriTemplateResult.boolValue() ) {
 				foundMatch = true;
 				decodedMessage.operationName = configEntry.getKey();
 				decodedMessage.resourcePath = "/";
@@ -1527,7 +1721,18 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	@Override
 	public CommMessage recv_internal( InputStream istream, OutputStream ostream )
 		throws IOException {
-		HttpMessage message = new HttpParser( istream ).parse();
+		return recv_message( new HttpParser( istream ).parse(), CommMessage.GENERIC_REQUEST_ID, inputId );
+	}
+
+	/**
+	 * Decodes a received message.
+	 *
+	 * @param requestId the id of the request the message belongs to, if the transport knows it, or
+	 *        {@link CommMessage#GENERIC_REQUEST_ID}
+	 * @param requestOperation the operation of the request, if the message is a response
+	 */
+	private CommMessage recv_message( HttpMessage message, long requestId, String requestOperation )
+		throws IOException {
 		String charset = HttpUtils.getCharset( null, message );
 		CommMessage retVal = null;
 		DecodedMessage decodedMessage = new DecodedMessage();
@@ -1585,7 +1790,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		if( !message.isGet() && !message.isHead() ) {
 			// body parsing
 			if( message.size() > 0 ) {
-				recv_parseMessage( message, decodedMessage, contentType, charset );
+				recv_parseMessage( message, decodedMessage, contentType, charset, requestOperation );
 			}
 		}
 
@@ -1593,7 +1798,9 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			recv_checkDefaultOp( message, decodedMessage );
 		}
 
-		if( checkBooleanParameter( Parameters.CONCURRENT ) ) {
+		if( requestId != CommMessage.GENERIC_REQUEST_ID ) {
+			decodedMessage.id = requestId;
+		} else if( isThreadSafe() ) {
 			String messageId = message.getProperty( Headers.JOLIE_MESSAGE_ID );
 			if( messageId != null ) {
 				try {
@@ -1605,16 +1812,17 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		if( message.isResponse() ) {
 			FaultException faultException = null;
-			if( hasOperationSpecificParameter( inputId, Parameters.STATUS_CODES ) ) {
+			if( hasOperationSpecificParameter( requestOperation, Parameters.STATUS_CODES ) ) {
 				faultException = recv_mapHttpStatusCodeFault( message,
-					getOperationSpecificParameterFirstValue( inputId, Parameters.STATUS_CODES ),
+					getOperationSpecificParameterFirstValue( requestOperation, Parameters.STATUS_CODES ),
 					decodedMessage.value );
 			}
 			String responseHeader = "";
 			if( hasParameter( Parameters.RESPONSE_HEADER )
-				|| hasOperationSpecificParameter( inputId, Parameters.RESPONSE_HEADER ) ) {
-				if( hasOperationSpecificParameter( inputId, Parameters.RESPONSE_HEADER ) ) {
-					responseHeader = getOperationSpecificStringParameter( inputId, Parameters.RESPONSE_HEADER );
+				|| hasOperationSpecificParameter( requestOperation, Parameters.RESPONSE_HEADER ) ) {
+				if( hasOperationSpecificParameter( requestOperation, Parameters.RESPONSE_HEADER ) ) {
+					responseHeader =
+						getOperationSpecificStringParameter( requestOperation, Parameters.RESPONSE_HEADER );
 				} else {
 					responseHeader = getStringParameter( Parameters.RESPONSE_HEADER );
 				}
@@ -1628,12 +1836,20 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 			recv_checkForSetCookie( message, decodedMessage.value );
 			retVal =
-				new CommMessage( decodedMessage.id, inputId, decodedMessage.resourcePath, decodedMessage.value,
+				new CommMessage( decodedMessage.id, requestOperation, decodedMessage.resourcePath, decodedMessage.value,
 					faultException );
 		} else if( message.isError() == false ) {
 			recv_checkForMessageProperties( message, decodedMessage );
+			if( inInputPort ) {
+				if( decodedMessage.id == CommMessage.GENERIC_REQUEST_ID && !isThreadSafe() ) {
+					// We need to tell apart the responses to pipelined requests
+					decodedMessage.id = CommMessage.getNewRequestId();
+				}
+				pendingResponses.add( new PendingResponse( decodedMessage.id, encoding, responseFormat, headRequest ) );
+			}
 			retVal = new CommMessage( decodedMessage.id, decodedMessage.operationName, decodedMessage.resourcePath,
 				decodedMessage.value, null );
+			retVal.setTraceContext( TraceContext.parse( message.getProperty( Headers.TRACEPARENT ) ) );
 		}
 
 		if( Interpreter.getInstance().isMonitoring() ) {
@@ -1732,7 +1948,54 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	@Override
 	public CommMessage recv( InputStream istream, OutputStream ostream )
 		throws IOException {
-		return HttpUtils.recv( istream, ostream, inInputPort, channel(), this );
+		InputStream http1Stream = istream;
+		if( http2 == null && multiplexing ) {
+			http2 = new Http2Connection( true, http2Scheme() );
+		} else if( http2 == null && inInputPort && !prefaceChecked && checkBooleanParameter( Parameters.HTTP2 ) ) {
+			// Only the first message on a connection can start with the connection preface
+			prefaceChecked = true;
+			http1Stream = Http2Connection.readPreface( istream );
+			if( http1Stream == null ) {
+				http2 = new Http2Connection( false, http2Scheme() );
+			}
+		}
+		if( http2 == null ) {
+			return HttpUtils.recv( http1Stream, ostream, inInputPort, channel(), this );
+		}
+		return recv_http2( istream, ostream );
+	}
+
+	private CommMessage recv_http2( InputStream istream, OutputStream ostream )
+		throws IOException {
+		final Http2Connection.Message received = http2.readMessage( istream, ostream );
+		if( received == null ) {
+			// Only control frames were available
+			return null;
+		}
+		if( http2.isClosing() ) {
+			channel().setToBeClosed( true );
+		}
+		try {
+			if( received.error() != null ) {
+				throw received.error();
+			}
+			// Requests may be encoded by sending threads at the same time
+			synchronized( this ) {
+				return recv_message( received.message(), received.requestId(), received.operationName() );
+			}
+		} catch( IOException e ) {
+			// Only the stream of this message is affected, the connection can go on
+			if( inInputPort ) {
+				final StringBuilder errorHeader = new StringBuilder();
+				final byte[] errorContent = HttpUtils.errorResponse( e, errorHeader );
+				http2.writeMessage( ostream, received.requestId(), null, errorHeader, errorContent );
+				ostream.flush();
+				Interpreter.getInstance().logWarning( e );
+				return null;
+			}
+			return new CommMessage( received.requestId(), received.operationName(), Constants.ROOT_RESOURCE_PATH,
+				Value.create(), new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ) );
+		}
 	}
 
 	private Type getSendType( CommMessage message )
@@ -0,0 +1,513 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HPACK header compression for HTTP/2 (RFC 7541).
+ *
+ * Header fields are represented as two-element arrays holding the (lowercase) name and the value.
+ *
+ * @author Fabrizio Montesi
+ */
+public class Hpack {
+	public static final int DEFAULT_TABLE_SIZE = 4096;
+	private static final int ENTRY_OVERHEAD = 32;
+
+	private static final String[][] STATIC_TABLE = {
+		{ ":authority", "" },
+		{ ":method", "GET" },
+		{ ":method", "POST" },
+		{ ":path", "/" },
+		{ ":path", "/index.html" },
+		{ ":scheme", "http" },
+		{ ":scheme", "https" },
+		{ ":status", "200" },
+		{ ":status", "204" },
+		{ ":status", "206" },
+		{ ":status", "304" },
+		{ ":status", "400" },
+		{ ":status", "404" },
+		{ ":status", "500" },
+		{ "accept-charset", "" },
+		{ "accept-encoding", "gzip, deflate" },
+		{ "accept-language", "" },
+		{ "accept-ranges", "" },
+		{ "accept", "" },
+		{ "access-control-allow-origin", "" },
+		{ "age", "" },
+		{ "allow", "" },
+		{ "authorization", "" },
+		{ "cache-control", "" },
+		{ "content-disposition", "" },
+		{ "content-encoding", "" },
+		{ "content-language", "" },
+		{ "content-length", "" },
+		{ "content-location", "" },
+		{ "content-range", "" },
+		{ "content-type", "" },
+		{ "cookie", "" },
+		{ "date", "" },
+		{ "etag", "" },
+		{ "expect", "" },
+		{ "expires", "" },
+		{ "from", "" },
+		{ "host", "" },
+		{ "if-match", "" },
+		{ "if-modified-since", "" },
+		{ "if-none-match", "" },
+		{ "if-range", "" },
+		{ "if-unmodified-since", "" },
+		{ "last-modified", "" },
+		{ "link", "" },
+		{ "location", "" },
+		{ "max-forwards", "" },
+		{ "proxy-authenticate", "" },
+		{ "proxy-authorization", "" },
+		{ "range", "" },
+		{ "referer", "" },
+		{ "refresh", "" },
+		{ "retry-after", "" },
+		{ "server", "" },
+		{ "set-cookie", "" },
+		{ "strict-transport-security", "" },
+		{ "transfer-encoding", "" },
+		{ "user-agent", "" },
+		{ "vary", "" },
+		{ "via", "" },
+		{ "www-authenticate", "" }
+	};
+
+	private static final int[] HUFFMAN_CODES = {
+		0x1ff8, 0x7fffd8, 0xfffffe2, 0xfffffe3, 0xfffffe4, 0xfffffe5, 0xfffffe6, 0xfffffe7, 0xfffffe8, 0xffffea,
+		0x3ffffffc, 0xfffffe9, 0xfffffea, 0x3ffffffd, 0xfffffeb, 0xfffffec, 0xfffffed, 0xfffffee, 0xfffffef,
+		0xffffff0, 0xffffff1, 0xffffff2, 0x3ffffffe, 0xffffff3, 0xffffff4, 0xffffff5, 0xffffff6, 0xffffff7,
+		0xffffff8, 0xffffff9, 0xffffffa, 0xffffffb, 0x14, 0x3f8, 0x3f9, 0xffa, 0x1ff9, 0x15, 0xf8, 0x7fa, 0x3fa,
+		0x3fb, 0xf9, 0x7fb, 0xfa, 0x16, 0x17, 0x18, 0x0, 0x1, 0x2, 0x19, 0x1a, 0x1b, 0x1c, 0x1d, 0x1e, 0x1f, 0x5c,
+		0xfb, 0x7ffc, 0x20, 0xffb, 0x3fc, 0x1ffa, 0x21, 0x5d, 0x5e, 0x5f, 0x60, 0x61, 0x62, 0x63, 0x64, 0x65, 0x66,
+		0x67, 0x68, 0x69, 0x6a, 0x6b, 0x6c, 0x6d, 0x6e, 0x6f, 0x70, 0x71, 0x72, 0xfc, 0x73, 0xfd, 0x1ffb, 0x7fff0,
+		0x1ffc, 0x3ffc, 0x22, 0x7ffd, 0x3, 0x23, 0x4, 0x24, 0x5, 0x25, 0x26, 0x27, 0x6, 0x74, 0x75, 0x28, 0x29,
+		0x2a, 0x7, 0x2b, 0x76, 0x2c, 0x8, 0x9, 0x2d, 0x77, 0x78, 0x79, 0x7a, 0x7b, 0x7ffe, 0x7fc, 0x3ffd, 0x1ffd,
+		0xffffffc, 0xfffe6, 0x3fffd2, 0xfffe7, 0xfffe8, 0x3fffd3, 0x3fffd4, 0x3fffd5, 0x7fffd9, 0x3fffd6, 0x7fffda,
+		0x7fffdb, 0x7fffdc, 0x7fffdd, 0x7fffde, 0xffffeb, 0x7fffdf, 0xffffec, 0xffffed, 0x3fffd7, 0x7fffe0,
+		0xffffee, 0x7fffe1, 0x7fffe2, 0x7fffe3, 0x7fffe4, 0x1fffdc, 0x3fffd8, 0x7fffe5, 0x3fffd9, 0x7fffe6,
+		0x7fffe7, 0xffffef, 0x3fffda, 0x1fffdd, 0xfffe9, 0x3fffdb, 0x3fffdc, 0x7fffe8, 0x7fffe9, 0x1fffde,
+		0x7fffea, 0x3fffdd, 0x3fffde, 0xfffff0, 0x1fffdf, 0x3fffdf, 0x7fffeb, 0x7fffec, 0x1fffe0, 0x1fffe1,
+		0x3fffe0, 0x1fffe2, 0x7fffed, 0x3fffe1, 0x7fffee, 0x7fffef, 0xfffea, 0x3fffe2, 0x3fffe3, 0x3fffe4,
+		0x7ffff0, 0x3fffe5, 0x3fffe6, 0x7ffff1, 0x3ffffe0, 0x3ffffe1, 0xfffeb, 0x7fff1, 0x3fffe7, 0x7ffff2,
+		0x3fffe8, 0x1ffffec, 0x3ffffe2, 0x3ffffe3, 0x3ffffe4, 0x7ffffde, 0x7ffffdf, 0x3ffffe5, 0xfffff1, 0x1ffffed,
+		0x7fff2, 0x1fffe3, 0x3ffffe6, 0x7ffffe0, 0x7ffffe1, 0x3ffffe7, 0x7ffffe2, 0xfffff2, 0x1fffe4, 0x1fffe5,
+		0x3ffffe8, 0x3ffffe9, 0xffffffd, 0x7ffffe3, 0x7ffffe4, 0x7ffffe5, 0xfffec, 0xfffff3, 0xfffed, 0x1fffe6,
+		0x3fffe9, 0x1fffe7, 0x1fffe8, 0x7ffff3, 0x3fffea, 0x3fffeb, 0x1ffffee, 0x1ffffef, 0xfffff4, 0xfffff5,
+		0x3ffffea, 0x7ffff4, 0x3ffffeb, 0x7ffffe6, 0x3ffffec, 0x3ffffed, 0x7ffffe7, 0x7ffffe8, 0x7ffffe9,
+		0x7ffffea, 0x7ffffeb, 0xffffffe, 0x7ffffec, 0x7ffffed, 0x7ffffee, 0x7ffffef, 0x7fffff0, 0x3ffffee,
+		0x3fffffff
+	};
+
+	private static final byte[] HUFFMAN_LENGTHS = {
+		13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28,
+		28, 28, 28, 28, 28, 6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6, 5, 5, 5, 6, 6, 6, 6, 6, 6, 6,
+		7, 8, 15, 6, 12, 10, 13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13,
+		19, 13, 14, 6, 15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5, 6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11,
+		14, 13, 28, 20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23, 24, 24, 22, 23, 24, 23, 23, 23,
+		23, 21, 22, 23, 22, 23, 23, 24, 22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23, 21, 21, 22,
+		21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23, 26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26,
+		24, 25, 19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27, 20, 24, 20, 21, 22, 21, 21, 23, 22,
+		22, 25, 25, 24, 24, 26, 23, 26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26, 30
+	};
+
+	private static final int HUFFMAN_EOS = 256;
+
+	// name + '\0' + value -> index, and name -> lowest index
+	private static final Map< String, Integer > STATIC_FIELDS = new HashMap<>();
+	private static final Map< String, Integer > STATIC_NAMES = new HashMap<>();
+
+	/*
+	 * Huffman decoding tree. Node n has its children at 2n (bit 0) and 2n + 1 (bit 1): a positive entry
+	 * is the index of an inner node, a negative entry -(s + 1) is a leaf for symbol s.
+	 */
+	private static final int[] HUFFMAN_TREE = new int[ 2 * HUFFMAN_EOS ];
+
+	static {
+		for( int i = STATIC_TABLE.length - 1; i >= 0; i-- ) {
+			STATIC_FIELDS.put( STATIC_TABLE[ i ][ 0 ] + '\0' + STATIC_TABLE[ i ][ 1 ], i + 1 );
+			STATIC_NAMES.put( STATIC_TABLE[ i ][ 0 ], i + 1 );
+		}
+
+		int nodes = 0;
+		for( int symbol = 0; symbol < HUFFMAN_CODES.length; symbol++ ) {
+			int node = 0;
+			for( int bit = HUFFMAN_LENGTHS[ symbol ] - 1; bit >= 0; bit-- ) {
+				int slot = 2 * node + ((HUFFMAN_CODES[ symbol ] >>> bit) & 1);
+				if( bit == 0 ) {
+					HUFFMAN_TREE[ slot ] = -(symbol + 1);
+				} else {
+					if( HUFFMAN_TREE[ slot ] == 0 ) {
+						HUFFMAN_TREE[ slot ] = ++nodes;
+					}
+					node = HUFFMAN_TREE[ slot ];
+				}
+			}
+		}
+	}
+
+	private static int entrySize( String name, String value ) {
+		return ENTRY_OVERHEAD + name.length() + value.length();
+	}
+
+	private static void writeInteger( ByteArrayOutputStream out, int prefixBits, int flags, int value ) {
+		int max = (1 << prefixBits) - 1;
+		if( value < max ) {
+			out.write( flags | value );
+		} else {
+			out.write( flags | max );
+			value -= max;
+			while( value >= 0x80 ) {
+				out.write( (value & 0x7F) | 0x80 );
+				value >>>= 7;
+			}
+			out.write( value );
+		}
+	}
+
+	private static void writeString( ByteArrayOutputStream out, String s ) {
+		byte[] bytes = s.getBytes( StandardCharsets.ISO_8859_1 );
+		long bits = 0;
+		for( byte b : bytes ) {
+			bits += HUFFMAN_LENGTHS[ b & 0xFF ];
+		}
+		int huffmanLength = (int) ((bits + 7) / 8);
+		if( huffmanLength <= bytes.length ) {
+			writeInteger( out, 7, 0x80, huffmanLength );
+			long buffer = 0;
+			int count = 0;
+			for( byte b : bytes ) {
+				int symbol = b & 0xFF;
+				buffer = (buffer << HUFFMAN_LENGTHS[ symbol ]) | HUFFMAN_CODES[ symbol ];
+				count += HUFFMAN_LENGTHS[ symbol ];
+				while( count >= 8 ) {
+					count -= 8;
+					out.write( (int) (buffer >>> count) );
+				}
+				buffer &= (1L << count) - 1;
+			}
+			if( count > 0 ) {
+				// Pad with the most significant bits of EOS, i.e., ones
+				out.write( (int) ((buffer << (8 - count)) | (0xFF >>> count)) );
+			}
+		} else {
+			writeInteger( out, 7, 0, bytes.length );
+			out.write( bytes, 0, bytes.length );
+		}
+	}
+
+	/**
+	 * Encodes header lists for one direction of a connection. The encoder keeps its own dynamic table,
+	 * which must stay in sync with the decoder on the other side: header blocks must be sent in the
+	 * order they are encoded.
+	 */
+	public static class Encoder {
+		// Oldest entry first
+		private final List< String[] > table = new ArrayList<>();
+		private final Map< String, Long > fields = new HashMap<>();
+		private final Map< String, Long > names = new HashMap<>();
+		private long insertions = 0;
+		private int size = 0;
+		private int maxSize;
+		private int pendingSizeUpdate = -1;
+
+		public Encoder() {
+			this( DEFAULT_TABLE_SIZE );
+		}
+
+		/**
+		 * Starts with a dynamic table of the given size, as if both sides had already agreed on it.
+		 */
+		Encoder( int maxSize ) {
+			this.maxSize = maxSize;
+		}
+
+		int tableSize() {
+			return size;
+		}
+
+		/**
+		 * Applies the SETTINGS_HEADER_TABLE_SIZE announced by the peer. We never use more than the default
+		 * size, even if the peer allows it.
+		 */
+		public void setMaxTableSize( int peerMaxSize ) {
+			int newMaxSize = Math.min( peerMaxSize, DEFAULT_TABLE_SIZE );
+			if( newMaxSize != maxSize ) {
+				maxSize = newMaxSize;
+				pendingSizeUpdate = pendingSizeUpdate < 0 ? newMaxSize : Math.min( pendingSizeUpdate, newMaxSize );
+				evict( 0 );
+			}
+		}
+
+		private int dynamicIndex( Long insertion ) {
+			if( insertion == null || insertion < insertions - table.size() ) {
+				return -1;
+			}
+			return STATIC_TABLE.length + (int) (insertions - insertion);
+		}
+
+		private void evict( int required ) {
+			while( !table.isEmpty() && size + required > maxSize ) {
+				String[] entry = table.remove( 0 );
+				size -= entrySize( entry[ 0 ], entry[ 1 ] );
+			}
+		}
+
+		private void insert( String name, String value ) {
+			int entrySize = entrySize( name, value );
+			evict( entrySize );
+			if( entrySize <= maxSize ) {
+				table.add( new String[] { name, value } );
+				size += entrySize;
+				fields.put( name + '\0' + value, insertions );
+				names.put( name, insertions );
+				insertions++;
+			}
+		}
+
+		private static boolean isSensitive( String name ) {
+			return "authorization".equals( name ) || "proxy-authorization".equals( name );
+		}
+
+		private static boolean isVolatile( String name ) {
+			return ":path".equals( name ) || "content-length".equals( name );
+		}
+
+		public byte[] encode( List< String[] > headers ) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			if( pendingSizeUpdate >= 0 ) {
+				if( pendingSizeUpdate < maxSize ) {
+					writeInteger( out, 5, 0x20, pendingSizeUpdate );
+				}
+				writeInteger( out, 5, 0x20, maxSize );
+				pendingSizeUpdate = -1;
+			}
+			for( String[] header : headers ) {
+				String name = header[ 0 ];
+				String value = header[ 1 ];
+				String field = name + '\0' + value;
+				Integer index = STATIC_FIELDS.get( field );
+				if( index == null ) {
+					int i = dynamicIndex( fields.get( field ) );
+					index = i < 0 ? null : i;
+				}
+				if( index != null ) {
+					writeInteger( out, 7, 0x80, index );
+					continue;
+				}
+
+				int nameIndex = STATIC_NAMES.getOrDefault( name, dynamicIndex( names.get( name ) ) );
+				if( isSensitive( name ) ) {
+					// Never indexed
+					writeInteger( out, 4, 0x10, Math.max( nameIndex, 0 ) );
+				} else if( isVolatile( name ) ) {
+					// Without indexing
+					writeInteger( out, 4, 0, Math.max( nameIndex, 0 ) );
+				} else {
+					// With incremental indexing
+					writeInteger( out, 6, 0x40, Math.max( nameIndex, 0 ) );
+					insert( name, value );
+				}
+				if( nameIndex <= 0 ) {
+					writeString( out, name );
+				}
+				writeString( out, value );
+			}
+			return out.toByteArray();
+		}
+	}
+
+	/**
+	 * Decodes the header blocks received on a connection.
+	 */
+	public static class Decoder {
+		// Oldest entry first
+		private final List< String[] > table = new ArrayList<>();
+		private int size = 0;
+		private int maxSize;
+
+		private byte[] block;
+		private int position;
+
+		public Decoder() {
+			this( DEFAULT_TABLE_SIZE );
+		}
+
+		/**
+		 * Starts with a dynamic table of the given size, as if both sides had already agreed on it.
+		 */
+		Decoder( int maxSize ) {
+			this.maxSize = maxSize;
+		}
+
+		int tableSize() {
+			return size;
+		}
+
+		private int readInteger( int prefixBits )
+			throws IOException {
+			int max = (1 << prefixBits) - 1;
+			int value = block[ position++ ] & max;
+			if( value < max ) {
+				return value;
+			}
+			int shift = 0;
+			int b;
+			do {
+				if( position >= block.length || shift > 21 ) {
+					throw new IOException( "[http2] Malformed HPACK integer" );
+				}
+				b = block[ position++ ] & 0xFF;
+				value += (b & 0x7F) << shift;
+				shift += 7;
+			} while( (b & 0x80) != 0 );
+			return value;
+		}
+
+		private String readString()
+			throws IOException {
+			if( position >= block.length ) {
+				throw new IOException( "[http2] Truncated HPACK string" );
+			}
+			boolean huffman = (block[ position ] & 0x80) != 0;
+			int length = readInteger( 7 );
+			if( length > block.length - position ) {
+				throw new IOException( "[http2] Truncated HPACK string" );
+			}
+			String s = huffman
+				? decodeHuffman( block, position, length )
+				: new String( block, position, length, StandardCharsets.ISO_8859_1 );
+			position += length;
+			return s;
+		}
+
+		private static String decodeHuffman( byte[] bytes, int offset, int length )
+			throws IOException {
+			StringBuilder builder = new StringBuilder( length * 8 / 5 );
+			int node = 0;
+			int padding = 0;
+			boolean ones = true;
+			for( int i = offset; i < offset + length; i++ ) {
+				for( int bit = 7; bit >= 0; bit-- ) {
+					int b = (bytes[ i ] >>> bit) & 1;
+					int next = HUFFMAN_TREE[ 2 * node + b ];
+					if( next < 0 ) {
+						int symbol = -next - 1;
+						if( symbol == HUFFMAN_EOS ) {
+							throw new IOException( "[http2] Huffman-encoded string contains EOS" );
+						}
+						builder.append( (char) symbol );
+						node = 0;
+						padding = 0;
+						ones = true;
+					} else {
+						node = next;
+						padding++;
+						ones &= b == 1;
+					}
+				}
+			}
+			if( padding > 7 || !ones ) {
+				throw new IOException( "[http2] Invalid Huffman padding" );
+			}
+			return builder.toString();
+		}
+
+		private String[] get( int index )
+			throws IOException {
+			if( index > 0 && index <= STATIC_TABLE.length ) {
+				return STATIC_TABLE[ index - 1 ];
+			}
+			int i = table.size() - 1 - (index - STATIC_TABLE.length - 1);
+			if( index <= 0 || i < 0 ) {
+				throw new IOException( "[http2] Invalid HPACK table index " + index );
+			}
+			return table.get( i );
+		}
+
+		private void evict() {
+			while( !table.isEmpty() && size > maxSize ) {
+				String[] entry = table.remove( 0 );
+				size -= entrySize( entry[ 0 ], entry[ 1 ] );
+			}
+		}
+
+		private void insert( String name, String value ) {
+			table.add( new String[] { name, value } );
+			size += entrySize( name, value );
+			evict();
+		}
+
+		private String readName( int prefixBits )
+			throws IOException {
+			int index = readInteger( prefixBits );
+			return index == 0 ? readString() : get( index )[ 0 ];
+		}
+
+		public List< String[] > decode( byte[] block )
+			throws IOException {
+			this.block = block;
+			this.position = 0;
+			List< String[] > headers = new ArrayList<>();
+			try {
+				while( position < block.length ) {
+					int b = block[ position ] & 0xFF;
+					if( (b & 0x80) != 0 ) {
+						headers.add( get( readInteger( 7 ) ) );
+					} else if( (b & 0x40) != 0 ) {
+						String name = readName( 6 );
+						String value = readString();
+						headers.add( new String[] { name, value } );
+						insert( name, value );
+					} else if( (b & 0x20) != 0 ) {
+						int newMaxSize = readInteger( 5 );
+						if( newMaxSize > DEFAULT_TABLE_SIZE ) {
+							throw new IOException( "[http2] HPACK table size update exceeds the allowed maximum" );
+						}
+						maxSize = newMaxSize;
+						evict();
+					} else {
+						String name = readName( 4 );
+						headers.add( new String[] { name, readString() } );
+					}
+				}
+			} catch( ArrayIndexOutOfBoundsException e ) {
+				throw new IOException( "[http2] Truncated HPACK header block" );
+			} finally {
+				this.block = null;
+			}
+			return headers;
+		}
+	}
+}
@@ -0,0 +1,809 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import jolie.net.ChannelClosingException;
+import jolie.net.CommMessage;
+
+/**
+ * An HTTP/2 connection (RFC 9113), used by the http protocol in place of HTTP/1.1 framing.
+ *
+ * Each stream carries one request and its response, and is bound to the id of the Jolie request it
+ * was opened for. Several requests can therefore be in flight on the same connection: responses are
+ * returned by {@link #readMessage} together with the request id they answer, in whatever order the
+ * peer completes them. Received streams are turned into {@link HttpMessage} instances directly, and
+ * outgoing messages are taken as the header lines and body produced by the http protocol.
+ *
+ * Reading is meant to be done by one thread at a time, while writing can happen concurrently from
+ * other threads. Sending never blocks on flow control: data that does not fit in the windows of the
+ * peer is kept here and written out while reading the WINDOW_UPDATE frames that open them.
+ *
+ * @author Fabrizio Montesi
+ */
+public class Http2Connection {
+	private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes( StandardCharsets.ISO_8859_1 );
+	private static final byte[] EMPTY = new byte[ 0 ];
+	private static final Pattern LINE_SPLIT_PATTERN = Pattern.compile( HttpUtils.CRLF );
+
+	private static final int FRAME_HEADER_LENGTH = 9;
+	private static final int DEFAULT_WINDOW_SIZE = 65535;
+	private static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+	private static final int MAX_FRAME_SIZE_LIMIT = (1 << 24) - 1;
+	private static final int LOCAL_WINDOW_SIZE = 1 << 20;
+
+	private static class FrameTypes {
+		private static final int DATA = 0x0;
+		private static final int HEADERS = 0x1;
+		private static final int RST_STREAM = 0x3;
+		private static final int SETTINGS = 0x4;
+		private static final int PUSH_PROMISE = 0x5;
+		private static final int PING = 0x6;
+		private static final int GOAWAY = 0x7;
+		private static final int WINDOW_UPDATE = 0x8;
+		private static final int CONTINUATION = 0x9;
+	}
+
+	private static class Flags {
+		private static final int END_STREAM = 0x1;
+		private static final int ACK = 0x1;
+		private static final int END_HEADERS = 0x4;
+		private static final int PADDED = 0x8;
+		private static final int PRIORITY = 0x20;
+	}
+
+	private static class Settings {
+		private static final int HEADER_TABLE_SIZE = 0x1;
+		private static final int ENABLE_PUSH = 0x2;
+		private static final int INITIAL_WINDOW_SIZE = 0x4;
+		private static final int MAX_FRAME_SIZE = 0x5;
+	}
+
+	private static class ErrorCodes {
+		private static final int CANCEL = 0x8;
+	}
+
+	// Connection-specific header fields, which are not allowed in HTTP/2 (RFC 9113, Section 8.2.2)
+	private static final Set< String > CONNECTION_HEADERS = new HashSet<>( Arrays.asList(
+		"connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade", "te" ) );
+
+	/**
+	 * A message received on a stream.
+	 */
+	public static class Message {
+		private final long requestId;
+		private final String operationName;
+		private final HttpMessage message;
+		private final IOException error;
+
+		private Message( long requestId, String operationName, HttpMessage message, IOException error ) {
+			this.requestId = requestId;
+			this.operationName = operationName;
+			this.message = message;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the id of the request this message belongs to: the id passed to
+		 * {@link Http2Connection#writeMessage} for responses, a fresh id for requests.
+		 */
+		public long requestId() {
+			return requestId;
+		}
+
+		/**
+		 * Returns the operation of the request this message is the response to, or <code>null</code> for
+		 * requests.
+		 */
+		public String operationName() {
+			return operationName;
+		}
+
+		/**
+		 * Returns the received message, or <code>null</code> if the stream failed.
+		 */
+		public HttpMessage message() {
+			return message;
+		}
+
+		/**
+		 * Returns why the stream failed, or <code>null</code> if a message was received.
+		 */
+		public IOException error() {
+			return error;
+		}
+	}
+
+	private static class Stream {
+		final int id;
+		long requestId = CommMessage.GENERIC_REQUEST_ID;
+		String operationName = null;
+		long sendWindow;
+		final List< String[] > headers = new ArrayList<>();
+		final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		ByteArrayOutputStream headerBlock = null;
+		boolean endStream = false;
+		int unacknowledged = 0;
+		byte[] output = null;
+		int outputOffset;
+		IOException error = null;
+
+		private Stream( int id, long sendWindow ) {
+			this.id = id;
+			this.sendWindow = sendWindow;
+		}
+	}
+
+	private final boolean client;
+	private final String scheme;
+	private final Hpack.Encoder encoder = new Hpack.Encoder();
+	private final Hpack.Decoder decoder = new Hpack.Decoder();
+	private final Map< Integer, Stream > streams = new LinkedHashMap<>();
+	// Server side: received requests waiting for their response, by request id
+	private final Map< Long, Stream > pendingResponses = new HashMap<>();
+	// Only used by the reading thread
+	private final byte[] frameHeader = new byte[ FRAME_HEADER_LENGTH ];
+	private Stream continuationStream = null;
+	private boolean started = false;
+	private boolean goingAway = false;
+	private boolean dirty = false;
+	private int nextStreamId = 1;
+	private long sendWindow = DEFAULT_WINDOW_SIZE;
+	private int initialSendWindow = DEFAULT_WINDOW_SIZE;
+	private int maxSendFrameSize = DEFAULT_MAX_FRAME_SIZE;
+	private int unacknowledged = 0;
+
+	/**
+	 * @param client <code>true</code> if this side opened the connection
+	 * @param scheme the value for the :scheme pseudo-header of requests
+	 */
+	public Http2Connection( boolean client, String scheme ) {
+		this.client = client;
+		this.scheme = scheme;
+	}
+
+	/**
+	 * Consumes the HTTP/2 client connection preface, if the stream starts with it.
+	 *
+	 * Reading stops at the first byte that does not match, so this never waits for more data than an
+	 * HTTP/1.1 request would send anyway.
+	 *
+	 * @return <code>null</code> if the connection preface was read, otherwise a stream that returns the
+	 *         same data that <code>istream</code> would have returned before calling this method
+	 */
+	public static InputStream readPreface( InputStream istream )
+		throws IOException {
+		if( istream.markSupported() ) {
+			istream.mark( PREFACE.length );
+			for( byte b : PREFACE ) {
+				if( istream.read() != b ) {
+					istream.reset();
+					return istream;
+				}
+			}
+			return null;
+		}
+
+		for( int i = 0; i < PREFACE.length; i++ ) {
+			int b = istream.read();
+			if( b != PREFACE[ i ] ) {
+				// Give back what we have read, including the mismatching byte
+				int length = b < 0 ? i : i + 1;
+				byte[] read = Arrays.copyOf( PREFACE, length );
+				if( b >= 0 ) {
+					read[ i ] = (byte) b;
+				}
+				return new SequenceInputStream( new ByteArrayInputStream( read ), istream );
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns <code>true</code> if the connection should not be used for new requests, because the peer
+	 * is shutting it down or because the stream identifiers are exhausted.
+	 */
+	public synchronized boolean isClosing() {
+		return goingAway || nextStreamId < 0;
+	}
+
+	/**
+	 * Reads frames until a stream is complete, and returns its message.
+	 *
+	 * On the server side this stops as well when the input stream has no more buffered data, in which
+	 * case <code>null</code> is returned: the connection can then wait for input without holding up the
+	 * responses to the streams that are still open.
+	 */
+	public Message readMessage( InputStream istream, OutputStream ostream )
+		throws IOException {
+		synchronized( this ) {
+			start( ostream );
+			flushIfDirty( ostream );
+		}
+		Stream stream;
+		do {
+			// Wait for the frame without holding up writers
+			int read = istream.read( frameHeader, 0, FRAME_HEADER_LENGTH );
+			if( read < 0 ) {
+				throw new ChannelClosingException( "[http2] Remote host closed connection." );
+			}
+			readFully( istream, frameHeader, read, FRAME_HEADER_LENGTH - read );
+			int length = readInt24( frameHeader, 0 );
+			if( length > DEFAULT_MAX_FRAME_SIZE ) {
+				throw new IOException( "[http2] Frame of " + length + " bytes exceeds the maximum frame size" );
+			}
+			byte[] payload = length == 0 ? EMPTY : new byte[ length ];
+			readFully( istream, payload, 0, length );
+			synchronized( this ) {
+				stream = onFrame( ostream, frameHeader[ 3 ] & 0xFF, frameHeader[ 4 ] & 0xFF,
+					readInt32( frameHeader, 5 ) & 0x7FFFFFFF, payload );
+				flushIfDirty( ostream );
+			}
+		} while( stream == null && (client || istream.available() > 0) );
+
+		return stream == null ? null : toMessage( stream );
+	}
+
+	/**
+	 * Sends a message produced by the http protocol. Requests open a new stream bound to their request
+	 * id, responses are sent on the stream of the request with the same id.
+	 *
+	 * @param requestId the id of the request that is sent or answered
+	 * @param operationName the operation of the request, to be returned with its response
+	 * @param header the start line and the header lines of the message, each terminated by CRLF
+	 * @param content the body of the message, or <code>null</code>
+	 */
+	public void writeMessage( OutputStream ostream, long requestId, String operationName, CharSequence header,
+		byte[] content )
+		throws IOException {
+		String[] lines = LINE_SPLIT_PATTERN.split( header );
+		String[] startLine = lines[ 0 ].split( " ", 3 );
+		if( startLine.length < 2 ) {
+			throw new IOException( "[http2] Malformed outgoing message" );
+		}
+		String authority = null;
+		List< String[] > headers = new ArrayList<>( lines.length + 3 );
+		for( int i = 1; i < lines.length; i++ ) {
+			int colon = lines[ i ].indexOf( ':' );
+			if( colon <= 0 ) {
+				continue;
+			}
+			String name = lines[ i ].substring( 0, colon ).trim().toLowerCase();
+			String value = lines[ i ].substring( colon + 1 ).trim();
+			if( "host".equals( name ) ) {
+				authority = value;
+			} else if( !CONNECTION_HEADERS.contains( name ) ) {
+				headers.add( new String[] { name, value } );
+			}
+		}
+
+		List< String[] > fields = new ArrayList<>( headers.size() + 4 );
+		if( client ) {
+			fields.add( new String[] { ":method", startLine[ 0 ] } );
+			fields.add( new String[] { ":scheme", scheme } );
+			if( authority != null ) {
+				fields.add( new String[] { ":authority", authority } );
+			}
+			fields.add( new String[] { ":path", startLine[ 1 ] } );
+		} else {
+			fields.add( new String[] { ":status", startLine[ 1 ] } );
+		}
+		fields.addAll( headers );
+
+		synchronized( this ) {
+			start( ostream );
+			Stream stream;
+			if( client ) {
+				if( nextStreamId < 0 ) {
+					throw new IOException( "[http2] Stream identifiers exhausted on this connection" );
+				}
+				stream = new Stream( nextStreamId, initialSendWindow );
+				nextStreamId += 2;
+				stream.requestId = requestId;
+				stream.operationName = operationName;
+				streams.put( stream.id, stream );
+			} else {
+				stream = pendingResponses.remove( requestId );
+				if( stream == null ) {
+					// The stream has been reset by the client in the meantime
+					return;
+				}
+			}
+
+			boolean endStream = content == null || content.length == 0;
+			writeHeaders( ostream, stream.id, encoder.encode( fields ), endStream );
+			if( endStream ) {
+				if( !client ) {
+					streams.remove( stream.id );
+				}
+			} else {
+				stream.output = content;
+				stream.outputOffset = 0;
+				writeOutput( ostream );
+			}
+			// The caller flushes
+			dirty = false;
+		}
+	}
+
+	private void flushIfDirty( OutputStream ostream )
+		throws IOException {
+		if( dirty ) {
+			ostream.flush();
+			dirty = false;
+		}
+	}
+
+	private void start( OutputStream ostream )
+		throws IOException {
+		if( !started ) {
+			started = true;
+			if( client ) {
+				ostream.write( PREFACE );
+			}
+			ByteArrayOutputStream settings = new ByteArrayOutputStream();
+			if( client ) {
+				writeSetting( settings, Settings.ENABLE_PUSH, 0 );
+			}
+			writeSetting( settings, Settings.INITIAL_WINDOW_SIZE, LOCAL_WINDOW_SIZE );
+			writeFrame( ostream, FrameTypes.SETTINGS, 0, 0, settings.toByteArray() );
+			writeWindowUpdate( ostream, 0, LOCAL_WINDOW_SIZE - DEFAULT_WINDOW_SIZE );
+		}
+	}
+
+	private Stream onFrame( OutputStream ostream, int type, int flags, int streamId, byte[] payload )
+		throws IOException {
+		if( continuationStream != null && type != FrameTypes.CONTINUATION ) {
+			throw new IOException( "[http2] Expected a CONTINUATION frame" );
+		}
+
+		switch( type ) {
+		case FrameTypes.DATA:
+			return onData( ostream, streamId, flags, payload );
+		case FrameTypes.HEADERS:
+			return onHeaders( ostream, streamId, flags, payload );
+		case FrameTypes.CONTINUATION:
+			return onContinuation( ostream, streamId, flags, payload );
+		case FrameTypes.RST_STREAM:
+			return onReset( streamId, payload );
+		case FrameTypes.SETTINGS:
+			onSettings( ostream, flags, payload );
+			break;
+		case FrameTypes.PING:
+			if( (flags & Flags.ACK) == 0 ) {
+				writeFrame( ostream, FrameTypes.PING, Flags.ACK, 0, payload );
+			}
+			break;
+		case FrameTypes.GOAWAY:
+			goingAway = true;
+			break;
+		case FrameTypes.WINDOW_UPDATE:
+			onWindowUpdate( ostream, streamId, payload );
+			break;
+		case FrameTypes.PUSH_PROMISE:
+			throw new IOException( "[http2] Received PUSH_PROMISE, but server push is disabled" );
+		default:
+			// PRIORITY and unknown frame types are ignored
+			break;
+		}
+		return null;
+	}
+
+	private Stream onData( OutputStream ostream, int streamId, int flags, byte[] payload )
+		throws IOException {
+		int offset = 0;
+		int length = payload.length;
+		if( (flags & Flags.PADDED) != 0 ) {
+			offset = 1;
+			length -= 1 + (payload.length > 0 ? payload[ 0 ] & 0xFF : 0);
+			if( length < 0 ) {
+				throw new IOException( "[http2] Invalid padding in DATA frame" );
+			}
+		}
+
+		// Flow control accounts for the whole frame, even if the stream is gone
+		unacknowledged += payload.length;
+		if( unacknowledged >= LOCAL_WINDOW_SIZE / 2 ) {
+			writeWindowUpdate( ostream, 0, unacknowledged );
+			unacknowledged = 0;
+		}
+
+		Stream stream = streams.get( streamId );
+		if( stream == null || stream.endStream ) {
+			return null;
+		}
+		stream.data.write( payload, offset, length );
+		if( (flags & Flags.END_STREAM) != 0 ) {
+			stream.endStream = true;
+			return complete( ostream, stream );
+		}
+		stream.unacknowledged += payload.length;
+		if( stream.unacknowledged >= LOCAL_WINDOW_SIZE / 2 ) {
+			writeWindowUpdate( ostream, streamId, stream.unacknowledged );
+			stream.unacknowledged = 0;
+		}
+		return null;
+	}
+
+	private Stream onHeaders( OutputStream ostream, int streamId, int flags, byte[] payload )
+		throws IOException {
+		int offset = 0;
+		int end = payload.length;
+		if( (flags & Flags.PADDED) != 0 ) {
+			offset = 1;
+			end -= payload.length > 0 ? payload[ 0 ] & 0xFF : 0;
+		}
+		if( (flags & Flags.PRIORITY) != 0 ) {
+			offset += 5;
+		}
+		if( offset > end ) {
+			throw new IOException( "[http2] Malformed HEADERS frame" );
+		}
+
+		Stream stream = streams.get( streamId );
+		if( stream == null ) {
+			// Unknown streams are decoded anyway, to keep the HPACK state in sync
+			stream = new Stream( streamId, initialSendWindow );
+			if( !client && streamId % 2 == 1 ) {
+				streams.put( streamId, stream );
+			}
+		}
+		stream.headerBlock = new ByteArrayOutputStream();
+		stream.headerBlock.write( payload, offset, end - offset );
+		if( (flags & Flags.END_STREAM) != 0 ) {
+			stream.endStream = true;
+		}
+		if( (flags & Flags.END_HEADERS) != 0 ) {
+			return onHeaderBlock( ostream, stream );
+		}
+		continuationStream = stream;
+		return null;
+	}
+
+	private Stream onContinuation( OutputStream ostream, int streamId, int flags, byte[] payload )
+		throws IOException {
+		Stream stream = continuationStream;
+		if( stream == null || stream.id != streamId ) {
+			throw new IOException( "[http2] Unexpected CONTINUATION frame" );
+		}
+		stream.headerBlock.write( payload, 0, payload.length );
+		if( (flags & Flags.END_HEADERS) != 0 ) {
+			continuationStream = null;
+			return onHeaderBlock( ostream, stream );
+		}
+		return null;
+	}
+
+	private Stream onHeaderBlock( OutputStream ostream, Stream stream )
+		throws IOException {
+		List< String[] > fields = decoder.decode( stream.headerBlock.toByteArray() );
+		stream.headerBlock = null;
+		if( streams.get( stream.id ) != stream ) {
+			return null;
+		}
+		if( client && !stream.endStream ) {
+			for( String[] field : fields ) {
+				if( ":status".equals( field[ 0 ] ) && field[ 1 ].startsWith( "1" ) ) {
+					// Informational response, the final one follows
+					return null;
+				}
+			}
+		}
+		stream.headers.addAll( fields );
+		return stream.endStream ? complete( ostream, stream ) : null;
+	}
+
+	private Stream complete( OutputStream ostream, Stream stream )
+		throws IOException {
+		if( client ) {
+			streams.remove( stream.id );
+			if( stream.output != null ) {
+				// The response arrived before we finished sending the request
+				writeReset( ostream, stream.id, ErrorCodes.CANCEL );
+			}
+		} else {
+			stream.requestId = CommMessage.getNewRequestId();
+			pendingResponses.put( stream.requestId, stream );
+		}
+		return stream;
+	}
+
+	private Stream onReset( int streamId, byte[] payload ) {
+		Stream stream = streams.remove( streamId );
+		if( stream == null ) {
+			return null;
+		}
+		if( continuationStream == stream ) {
+			continuationStream = null;
+		}
+		if( !client ) {
+			pendingResponses.remove( stream.requestId );
+			return null;
+		}
+		// Only the request on this stream fails, the others go on
+		int errorCode = payload.length >= 4 ? readInt32( payload, 0 ) : 0;
+		stream.error = new IOException( "[http2] Stream " + streamId + " was reset by the server (error code "
+			+ errorCode + ")" );
+		return stream;
+	}
+
+	private void onSettings( OutputStream ostream, int flags, byte[] payload )
+		throws IOException {
+		if( (flags & Flags.ACK) != 0 ) {
+			return;
+		}
+		if( payload.length % 6 != 0 ) {
+			throw new IOException( "[http2] Malformed SETTINGS frame" );
+		}
+		for( int i = 0; i < payload.length; i += 6 ) {
+			int id = ((payload[ i ] & 0xFF) << 8) | (payload[ i + 1 ] & 0xFF);
+			int value = readInt32( payload, i + 2 );
+			switch( id ) {
+			case Settings.HEADER_TABLE_SIZE:
+				encoder.setMaxTableSize( value < 0 ? Integer.MAX_VALUE : value );
+				break;
+			case Settings.INITIAL_WINDOW_SIZE:
+				if( value < 0 ) {
+					throw new IOException( "[http2] Invalid initial window size" );
+				}
+				for( Stream stream : streams.values() ) {
+					stream.sendWindow += value - initialSendWindow;
+				}
+				initialSendWindow = value;
+				break;
+			case Settings.MAX_FRAME_SIZE:
+				if( value < DEFAULT_MAX_FRAME_SIZE || value > MAX_FRAME_SIZE_LIMIT ) {
+					throw new IOException( "[http2] Invalid maximum frame size" );
+				}
+				maxSendFrameSize = value;
+				break;
+			default:
+				break;
+			}
+		}
+		writeFrame( ostream, FrameTypes.SETTINGS, Flags.ACK, 0, EMPTY );
+		writeOutput( ostream );
+	}
+
+	private void onWindowUpdate( OutputStream ostream, int streamId, byte[] payload )
+		throws IOException {
+		if( payload.length != 4 ) {
+			throw new IOException( "[http2] Malformed WINDOW_UPDATE frame" );
+		}
+		int increment = readInt32( payload, 0 ) & 0x7FFFFFFF;
+		if( streamId == 0 ) {
+			sendWindow += increment;
+		} else {
+			Stream stream = streams.get( streamId );
+			if( stream == null ) {
+				return;
+			}
+			stream.sendWindow += increment;
+		}
+		writeOutput( ostream );
+	}
+
+	/*
+	 * Writes as much pending DATA as the flow-control windows allow.
+	 */
+	private void writeOutput( OutputStream ostream )
+		throws IOException {
+		Iterator< Stream > it = streams.values().iterator();
+		while( it.hasNext() && sendWindow > 0 ) {
+			Stream stream = it.next();
+			if( stream.output == null ) {
+				continue;
+			}
+			int remaining = stream.output.length - stream.outputOffset;
+			while( remaining > 0 && sendWindow > 0 && stream.sendWindow > 0 ) {
+				int length = (int) Math.min( Math.min( remaining, maxSendFrameSize ),
+					Math.min( sendWindow, stream.sendWindow ) );
+				remaining -= length;
+				writeFrame( ostream, FrameTypes.DATA, remaining == 0 ? Flags.END_STREAM : 0, stream.id,
+					stream.output, stream.outputOffset, length );
+				stream.outputOffset += length;
+				sendWindow -= length;
+				stream.sendWindow -= length;
+			}
+			if( remaining == 0 ) {
+				stream.output = null;
+				if( !client ) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	private Message toMessage( Stream stream )
+		throws IOException {
+		if( stream.error != null ) {
+			return new Message( stream.requestId, stream.operationName, null, stream.error );
+		}
+
+		String method = null, path = null, status = null, authority = null;
+		List< String[] > fields = new ArrayList<>( stream.headers.size() );
+		for( String[] field : stream.headers ) {
+			String name = field[ 0 ];
+			String value = field[ 1 ];
+			if( name.indexOf( '\r' ) >= 0 || name.indexOf( '\n' ) >= 0 || value.indexOf( '\r' ) >= 0
+				|| value.indexOf( '\n' ) >= 0 ) {
+				throw new IOException( "[http2] Invalid character in header field " + name );
+			}
+			if( name.startsWith( ":" ) ) {
+				switch( name ) {
+				case ":method":
+					method = value;
+					break;
+				case ":path":
+					path = value;
+					break;
+				case ":status":
+					status = value;
+					break;
+				case ":authority":
+					authority = value;
+					break;
+				default:
+					break;
+				}
+			} else {
+				fields.add( field );
+			}
+		}
+
+		HttpMessage message;
+		if( client ) {
+			if( status == null ) {
+				throw new IOException( "[http2] Response without :status" );
+			}
+			message = new HttpMessage( HttpMessage.Type.RESPONSE );
+			try {
+				message.setStatusCode( Integer.parseInt( status ) );
+			} catch( NumberFormatException e ) {
+				throw new IOException( "[http2] Invalid :status " + status );
+			}
+		} else {
+			if( method == null || path == null ) {
+				throw new IOException( "[http2] Request without :method or :path" );
+			}
+			message = HttpParser.newRequest( method );
+			if( message == null ) {
+				throw new UnsupportedMethodException( "Unknown/Unsupported HTTP request type: " + method );
+			}
+			message.setVersion( HttpMessage.Version.HTTP_1_1 );
+			message.setRequestPath( URLDecoder.decode( path, HttpUtils.URL_DECODER_ENC ) );
+			if( authority != null ) {
+				message.setProperty( "host", authority );
+			}
+		}
+		for( String[] field : fields ) {
+			HttpParser.setHeaderProperty( message, field[ 0 ], field[ 1 ] );
+		}
+		message.setContent( HttpParser.decodeContent( message, stream.data.toByteArray() ) );
+		return new Message( stream.requestId, stream.operationName, message, null );
+	}
+
+	private void writeHeaders( OutputStream ostream, int streamId, byte[] block, boolean endStream )
+		throws IOException {
+		int offset = 0;
+		int type = FrameTypes.HEADERS;
+		do {
+			int length = Math.min( block.length - offset, maxSendFrameSize );
+			int flags = offset + length == block.length ? Flags.END_HEADERS : 0;
+			if( type == FrameTypes.HEADERS && endStream ) {
+				flags |= Flags.END_STREAM;
+			}
+			writeFrame( ostream, type, flags, streamId, block, offset, length );
+			offset += length;
+			type = FrameTypes.CONTINUATION;
+		} while( offset < block.length );
+	}
+
+	private void writeWindowUpdate( OutputStream ostream, int streamId, int increment )
+		throws IOException {
+		byte[] payload = new byte[ 4 ];
+		writeInt32( payload, 0, increment );
+		writeFrame( ostream, FrameTypes.WINDOW_UPDATE, 0, streamId, payload );
+	}
+
+	private void writeReset( OutputStream ostream, int streamId, int errorCode )
+		throws IOException {
+		byte[] payload = new byte[ 4 ];
+		writeInt32( payload, 0, errorCode );
+		writeFrame( ostream, FrameTypes.RST_STREAM, 0, streamId, payload );
+	}
+
+	private static void writeSetting( ByteArrayOutputStream out, int id, int value ) {
+		out.write( id >>> 8 );
+		out.write( id );
+		byte[] b = new byte[ 4 ];
+		writeInt32( b, 0, value );
+		out.write( b, 0, 4 );
+	}
+
+	private void writeFrame( OutputStream ostream, int type, int flags, int streamId, byte[] payload )
+		throws IOException {
+		writeFrame( ostream, type, flags, streamId, payload, 0, payload.length );
+	}
+
+	private void writeFrame( OutputStream ostream, int type, int flags, int streamId, byte[] payload, int offset,
+		int length )
+		throws IOException {
+		byte[] header = new byte[ FRAME_HEADER_LENGTH ];
+		header[ 0 ] = (byte) (length >>> 16);
+		header[ 1 ] = (byte) (length >>> 8);
+		header[ 2 ] = (byte) length;
+		header[ 3 ] = (byte) type;
+		header[ 4 ] = (byte) flags;
+		writeInt32( header, 5, streamId );
+		ostream.write( header );
+		ostream.write( payload, offset, length );
+		dirty = true;
+	}
+
+	private static int readInt24( byte[] b, int offset ) {
+		return ((b[ offset ] & 0xFF) << 16) | ((b[ offset + 1 ] & 0xFF) << 8) | (b[ offset + 2 ] & 0xFF);
+	}
+
+	private static int readInt32( byte[] b, int offset ) {
+		return ((b[ offset ] & 0xFF) << 24) | ((b[ offset + 1 ] & 0xFF) << 16) | ((b[ offset + 2 ] & 0xFF) << 8)
+			| (b[ offset + 3 ] & 0xFF);
+	}
+
+	private static void writeInt32( byte[] b, int offset, int value ) {
+		b[ offset ] = (byte) (value >>> 24);
+		b[ offset + 1 ] = (byte) (value >>> 16);
+		b[ offset + 2 ] = (byte) (value >>> 8);
+		b[ offset + 3 ] = (byte) value;
+	}
+
+	private static void readFully( InputStream istream, byte[] buffer, int offset, int length )
+		throws IOException {
+		while( length > 0 ) {
+			int read = istream.read( buffer, offset, length );
+			if( read < 0 ) {
+				throw new EOFException( "[http2] Unexpected end of stream" );
+			}
+			offset += read;
+			length -= read;
+		}
+	}
+}
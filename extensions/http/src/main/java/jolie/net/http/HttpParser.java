@@ -83,41 +83,49 @@ public class HttpParser {
 		throws IOException {
 		String name, value;
 		nextToken();
-		HttpMessage.Cookie cookie;
 		while( token.is( Scanner.TokenType.ID ) ) {
 			name = token.content().toLowerCase();
 			nextToken();
 			tokenAssert( Scanner.TokenType.COLON );
 			value = scanner.readLine();
-			switch( name ) {
-			case "set-cookie":
-				// cookie = parseSetCookie( value );
-				if( (cookie = parseSetCookie( value )) != null ) {
-					message.addSetCookie( cookie );
-				}
-				break;
-			case "cookie":
-				String[] ss = value.split( ";" );
-				for( String s : ss ) {
-					String[] nv = s.trim().split( "=", 2 );
-					if( nv.length > 1 ) {
-						message.addCookie( nv[ 0 ], nv[ 1 ] );
-					}
+			setHeaderProperty( message, name, value );
+			nextToken();
+		}
+	}
+
+	/**
+	 * Adds a received header field to a message.
+	 *
+	 * @param name the lowercase name of the field
+	 */
+	static void setHeaderProperty( HttpMessage message, String name, String value ) {
+		HttpMessage.Cookie cookie;
+		switch( name ) {
+		case "set-cookie":
+			if( (cookie = parseSetCookie( value )) != null ) {
+				message.addSetCookie( cookie );
+			}
+			break;
+		case "cookie":
+			String[] ss = value.split( ";" );
+			for( String s : ss ) {
+				String[] nv = s.trim().split( "=", 2 );
+				if( nv.length > 1 ) {
+					message.addCookie( nv[ 0 ], nv[ 1 ] );
 				}
-				break;
-			case "user-agent":
-				message.setUserAgent( value );
-				message.setProperty( name, value );
-				break;
-			default:
-				message.setProperty( name, value );
-				break;
 			}
-			nextToken();
+			break;
+		case "user-agent":
+			message.setUserAgent( value );
+			message.setProperty( name, value );
+			break;
+		default:
+			message.setProperty( name, value );
+			break;
 		}
 	}
 
-	private HttpMessage.Cookie parseSetCookie( String cookieString ) {
+	private static HttpMessage.Cookie parseSetCookie( String cookieString ) {
 		String[] ss = COOKIES_SPLIT_PATTERN.split( cookieString );
 		if( cookieString.isEmpty() == false && ss.length > 0 ) {
 			boolean secure = false;
@@ -158,25 +166,12 @@ public class HttpParser {
 
 	private HttpMessage parseRequest()
 		throws IOException {
-		HttpMessage message = null;
-		if( token.isKeyword( GET ) ) {
-			message = new HttpMessage( HttpMessage.Type.GET );
-		} else if( token.isKeyword( POST ) ) {
-			message = new HttpMessage( HttpMessage.Type.POST );
-		} else if( token.isKeyword( HEAD ) ) {
-			message = new HttpMessage( HttpMessage.Type.HEAD );
-		} else if( token.isKeyword( DELETE ) ) {
-			message = new HttpMessage( HttpMessage.Type.DELETE );
-		} else if( token.isKeyword( PUT ) ) {
-			message = new HttpMessage( HttpMessage.Type.PUT );
-		} else if( token.isKeyword( PATCH ) ) {
-			message = new HttpMessage( HttpMessage.Type.PATCH );
-		} else if( token.isKeyword( OPTIONS ) ) {
-			message = new HttpMessage( HttpMessage.Type.OPTIONS );
-		} else if( token.is( Scanner.TokenType.EOF ) ) {
-			// It's not a real message, the client is just closing a connection.
-			throw new ChannelClosingException( "[http] Remote host closed connection." );
-		} else {
+		HttpMessage message = token.is( Scanner.TokenType.ID ) ? newRequest( token.content() ) : null;
+		if( message == null ) {
+			if( token.is( Scanner.TokenType.EOF ) ) {
+				// It's not a real message, the client is just closing a connection.
+				throw new ChannelClosingException( "[http] Remote host closed connection." );
+			}
 			throw new UnsupportedMethodException( "Unknown/Unsupported HTTP request type: "
 				+ token.content() + "(" + token.type() + ")" );
 		}
@@ -201,6 +196,32 @@ public class HttpParser {
 		return message;
 	}
 
+	/**
+	 * Creates an empty request message for the given method.
+	 *
+	 * @return the request message, or <code>null</code> if the method is not supported
+	 */
+	static HttpMessage newRequest( String method ) {
+		switch( method ) {
+		case GET:
+			return new HttpMessage( HttpMessage.Type.GET );
+		case POST:
+			return new HttpMessage( HttpMessage.Type.POST );
+		case HEAD:
+			return new HttpMessage( HttpMessage.Type.HEAD );
+		case DELETE:
+			return new HttpMessage( HttpMessage.Type.DELETE );
+		case PUT:
+			return new HttpMessage( HttpMessage.Type.PUT );
+		case PATCH:
+			return new HttpMessage( HttpMessage.Type.PATCH );
+		case OPTIONS:
+			return new HttpMessage( HttpMessage.Type.OPTIONS );
+		default:
+			return null;
+		}
+	}
+
 	private HttpMessage parseMessageType()
 		throws IOException {
 		if( token.isKeywordIgnoreCase( HTTP ) ) {
@@ -336,19 +357,26 @@ public class HttpParser {
 		}
 
 		if( buffer != null ) {
-			p = message.getProperty( "content-encoding" );
-			if( p != null ) {
-				if( p.contains( "deflate" ) ) {
-					buffer = readAll( new InflaterInputStream( new ByteArrayInputStream( buffer ) ) );
-				} else if( p.contains( "gzip" ) ) {
-					buffer = readAll( new GZIPInputStream( new ByteArrayInputStream( buffer ) ) );
-				} else if( !p.equals( "identity" ) ) {
-					throw new UnsupportedEncodingException( "Unrecognized Content-Encoding: " + p );
-				}
-			}
+			message.setContent( decodeContent( message, buffer ) );
+		}
+	}
 
-			message.setContent( buffer );
+	/**
+	 * Undoes the Content-Encoding of a message body.
+	 */
+	static byte[] decodeContent( HttpMessage message, byte[] buffer )
+		throws IOException {
+		String p = message.getProperty( "content-encoding" );
+		if( p != null ) {
+			if( p.contains( "deflate" ) ) {
+				return readAll( new InflaterInputStream( new ByteArrayInputStream( buffer ) ) );
+			} else if( p.contains( "gzip" ) ) {
+				return readAll( new GZIPInputStream( new ByteArrayInputStream( buffer ) ) );
+			} else if( !p.equals( "identity" ) ) {
+				throw new UnsupportedEncodingException( "Unrecognized Content-Encoding: " + p );
+			}
 		}
+		return buffer;
 	}
 
 	public HttpMessage parse()
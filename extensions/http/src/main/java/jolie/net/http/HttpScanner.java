@@ -101,8 +101,22 @@ public class HttpScanner {
 
 	public void eatSeparatorsUntilEOF()
 		throws IOException {
-		while( Scanner.isSeparator( ch ) && stream.available() > 0 ) {
-			readChar();
+		if( stream.markSupported() ) {
+			// Look ahead without consuming the first character of a following (pipelined) message
+			while( stream.available() > 0 ) {
+				stream.mark( 1 );
+				final int c = stream.read();
+				if( c == -1 || !Scanner.isSeparator( (char) c ) ) {
+					stream.reset();
+					return;
+				}
+				currInt = c;
+				ch = (char) c;
+			}
+		} else {
+			while( Scanner.isSeparator( ch ) && stream.available() > 0 ) {
+				readChar();
+			}
 		}
 	}
 
@@ -89,6 +89,20 @@ public class HttpUtils {
 
 	private static void errorGenerator( OutputStream ostream, IOException e ) throws IOException {
 		StringBuilder httpMessage = new StringBuilder();
+		byte[] content = errorResponse( e, httpMessage );
+		ostream.write( httpMessage.toString().getBytes( StandardCharsets.UTF_8 ) );
+		ostream.write( content );
+		ostream.flush();
+	}
+
+	/**
+	 * Builds the response reporting an error in handling a request.
+	 *
+	 * @param e the error
+	 * @param httpMessage where the status line and the headers of the response are appended
+	 * @return the body of the response
+	 */
+	public static byte[] errorResponse( IOException e, StringBuilder httpMessage ) {
 		if( e instanceof UnsupportedEncodingException ) {
 			httpMessage.append( "HTTP/1.1 415 Unsupported Media Type" ).append( CRLF );
 		} else if( e instanceof UnsupportedMethodException ) {
@@ -110,13 +124,11 @@ public class HttpUtils {
 			httpMessage.append( "HTTP/1.1 500 Internal Server Error" ).append( CRLF );
 		}
 		String message = e.getMessage() != null ? e.getMessage() : e.toString();
-		ByteArray content = new ByteArray( message.getBytes( StandardCharsets.UTF_8 ) );
+		byte[] content = message.getBytes( StandardCharsets.UTF_8 );
 		httpMessage.append( "Server: Jolie" ).append( CRLF )
 			.append( "Content-Type: text/plain; charset=utf-8" ).append( CRLF )
-			.append( "Content-Length: " ).append( content.size() ).append( CRLF ).append( CRLF );
-		ostream.write( httpMessage.toString().getBytes( StandardCharsets.UTF_8 ) );
-		ostream.write( content.getBytes() );
-		ostream.flush();
+			.append( "Content-Length: " ).append( content.length ).append( CRLF ).append( CRLF );
+		return content;
 	}
 
 	public interface HttpProtocol {
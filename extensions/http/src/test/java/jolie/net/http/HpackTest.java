@@ -0,0 +1,252 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the HPACK implementation against the examples of RFC 7541, Appendix C.
+ */
+public class HpackTest {
+	private static final int EXAMPLE_TABLE_SIZE = 256;
+
+	private static byte[] hex( String s ) {
+		s = s.replace( " ", "" );
+		byte[] bytes = new byte[ s.length() / 2 ];
+		for( int i = 0; i < bytes.length; i++ ) {
+			bytes[ i ] = (byte) Integer.parseInt( s.substring( 2 * i, 2 * i + 2 ), 16 );
+		}
+		return bytes;
+	}
+
+	private static List< String[] > headers( String... nameValues ) {
+		List< String[] > headers = new ArrayList<>();
+		for( int i = 0; i < nameValues.length; i += 2 ) {
+			headers.add( new String[] { nameValues[ i ], nameValues[ i + 1 ] } );
+		}
+		return headers;
+	}
+
+	private static void assertHeaders( List< String[] > expected, List< String[] > actual ) {
+		assertEquals( expected.size(), actual.size() );
+		for( int i = 0; i < expected.size(); i++ ) {
+			assertArrayEquals( expected.get( i ), actual.get( i ) );
+		}
+	}
+
+	private static void checkDecoding( Hpack.Decoder decoder, String block, List< String[] > expected,
+		int tableSize )
+		throws IOException {
+		assertHeaders( expected, decoder.decode( hex( block ) ) );
+		assertEquals( tableSize, decoder.tableSize() );
+	}
+
+	private static void checkEncoding( Hpack.Encoder encoder, List< String[] > headers, String block,
+		int tableSize ) {
+		assertArrayEquals( hex( block ), encoder.encode( headers ) );
+		assertEquals( tableSize, encoder.tableSize() );
+	}
+
+	private static final List< String[] > REQUEST_1 = headers(
+		":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com" );
+	private static final List< String[] > REQUEST_2 = headers(
+		":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+		"cache-control", "no-cache" );
+	private static final List< String[] > REQUEST_3 = headers(
+		":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com",
+		"custom-key", "custom-value" );
+
+	private static final List< String[] > RESPONSE_1 = headers(
+		":status", "302", "cache-control", "private", "date", "Mon, 21 Oct 2013 20:13:21 GMT",
+		"location", "https://www.example.com" );
+	private static final List< String[] > RESPONSE_2 = headers(
+		":status", "307", "cache-control", "private", "date", "Mon, 21 Oct 2013 20:13:21 GMT",
+		"location", "https://www.example.com" );
+	private static final List< String[] > RESPONSE_3 = headers(
+		":status", "200", "cache-control", "private", "date", "Mon, 21 Oct 2013 20:13:22 GMT",
+		"location", "https://www.example.com", "content-encoding", "gzip",
+		"set-cookie", "foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1" );
+
+	// C.2
+	@Test
+	public void decodeHeaderFieldRepresentations()
+		throws IOException {
+		checkDecoding( new Hpack.Decoder(),
+			"400a 6375 7374 6f6d 2d6b 6579 0d63 7573 746f 6d2d 6865 6164 6572",
+			headers( "custom-key", "custom-header" ), 55 );
+		checkDecoding( new Hpack.Decoder(), "040c 2f73 616d 706c 652f 7061 7468",
+			headers( ":path", "/sample/path" ), 0 );
+		checkDecoding( new Hpack.Decoder(), "1008 7061 7373 776f 7264 0673 6563 7265 74",
+			headers( "password", "secret" ), 0 );
+		checkDecoding( new Hpack.Decoder(), "82", headers( ":method", "GET" ), 0 );
+	}
+
+	// C.3
+	@Test
+	public void decodeRequestsWithoutHuffman()
+		throws IOException {
+		Hpack.Decoder decoder = new Hpack.Decoder();
+		checkDecoding( decoder, "8286 8441 0f77 7777 2e65 7861 6d70 6c65 2e63 6f6d", REQUEST_1, 57 );
+		checkDecoding( decoder, "8286 84be 5808 6e6f 2d63 6163 6865", REQUEST_2, 110 );
+		checkDecoding( decoder,
+			"8287 85bf 400a 6375 7374 6f6d 2d6b 6579 0c63 7573 746f 6d2d 7661 6c75 65", REQUEST_3, 164 );
+	}
+
+	// C.4
+	private static final String[] HUFFMAN_REQUESTS = {
+		"8286 8441 8cf1 e3c2 e5f2 3a6b a0ab 90f4 ff",
+		"8286 84be 5886 a8eb 1064 9cbf",
+		"8287 85bf 4088 25a8 49e9 5ba9 7d7f 8925 a849 e95b b8e8 b4bf"
+	};
+
+	@Test
+	public void encodeRequestsWithHuffman() {
+		Hpack.Encoder encoder = new Hpack.Encoder();
+		checkEncoding( encoder, REQUEST_1, HUFFMAN_REQUESTS[ 0 ], 57 );
+		checkEncoding( encoder, REQUEST_2, HUFFMAN_REQUESTS[ 1 ], 110 );
+		checkEncoding( encoder, REQUEST_3, HUFFMAN_REQUESTS[ 2 ], 164 );
+	}
+
+	@Test
+	public void decodeRequestsWithHuffman()
+		throws IOException {
+		Hpack.Decoder decoder = new Hpack.Decoder();
+		checkDecoding( decoder, HUFFMAN_REQUESTS[ 0 ], REQUEST_1, 57 );
+		checkDecoding( decoder, HUFFMAN_REQUESTS[ 1 ], REQUEST_2, 110 );
+		checkDecoding( decoder, HUFFMAN_REQUESTS[ 2 ], REQUEST_3, 164 );
+	}
+
+	// C.5, where the dynamic table is small enough for entries to be evicted
+	@Test
+	public void decodeResponsesWithoutHuffman()
+		throws IOException {
+		Hpack.Decoder decoder = new Hpack.Decoder( EXAMPLE_TABLE_SIZE );
+		checkDecoding( decoder,
+			"4803 3330 3258 0770 7269 7661 7465 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 "
+				+ "3a32 3120 474d 546e 1768 7474 7073 3a2f 2f77 7777 2e65 7861 6d70 6c65 2e63 6f6d",
+			RESPONSE_1, 222 );
+		checkDecoding( decoder, "4803 3330 37c1 c0bf", RESPONSE_2, 222 );
+		checkDecoding( decoder,
+			"88c1 611d 4d6f 6e2c 2032 3120 4f63 7420 3230 3133 2032 303a 3133 3a32 3220 474d 54c0 5a04 677a "
+				+ "6970 7738 666f 6f3d 4153 444a 4b48 514b 425a 584f 5157 454f 5049 5541 5851 5745 4f49 553b "
+				+ "206d 6178 2d61 6765 3d33 3630 303b 2076 6572 7369 6f6e 3d31",
+			RESPONSE_3, 215 );
+	}
+
+	// C.6
+	private static final String[] HUFFMAN_RESPONSES = {
+		"4882 6402 5885 aec3 771a 4b61 96d0 7abe 9410 54d4 44a8 2005 9504 0b81 66e0 82a6 2d1b ff6e 919d 29ad "
+			+ "1718 63c7 8f0b 97c8 e9ae 82ae 43d3",
+		"4883 640e ffc1 c0bf",
+		"88c1 6196 d07a be94 1054 d444 a820 0595 040b 8166 e084 a62d 1bff c05a 839b d9ab 77ad 94e7 821d d7f2 "
+			+ "e6c7 b335 dfdf cd5b 3960 d5af 2708 7f36 72c1 ab27 0fb5 291f 9587 3160 65c0 03ed 4ee5 b106 3d50 07"
+	};
+
+	@Test
+	public void encodeResponsesWithHuffman() {
+		Hpack.Encoder encoder = new Hpack.Encoder( EXAMPLE_TABLE_SIZE );
+		checkEncoding( encoder, RESPONSE_1, HUFFMAN_RESPONSES[ 0 ], 222 );
+		checkEncoding( encoder, RESPONSE_2, HUFFMAN_RESPONSES[ 1 ], 222 );
+		checkEncoding( encoder, RESPONSE_3, HUFFMAN_RESPONSES[ 2 ], 215 );
+	}
+
+	@Test
+	public void decodeResponsesWithHuffman()
+		throws IOException {
+		Hpack.Decoder decoder = new Hpack.Decoder( EXAMPLE_TABLE_SIZE );
+		checkDecoding( decoder, HUFFMAN_RESPONSES[ 0 ], RESPONSE_1, 222 );
+		checkDecoding( decoder, HUFFMAN_RESPONSES[ 1 ], RESPONSE_2, 222 );
+		checkDecoding( decoder, HUFFMAN_RESPONSES[ 2 ], RESPONSE_3, 215 );
+	}
+
+	@Test
+	public void rejectInvalidHuffmanStrings()
+		throws IOException {
+		// Literals with a new name, which is Huffman-encoded in one byte
+		// More than 7 bits of padding
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "0081 ff00" ) ) );
+		// Padding that is not made of the most significant bits of EOS: "a" followed by zeros
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "0081 1800" ) ) );
+		// The EOS symbol itself
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "0084 ffff ffff 00" ) ) );
+		// Sanity check: "a" padded with ones
+		assertHeaders( headers( "a", "" ), new Hpack.Decoder().decode( hex( "0081 1f00" ) ) );
+	}
+
+	@Test
+	public void rejectInvalidIndexes() {
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "80" ) ) );
+		// The dynamic table is empty
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "be" ) ) );
+		// Truncated string
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "4005 6162" ) ) );
+	}
+
+	@Test
+	public void tableSizeUpdates()
+		throws IOException {
+		Hpack.Encoder encoder = new Hpack.Encoder();
+		Hpack.Decoder decoder = new Hpack.Decoder();
+		List< String[] > custom = headers( "custom-key", "custom-header" );
+		decoder.decode( encoder.encode( custom ) );
+		assertEquals( 55, encoder.tableSize() );
+		assertEquals( 55, decoder.tableSize() );
+
+		// The peer shrinks the table: the next block starts with a size update that empties both tables
+		encoder.setMaxTableSize( 0 );
+		assertEquals( 0, encoder.tableSize() );
+		byte[] block = encoder.encode( custom );
+		assertEquals( 0x20, block[ 0 ] & 0xFF );
+		assertHeaders( custom, decoder.decode( block ) );
+		assertEquals( 0, decoder.tableSize() );
+
+		// Updates beyond the maximum we announced are a decoding error
+		assertThrows( IOException.class, () -> new Hpack.Decoder().decode( hex( "3fe2 1f" ) ) );
+	}
+
+	@Test
+	public void staysInSyncWhileEvicting()
+		throws IOException {
+		Hpack.Encoder encoder = new Hpack.Encoder( EXAMPLE_TABLE_SIZE );
+		Hpack.Decoder decoder = new Hpack.Decoder( EXAMPLE_TABLE_SIZE );
+		for( int i = 0; i < 100; i++ ) {
+			List< String[] > block = headers(
+				":status", "200",
+				"x-counter", Integer.toString( i % 7 ),
+				"x-payload", String.join( "", Collections.nCopies( i % 5, "value" ) ),
+				// Entries larger than the table are never stored
+				"x-large", String.join( "", Collections.nCopies( 60, "abcd" ) ),
+				"authorization", "secret" + i );
+			assertHeaders( block, decoder.decode( encoder.encode( block ) ) );
+			assertEquals( encoder.tableSize(), decoder.tableSize() );
+		}
+	}
+}
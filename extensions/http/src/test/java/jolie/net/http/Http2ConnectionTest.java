@@ -0,0 +1,248 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs HTTP/2 connections over a local socket.
+ */
+public class Http2ConnectionTest {
+	private static final String PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n";
+
+	private ServerSocket serverSocket;
+	private Socket clientSocket;
+	private Socket serverSideSocket;
+	private InputStream clientIn;
+	private OutputStream clientOut;
+	private InputStream serverIn;
+	private OutputStream serverOut;
+	private Thread serverThread = null;
+	private final AtomicReference< Throwable > serverError = new AtomicReference<>();
+
+	@Before
+	public void connect()
+		throws IOException {
+		serverSocket = new ServerSocket( 0, 1, InetAddress.getLoopbackAddress() );
+		clientSocket = new Socket( InetAddress.getLoopbackAddress(), serverSocket.getLocalPort() );
+		serverSideSocket = serverSocket.accept();
+		clientIn = new BufferedInputStream( clientSocket.getInputStream() );
+		clientOut = new BufferedOutputStream( clientSocket.getOutputStream() );
+		serverIn = new BufferedInputStream( serverSideSocket.getInputStream() );
+		serverOut = new BufferedOutputStream( serverSideSocket.getOutputStream() );
+	}
+
+	@After
+	public void disconnect()
+		throws Throwable {
+		clientSocket.close();
+		serverSideSocket.close();
+		serverSocket.close();
+		if( serverThread != null ) {
+			serverThread.join( 5000 );
+		}
+		if( serverError.get() != null ) {
+			throw serverError.get();
+		}
+	}
+
+	private static String requestHeader( String path ) {
+		return "POST " + path + " HTTP/1.1\r\n"
+			+ "Host: localhost:8000\r\n"
+			+ "Connection: keep-alive\r\n"
+			+ "Content-Type: text/plain\r\n"
+			+ "Cookie: a=1; b=2\r\n"
+			+ "\r\n";
+	}
+
+	/*
+	 * Answers each batch of requests once it is complete, in reverse order, echoing their bodies.
+	 */
+	private void startServer( int batchSize ) {
+		serverThread = new Thread( () -> {
+			try {
+				assertNull( Http2Connection.readPreface( serverIn ) );
+				Http2Connection server = new Http2Connection( false, "http" );
+				List< Http2Connection.Message > batch = new ArrayList<>();
+				while( true ) {
+					Http2Connection.Message request = server.readMessage( serverIn, serverOut );
+					if( request == null ) {
+						continue;
+					}
+					assertNull( request.operationName() );
+					batch.add( request );
+					if( batch.size() == batchSize ) {
+						for( int i = batch.size() - 1; i >= 0; i-- ) {
+							HttpMessage message = batch.get( i ).message();
+							String header = "HTTP/1.1 200 OK\r\n"
+								+ "Content-Type: text/plain\r\n"
+								+ "X-Path: " + message.requestPath() + "\r\n"
+								+ "X-Host: " + message.getProperty( "host" ) + "\r\n"
+								+ "X-Cookies: " + message.cookies().get( "a" ) + "," + message.cookies().get( "b" )
+								+ "\r\n\r\n";
+							server.writeMessage( serverOut, batch.get( i ).requestId(), null, header,
+								message.content() );
+						}
+						serverOut.flush();
+						batch.clear();
+					}
+				}
+			} catch( IOException e ) {
+				// The client went away
+			} catch( Throwable t ) {
+				serverError.set( t );
+			}
+		} );
+		serverThread.start();
+	}
+
+	@Test
+	public void largeBodiesAreSentWithinFlowControlWindows()
+		throws IOException {
+		startServer( 1 );
+		// Larger than both the initial window (64 KiB) and the maximum frame size (16 KiB)
+		byte[] body = new byte[ 200000 ];
+		for( int i = 0; i < body.length; i++ ) {
+			body[ i ] = (byte) i;
+		}
+
+		Http2Connection client = new Http2Connection( true, "http" );
+		client.writeMessage( clientOut, 42L, "echo", requestHeader( "/some%20path" ), body );
+		clientOut.flush();
+		Http2Connection.Message response = client.readMessage( clientIn, clientOut );
+
+		assertNull( response.error() );
+		assertEquals( 42L, response.requestId() );
+		assertEquals( "echo", response.operationName() );
+		assertEquals( 200, response.message().statusCode() );
+		assertEquals( "/some path", response.message().getProperty( "x-path" ) );
+		assertEquals( "localhost:8000", response.message().getProperty( "x-host" ) );
+		assertEquals( "1,2", response.message().getProperty( "x-cookies" ) );
+		assertArrayEquals( body, response.message().content() );
+	}
+
+	@Test
+	public void responsesAreMatchedToTheirRequests()
+		throws IOException {
+		startServer( 3 );
+		Http2Connection client = new Http2Connection( true, "http" );
+		String[] operations = { "first", "second", "third" };
+		for( int i = 0; i < operations.length; i++ ) {
+			client.writeMessage( clientOut, 10L + i, operations[ i ], requestHeader( "/" + operations[ i ] ),
+				operations[ i ].getBytes( StandardCharsets.UTF_8 ) );
+		}
+		clientOut.flush();
+
+		// The server answers in reverse order
+		for( int i = operations.length - 1; i >= 0; i-- ) {
+			Http2Connection.Message response = client.readMessage( clientIn, clientOut );
+			assertEquals( 10L + i, response.requestId() );
+			assertEquals( operations[ i ], response.operationName() );
+			assertEquals( "/" + operations[ i ], response.message().getProperty( "x-path" ) );
+			assertEquals( operations[ i ], new String( response.message().content(), StandardCharsets.UTF_8 ) );
+		}
+	}
+
+	@Test
+	public void resetStreamsFailOnlyTheirRequest()
+		throws IOException {
+		Http2Connection client = new Http2Connection( true, "http" );
+		client.writeMessage( clientOut, 7L, "reset", requestHeader( "/" ), null );
+		clientOut.flush();
+
+		// RST_STREAM with error code CANCEL on stream 1
+		serverOut.write( new byte[] { 0, 0, 4, 0x3, 0, 0, 0, 0, 1, 0, 0, 0, 0x8 } );
+		serverOut.flush();
+
+		Http2Connection.Message response = client.readMessage( clientIn, clientOut );
+		assertEquals( 7L, response.requestId() );
+		assertEquals( "reset", response.operationName() );
+		assertNull( response.message() );
+		assertNotNull( response.error() );
+		assertFalse( client.isClosing() );
+	}
+
+	private static byte[] readAll( InputStream istream )
+		throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int b;
+		while( (b = istream.read()) >= 0 ) {
+			out.write( b );
+		}
+		return out.toByteArray();
+	}
+
+	private static InputStream withoutMarks( byte[] data ) {
+		return new FilterInputStream( new ByteArrayInputStream( data ) ) {
+			@Override
+			public boolean markSupported() {
+				return false;
+			}
+		};
+	}
+
+	@Test
+	public void prefaceDetection()
+		throws IOException {
+		byte[] http1 = "POST / HTTP/1.1\r\nContent-Length: 0\r\n\r\n".getBytes( StandardCharsets.ISO_8859_1 );
+		byte[] partial = PREFACE.substring( 0, 8 ).getBytes( StandardCharsets.ISO_8859_1 );
+		byte[] http2 = (PREFACE + "frames").getBytes( StandardCharsets.ISO_8859_1 );
+
+		// Streams with marks are reset
+		InputStream istream = new BufferedInputStream( new ByteArrayInputStream( http1 ) );
+		assertSame( istream, Http2Connection.readPreface( istream ) );
+		assertArrayEquals( http1, readAll( istream ) );
+
+		// Other streams are replaced by one that returns the consumed data first
+		assertArrayEquals( http1, readAll( Http2Connection.readPreface( withoutMarks( http1 ) ) ) );
+		assertArrayEquals( partial, readAll( Http2Connection.readPreface( withoutMarks( partial ) ) ) );
+
+		istream = withoutMarks( http2 );
+		assertNull( Http2Connection.readPreface( istream ) );
+		assertArrayEquals( "frames".getBytes( StandardCharsets.ISO_8859_1 ), readAll( istream ) );
+	}
+}
@@ -17,7 +17,7 @@ import jolie.lang.parse.ast.types.BasicTypeDefinition;
 import jolie.net.http.*;
 import jolie.net.ports.Interface;
 import jolie.net.ports.OutputPort;
-import jolie.net.protocols.SequentialCommProtocol;
+import jolie.net.protocols.CommProtocol;
 import jolie.runtime.*;
 import jolie.runtime.typing.BasicType;
 import jolie.runtime.typing.RequestResponseTypeDescription;
@@ -27,9 +27,19 @@ import jolie.util.Range;
 import java.io.*;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -40,7 +50,7 @@ import java.util.Map.Entry;
  *
  *         2014 Matthias Dieter Wallnöfer: conversion to JSONRPC over HTTP
  */
-public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils.HttpProtocol {
+public class JsonRpcProtocol extends CommProtocol implements HttpUtils.HttpProtocol {
 	private final URI uri;
 	private final Interpreter interpreter;
 	private final boolean inInputPort;
@@ -59,9 +69,77 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 	private final static String LSP = "lsp";
 	private final static int INITIAL_CAPACITY = 8;
 	private final static float LOAD_FACTOR = 0.75f;
+	private final static int MAX_PENDING_IDS = 4096;
+	private final static long PENDING_ID_TIMEOUT = TimeUnit.MINUTES.toMillis( 10 );
+
+	/**
+	 * Ids of the messages that are still waiting for a response. Entries are removed when the response
+	 * goes through; those of requests that are never answered are evicted once they expire or the map
+	 * reaches its bound, so that long-lived connections (e.g., LSP) do not accumulate them.
+	 */
+	private static class PendingIdMap< K, V > {
+		private final LinkedHashMap< K, PendingId< V > > map =
+			new LinkedHashMap<>( INITIAL_CAPACITY, LOAD_FACTOR );
+
+		private synchronized void put( K key, V value ) {
+			final long now = System.currentTimeMillis();
+			final Iterator< PendingId< V > > it = map.values().iterator();
+			while( it.hasNext() ) {
+				// entries are in insertion order, so the oldest ones come first
+				if( map.size() < MAX_PENDING_IDS && now - it.next().time < PENDING_ID_TIMEOUT ) {
+					break;
+				}
+				it.remove();
+			}
+			map.remove( key );
+			map.put( key, new PendingId<>( value, now ) );
+		}
+
+		private synchronized V remove( K key ) {
+			final PendingId< V > id = map.remove( key );
+			return id == null ? null : id.value;
+		}
+	}
+
+	private static class PendingId< V > {
+		private final V value;
+		private final long time;
+
+		private PendingId( V value, long time ) {
+			this.value = value;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * The responses collected so far for a JSON-RPC batch request, which are sent together once all of
+	 * them are ready.
+	 */
+	private static class Batch {
+		private final StringJoiner responses = new StringJoiner( ",", "[", "]" );
+		private int missingResponses = 0;
 
-	private final Map< Long, String > jsonRpcIdMap;
-	private final Map< String, String > jsonRpcOpMap;
+		/**
+		 * Adds a response, returning the whole batch response if it was the last one missing.
+		 */
+		private synchronized String add( String response ) {
+			responses.add( response );
+			return --missingResponses > 0 ? null : responses.toString();
+		}
+	}
+
+	private final PendingIdMap< Long, String > jsonRpcIdMap;
+	private final PendingIdMap< String, String > jsonRpcOpMap;
+
+	/*
+	 * The batch state is shared by the receiving thread, the threads sending the responses and the
+	 * selector (hasCachedMessages), which do not all hold the channel lock with LSP.
+	 */
+	// messages of a batch request that have not been returned by recv yet
+	private final Queue< CommMessage > batchMessages = new ConcurrentLinkedQueue<>();
+	private final Map< Long, Batch > batches = new ConcurrentHashMap<>();
+	// request ids given to the notifications of a batch, whose responses are dropped
+	private final Set< Long > batchNotifications = ConcurrentHashMap.newKeySet();
 
 	@Override
 	public String name() {
@@ -76,8 +154,28 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 		this.inInputPort = inInputPort;
 
 		// prepare the two maps
-		this.jsonRpcIdMap = new HashMap<>( INITIAL_CAPACITY, LOAD_FACTOR );
-		this.jsonRpcOpMap = new HashMap<>( INITIAL_CAPACITY, LOAD_FACTOR );
+		this.jsonRpcIdMap = new PendingIdMap<>();
+		this.jsonRpcOpMap = new PendingIdMap<>();
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		// LSP messages carry their ids, so responses do not need to follow the order of the requests
+		return checkStringParameter( Parameters.TRANSPORT, LSP );
+	}
+
+	@Override
+	public boolean hasCachedMessages() {
+		return !batchMessages.isEmpty();
+	}
+
+	private static void send_noContent( OutputStream ostream )
+		throws IOException {
+		// we just send HTTP status code 204
+		StringBuilder httpMessage = new StringBuilder();
+		httpMessage.append( "HTTP/1.1 204 No Content" ).append( HttpUtils.CRLF )
+			.append( "Server: Jolie" ).append( HttpUtils.CRLF ).append( HttpUtils.CRLF );
+		ostream.write( httpMessage.toString().getBytes( StandardCharsets.UTF_8 ) );
 	}
 
 	@Override
@@ -88,19 +186,18 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 
 		boolean isLsp = checkStringParameter( Parameters.TRANSPORT, LSP );
 
+		if( inInputPort && batchNotifications.remove( message.requestId() ) ) {
+			// notifications in a batch have no entry in the batch response
+			return;
+		}
+
 		if( !isLsp ) {
 			if( !message.isFault() && message.hasGenericRequestId() && inInputPort ) {
 				// JSON-RPC notification mechanism (method call with dropped result)
-				// we just send HTTP status code 204
-				StringBuilder httpMessage = new StringBuilder();
-				httpMessage.append( "HTTP/1.1 204 No Content" ).append( HttpUtils.CRLF )
-					.append( "Server: Jolie" ).append( HttpUtils.CRLF ).append( HttpUtils.CRLF );
-				ostream.write( httpMessage.toString().getBytes( StandardCharsets.UTF_8 ) );
+				send_noContent( ostream );
 				return;
 			}
 		}
-		Value value = Value.create();
-		value.getFirstChild( "jsonrpc" ).setValue( "2.0" );
 
 		/*
 		 * If we are in LSP mode, we do not want to send ACKs to the client.
@@ -111,6 +208,26 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 			}
 		}
 
+		String jsonMessage = send_createJsonMessage( message, isLsp );
+
+		if( inInputPort ) {
+			Batch batch = batches.remove( message.requestId() );
+			if( batch != null ) {
+				jsonMessage = batch.add( jsonMessage );
+				if( jsonMessage == null ) {
+					return;
+				}
+			}
+		}
+
+		send_writeMessage( ostream, jsonMessage, isLsp );
+	}
+
+	private String send_createJsonMessage( CommMessage message, boolean isLsp )
+		throws IOException {
+		Value value = Value.create();
+		value.getFirstChild( "jsonrpc" ).setValue( "2.0" );
+
 		String operationNameAliased = message.operationName();
 		// resolving aliases
 		if( isLsp && hasParameter( Parameters.OSC ) ) {
@@ -139,7 +256,7 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 			new Range( 0, 1 ), false, null ) );
 
 		if( message.isFault() ) {
-			String jsonRpcId = jsonRpcIdMap.get( message.requestId() );
+			String jsonRpcId = jsonRpcIdMap.remove( message.requestId() );
 			value.setFirstChild( "id", jsonRpcId != null ? jsonRpcId : Long.toString( message.requestId() ) );
 			Value error = value.getFirstChild( "error" );
 			error.getFirstChild( "code" ).setValue( -32000 );
@@ -154,7 +271,7 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 			// boolean check = isLsp ? isRR : true;
 			if( inInputPort && (isRR || !isLsp) ) {
 				value.getChildren( "result" ).set( 0, message.value() );
-				String jsonRpcId = jsonRpcIdMap.get( message.requestId() );
+				String jsonRpcId = jsonRpcIdMap.remove( message.requestId() );
 				value.getFirstChild( "id" )
 					.setValue( jsonRpcId != null ? jsonRpcId : Long.toString( message.requestId() ) );
 
@@ -168,7 +285,6 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 				operationType = operationType.getMinimalType( message.value() ).orElse( Type.UNDEFINED );
 				subTypes.put( "result", operationType );
 			} else {
-				jsonRpcOpMap.put( Long.toString( message.requestId() ), operationNameAliased );
 				value.getFirstChild( "method" ).setValue( operationNameAliased );
 
 				if( isRR ) {
@@ -195,6 +311,7 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 				}
 
 				if( !message.hasGenericRequestId() && !isLsp ) {
+					jsonRpcOpMap.put( Long.toString( message.requestId() ), operationNameAliased );
 					value.getFirstChild( "id" ).setValue( message.requestId() );
 				}
 			}
@@ -230,9 +347,14 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 			}
 		}
 
+		return jsonMessage;
+	}
+
+	private void send_writeMessage( OutputStream ostream, String jsonMessage, boolean isLsp )
+		throws IOException {
 		ByteArray content = new ByteArray( jsonMessage.getBytes( StandardCharsets.UTF_8 ) );
 
-		if( checkStringParameter( Parameters.TRANSPORT, LSP ) ) {
+		if( isLsp ) {
 			String lspHeaders = "Content-Length: " + content.size() + HttpUtils.CRLF + HttpUtils.CRLF;
 
 			if( checkBooleanParameter( "debug", false ) ) {
@@ -315,11 +437,23 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 				}
 			}
 			LSPParser parser = new LSPParser( istream );
-			LSPMessage message = parser.parse();
 			// LSP supports only utf-8 encoding
 			String charset = "utf-8";
+			if( checkBooleanParameter( "debug", false ) ) {
+				LSPMessage message = parser.parse();
+				return recv_createCommMessage( message.size(), message.content(), charset, ostream );
+			}
 			// encoding = message.getProperty( "accept-encoding" )
-			return recv_createCommMessage( message.size(), message.content(), charset );
+			LSPMessage message = parser.parseHeaders();
+			// the content is decoded straight from the stream, without buffering it first
+			try( InputStream content = parser.openContent( message ) ) {
+				if( content == null ) {
+					return null; // error situation
+				}
+				Value value = Value.create();
+				JsUtils.parseJsonIntoValue( new InputStreamReader( content, charset ), value, false );
+				return recv_createCommMessage( value, ostream );
+			}
 		} else {
 			HttpParser parser = new HttpParser( istream );
 			HttpMessage message = parser.parse();
@@ -335,11 +469,12 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 
 			encoding = message.getProperty( "accept-encoding" );
 
-			return recv_createCommMessage( message.size(), message.content(), charset );
+			return recv_createCommMessage( message.size(), message.content(), charset, ostream );
 		}
 	}
 
-	private CommMessage recv_createCommMessage( int messageSize, byte[] messageContent, String charset )
+	private CommMessage recv_createCommMessage( int messageSize, byte[] messageContent, String charset,
+		OutputStream ostream )
 		throws IOException {
 		Value value = Value.create();
 		if( messageSize > 0 ) {
@@ -350,51 +485,109 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 			JsUtils.parseJsonIntoValue( new InputStreamReader( new ByteArrayInputStream( messageContent ), charset ),
 				value, false );
 
-			String operation = value.getFirstChild( "method" ).strValue();
-
-			// Resolving aliases
-			if( hasParameter( Parameters.OSC ) ) {
-				Value osc = getParameterFirstValue( Parameters.OSC );
-				for( Entry< String, ValueVector > ev : osc.children().entrySet() ) {
-					Value v = ev.getValue().get( 0 );
-					if( v.hasChildren( Parameters.ALIAS ) ) {
-						if( v.getFirstChild( Parameters.ALIAS ).strValue().equals( operation ) ) {
-							operation = ev.getKey();
-						}
-					}
-				}
+			return recv_createCommMessage( value, ostream );
+		}
+		return null; // error situation
+	}
+
+	private CommMessage recv_createCommMessage( Value value, OutputStream ostream )
+		throws IOException {
+		if( value.hasChildren( JsUtils.JSONARRAY_KEY ) && !value.hasChildren( "jsonrpc" ) ) {
+			return recv_createBatchMessages( value.getChildren( JsUtils.JSONARRAY_KEY ), ostream );
+		}
+		return recv_createSingleMessage( value );
+	}
+
+	/**
+	 * Turns a JSON-RPC batch into one message per request. The first one is returned, the others are
+	 * kept for the next calls to recv, which the channel makes without waiting for new data (see
+	 * {@link #hasCachedMessages()}), and their responses are collected into a single batch response.
+	 * Over HTTP the protocol is not thread safe, so the channel waits for each response before handing
+	 * out the next message: the requests of a batch are handled one after the other. Only over the LSP
+	 * transport, where responses carry their ids, are they handled concurrently.
+	 */
+	private CommMessage recv_createBatchMessages( ValueVector requests, OutputStream ostream )
+		throws IOException {
+		if( !inInputPort ) {
+			throw new IOException( "Received a JSON-RPC batch response, but no batch request was sent" );
+		}
+		if( requests.isEmpty() ) {
+			throw new IOException( "Received an empty JSON-RPC batch" );
+		}
+
+		Batch batch = new Batch();
+		List< CommMessage > messages = new ArrayList<>( requests.size() );
+		for( Value request : requests ) {
+			CommMessage message = recv_createSingleMessage( request );
+			if( message.hasGenericRequestId() ) {
+				// give the notification its own id, so that its response can be told apart from those of
+				// notifications that are not part of a batch
+				message = new CommMessage( CommMessage.getNewRequestId(), message.operationName(),
+					message.resourcePath(), message.value(), null );
+				batchNotifications.add( message.requestId() );
+			} else {
+				batch.missingResponses++;
+				batches.put( message.requestId(), batch );
 			}
+			messages.add( message );
+		}
 
-			if( !value.hasChildren( "id" ) ) {
-				// JSON-RPC notification mechanism (method call with dropped result)
-				if( !inInputPort ) {
-					throw new IOException(
-						"A JSON-RPC notification (message without \"id\") needs to be a request, not a response!" );
+		if( batch.missingResponses == 0 && !checkStringParameter( Parameters.TRANSPORT, LSP ) ) {
+			// a batch made only of notifications gets no response
+			send_noContent( ostream );
+			ostream.flush();
+		}
+
+		batchMessages.addAll( messages.subList( 1, messages.size() ) );
+		return messages.get( 0 );
+	}
+
+	private CommMessage recv_createSingleMessage( Value value )
+		throws IOException {
+		String operation = value.getFirstChild( "method" ).strValue();
+
+		// Resolving aliases
+		if( hasParameter( Parameters.OSC ) ) {
+			Value osc = getParameterFirstValue( Parameters.OSC );
+			for( Entry< String, ValueVector > ev : osc.children().entrySet() ) {
+				Value v = ev.getValue().get( 0 );
+				if( v.hasChildren( Parameters.ALIAS ) ) {
+					if( v.getFirstChild( Parameters.ALIAS ).strValue().equals( operation ) ) {
+						operation = ev.getKey();
+					}
 				}
-				return new CommMessage( CommMessage.GENERIC_REQUEST_ID, operation,
-					"/", value.getFirstChild( "params" ), null );
 			}
-			String jsonRpcId = value.getFirstChild( "id" ).strValue();
-			if( inInputPort ) {
-				jsonRpcIdMap.put( (long) jsonRpcId.hashCode(), jsonRpcId );
-				return new CommMessage(
-					jsonRpcId.hashCode(), operation,
-					"/", value.getFirstChild( "params" ), null );
-			} else if( value.hasChildren( "error" ) ) {
-				String operationName = jsonRpcOpMap.get( jsonRpcId );
-				return new CommMessage( Long.parseLong( jsonRpcId ), operationName, "/", null,
-					new FaultException(
-						value.getFirstChild( "error" ).getFirstChild( "message" ).strValue(),
-						value.getFirstChild( "error" ).getFirstChild( "data" ) ) );
-			} else {
-				// Certain implementations do not provide a result if it is "void"
-				String operationName = jsonRpcOpMap.get( jsonRpcId );
-				return new CommMessage( Long.parseLong( jsonRpcId ), operationName, "/",
-					value.getFirstChild( "result" ),
-					null );
+		}
+
+		if( !value.hasChildren( "id" ) ) {
+			// JSON-RPC notification mechanism (method call with dropped result)
+			if( !inInputPort ) {
+				throw new IOException(
+					"A JSON-RPC notification (message without \"id\") needs to be a request, not a response!" );
 			}
+			return new CommMessage( CommMessage.GENERIC_REQUEST_ID, operation,
+				"/", value.getFirstChild( "params" ), null );
+		}
+		String jsonRpcId = value.getFirstChild( "id" ).strValue();
+		if( inInputPort ) {
+			long requestId = CommMessage.getNewRequestId();
+			jsonRpcIdMap.put( requestId, jsonRpcId );
+			return new CommMessage(
+				requestId, operation,
+				"/", value.getFirstChild( "params" ), null );
+		} else if( value.hasChildren( "error" ) ) {
+			String operationName = jsonRpcOpMap.remove( jsonRpcId );
+			return new CommMessage( Long.parseLong( jsonRpcId ), operationName, "/", null,
+				new FaultException(
+					value.getFirstChild( "error" ).getFirstChild( "message" ).strValue(),
+					value.getFirstChild( "error" ).getFirstChild( "data" ) ) );
+		} else {
+			// Certain implementations do not provide a result if it is "void"
+			String operationName = jsonRpcOpMap.remove( jsonRpcId );
+			return new CommMessage( Long.parseLong( jsonRpcId ), operationName, "/",
+				value.getFirstChild( "result" ),
+				null );
 		}
-		return null; // error situation
 	}
 
 	private void setChannelInterface() {
@@ -404,6 +597,10 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 	public CommMessage recv( InputStream istream, OutputStream ostream )
 		throws IOException {
 		setChannelInterface();
+		CommMessage message = batchMessages.poll();
+		if( message != null ) {
+			return message;
+		}
 		return HttpUtils.recv( istream, ostream, inInputPort, channel(), this );
 	}
 }
@@ -22,40 +22,46 @@
 
 package jolie.net;
 
+import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-
-import jolie.lang.parse.Scanner;
-import jolie.net.http.HttpScanner;
+import java.util.Arrays;
 
 /**
  *
  * @author eferos93
  */
 public class LSPParser {
-	private final HttpScanner scanner;
-	private Scanner.Token token;
+	private final InputStream stream;
 
 	public LSPParser( InputStream iStream ) throws IOException {
-		scanner = new HttpScanner( iStream );
-		// , URI.create( "urn:network" ) );
+		stream = iStream;
 	}
 
-	private void nextToken() throws IOException {
-		token = scanner.getToken();
+	private String readLine() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		int c;
+		while( (c = stream.read()) != '\n' ) {
+			if( c == -1 ) {
+				throw new EOFException();
+			}
+			if( c != '\r' ) {
+				builder.append( (char) c );
+			}
+		}
+		return builder.toString();
 	}
 
 	private void parseHeaderProperties( LSPMessage message ) throws IOException {
-		String name, value;
-		nextToken();
-		name = token.content().toLowerCase();
-		value = scanner.readLine();
-		message.setProperty( name, value );
-
+		String line;
+		while( !(line = readLine()).isEmpty() ) {
+			int separator = line.indexOf( ':' );
+			if( separator < 0 ) {
+				throw new IOException( "Malformed header in Language Server Protocol message: " + line );
+			}
+			message.setProperty( line.substring( 0, separator ).trim(), line.substring( separator + 1 ) );
+		}
 	}
 
 	private static void blockingRead( InputStream stream, byte[] buffer, int offset, int length )
@@ -70,79 +76,141 @@ public class LSPParser {
 		} while( s < length );
 	}
 
-	private void readContent( LSPMessage message ) throws IOException {
-		boolean chunked = false;
-		int contentLength = -1;
+	private byte[] readChunkedContent( LSPMessage message ) throws IOException {
+		// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
+		byte[] buffer = new byte[ 0 ];
+		int l, totalLen = 0;
+		do {
+			// the chunk header contains the size in hex format
+			// and could contain additional parameters which we ignore atm
+			String chunkSize = readLine().split( ";", 2 )[ 0 ].trim();
+			try {
+				l = Integer.parseInt( chunkSize, 16 );
+			} catch( NumberFormatException e ) {
+				throw new IOException( "Illegal chunk size " + chunkSize );
+			}
+			// parses the real chunk with the specified size, follwed by CR-LF
+			if( l > 0 ) {
+				if( totalLen + l > buffer.length ) {
+					buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, totalLen + l ) );
+				}
+				blockingRead( stream, buffer, totalLen, l );
+				totalLen += l;
+				readLine();
+			}
+		} while( l > 0 );
+		// parse optional trailer (additional HTTP headers)
+		parseHeaderProperties( message );
+		return totalLen == buffer.length ? buffer : Arrays.copyOf( buffer, totalLen );
+	}
 
+	private int contentLength( LSPMessage message ) throws IOException {
+		String p = message.getProperty( "content-length" );
+		if( p == null || p.isEmpty() ) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt( p );
+		} catch( NumberFormatException e ) {
+			throw new IOException( "Illegal Content-Length value " + p );
+		}
+	}
+
+	private static boolean isChunked( LSPMessage message ) {
+		// Transfer-encoding has the precedence over Content-Length
 		String p = message.getProperty( "transfer-encoding" );
+		return p != null && p.startsWith( "chunked" );
+	}
+
+	/**
+	 * Parses the header part of the next message, leaving its content in the stream.
+	 */
+	public LSPMessage parseHeaders() throws IOException {
+		LSPMessage message = new LSPMessage();
+		parseHeaderProperties( message );
+		return message;
+	}
+
+	/**
+	 * Returns a stream over the content of a message whose headers have just been parsed, or
+	 * <code>null</code> if the message has no content. The returned stream ends with the content, so it
+	 * can be handed directly to a decoder; closing it skips whatever the decoder did not consume, which
+	 * keeps the underlying stream aligned to the next message.
+	 */
+	public InputStream openContent( LSPMessage message ) throws IOException {
+		if( isChunked( message ) ) {
+			byte[] content = readChunkedContent( message );
+			return content.length > 0 ? new ByteArrayInputStream( content ) : null;
+		}
+		int contentLength = contentLength( message );
+		return contentLength > 0 ? new ContentInputStream( stream, contentLength ) : null;
+	}
 
-		if( p != null && p.startsWith( "chunked" ) ) {
-			// Transfer-encoding has the precedence over Content-Length
-			chunked = true;
+	public LSPMessage parse() throws IOException {
+		LSPMessage message = parseHeaders();
+		if( isChunked( message ) ) {
+			message.setContent( readChunkedContent( message ) );
 		} else {
-			p = message.getProperty( "content-length" );
-			if( p != null && !p.isEmpty() ) {
-				try {
-					contentLength = Integer.parseInt( p );
-					if( contentLength == 0 ) {
-						message.setContent( new byte[ 0 ] );
-						return;
-					}
-				} catch( NumberFormatException e ) {
-					throw new IOException( "Illegal Content-Length value " + p );
-				}
+			int contentLength = contentLength( message );
+			if( contentLength >= 0 ) {
+				byte[] buffer = new byte[ contentLength ];
+				blockingRead( stream, buffer, 0, contentLength );
+				message.setContent( buffer );
 			}
 		}
-		byte[] buffer = null;
-		InputStream stream = scanner.inputStream();
-		if( chunked ) {
-			// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
-			List< byte[] > chunks = new ArrayList<>();
-			int l = -1, totalLen = 0;
-			scanner.readChar();
-			do {
-				// the chunk header contains the size in hex format
-				// and could contain additional parameters which we ignore atm
-				String chunkHeader = scanner.readLine( false );
-				String chunkSize = chunkHeader.split( ";", 2 )[ 0 ];
-				try {
-					l = Integer.parseInt( chunkSize, 16 );
-				} catch( NumberFormatException e ) {
-					throw new IOException( "Illegal chunk size " + chunkSize );
-				}
-				// parses the real chunk with the specified size, follwed by CR-LF
-				if( l > 0 ) {
-					totalLen += l;
-					byte[] chunk = new byte[ l ];
-					blockingRead( stream, chunk, 0, l );
-					chunks.add( chunk );
-					scanner.readChar();
-					scanner.eatSeparators();
-				}
-			} while( l > 0 );
-			// parse optional trailer (additional HTTP headers)
-			parseHeaderProperties( message );
-			ByteBuffer b = ByteBuffer.allocate( totalLen );
-			chunks.forEach( b::put );
-			buffer = b.array();
-		} else if( contentLength > 0 ) {
-			buffer = new byte[ contentLength ];
-			// skipping the \r\n
-			if( stream.skip( 2 ) != 2 ) {
-				throw new IOException( "Could not skip end of line in Language Server Protocol message" );
+		return message;
+	}
+
+	private static class ContentInputStream extends InputStream {
+		private final InputStream stream;
+		private int remaining;
+
+		private ContentInputStream( InputStream stream, int length ) {
+			this.stream = stream;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if( remaining == 0 ) {
+				return -1;
+			}
+			int b = stream.read();
+			if( b == -1 ) {
+				throw new EOFException();
+			}
+			remaining--;
+			return b;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len ) throws IOException {
+			if( remaining == 0 ) {
+				return -1;
 			}
-			blockingRead( stream, buffer, 0, contentLength );
+			int r = stream.read( b, off, Math.min( len, remaining ) );
+			if( r == -1 ) {
+				throw new EOFException();
+			}
+			remaining -= r;
+			return r;
 		}
 
-		if( buffer != null ) {
-			message.setContent( buffer );
+		@Override
+		public int available() throws IOException {
+			return Math.min( stream.available(), remaining );
 		}
-	}
 
-	public LSPMessage parse() throws IOException {
-		LSPMessage message = new LSPMessage();
-		parseHeaderProperties( message );
-		readContent( message );
-		return message;
+		@Override
+		public void close() throws IOException {
+			while( remaining > 0 ) {
+				long skipped = stream.skip( remaining );
+				if( skipped > 0 ) {
+					remaining -= skipped;
+				} else if( read() == -1 ) {
+					break;
+				}
+			}
+		}
 	}
 }
@@ -67,7 +67,7 @@ public class LocalSocketCommChannel extends StreamingCommChannel implements Poll
 		throws IOException {
 		boolean ret = false;
 
-		if( bufferedInputStream.hasCachedData() ) {
+		if( bufferedInputStream.hasCachedData() || protocol().hasCachedMessages() ) {
 			ret = true;
 		} else {
 			byte[] r = new byte[ 1 ];
@@ -31,20 +31,38 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import jolie.monitoring.tracing.TraceContext;
 import jolie.net.protocols.ConcurrentCommProtocol;
 import jolie.runtime.ByteArray;
+import jolie.runtime.EncodedValue;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.VariablePath;
 
 public class SodepProtocol extends ConcurrentCommProtocol {
+	/*
+	 * Flags of the byte that follows the operation name of a message. Peers that do not know about
+	 * trace contexts read this byte as a boolean telling whether the message carries a fault, so trace
+	 * contexts are only sent when the traceContext parameter is set to true.
+	 */
+	private static class MessageFlags {
+		private static final int FAULT = 0x01;
+		private static final int TRACE_CONTEXT = 0x02;
+	}
+
+	private static class Parameters {
+		private static final String TRACE_CONTEXT = "traceContext";
+		private static final String LAZY_DECODING = "lazyDecoding";
+	}
+
 	private static class DataTypeHeaderId {
 		private static final int NULL = 0;
 		private static final int STRING = 1;
@@ -60,6 +78,124 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 	}
 
 	private Charset stringCharset = StandardCharsets.UTF_8;
+	private boolean lazyDecoding = true;
+
+	/*
+	 * The sodep encoding of a received value, which is decoded one node at a time as the program
+	 * accesses it. Values that are sent as they have been received are written back from here.
+	 */
+	private static final class SodepEncodedValue implements EncodedValue {
+		private final byte[] buffer;
+		private final int offset;
+		private final int length;
+		private final Charset charset;
+
+		private SodepEncodedValue( byte[] buffer, int offset, int length, Charset charset ) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+			this.charset = charset;
+		}
+
+		private ByteBuffer content() {
+			return ByteBuffer.wrap( buffer, offset, length );
+		}
+
+		private String readString( ByteBuffer in ) {
+			final int len = in.getInt();
+			final String s = len > 0 ? new String( buffer, in.position(), len, charset ) : "";
+			in.position( in.position() + Math.max( len, 0 ) );
+			return s;
+		}
+
+		@Override
+		public Object decodeValueObject() {
+			final ByteBuffer in = content();
+			switch( in.get() ) {
+			case DataTypeHeaderId.STRING:
+				return readString( in );
+			case DataTypeHeaderId.INT:
+				return in.getInt();
+			case DataTypeHeaderId.LONG:
+				return in.getLong();
+			case DataTypeHeaderId.DOUBLE:
+				return in.getDouble();
+			case DataTypeHeaderId.BYTE_ARRAY:
+				final byte[] bytes = new byte[ Math.max( in.getInt(), 0 ) ];
+				in.get( bytes );
+				return new ByteArray( bytes );
+			case DataTypeHeaderId.BOOL:
+				return in.get() != 0;
+			case DataTypeHeaderId.NULL:
+			default:
+				return null;
+			}
+		}
+
+		@Override
+		public boolean hasChildren() {
+			final ByteBuffer in = content();
+			skipValueObject( in );
+			return in.getInt() > 0;
+		}
+
+		@Override
+		public void decodeChildren( Map< String, ValueVector > children ) {
+			final ByteBuffer in = content();
+			skipValueObject( in );
+			final int n = in.getInt();
+			for( int i = 0; i < n; i++ ) {
+				final String name = readString( in );
+				final ValueVector vec = ValueVector.create();
+				final int size = in.getInt();
+				for( int k = 0; k < size; k++ ) {
+					final int start = in.position();
+					skipValue( in );
+					vec.add(
+						Value.createLazy( new SodepEncodedValue( buffer, start, in.position() - start, charset ) ) );
+				}
+				children.put( name, vec );
+			}
+		}
+
+		private static void skipValueObject( ByteBuffer in ) {
+			switch( in.get() ) {
+			case DataTypeHeaderId.STRING:
+			case DataTypeHeaderId.BYTE_ARRAY:
+				final int len = in.getInt();
+				in.position( in.position() + Math.max( len, 0 ) );
+				break;
+			case DataTypeHeaderId.INT:
+				in.position( in.position() + Integer.BYTES );
+				break;
+			case DataTypeHeaderId.LONG:
+				in.position( in.position() + Long.BYTES );
+				break;
+			case DataTypeHeaderId.DOUBLE:
+				in.position( in.position() + Double.BYTES );
+				break;
+			case DataTypeHeaderId.BOOL:
+				in.position( in.position() + 1 );
+				break;
+			case DataTypeHeaderId.NULL:
+			default:
+				break;
+			}
+		}
+
+		private static void skipValue( ByteBuffer in ) {
+			skipValueObject( in );
+			final int n = in.getInt();
+			for( int i = 0; i < n; i++ ) {
+				final int len = in.getInt();
+				in.position( in.position() + Math.max( len, 0 ) );
+				final int size = in.getInt();
+				for( int k = 0; k < size; k++ ) {
+					skipValue( in );
+				}
+			}
+		}
+	}
 
 	private String readString( DataInput in )
 		throws IOException {
@@ -118,6 +254,13 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 
 	private void writeValue( DataOutput out, Value value )
 		throws IOException {
+		final EncodedValue encoded = value.encodedValue();
+		if( encoded instanceof SodepEncodedValue && ((SodepEncodedValue) encoded).charset.equals( stringCharset ) ) {
+			final SodepEncodedValue sodepEncoded = (SodepEncodedValue) encoded;
+			out.write( sodepEncoded.buffer, sodepEncoded.offset, sodepEncoded.length );
+			return;
+		}
+
 		Object valueObject = value.valueObject();
 		if( valueObject == null ) {
 			out.writeByte( DataTypeHeaderId.NULL );
@@ -165,17 +308,91 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		out.writeLong( message.requestId() );
 		writeString( out, message.resourcePath() );
 		writeString( out, message.operationName() );
-		FaultException fault = message.fault();
-		if( fault == null ) {
-			out.writeBoolean( false );
-		} else {
-			out.writeBoolean( true );
+		final FaultException fault = message.fault();
+		final TraceContext traceContext =
+			checkBooleanParameter( Parameters.TRACE_CONTEXT, false ) ? message.traceContext() : null;
+		out.writeByte( (fault == null ? 0 : MessageFlags.FAULT)
+			| (traceContext == null ? 0 : MessageFlags.TRACE_CONTEXT) );
+		if( fault != null ) {
 			writeFault( out, fault );
 		}
+		if( traceContext != null ) {
+			writeString( out, traceContext.toString() );
+		}
 		writeValue( out, message.value() );
 	}
 
 	private Value readValue( DataInput in )
+		throws IOException {
+		if( lazyDecoding ) {
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			copyValue( in, new DataOutputStream( bos ), new byte[ COPY_BUFFER_SIZE ] );
+			final byte[] buffer = bos.toByteArray();
+			return Value.createLazy( new SodepEncodedValue( buffer, 0, buffer.length, stringCharset ) );
+		}
+		return decodeValue( in );
+	}
+
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	/*
+	 * Copies the encoding of a value from the input to the output, reading only the lengths needed to
+	 * find where the value ends.
+	 */
+	private static void copyValue( DataInput in, DataOutput out, byte[] copyBuffer )
+		throws IOException {
+		final byte b = in.readByte();
+		out.writeByte( b );
+		switch( b ) {
+		case DataTypeHeaderId.STRING:
+		case DataTypeHeaderId.BYTE_ARRAY:
+			copyBytes( in, out, copyInt( in, out ), copyBuffer );
+			break;
+		case DataTypeHeaderId.INT:
+			copyBytes( in, out, Integer.BYTES, copyBuffer );
+			break;
+		case DataTypeHeaderId.LONG:
+			copyBytes( in, out, Long.BYTES, copyBuffer );
+			break;
+		case DataTypeHeaderId.DOUBLE:
+			copyBytes( in, out, Double.BYTES, copyBuffer );
+			break;
+		case DataTypeHeaderId.BOOL:
+			copyBytes( in, out, 1, copyBuffer );
+			break;
+		case DataTypeHeaderId.NULL:
+		default:
+			break;
+		}
+
+		final int n = copyInt( in, out ); // How many children?
+		for( int i = 0; i < n; i++ ) {
+			copyBytes( in, out, copyInt( in, out ), copyBuffer );
+			final int size = copyInt( in, out );
+			for( int k = 0; k < size; k++ ) {
+				copyValue( in, out, copyBuffer );
+			}
+		}
+	}
+
+	private static int copyInt( DataInput in, DataOutput out )
+		throws IOException {
+		final int i = in.readInt();
+		out.writeInt( i );
+		return i;
+	}
+
+	private static void copyBytes( DataInput in, DataOutput out, int length, byte[] copyBuffer )
+		throws IOException {
+		while( length > 0 ) {
+			final int chunk = Math.min( length, copyBuffer.length );
+			in.readFully( copyBuffer, 0, chunk );
+			out.write( copyBuffer, 0, chunk );
+			length -= chunk;
+		}
+	}
+
+	private Value decodeValue( DataInput in )
 		throws IOException {
 		Value value = Value.create();
 		Object valueObject = null;
@@ -217,7 +434,7 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 			vec = ValueVector.create();
 			size = in.readInt();
 			for( k = 0; k < size; k++ ) {
-				vec.add( readValue( in ) );
+				vec.add( decodeValue( in ) );
 			}
 			children.put( s, vec );
 		}
@@ -236,12 +453,19 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		long id = in.readLong();
 		String resourcePath = readString( in );
 		String operationName = readString( in );
+		final byte flags = in.readByte();
 		FaultException fault = null;
-		if( in.readBoolean() == true ) {
+		if( (flags & MessageFlags.FAULT) != 0 ) {
 			fault = readFault( in );
 		}
+		TraceContext traceContext = null;
+		if( (flags & MessageFlags.TRACE_CONTEXT) != 0 ) {
+			traceContext = TraceContext.parse( readString( in ) );
+		}
 		Value value = readValue( in );
-		return new CommMessage( id, operationName, resourcePath, value, fault );
+		CommMessage message = new CommMessage( id, operationName, resourcePath, value, fault );
+		message.setTraceContext( traceContext );
+		return message;
 	}
 
 	public SodepProtocol( VariablePath configurationPath ) {
@@ -270,6 +494,8 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 			stringCharset = Charset.forName( charset );
 		}
 
+		lazyDecoding = checkBooleanParameter( Parameters.LAZY_DECODING, true );
+
 		final DataInputStream ios = new DataInputStream( istream );
 		return readMessage( ios );
 	}
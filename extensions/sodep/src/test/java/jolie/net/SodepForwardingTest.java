@@ -0,0 +1,100 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import jolie.runtime.ClosedVariablePath;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
+
+/**
+ * Checks that messages received over sodep are forwarded as they were received.
+ */
+public class SodepForwardingTest {
+	private static SodepProtocol protocol() {
+		return new SodepProtocol(
+			new ClosedVariablePath( VariablePath.EmptyPathLazyHolder.EMPTY_PATH, Value.create() ) );
+	}
+
+	private static byte[] send( CommMessage message )
+		throws IOException {
+		final ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+		protocol().send( ostream, message, null );
+		return ostream.toByteArray();
+	}
+
+	private static CommMessage recv( byte[] bytes )
+		throws IOException {
+		return protocol().recv( new ByteArrayInputStream( bytes ), null );
+	}
+
+	private static CommMessage message() {
+		final StringBuilder payload = new StringBuilder();
+		for( int i = 0; i < 1000; i++ ) {
+			payload.append( "0123456789" );
+		}
+		final Value value = Value.create();
+		value.getFirstChild( "header" ).getFirstChild( "id" ).setValue( 42 );
+		value.getFirstChild( "header" ).getFirstChild( "from" ).setValue( "D\u00f6ner" );
+		value.getFirstChild( "payload" ).setValue( payload.toString() );
+		value.getChildren( "item" ).get( 0 ).setValue( 123456789123456789L );
+		value.getChildren( "item" ).get( 1 ).setValue( 3.14 );
+		value.getFirstChild( "nested" ).getFirstChild( "empty" );
+		return CommMessage.createRequest( "route", "/", value );
+	}
+
+	@Test
+	public void readingAFieldKeepsTheMessageAsReceived()
+		throws IOException {
+		final byte[] bytes = send( message() );
+		final CommMessage received = recv( bytes );
+
+		assertEquals( 42, received.value().getFirstChild( "header" ).getFirstChild( "id" ).intValue() );
+		assertFalse( received.value().hasChildren( "missing" ) );
+		assertNotNull( received.value().encodedValue() );
+		assertArrayEquals( bytes, send( received ) );
+	}
+
+	@Test
+	public void changingAFieldReencodesTheMessage()
+		throws IOException {
+		final CommMessage received = recv( send( message() ) );
+		received.value().getFirstChild( "header" ).getFirstChild( "id" ).setValue( 43 );
+		assertNull( received.value().encodedValue() );
+
+		final Value forwarded = recv( send( received ) ).value();
+		assertEquals( 43, forwarded.getFirstChild( "header" ).getFirstChild( "id" ).intValue() );
+		assertEquals( "D\u00f6ner", forwarded.getFirstChild( "header" ).getFirstChild( "from" ).strValue() );
+		assertEquals( 2, forwarded.getChildren( "item" ).size() );
+	}
+}
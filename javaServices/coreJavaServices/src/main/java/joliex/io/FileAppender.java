@@ -0,0 +1,123 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Appends data to a file, grouping concurrent appends in a single write.
+ *
+ * The first caller that finds the appender idle writes everything that has been queued, including
+ * the appends made by other callers in the meantime, which do not wait for the write to start.
+ * Appends are written in the order in which they have been queued.
+ *
+ * @author Fabrizio Montesi
+ */
+final class FileAppender {
+	private static final int MAX_BATCH_SIZE = 1024;
+
+	private static class Append {
+		private final ByteBuffer data;
+		private final boolean sync;
+		private final CompletableFuture< Void > future = new CompletableFuture<>();
+
+		private Append( byte[] data, boolean sync ) {
+			this.data = ByteBuffer.wrap( data );
+			this.sync = sync;
+		}
+	}
+
+	private final Path path;
+	private final Queue< Append > queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean writing = new AtomicBoolean( false );
+
+	FileAppender( Path path ) {
+		this.path = path;
+	}
+
+	/**
+	 * Appends data to the file.
+	 *
+	 * @param sync whether the data should be flushed to the storage device before the returned future
+	 *        completes
+	 * @return a future completed when the data has been written
+	 */
+	CompletableFuture< Void > append( byte[] data, boolean sync ) {
+		final Append append = new Append( data, sync );
+		queue.add( append );
+		while( !queue.isEmpty() && writing.compareAndSet( false, true ) ) {
+			try {
+				writeQueued();
+			} finally {
+				writing.set( false );
+			}
+		}
+		return append.future;
+	}
+
+	/**
+	 * Returns <code>true</code> if no append is queued or being written.
+	 */
+	boolean isIdle() {
+		return queue.isEmpty() && !writing.get();
+	}
+
+	private void writeQueued() {
+		List< Append > batch = new ArrayList<>();
+		Append append;
+		while( batch.size() < MAX_BATCH_SIZE && (append = queue.poll()) != null ) {
+			batch.add( append );
+		}
+		if( batch.isEmpty() ) {
+			return;
+		}
+
+		try( FileChannel channel = FileChannel.open( path,
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND ) ) {
+			final ByteBuffer[] buffers = new ByteBuffer[ batch.size() ];
+			boolean sync = false;
+			for( int i = 0; i < buffers.length; i++ ) {
+				buffers[ i ] = batch.get( i ).data;
+				sync |= batch.get( i ).sync;
+			}
+			while( buffers[ buffers.length - 1 ].hasRemaining() ) {
+				channel.write( buffers );
+			}
+			if( sync ) {
+				channel.force( false );
+			}
+			batch.forEach( a -> a.future.complete( null ) );
+		} catch( IOException e ) {
+			batch.forEach( a -> a.future.completeExceptionally( e ) );
+		}
+	}
+}
@@ -22,6 +22,8 @@
 package joliex.io;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -39,18 +41,27 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -82,6 +93,7 @@ import jolie.runtime.AndJarDeps;
 import jolie.runtime.ByteArray;
 import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
+import jolie.runtime.PatternCache;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.embedding.RequestResponse;
@@ -94,8 +106,15 @@ import jolie.runtime.typing.Type;
 @AndJarDeps( { "jolie-xml.jar", "xsom.jar", "jolie-js.jar", "json-simple.jar", "javax.activation.jar" } )
 public class FileService extends JavaService {
 	private final static Pattern FILE_KEYWORD_PATTERN = Pattern.compile( "(#+)file\\s+(.*)" );
+	private final static int MMAP_THRESHOLD = 1024 * 1024; // bytes
+	private final static int MAX_RANGE_SIZE = Integer.MAX_VALUE - 8; // bytes
+	private final static int PAGE_BUFFER_SIZE = 64 * 1024; // bytes
+	private final static int DEFAULT_CHUNK_SIZE = 64 * 1024; // bytes
+	private final static int DEFAULT_MAX_LINES = 1000;
 	private final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
 	private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+	private final Map< Path, FileAppender > appenders = new ConcurrentHashMap<>();
+	private FileWatcher watcher = null;
 	private FileTypeMap fileTypeMap = FileTypeMap.getDefaultFileTypeMap();
 
 	public FileService()
@@ -150,10 +169,20 @@ public class FileService extends JavaService {
 		}
 	}
 
+	private static int readFully( InputStream istream, byte[] buffer )
+		throws IOException {
+		int len = 0;
+		int n;
+		while( len < buffer.length && (n = istream.read( buffer, len, buffer.length - len )) >= 0 ) {
+			len += n;
+		}
+		return len;
+	}
+
 	private static void readBase64IntoValue( InputStream istream, long size, Value value )
 		throws IOException {
 		byte[] buffer = new byte[ (int) size ];
-		istream.read( buffer );
+		readFully( istream, buffer );
 		Base64.Encoder encoder = Base64.getEncoder();
 		value.setValue( encoder.encodeToString( buffer ) );
 	}
@@ -161,10 +190,38 @@ public class FileService extends JavaService {
 	private static void readBinaryIntoValue( InputStream istream, long size, Value value )
 		throws IOException {
 		byte[] buffer = new byte[ (int) size ];
-		istream.read( buffer );
+		readFully( istream, buffer );
 		value.setValue( new ByteArray( buffer ) );
 	}
 
+	/*
+	 * Reads at most length bytes starting at offset. Large ranges are read through a memory mapping,
+	 * which avoids going through an intermediate buffer.
+	 */
+	private static byte[] readRange( Path path, long offset, long length )
+		throws IOException {
+		if( offset < 0 || length < 0 ) {
+			throw new IOException( "Negative offset or length" );
+		}
+		try( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+			final long size = Math.min( length, Math.max( 0L, channel.size() - offset ) );
+			if( size > MAX_RANGE_SIZE ) {
+				throw new IOException( "Cannot read " + size + " bytes in a single value, use offset and length" );
+			}
+			final byte[] bytes = new byte[ (int) size ];
+			if( size >= MMAP_THRESHOLD ) {
+				channel.map( FileChannel.MapMode.READ_ONLY, offset, size ).get( bytes );
+			} else {
+				final ByteBuffer buffer = ByteBuffer.wrap( bytes );
+				int n = 0;
+				while( buffer.hasRemaining() && n >= 0 ) {
+					n = channel.read( buffer, offset + buffer.position() );
+				}
+			}
+			return bytes;
+		}
+	}
+
 	private static void readJsonIntoValue( InputStream istream, Value value, Charset charset, boolean strictEncoding )
 		throws IOException {
 		InputStreamReader isr;
@@ -215,10 +272,7 @@ public class FileService extends JavaService {
 	private static void readTextIntoValue( InputStream istream, long size, Value value, Charset charset )
 		throws IOException {
 		byte[] buffer = new byte[ (int) size ];
-		int len = istream.read( buffer );
-		if( len < 0 ) {
-			len = 0; // EOF handled as empty string
-		}
+		int len = readFully( istream, buffer );
 		if( charset == null ) {
 			value.setValue( new String( buffer, 0, len ) );
 		} else {
@@ -306,26 +360,56 @@ public class FileService extends JavaService {
 		return retValue;
 	}
 
-	private void navigateTree( File file, ValueVector result ) {
-		if( file.isDirectory() ) {
-			File[] files = file.listFiles();
-			for( File f : files ) {
-				navigateTree( f, result );
-			}
-		}
-		Value path = Value.create();
-		path.setValue( file.getAbsolutePath() );
-		result.add( path );
+	/**
+	 * Lists the files under a directory, children before their parents. Pages of the results can be
+	 * requested with request.offset and request.limit: the tree is only visited up to the end of the
+	 * requested page.
+	 */
+	@RequestResponse
+	public Value fileTree( Value request )
+		throws FaultException {
+		final Value retValue = Value.create();
+		final ValueVector result = retValue.getChildren( "result" );
+		final int offset = request.firstChildOrDefault( "offset", Value::intValue, 0 );
+		final int limit = request.firstChildOrDefault( "limit", Value::intValue, Integer.MAX_VALUE );
+		final boolean[] hasMore = { false };
+		try {
+			Files.walkFileTree( Paths.get( request.strValue() ).toAbsolutePath(), new SimpleFileVisitor< Path >() {
+				private int index = 0;
+
+				private FileVisitResult add( Path path ) {
+					if( index >= offset ) {
+						if( result.size() >= limit ) {
+							hasMore[ 0 ] = true;
+							return FileVisitResult.TERMINATE;
+						}
+						result.add( Value.create( path.toString() ) );
+					}
+					index++;
+					return FileVisitResult.CONTINUE;
+				}
 
-	}
+				@Override
+				public FileVisitResult visitFile( Path file, BasicFileAttributes attrs ) {
+					return add( file );
+				}
 
+				@Override
+				public FileVisitResult visitFileFailed( Path file, IOException e ) {
+					return add( file );
+				}
 
-	@RequestResponse
-	public Value fileTree( Value request ) {
-		Value retValue = Value.create();
-		ValueVector result = retValue.getChildren( "result" );
-		File startingDirectory = new File( request.strValue() );
-		navigateTree( startingDirectory, result );
+				@Override
+				public FileVisitResult postVisitDirectory( Path dir, IOException e ) {
+					return add( dir );
+				}
+			} );
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( "IOException", e );
+		}
+		if( request.hasChildren( "limit" ) ) {
+			retValue.getFirstChild( "hasMore" ).setValue( hasMore[ 0 ] );
+		}
 		return retValue;
 	}
 
@@ -350,7 +434,13 @@ public class FileService extends JavaService {
 		InputStream istream = null;
 		long size;
 		try {
-			if( file.exists() ) {
+			if( file.exists() && (request.hasChildren( "offset" ) || request.hasChildren( "length" )) ) {
+				final byte[] range = readRange( file.toPath(),
+					request.firstChildOrDefault( "offset", Value::longValue, 0L ),
+					request.firstChildOrDefault( "length", Value::longValue, Long.MAX_VALUE ) );
+				istream = new ByteArrayInputStream( range );
+				size = range.length;
+			} else if( file.exists() ) {
 				istream = new FileInputStream( file );
 				size = file.length();
 			} else {
@@ -421,6 +511,147 @@ public class FileService extends JavaService {
 		return retValue;
 	}
 
+	/**
+	 * Reads a page of lines from a text file, starting at the byte position request.cursor. The
+	 * response contains the position of the next page in response.cursor, so successive pages can be
+	 * read without reading the file from the beginning.
+	 */
+	@RequestResponse
+	public Value readLines( Value request )
+		throws FaultException {
+		final String filename = request.getFirstChild( "filename" ).strValue();
+		final int maxLines = request.firstChildOrDefault( "maxLines", Value::intValue, DEFAULT_MAX_LINES );
+		final Charset charset = request.hasChildren( "charset" )
+			? Charset.forName( request.getFirstChild( "charset" ).strValue() )
+			: Charset.defaultCharset();
+		final Value response = Value.create();
+		final ValueVector lines = response.getChildren( "line" );
+		long cursor = request.firstChildOrDefault( "cursor", Value::longValue, 0L );
+		try( FileChannel channel = FileChannel.open( Paths.get( filename ), StandardOpenOption.READ ) ) {
+			final ByteBuffer buffer = ByteBuffer.allocate( PAGE_BUFFER_SIZE );
+			final ByteArrayOutputStream line = new ByteArrayOutputStream();
+			long position = cursor; // The position in the file of the start of the buffer
+			int n;
+			while( lines.size() < maxLines && (n = channel.read( buffer, position )) > 0 ) {
+				buffer.flip();
+				while( buffer.hasRemaining() && lines.size() < maxLines ) {
+					final byte b = buffer.get();
+					if( b == '\n' ) {
+						lines.add( Value.create( decodeLine( line, charset ) ) );
+						cursor = position + buffer.position();
+					} else {
+						line.write( b );
+					}
+				}
+				position += n;
+				buffer.clear();
+			}
+			if( lines.size() < maxLines && line.size() > 0 ) {
+				// The last line of the file is not terminated
+				lines.add( Value.create( decodeLine( line, charset ) ) );
+				cursor = position;
+			}
+			response.getFirstChild( "cursor" ).setValue( cursor );
+			response.getFirstChild( "eof" ).setValue( cursor >= channel.size() );
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFound", e );
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( "IOException", e );
+		}
+		return response;
+	}
+
+	private static String decodeLine( ByteArrayOutputStream line, Charset charset ) {
+		final byte[] bytes = line.toByteArray();
+		line.reset();
+		final int length = bytes.length > 0 && bytes[ bytes.length - 1 ] == '\r' ? bytes.length - 1 : bytes.length;
+		return new String( bytes, 0, length, charset );
+	}
+
+	/**
+	 * Reads a chunk of a file as raw data, starting at the byte position request.cursor. The response
+	 * contains the position of the next chunk in response.cursor.
+	 */
+	@RequestResponse
+	public Value readChunk( Value request )
+		throws FaultException {
+		final String filename = request.getFirstChild( "filename" ).strValue();
+		final long cursor = request.firstChildOrDefault( "cursor", Value::longValue, 0L );
+		final int size = request.firstChildOrDefault( "size", Value::intValue, DEFAULT_CHUNK_SIZE );
+		final Value response = Value.create();
+		try {
+			final Path path = Paths.get( filename );
+			final byte[] data = readRange( path, cursor, size );
+			response.getFirstChild( "data" ).setValue( new ByteArray( data ) );
+			response.getFirstChild( "cursor" ).setValue( cursor + data.length );
+			response.getFirstChild( "eof" ).setValue( cursor + data.length >= Files.size( path ) );
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFound", e );
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( "IOException", e );
+		}
+		return response;
+	}
+
+	/**
+	 * Appends content to a file, creating it if it does not exist. Concurrent appends to the same file
+	 * are grouped in a single write.
+	 */
+	@RequestResponse
+	public CompletableFuture< Void > appendFile( Value request )
+		throws FaultException {
+		final Value content = request.getFirstChild( "content" );
+		final byte[] bytes;
+		final Path path;
+		try {
+			path = Paths.get( request.getFirstChild( "filename" ).strValue() ).toAbsolutePath().normalize();
+			if( content.isByteArray() ) {
+				bytes = content.byteArrayValue().getBytes();
+			} else if( request.hasChildren( "encoding" ) ) {
+				bytes = content.strValue().getBytes( request.getFirstChild( "encoding" ).strValue() );
+			} else {
+				bytes = content.strValue().getBytes();
+			}
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( "IOException", e );
+		}
+		return appenders.computeIfAbsent( path, FileAppender::new )
+			.append( bytes, request.firstChildOrDefault( "sync", Value::boolValue, false ) );
+	}
+
+	/**
+	 * Starts watching a directory for changes. Changes are notified with one-way messages for
+	 * request.operation (default: fileChanged), see {@link FileWatcher}.
+	 *
+	 * @return the id of the watch
+	 */
+	@RequestResponse
+	public String watch( Value request )
+		throws FaultException {
+		final FileWatcher fileWatcher;
+		synchronized( this ) {
+			if( watcher == null ) {
+				watcher = new FileWatcher( this, interpreter() );
+			}
+			fileWatcher = watcher;
+		}
+		try {
+			return fileWatcher.watch(
+				Paths.get( request.getFirstChild( "directory" ).strValue() ),
+				request.firstChildOrDefault( "operation", Value::strValue, "fileChanged" ),
+				request.firstChildOrDefault( "recursive", Value::boolValue, false ) );
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFound", e );
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( "IOException", e );
+		}
+	}
+
+	@RequestResponse
+	public synchronized Boolean unwatch( String watchId ) {
+		return watcher != null && watcher.unwatch( watchId );
+	}
+
 	@RequestResponse
 	public Boolean exists( String filename ) {
 		return new File( filename ).exists();
@@ -736,7 +967,13 @@ public class FileService extends JavaService {
 			Value::boolValue,
 			false );
 
-		final Pattern pattern = Pattern.compile( regex );
+		final Pattern pattern = PatternCache.get( regex );
+
+		final int offset = request.firstChildOrDefault( "offset", Value::intValue, 0 );
+		final int limit = request.firstChildOrDefault( "limit", Value::intValue, Integer.MAX_VALUE );
+
+		final boolean byName = request.hasChildren( "order" )
+			&& request.getFirstChild( "order" ).firstChildOrDefault( "byname", Value::boolValue, false );
 
 		final BiPredicate< Path, BasicFileAttributes > matcher =
 			( path, attrs ) -> pattern.matcher( path.toString() ).matches() && (!dirsOnly || Files.isDirectory( path ));
@@ -752,9 +989,14 @@ public class FileService extends JavaService {
 			throw new FaultException( e );
 		}
 
+		// Without ordering, only the requested page of the directory is visited
 		final ArrayList< Value > results = new ArrayList<>();
-		dirStream.forEach( path -> {
-			if( !path.equals( dir ) ) {
+		try( Stream< Path > paths = dirStream ) {
+			Stream< Path > page = paths.filter( path -> !path.equals( dir ) );
+			if( byName ) {
+				page = page.sorted( Comparator.comparing( path -> dir.relativize( path ).toString() ) );
+			}
+			page.skip( offset ).limit( limit == Integer.MAX_VALUE ? Long.MAX_VALUE : limit + 1L ).forEach( path -> {
 				final Path p = dir.relativize( path );
 				Value fileValue = Value.create( p.toString() );
 				if( fileInfo ) {
@@ -767,20 +1009,17 @@ public class FileService extends JavaService {
 					info.getFirstChild( "isDirectory" ).setValue( currFile.isDirectory() );
 				}
 				results.add( fileValue );
-			}
-		} );
-
-		dirStream.close();
-
-		if( request.hasChildren( "order" ) ) {
-			Value order = request.getFirstChild( "order" );
-
-			if( order.hasChildren( "byname" ) && order.getFirstChild( "byname" ).boolValue() ) {
-				results.sort( Comparator.comparing( Value::strValue ) );
-			}
+			} );
 		}
 
 		Value response = Value.create();
+		if( request.hasChildren( "limit" ) ) {
+			final boolean hasMore = results.size() > limit;
+			if( hasMore ) {
+				results.remove( limit );
+			}
+			response.getFirstChild( "hasMore" ).setValue( hasMore );
+		}
 		ValueVector responseResults = response.getChildren( "result" );
 		results.forEach( responseResults::add );
 		return response;
@@ -808,7 +1047,7 @@ public class FileService extends JavaService {
 		private final boolean dirsOnly;
 
 		public ListFilter( String regex, boolean dirsOnly ) {
-			this.pattern = Pattern.compile( regex );
+			this.pattern = PatternCache.get( regex );
 			this.dirsOnly = dirsOnly;
 		}
 
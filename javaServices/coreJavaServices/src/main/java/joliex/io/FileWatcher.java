@@ -0,0 +1,214 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.io;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import jolie.Interpreter;
+import jolie.net.CommMessage;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Notifies a {@link FileService} about changes in watched directories, using a
+ * {@link WatchService}.
+ *
+ * The events of a directory that are available at the same time are sent together, in a one-way
+ * message of the shape
+ * <code>{ .watchId: string, .event*: { .kind: string, .path: string } }</code>, where kind is one
+ * of create, modify, delete or overflow.
+ *
+ * @author Fabrizio Montesi
+ */
+final class FileWatcher {
+	private static class Watch {
+		private final String id;
+		private final String operation;
+		private final boolean recursive;
+		private final Set< WatchKey > keys = ConcurrentHashMap.newKeySet();
+
+		private Watch( String id, String operation, boolean recursive ) {
+			this.id = id;
+			this.operation = operation;
+			this.recursive = recursive;
+		}
+	}
+
+	private final FileService service;
+	private final Interpreter interpreter;
+	private final AtomicLong idCounter = new AtomicLong( 0L );
+	private final Map< String, Watch > watches = new ConcurrentHashMap<>();
+	private final Map< WatchKey, Watch > keys = new ConcurrentHashMap<>();
+	private WatchService watchService = null;
+
+	FileWatcher( FileService service, Interpreter interpreter ) {
+		this.service = service;
+		this.interpreter = interpreter;
+	}
+
+	/**
+	 * Starts watching a directory.
+	 *
+	 * @param operation the operation of the embedder that receives the notifications
+	 * @param recursive whether subdirectories, including the ones created later, should be watched too
+	 * @return the id of the watch, to be passed to {@link #unwatch(String)}
+	 */
+	synchronized String watch( Path directory, String operation, boolean recursive )
+		throws IOException {
+		if( watchService == null ) {
+			watchService = FileSystems.getDefault().newWatchService();
+			final Thread thread = new Thread( this::run, "jolie-file-watcher" );
+			thread.setDaemon( true );
+			thread.start();
+		}
+		final Watch watch = new Watch( Long.toString( idCounter.incrementAndGet() ), operation, recursive );
+		watches.put( watch.id, watch );
+		try {
+			register( watch, directory );
+		} catch( IOException e ) {
+			unwatch( watch.id );
+			throw e;
+		}
+		return watch.id;
+	}
+
+	/**
+	 * Stops a watch. Returns <code>false</code> if there is no watch with the given id.
+	 */
+	synchronized boolean unwatch( String id ) {
+		final Watch watch = watches.remove( id );
+		if( watch == null ) {
+			return false;
+		}
+		for( WatchKey key : watch.keys ) {
+			key.cancel();
+			keys.remove( key );
+		}
+		return true;
+	}
+
+	private void register( Watch watch, Path directory )
+		throws IOException {
+		if( watch.recursive ) {
+			Files.walkFileTree( directory, new SimpleFileVisitor< Path >() {
+				@Override
+				public FileVisitResult preVisitDirectory( Path dir, BasicFileAttributes attrs )
+					throws IOException {
+					registerDirectory( watch, dir );
+					return FileVisitResult.CONTINUE;
+				}
+			} );
+		} else {
+			registerDirectory( watch, directory );
+		}
+	}
+
+	private void registerDirectory( Watch watch, Path directory )
+		throws IOException {
+		final WatchKey key = directory.register( watchService,
+			StandardWatchEventKinds.ENTRY_CREATE,
+			StandardWatchEventKinds.ENTRY_MODIFY,
+			StandardWatchEventKinds.ENTRY_DELETE );
+		watch.keys.add( key );
+		keys.put( key, watch );
+	}
+
+	private void run() {
+		try {
+			while( true ) {
+				final WatchKey key = watchService.take();
+				final Watch watch = keys.get( key );
+				if( watch != null ) {
+					notify( watch, key );
+				} else {
+					key.pollEvents();
+				}
+				if( !key.reset() ) {
+					keys.remove( key );
+					if( watch != null ) {
+						watch.keys.remove( key );
+					}
+				}
+			}
+		} catch( InterruptedException | ClosedWatchServiceException e ) {
+			// The watcher is being shut down
+		}
+	}
+
+	private void notify( Watch watch, WatchKey key ) {
+		final Path directory = (Path) key.watchable();
+		final Value message = Value.create();
+		message.getFirstChild( "watchId" ).setValue( watch.id );
+		final ValueVector events = message.getChildren( "event" );
+		for( WatchEvent< ? > event : key.pollEvents() ) {
+			final Value eventValue = Value.create();
+			final WatchEvent.Kind< ? > kind = event.kind();
+			if( kind == StandardWatchEventKinds.OVERFLOW ) {
+				eventValue.getFirstChild( "kind" ).setValue( "overflow" );
+				eventValue.getFirstChild( "path" ).setValue( directory.toString() );
+			} else {
+				final Path path = directory.resolve( (Path) event.context() );
+				eventValue.getFirstChild( "kind" ).setValue( kindName( kind ) );
+				eventValue.getFirstChild( "path" ).setValue( path.toString() );
+				if( watch.recursive && kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory( path ) ) {
+					synchronized( this ) {
+						if( watches.containsKey( watch.id ) ) {
+							try {
+								register( watch, path );
+							} catch( IOException e ) {
+								interpreter.logWarning( e );
+							}
+						}
+					}
+				}
+			}
+			events.add( eventValue );
+		}
+		if( !events.isEmpty() ) {
+			service.sendMessage( CommMessage.createRequest( watch.operation, "/", message ) );
+		}
+	}
+
+	private static String kindName( WatchEvent.Kind< ? > kind ) {
+		if( kind == StandardWatchEventKinds.ENTRY_CREATE ) {
+			return "create";
+		} else if( kind == StandardWatchEventKinds.ENTRY_DELETE ) {
+			return "delete";
+		} else {
+			return "modify";
+		}
+	}
+}
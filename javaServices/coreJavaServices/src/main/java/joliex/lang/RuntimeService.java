@@ -26,6 +26,9 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -33,8 +36,14 @@ import com.sun.management.UnixOperatingSystemMXBean;
 
 import jolie.ExecutionThread;
 import jolie.lang.Constants;
+import jolie.monitoring.MonitoringPipeline;
+import jolie.monitoring.tracing.DistributedTracer;
+import jolie.monitoring.tracing.OtlpHttpExporter;
+import jolie.monitoring.tracing.OtlpJsonFileExporter;
+import jolie.monitoring.tracing.SpanExporter;
 import jolie.net.CommListener;
 import jolie.net.LocalCommChannel;
+import jolie.net.ResponseCache;
 import jolie.net.ports.OutputPort;
 import jolie.runtime.FaultException;
 import jolie.runtime.InvalidIdException;
@@ -76,7 +85,48 @@ public class RuntimeService extends JavaService {
 			true );
 		port.optimizeLocation();
 
-		interpreter().setMonitor( port );
+		interpreter().setMonitor( new MonitoringPipeline(
+			interpreter(),
+			port,
+			request.firstChildOrDefault( "bufferSize", Value::intValue, MonitoringPipeline.DEFAULT_BUFFER_SIZE ),
+			request.firstChildOrDefault( "batchSize", Value::intValue, MonitoringPipeline.DEFAULT_BATCH_SIZE ),
+			request.firstChildOrDefault( "sampling", Value::intValue, MonitoringPipeline.DEFAULT_SAMPLING ) ) );
+	}
+
+	@RequestResponse
+	public void setDistributedTracing( Value request )
+		throws FaultException {
+		final String exporterName = request.getFirstChild( "exporter" ).strValue();
+		final SpanExporter exporter;
+		try {
+			switch( exporterName ) {
+			case "none":
+				interpreter().setDistributedTracer( null );
+				return;
+			case "file":
+				exporter = new OtlpJsonFileExporter(
+					Paths.get( request.firstChildOrDefault( "path", Value::strValue, "spans.jsonl" ) ) );
+				break;
+			case "otlp":
+				exporter = new OtlpHttpExporter( new URL(
+					request.firstChildOrDefault( "endpoint", Value::strValue, OtlpHttpExporter.DEFAULT_ENDPOINT ) ) );
+				break;
+			default:
+				throw new FaultException( "RuntimeException", "Unknown span exporter: " + exporterName );
+			}
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+
+		String serviceName = interpreter().programFilename();
+		if( serviceName.endsWith( ".ol" ) ) {
+			serviceName = serviceName.substring( 0, serviceName.length() - 3 );
+		}
+		interpreter().setDistributedTracer( new DistributedTracer(
+			interpreter(),
+			request.firstChildOrDefault( "serviceName", Value::strValue, serviceName ),
+			exporter,
+			request.firstChildOrDefault( "sampling", Value::doubleValue, DistributedTracer.DEFAULT_SAMPLING_RATIO ) ) );
 	}
 
 	@RequestResponse
@@ -129,6 +179,14 @@ public class RuntimeService extends JavaService {
 				ret.getFirstChild( "protocol" ).setValue( "" );
 			}
 			ret.getFirstChild( "location" ).setValue( foundOp.locationVariablePath().getValue().strValue() );
+			for( Map.Entry< String, ResponseCache.OperationCache > entry : foundOp.responseCache().operations()
+				.entrySet() ) {
+				Value cache = ret.getNewChild( "cache" );
+				cache.setFirstChild( "operation", entry.getKey() );
+				cache.setFirstChild( "hits", entry.getValue().hits() );
+				cache.setFirstChild( "misses", entry.getValue().misses() );
+				cache.setFirstChild( "size", entry.getValue().size() );
+			}
 		}
 		return ret;
 	}
@@ -301,6 +359,28 @@ public class RuntimeService extends JavaService {
 			request.firstChildOrDefault( "status", Value::intValue, 0 ) );
 	}
 
+	public Value getMetrics() {
+		final Value ret = interpreter().metrics().toValue();
+		final StringBuilder text = new StringBuilder();
+		try {
+			interpreter().metrics().writePrometheus( text );
+		} catch( IOException e ) {
+		} // Should never happen
+		ret.setFirstChild( "text", text.toString() );
+		return ret;
+	}
+
+	public Integer startMetricsServer( Value request )
+		throws FaultException {
+		try {
+			return interpreter().startMetricsServer(
+				request.firstChildOrDefault( "host", Value::strValue, null ),
+				request.getFirstChild( "port" ).intValue() );
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+	}
+
 	public Value stats() {
 		final Value stats = Value.create();
 		stats_files( stats.getFirstChild( "files" ) );
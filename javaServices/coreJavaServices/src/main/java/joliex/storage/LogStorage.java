@@ -0,0 +1,175 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.storage;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.embedding.RequestResponse;
+import joliex.storage.types.LogLoadRequest;
+import joliex.storage.types.LogSaveRequest;
+import joliex.storage.types.RemoveRequest;
+import joliex.storage.types.StoragePath;
+
+/**
+ * A storage service that keeps its data in an append-only log (see {@link StorageLog}). Unlike
+ * {@link XmlStorage}, loading or saving a path only processes the data under that path, so the cost
+ * of an operation does not depend on the total size of the storage.
+ *
+ * @author Fabrizio Montesi
+ */
+public class LogStorage extends JavaService {
+	private static final double DEFAULT_COMPACTION_RATIO = 0.5;
+	private static final long DEFAULT_MIN_COMPACTION_SIZE = 1024L * 1024L; // bytes
+
+	private StorageLog log = null;
+
+	@RequestResponse
+	public synchronized void connect( Value request )
+		throws FaultException {
+		try {
+			final StorageLog newLog = new StorageLog(
+				interpreter(),
+				Paths.get( request.getFirstChild( "filename" ).strValue() ),
+				request.firstChildOrDefault( "sync", Value::boolValue, true ),
+				request.firstChildOrDefault( "compactionRatio", Value::doubleValue, DEFAULT_COMPACTION_RATIO ),
+				request.firstChildOrDefault( "minCompactionSize", Value::longValue, DEFAULT_MIN_COMPACTION_SIZE ) );
+			if( log != null ) {
+				log.close();
+			}
+			log = newLog;
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	private synchronized StorageLog log()
+		throws FaultException {
+		if( log == null ) {
+			throw new FaultException( "StorageFault", "Storage not connected (maybe you forgot to call connect?)" );
+		}
+		return log;
+	}
+
+	@RequestResponse
+	public Value load( LogLoadRequest request )
+		throws FaultException {
+		try {
+			return log().load( request.storagePath() );
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	@RequestResponse
+	public void save( LogSaveRequest request )
+		throws FaultException {
+		write( Collections.singletonList( StorageLog.Operation.put( request.storagePath(), request.value() ) ) );
+	}
+
+	/**
+	 * Removes the value at the given path. The elements that follow it in its vector are shifted, as
+	 * with undef in Jolie.
+	 */
+	@RequestResponse
+	public void remove( RemoveRequest request )
+		throws FaultException {
+		write( Collections.singletonList( StorageLog.Operation.remove( request.storagePath() ) ) );
+	}
+
+	/**
+	 * Applies a sequence of saves and removals atomically: after a crash, either all of them or none of
+	 * them are in the storage.
+	 */
+	@RequestResponse
+	public void batch( Value request )
+		throws FaultException {
+		final List< StorageLog.Operation > operations = new ArrayList<>();
+		for( Value operation : request.getChildren( "operation" ) ) {
+			final StoragePath path = StoragePath.fromValue( operation.getFirstChild( "path" ) );
+			if( operation.firstChildOrDefault( "remove", Value::boolValue, false ) ) {
+				operations.add( StorageLog.Operation.remove( path ) );
+			} else {
+				operations.add( StorageLog.Operation.put( path, operation.getFirstChild( "value" ) ) );
+			}
+		}
+		write( operations );
+	}
+
+	private void write( List< StorageLog.Operation > operations )
+		throws FaultException {
+		try {
+			log().write( operations );
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	/**
+	 * Reclaims the space taken by overwritten data. Compaction also happens automatically in the
+	 * background, when the overwritten data exceeds the compaction ratio given to connect.
+	 */
+	@RequestResponse
+	public void compact()
+		throws FaultException {
+		try {
+			log().compact();
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	@RequestResponse
+	public Value stats()
+		throws FaultException {
+		try {
+			final long[] stats = log().stats();
+			final Value response = Value.create();
+			response.getFirstChild( "size" ).setValue( stats[ 0 ] );
+			response.getFirstChild( "garbage" ).setValue( stats[ 1 ] );
+			response.getFirstChild( "compactions" ).setValue( stats[ 2 ] );
+			return response;
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	@RequestResponse
+	public synchronized void close()
+		throws FaultException {
+		if( log != null ) {
+			try {
+				log.close();
+			} catch( IOException e ) {
+				throw new FaultException( "StorageFault", e.getMessage() );
+			} finally {
+				log = null;
+			}
+		}
+	}
+}
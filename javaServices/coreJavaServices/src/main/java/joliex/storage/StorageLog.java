@@ -0,0 +1,869 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import jolie.Interpreter;
+import jolie.runtime.ByteArray;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import joliex.storage.types.StoragePath;
+
+/**
+ * A tree of values stored in an append-only log, with an in-memory index of where the latest
+ * version of each written path is in the log.
+ *
+ * The log is a sequence of records, each containing a batch of operations preceded by its length
+ * and checksum. A batch is applied entirely or not at all: when the log is opened, the index is
+ * rebuilt by replaying the records, and an incomplete or corrupted tail left by a crash is
+ * discarded.
+ *
+ * There are two kinds of operations: PUT replaces the subtree at a path, and VECTOR replaces all
+ * the elements with a given name under a path. Removals are logged as VECTOR operations, since
+ * removing an element shifts the ones that follow it. Reading a path decodes the latest value
+ * written at the path or at its closest ancestor, and then applies the more recent writes below the
+ * path; writing only appends the written subtree. Overwritten data is reclaimed by
+ * {@link #compact()}, which rewrites the live data to a new file in the background and then
+ * replaces the log with it.
+ *
+ * @author Fabrizio Montesi
+ */
+final class StorageLog {
+	private static final int MAGIC = 0x4A4B5653; // "JKVS"
+	private static final byte VERSION = 1;
+	private static final int FILE_HEADER_SIZE = 5;
+	private static final int RECORD_HEADER_SIZE = 8; // Payload length and checksum
+	private static final int COMPACTION_RECORD_SIZE = 1024 * 1024; // bytes
+	private static final int COMPACTION_CHUNK_SIZE = 64 * 1024; // bytes
+
+	private static final byte PUT = 1;
+	private static final byte VECTOR = 2;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte BOOL = 5;
+	private static final byte BYTE_ARRAY = 6;
+
+	/**
+	 * A write to the storage: either replaces the value at a path, or removes it.
+	 */
+	static final class Operation {
+		private final StoragePath path;
+		private final Value value; // null for removals
+
+		private Operation( StoragePath path, Value value ) {
+			this.path = path;
+			this.value = value;
+		}
+
+		static Operation put( StoragePath path, Value value ) {
+			return new Operation( path, value );
+		}
+
+		static Operation remove( StoragePath path ) {
+			return new Operation( path, null );
+		}
+	}
+
+	/*
+	 * The data referred to by the descendants of an index node is always more recent than the data
+	 * referred to by the node itself, since writing a node clears its descendants.
+	 */
+	private static class IndexNode {
+		private long offset = -1L; // Position of the latest value put at this node, -1 if none
+		private int length;
+		private final Map< String, IndexVector > children = new HashMap<>();
+
+		private IndexNode copy() {
+			IndexNode ret = new IndexNode();
+			ret.offset = offset;
+			ret.length = length;
+			children.forEach( ( name, vector ) -> ret.children.put( name, vector.copy() ) );
+			return ret;
+		}
+
+		private long size() {
+			long size = offset < 0 ? 0 : length;
+			for( IndexVector vector : children.values() ) {
+				size += vector.size();
+			}
+			return size;
+		}
+	}
+
+	private static class IndexVector {
+		private long offset = -1L; // Position of the latest elements put with VECTOR, -1 if none
+		private int length;
+		private final SortedMap< Integer, IndexNode > elements = new TreeMap<>();
+
+		private IndexVector copy() {
+			IndexVector ret = new IndexVector();
+			ret.offset = offset;
+			ret.length = length;
+			elements.forEach( ( index, node ) -> ret.elements.put( index, node.copy() ) );
+			return ret;
+		}
+
+		private long size() {
+			long size = offset < 0 ? 0 : length;
+			for( IndexNode node : elements.values() ) {
+				size += node.size();
+			}
+			return size;
+		}
+	}
+
+	private static class Buffer extends ByteArrayOutputStream {
+		private ByteBuffer slice( int offset, int length ) {
+			return ByteBuffer.wrap( buf, offset, length ).slice();
+		}
+	}
+
+	/*
+	 * Accumulates operations in a record, updating an index as if the record had already been written
+	 * at the end of the log.
+	 */
+	private static class RecordWriter {
+		private final FileChannel channel;
+		private final IndexNode root;
+		private long end;
+		private long garbage = 0L;
+		private final Buffer payload = new Buffer();
+		private final DataOutputStream output = new DataOutputStream( payload );
+		private int count = 0;
+
+		private RecordWriter( FileChannel channel, IndexNode root, long end ) {
+			this.channel = channel;
+			this.root = root;
+			this.end = end;
+			reset();
+		}
+
+		private void reset() {
+			payload.reset();
+			payload.write( new byte[ 4 ], 0, 4 ); // Number of operations, filled in by flush
+			count = 0;
+		}
+
+		private long payloadOffset() {
+			return end + RECORD_HEADER_SIZE;
+		}
+
+		private boolean contains( long offset ) {
+			return offset >= payloadOffset();
+		}
+
+		private ByteBuffer read( long offset, int length ) {
+			return payload.slice( (int) (offset - payloadOffset()), length );
+		}
+
+		private int size() {
+			return payload.size();
+		}
+
+		private void put( StoragePath path, byte[] value )
+			throws IOException {
+			output.writeByte( PUT );
+			writePath( output, path );
+			final int start = payload.size();
+			output.write( value );
+			garbage += StorageLog.put( root, path, payloadOffset() + start, value.length );
+			count++;
+		}
+
+		private void putVector( StoragePath parent, String name, ValueVector elements )
+			throws IOException {
+			output.writeByte( VECTOR );
+			writePath( output, parent );
+			writeString( output, name );
+			final int start = payload.size();
+			output.writeInt( elements.size() );
+			for( Value element : elements ) {
+				writeValue( output, element );
+			}
+			garbage += StorageLog.putVector( root, parent, name, payloadOffset() + start, payload.size() - start );
+			count++;
+		}
+
+		private void flush()
+			throws IOException {
+			if( count == 0 ) {
+				return;
+			}
+			final byte[] bytes = payload.toByteArray();
+			ByteBuffer.wrap( bytes ).putInt( 0, count );
+			final ByteBuffer record = ByteBuffer.allocate( RECORD_HEADER_SIZE + bytes.length );
+			record.putInt( bytes.length ).putInt( checksum( bytes, 0, bytes.length ) ).put( bytes );
+			record.flip();
+			writeFully( channel, record, end );
+			end += record.capacity();
+			reset();
+		}
+	}
+
+	private final Interpreter interpreter;
+	private final Path path;
+	private final boolean sync;
+	private final double compactionRatio;
+	private final long minCompactionSize;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final AtomicBoolean compacting = new AtomicBoolean( false );
+
+	// Guarded by lock
+	private FileChannel channel;
+	private IndexNode root = new IndexNode();
+	private long end = 0L; // Size of the valid part of the log
+	private long garbage = 0L; // Bytes in the log that have been overwritten
+	private long compactions = 0L;
+	private RecordWriter pending = null; // The batch being written, if any
+
+	/**
+	 * Opens the log in the given file, creating it if it does not exist.
+	 *
+	 * @param sync whether writes should be flushed to the storage device before returning
+	 * @param compactionRatio the fraction of overwritten data in the log that triggers a compaction
+	 * @param minCompactionSize the size in bytes under which the log is never compacted automatically
+	 */
+	StorageLog( Interpreter interpreter, Path path, boolean sync, double compactionRatio, long minCompactionSize )
+		throws IOException {
+		this.interpreter = interpreter;
+		this.path = path;
+		this.sync = sync;
+		this.compactionRatio = compactionRatio;
+		this.minCompactionSize = minCompactionSize;
+		this.channel = FileChannel.open( path,
+			StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		try {
+			recover();
+		} catch( IOException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private void recover()
+		throws IOException {
+		final long size = channel.size();
+		if( size < FILE_HEADER_SIZE ) {
+			channel.truncate( 0 );
+			writeFileHeader( channel );
+			channel.force( true );
+			end = FILE_HEADER_SIZE;
+			return;
+		}
+
+		final ByteBuffer header = read( 0, FILE_HEADER_SIZE );
+		if( header.getInt() != MAGIC || header.get() != VERSION ) {
+			throw new IOException( path + " is not a storage log" );
+		}
+
+		long position = FILE_HEADER_SIZE;
+		while( position + RECORD_HEADER_SIZE <= size ) {
+			final ByteBuffer recordHeader = read( position, RECORD_HEADER_SIZE );
+			final int length = recordHeader.getInt();
+			final int checksum = recordHeader.getInt();
+			if( length < 4 || position + RECORD_HEADER_SIZE + length > size ) {
+				break;
+			}
+			final ByteBuffer payload = read( position + RECORD_HEADER_SIZE, length );
+			if( checksum( payload.array(), 0, length ) != checksum ) {
+				break;
+			}
+			garbage += replay( root, payload, position + RECORD_HEADER_SIZE );
+			position += RECORD_HEADER_SIZE + length;
+		}
+		if( position < size ) {
+			interpreter
+				.logWarning( "Discarding " + (size - position) + " bytes of incomplete or corrupted data at the end of "
+					+ path + ", probably left by a crash" );
+			channel.truncate( position );
+			channel.force( true );
+		}
+		end = position;
+	}
+
+	/**
+	 * Returns the value at the given path, or an empty value if nothing has been stored there.
+	 */
+	Value load( StoragePath path )
+		throws IOException {
+		lock.readLock().lock();
+		try {
+			checkOpen();
+			return read( root, path, null );
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies the given operations atomically and appends them to the log.
+	 */
+	void write( List< Operation > operations )
+		throws IOException {
+		boolean shouldCompact = false;
+		lock.writeLock().lock();
+		try {
+			checkOpen();
+			pending = new RecordWriter( channel, root, end );
+			for( Operation operation : operations ) {
+				if( operation.value != null ) {
+					pending.put( operation.path, encode( operation.value ) );
+				} else if( operation.path.nodes().length == 0 ) {
+					pending.put( operation.path, encode( Value.create() ) );
+				} else {
+					final StoragePath parent = operation.path.parent();
+					final StoragePath.Node last = operation.path.nodes()[ operation.path.nodes().length - 1 ];
+					final ValueVector elements = read( root, parent, last.name() ).getChildren( last.name() );
+					if( last.index() < elements.size() ) {
+						elements.remove( last.index() );
+						pending.putVector( parent, last.name(), elements );
+					}
+				}
+			}
+			pending.flush();
+			if( sync ) {
+				channel.force( false );
+			}
+			end = pending.end;
+			garbage += pending.garbage;
+			shouldCompact = end > minCompactionSize && garbage > end * compactionRatio;
+		} catch( IOException | RuntimeException e ) {
+			// The index may refer to data that has not been written, rebuild it from the log
+			try {
+				channel.truncate( end );
+				root = new IndexNode();
+				garbage = 0L;
+				recover();
+			} catch( IOException re ) {
+				e.addSuppressed( re );
+			}
+			throw e;
+		} finally {
+			pending = null;
+			lock.writeLock().unlock();
+		}
+
+		if( shouldCompact && !compacting.get() ) {
+			interpreter.execute( () -> {
+				try {
+					compact();
+				} catch( IOException e ) {
+					interpreter.logWarning( e );
+				}
+			} );
+		}
+	}
+
+	/**
+	 * Rewrites the log so that it contains only live data. Writes can proceed while the live data is
+	 * being copied; they are appended to the new log before it replaces the current one. Does nothing
+	 * if a compaction is already running.
+	 */
+	void compact()
+		throws IOException {
+		if( !compacting.compareAndSet( false, true ) ) {
+			return;
+		}
+		final Path compactedPath = path.resolveSibling( path.getFileName() + ".compact" );
+		FileChannel compacted = null;
+		try {
+			final IndexNode snapshot;
+			final long snapshotEnd;
+			lock.readLock().lock();
+			try {
+				checkOpen();
+				snapshot = root.copy();
+				snapshotEnd = end;
+			} finally {
+				lock.readLock().unlock();
+			}
+
+			// The log is append-only, so the data referred to by the snapshot does not change
+			final Value data = read( snapshot, StoragePath.root(), null );
+			compacted = FileChannel.open( compactedPath, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE );
+			writeFileHeader( compacted );
+			final RecordWriter writer = new RecordWriter( compacted, new IndexNode(), FILE_HEADER_SIZE );
+			writeCompacted( writer, StoragePath.root(), data );
+			writer.flush();
+
+			lock.writeLock().lock();
+			try {
+				checkOpen();
+				// Copy the records written in the meantime
+				long position = snapshotEnd;
+				while( position < end ) {
+					final int length = read( position, RECORD_HEADER_SIZE ).getInt();
+					final ByteBuffer record = read( position, RECORD_HEADER_SIZE + length );
+					writeFully( compacted, record, writer.end );
+					record.position( RECORD_HEADER_SIZE );
+					writer.garbage += replay( writer.root, record.slice(), writer.payloadOffset() );
+					writer.end += RECORD_HEADER_SIZE + length;
+					position += RECORD_HEADER_SIZE + length;
+				}
+				compacted.force( true );
+				Files.move( compactedPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+				channel.close();
+				channel = compacted;
+				compacted = null;
+				root = writer.root;
+				end = writer.end;
+				garbage = writer.garbage;
+				compactions++;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} finally {
+			if( compacted != null ) {
+				compacted.close();
+				Files.deleteIfExists( compactedPath );
+			}
+			compacting.set( false );
+		}
+	}
+
+	/*
+	 * Values whose encoding is large are split in a record for their root and records for their
+	 * children, so that later reads of parts of them do not need to decode everything.
+	 */
+	private static void writeCompacted( RecordWriter writer, StoragePath path, Value value )
+		throws IOException {
+		final byte[] encoded = encode( value );
+		if( encoded.length <= COMPACTION_CHUNK_SIZE || !value.hasChildren() ) {
+			writer.put( path, encoded );
+		} else {
+			final Value root = Value.create();
+			root.setValue( value.valueObject() );
+			writer.put( path, encode( root ) );
+			for( Map.Entry< String, ValueVector > entry : value.children().entrySet() ) {
+				final ValueVector elements = entry.getValue();
+				for( int i = 0; i < elements.size(); i++ ) {
+					writeCompacted( writer, path.child( entry.getKey(), i ), elements.get( i ) );
+				}
+			}
+		}
+		if( writer.size() >= COMPACTION_RECORD_SIZE ) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Returns the size of the log, the amount of overwritten data in it and the number of compactions.
+	 */
+	long[] stats()
+		throws IOException {
+		lock.readLock().lock();
+		try {
+			checkOpen();
+			return new long[] { end, garbage, compactions };
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	void close()
+		throws IOException {
+		lock.writeLock().lock();
+		try {
+			channel.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void checkOpen()
+		throws IOException {
+		if( !channel.isOpen() ) {
+			throw new IOException( "Storage log " + path + " has been closed" );
+		}
+	}
+
+	/*
+	 * Reads the value at a path. If onlyChild is not null, the returned value is only guaranteed to be
+	 * up to date for the children with that name.
+	 */
+	private Value read( IndexNode root, StoragePath path, String onlyChild )
+		throws IOException {
+		Value value = null; // The value at the current step, according to the data seen so far
+		IndexNode node = root;
+		for( StoragePath.Node step : path.nodes() ) {
+			if( node != null && node.offset >= 0 ) {
+				value = readValue( node.offset, node.length );
+			}
+			final IndexVector vector = node == null ? null : node.children.get( step.name() );
+			ValueVector elements = value != null && value.hasChildren( step.name() )
+				? value.getChildren( step.name() )
+				: null;
+			if( vector != null && vector.offset >= 0 ) {
+				elements = readVector( vector.offset, vector.length );
+			}
+			value = elements != null && step.index() < elements.size() ? elements.get( step.index() ) : null;
+			node = vector == null ? null : vector.elements.get( step.index() );
+		}
+		if( node != null && node.offset >= 0 ) {
+			value = readValue( node.offset, node.length );
+		}
+		if( value == null ) {
+			value = Value.create();
+		}
+		if( node != null ) {
+			if( onlyChild == null ) {
+				for( Map.Entry< String, IndexVector > entry : node.children.entrySet() ) {
+					overlay( value, entry.getKey(), entry.getValue() );
+				}
+			} else if( node.children.containsKey( onlyChild ) ) {
+				overlay( value, onlyChild, node.children.get( onlyChild ) );
+			}
+		}
+		return value;
+	}
+
+	// Applies the writes recorded in an index vector to the children of a value
+	private void overlay( Value parent, String name, IndexVector vector )
+		throws IOException {
+		if( vector.offset >= 0 ) {
+			final ValueVector elements = readVector( vector.offset, vector.length );
+			if( elements.isEmpty() ) {
+				parent.children().remove( name );
+			} else {
+				parent.children().put( name, elements );
+			}
+		}
+		if( vector.elements.isEmpty() ) {
+			return;
+		}
+		final ValueVector elements = parent.getChildren( name );
+		for( Map.Entry< Integer, IndexNode > entry : vector.elements.entrySet() ) {
+			final IndexNode node = entry.getValue();
+			final Value element;
+			if( node.offset >= 0 ) {
+				element = readValue( node.offset, node.length );
+				elements.set( entry.getKey(), element );
+			} else {
+				element = elements.get( entry.getKey() );
+			}
+			for( Map.Entry< String, IndexVector > child : node.children.entrySet() ) {
+				overlay( element, child.getKey(), child.getValue() );
+			}
+		}
+	}
+
+	private Value readValue( long offset, int length )
+		throws IOException {
+		try {
+			return decodeValue( read( offset, length ) );
+		} catch( BufferUnderflowException e ) {
+			throw new IOException( "Corrupted value at offset " + offset + " of " + path, e );
+		}
+	}
+
+	private ValueVector readVector( long offset, int length )
+		throws IOException {
+		try {
+			final ByteBuffer buffer = read( offset, length );
+			final ValueVector ret = ValueVector.create();
+			for( int n = buffer.getInt(); n > 0; n-- ) {
+				ret.add( decodeValue( buffer ) );
+			}
+			return ret;
+		} catch( BufferUnderflowException e ) {
+			throw new IOException( "Corrupted value at offset " + offset + " of " + path, e );
+		}
+	}
+
+	private ByteBuffer read( long offset, int length )
+		throws IOException {
+		if( lock.isWriteLockedByCurrentThread() && pending != null && pending.contains( offset ) ) {
+			return pending.read( offset, length );
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate( length );
+		while( buffer.hasRemaining() ) {
+			if( channel.read( buffer, offset + buffer.position() ) < 0 ) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	// Updates an index with the operations in a record payload, returning the amount of overwritten
+	// data
+	private static long replay( IndexNode root, ByteBuffer payload, long payloadOffset )
+		throws IOException {
+		long garbage = 0L;
+		try {
+			for( int n = payload.getInt(); n > 0; n-- ) {
+				final byte kind = payload.get();
+				final StoragePath path = readPath( payload );
+				if( kind == PUT ) {
+					final int start = payload.position();
+					skipValue( payload );
+					garbage += put( root, path, payloadOffset + start, payload.position() - start );
+				} else if( kind == VECTOR ) {
+					final String name = readString( payload );
+					final int start = payload.position();
+					for( int k = payload.getInt(); k > 0; k-- ) {
+						skipValue( payload );
+					}
+					garbage += putVector( root, path, name, payloadOffset + start, payload.position() - start );
+				} else {
+					throw new IOException( "Unknown storage operation: " + kind );
+				}
+			}
+		} catch( BufferUnderflowException e ) {
+			throw new IOException( "Corrupted storage record at offset " + payloadOffset, e );
+		}
+		return garbage;
+	}
+
+	private static IndexNode locate( IndexNode root, StoragePath path ) {
+		IndexNode node = root;
+		for( StoragePath.Node step : path.nodes() ) {
+			node = node.children.computeIfAbsent( step.name(), k -> new IndexVector() ).elements
+				.computeIfAbsent( step.index(), k -> new IndexNode() );
+		}
+		return node;
+	}
+
+	private static long put( IndexNode root, StoragePath path, long offset, int length ) {
+		final IndexNode node = locate( root, path );
+		final long garbage = node.size();
+		node.children.clear();
+		node.offset = offset;
+		node.length = length;
+		return garbage;
+	}
+
+	private static long putVector( IndexNode root, StoragePath parent, String name, long offset, int length ) {
+		final IndexVector vector = locate( root, parent ).children.computeIfAbsent( name, k -> new IndexVector() );
+		final long garbage = vector.size();
+		vector.elements.clear();
+		vector.offset = offset;
+		vector.length = length;
+		return garbage;
+	}
+
+	private static void writeFileHeader( FileChannel channel )
+		throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate( FILE_HEADER_SIZE );
+		header.putInt( MAGIC ).put( VERSION );
+		header.flip();
+		writeFully( channel, header, 0 );
+	}
+
+	private static void writeFully( FileChannel channel, ByteBuffer buffer, long position )
+		throws IOException {
+		long p = position;
+		while( buffer.hasRemaining() ) {
+			p += channel.write( buffer, p );
+		}
+	}
+
+	private static int checksum( byte[] bytes, int offset, int length ) {
+		final CRC32 crc = new CRC32();
+		crc.update( bytes, offset, length );
+		return (int) crc.getValue();
+	}
+
+	private static byte[] encode( Value value )
+		throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writeValue( new DataOutputStream( bytes ), value );
+		return bytes.toByteArray();
+	}
+
+	private static void writeValue( DataOutput output, Value value )
+		throws IOException {
+		final Object valueObject = value.valueObject();
+		if( valueObject instanceof String ) {
+			output.writeByte( STRING );
+			writeString( output, (String) valueObject );
+		} else if( valueObject instanceof Integer ) {
+			output.writeByte( INT );
+			output.writeInt( (Integer) valueObject );
+		} else if( valueObject instanceof Long ) {
+			output.writeByte( LONG );
+			output.writeLong( (Long) valueObject );
+		} else if( valueObject instanceof Double ) {
+			output.writeByte( DOUBLE );
+			output.writeDouble( (Double) valueObject );
+		} else if( valueObject instanceof Boolean ) {
+			output.writeByte( BOOL );
+			output.writeBoolean( (Boolean) valueObject );
+		} else if( valueObject instanceof ByteArray ) {
+			final byte[] bytes = ((ByteArray) valueObject).getBytes();
+			output.writeByte( BYTE_ARRAY );
+			output.writeInt( bytes.length );
+			output.write( bytes );
+		} else {
+			output.writeByte( NULL );
+		}
+
+		final List< Map.Entry< String, ValueVector > > children = new ArrayList<>( value.children().entrySet() );
+		output.writeInt( children.size() );
+		for( Map.Entry< String, ValueVector > entry : children ) {
+			writeString( output, entry.getKey() );
+			final ValueVector elements = entry.getValue();
+			output.writeInt( elements.size() );
+			for( Value element : elements ) {
+				writeValue( output, element );
+			}
+		}
+	}
+
+	private static Value decodeValue( ByteBuffer buffer )
+		throws IOException {
+		final Value value = Value.create();
+		final byte type = buffer.get();
+		switch( type ) {
+		case NULL:
+			break;
+		case STRING:
+			value.setValue( readString( buffer ) );
+			break;
+		case INT:
+			value.setValue( buffer.getInt() );
+			break;
+		case LONG:
+			value.setValue( buffer.getLong() );
+			break;
+		case DOUBLE:
+			value.setValue( buffer.getDouble() );
+			break;
+		case BOOL:
+			value.setValue( buffer.get() != 0 );
+			break;
+		case BYTE_ARRAY:
+			final byte[] bytes = new byte[ buffer.getInt() ];
+			buffer.get( bytes );
+			value.setValue( new ByteArray( bytes ) );
+			break;
+		default:
+			throw new IOException( "Unknown value type in storage: " + type );
+		}
+		for( int n = buffer.getInt(); n > 0; n-- ) {
+			final ValueVector elements = value.getChildren( readString( buffer ) );
+			for( int k = buffer.getInt(); k > 0; k-- ) {
+				elements.add( decodeValue( buffer ) );
+			}
+		}
+		return value;
+	}
+
+	private static void skipValue( ByteBuffer buffer )
+		throws IOException {
+		final byte type = buffer.get();
+		switch( type ) {
+		case NULL:
+			break;
+		case STRING:
+		case BYTE_ARRAY:
+			skip( buffer, buffer.getInt() );
+			break;
+		case INT:
+			skip( buffer, 4 );
+			break;
+		case LONG:
+		case DOUBLE:
+			skip( buffer, 8 );
+			break;
+		case BOOL:
+			skip( buffer, 1 );
+			break;
+		default:
+			throw new IOException( "Unknown value type in storage: " + type );
+		}
+		for( int n = buffer.getInt(); n > 0; n-- ) {
+			skip( buffer, buffer.getInt() );
+			for( int k = buffer.getInt(); k > 0; k-- ) {
+				skipValue( buffer );
+			}
+		}
+	}
+
+	private static void skip( ByteBuffer buffer, int length ) {
+		if( length < 0 || length > buffer.remaining() ) {
+			throw new BufferUnderflowException();
+		}
+		buffer.position( buffer.position() + length );
+	}
+
+	private static void writePath( DataOutput output, StoragePath path )
+		throws IOException {
+		output.writeInt( path.nodes().length );
+		for( StoragePath.Node node : path.nodes() ) {
+			writeString( output, node.name() );
+			output.writeInt( node.index() );
+		}
+	}
+
+	private static StoragePath readPath( ByteBuffer buffer ) {
+		StoragePath path = StoragePath.root();
+		for( int n = buffer.getInt(); n > 0; n-- ) {
+			path = path.child( readString( buffer ), buffer.getInt() );
+		}
+		return path;
+	}
+
+	private static void writeString( DataOutput output, String s )
+		throws IOException {
+		final byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+		output.writeInt( bytes.length );
+		output.write( bytes );
+	}
+
+	private static String readString( ByteBuffer buffer ) {
+		final int length = buffer.getInt();
+		if( length < 0 || length > buffer.remaining() ) {
+			throw new BufferUnderflowException();
+		}
+		final String ret = new String( buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+			StandardCharsets.UTF_8 );
+		buffer.position( buffer.position() + length );
+		return ret;
+	}
+}
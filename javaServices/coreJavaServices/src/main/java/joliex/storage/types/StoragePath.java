@@ -21,6 +21,7 @@
 
 package joliex.storage.types;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import jolie.runtime.Value;
@@ -74,6 +75,8 @@ public class StoragePath implements Iterable< Node > {
 		}
 	}
 
+	private static final StoragePath ROOT = new StoragePath( new Node[ 0 ] );
+
 	private final Node[] nodes;
 
 	private StoragePath( Node[] nodes ) {
@@ -88,6 +91,26 @@ public class StoragePath implements Iterable< Node > {
 		return new ArrayIterator<>( nodes );
 	}
 
+	/**
+	 * Returns the path of the element with the given name and index under this path.
+	 */
+	public StoragePath child( String name, int index ) {
+		Node[] childNodes = Arrays.copyOf( nodes, nodes.length + 1 );
+		childNodes[ nodes.length ] = new Node( name, index );
+		return new StoragePath( childNodes );
+	}
+
+	/**
+	 * Returns the path of the parent of this path, or <code>null</code> if this path is empty.
+	 */
+	public StoragePath parent() {
+		return nodes.length == 0 ? null : new StoragePath( Arrays.copyOf( nodes, nodes.length - 1 ) );
+	}
+
+	public static StoragePath root() {
+		return ROOT;
+	}
+
 	public static StoragePath fromValue( Value value ) {
 		ValueVector nodesVector = value.getChildren( "node" );
 		Node[] nodes = new Node[ nodesVector.size() ];
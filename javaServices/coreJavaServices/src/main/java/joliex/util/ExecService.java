@@ -21,22 +21,166 @@
 
 package joliex.util;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import jolie.lang.Constants;
+import jolie.net.CommMessage;
+import jolie.runtime.ByteArray;
 import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
+import jolie.runtime.embedding.RequestResponse;
 
+/**
+ * Executes external processes.
+ *
+ * No thread is blocked while a process runs: the standard output and error of a process are
+ * redirected to temporary files and its termination is observed through {@link Process#onExit()}.
+ * Besides the blocking-style exec operation, processes can be started in the background and
+ * identified by a handle, which can be used to page through their output, to wait for them, and to
+ * kill them. The output of a background process can also be streamed to its embedder through
+ * callback operations.
+ *
+ * @author Fabrizio Montesi
+ */
 public class ExecService extends JavaService {
-	public Value exec( Value request )
+	private static final String PROCESS_NOT_FOUND_FAULT_NAME = "ProcessNotFound";
+	private static final String STDOUT = "stdout";
+	private static final String STDERR = "stderr";
+	private static final int DEFAULT_READ_SIZE = 64 * 1024;
+	private static final long OUTPUT_POLL_INTERVAL = 100L; // milliseconds
+	private static final long EXITED_RETENTION = 10L * 60 * 1000; // milliseconds
+
+	private final Map< String, Execution > executions = new ConcurrentHashMap<>();
+	private final AtomicLong handleCounter = new AtomicLong( 0L );
+	private final AtomicBoolean polling = new AtomicBoolean( false );
+
+	private class Execution {
+		private final String handle;
+		private final Process process;
+		private final Path stdout; // null if not captured
+		private final Path stderr; // null if not captured
+		private final String outputOperation; // null if output is not streamed
+		private final CompletableFuture< Integer > exit;
+		private final long[] sent = new long[] { 0L, 0L }; // bytes streamed from stdout and stderr
+		private volatile boolean timedOut = false;
+		// notifications sent to the embedder, chained so that they are received in order
+		private CompletableFuture< Void > notifications = CompletableFuture.completedFuture( null );
+
+		private Execution( String handle, Process process, Path stdout, Path stderr, String outputOperation,
+			long timeout ) {
+			this.handle = handle;
+			this.process = process;
+			this.stdout = stdout;
+			this.stderr = stderr;
+			this.outputOperation = outputOperation;
+			final TimerTask timeoutTask;
+			if( timeout > 0 ) {
+				timeoutTask = new TimerTask() {
+					@Override
+					public void run() {
+						timedOut = true;
+						destroy( true );
+					}
+				};
+				interpreter().schedule( timeoutTask, timeout );
+			} else {
+				timeoutTask = null;
+			}
+			this.exit = process.onExit().thenApply( p -> {
+				if( timeoutTask != null ) {
+					timeoutTask.cancel();
+				}
+				return p.exitValue();
+			} );
+		}
+
+		private boolean destroy( boolean force ) {
+			final boolean alive = process.isAlive();
+			if( force ) {
+				process.descendants().forEach( ProcessHandle::destroyForcibly );
+				process.destroyForcibly();
+			} else {
+				process.destroy();
+			}
+			return alive;
+		}
+
+		private Path output( String stream )
+			throws FaultException {
+			if( STDOUT.equals( stream ) && stdout != null ) {
+				return stdout;
+			} else if( STDERR.equals( stream ) && stderr != null ) {
+				return stderr;
+			}
+			throw new FaultException( "IllegalArgumentException", "Output " + stream + " is not available" );
+		}
+
+		/*
+		 * Sends a notification once the previous ones have been acknowledged. The notifications are sent
+		 * by the threads of the interpreter, so that neither the timer nor the thread that observes the
+		 * termination of processes wait for the embedder.
+		 */
+		private synchronized void notifyEmbedder( Supplier< CompletableFuture< Void > > notification ) {
+			notifications = notifications.thenComposeAsync( v -> notification.get(), interpreter()::execute );
+		}
+
+		private synchronized boolean notifying() {
+			return !notifications.isDone();
+		}
+
+		// Sends the output produced since the last call to the embedder
+		private void streamOutput() {
+			notifyEmbedder( this::sendOutput );
+		}
+
+		// Sends a chunk of output, and the following ones once it has been acknowledged
+		private CompletableFuture< Void > sendOutput() {
+			try {
+				for( int i = 0; i < 2; i++ ) {
+					final Path file = i == 0 ? stdout : stderr;
+					final byte[] data = file == null ? new byte[ 0 ] : readChunk( file, sent[ i ], DEFAULT_READ_SIZE );
+					if( data.length > 0 ) {
+						sent[ i ] += data.length;
+						final Value message = Value.create();
+						message.getFirstChild( "handle" ).setValue( handle );
+						message.getFirstChild( "stream" ).setValue( i == 0 ? STDOUT : STDERR );
+						message.getFirstChild( "data" ).setValue( new ByteArray( data ) );
+						return sendNotification( CommMessage.createRequest( outputOperation, "/", message ) )
+							.thenComposeAsync( v -> sendOutput(), interpreter()::execute );
+					}
+				}
+			} catch( IOException e ) {
+				interpreter().logWarning( e );
+			}
+			return CompletableFuture.completedFuture( null );
+		}
+
+		private void deleteOutput() {
+			deleteQuietly( stdout );
+			deleteQuietly( stderr );
+		}
+	}
+
+	private Execution launch( Value request, boolean capture, String handle, String outputOperation )
 		throws FaultException {
 		List< String > command = new LinkedList<>();
 		String[] str = request.strValue().split( " " );
@@ -50,75 +194,271 @@ public class ExecService extends JavaService {
 		if( request.hasChildren( "workingDirectory" ) ) {
 			builder.directory( new File( request.getFirstChild( "workingDirectory" ).strValue() ) );
 		}
+		Path stdout = null;
+		Path stderr = null;
 		try {
+			if( request.hasChildren( "stdOutConsoleEnable" )
+				&& request.getFirstChild( "stdOutConsoleEnable" ).boolValue() ) {
+				builder.redirectOutput( Redirect.INHERIT );
+			} else if( capture ) {
+				stdout = createOutputFile();
+				builder.redirectOutput( stdout.toFile() );
+			} else {
+				builder.redirectOutput( Redirect.DISCARD );
+			}
+			if( capture ) {
+				stderr = createOutputFile();
+				builder.redirectError( stderr.toFile() );
+			} else {
+				builder.redirectError( Redirect.DISCARD );
+			}
+			Process p = builder.start();
+			p.getOutputStream().close();
+			return new Execution( handle, p, stdout, stderr, outputOperation,
+				request.getFirstChild( "timeout" ).longValue() );
+		} catch( IOException e ) {
+			deleteQuietly( stdout );
+			deleteQuietly( stderr );
+			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
+		}
+	}
+
+	public CompletableFuture< Value > exec( Value request )
+		throws FaultException {
+		ValueVector waitFor = request.children().get( "waitFor" );
+		if( waitFor != null && waitFor.first().intValue() <= 0 ) {
+			launch( request, false, null, null );
+			return CompletableFuture.completedFuture( Value.create() );
+		}
 
+		final Execution execution = launch( request, true, null, null );
+		final CompletableFuture< Value > result = new CompletableFuture<>();
+		execution.exit.thenAccept( exitCode -> {
 			Value response = Value.create();
-			boolean stdOutConsoleEnable = false;
-			Process p = builder.start();
-			StreamGobbler outputStreamGobbler = new StreamGobbler( p.getInputStream() );
-			if( request.hasChildren( "stdOutConsoleEnable" ) ) {
-				if( request.getFirstChild( "stdOutConsoleEnable" ).boolValue() ) {
-					outputStreamGobbler.start();
-					stdOutConsoleEnable = true;
-				}
+			response.getNewChild( "exitCode" ).setValue( exitCode );
+			if( execution.timedOut ) {
+				response.getFirstChild( "timedOut" ).setValue( true );
 			}
-			ValueVector waitFor = request.children().get( "waitFor" );
-			if( waitFor == null || waitFor.first().intValue() > 0 ) {
-				int exitCode = p.waitFor();
-				response.getNewChild( "exitCode" ).setValue( exitCode );
-				if( !stdOutConsoleEnable ) {
-					int len = p.getInputStream().available();
-					if( len > 0 ) {
-						char[] buffer = new char[ len ];
-						try( BufferedReader reader =
-							new BufferedReader( new InputStreamReader( p.getInputStream() ) ) ) {
-							reader.read( buffer, 0, len );
-						}
-						response.setValue( new String( buffer ) );
+			try {
+				if( execution.stdout != null ) {
+					byte[] bytes = Files.readAllBytes( execution.stdout );
+					if( bytes.length > 0 ) {
+						response.setValue( new String( bytes ) );
 					}
 				}
-				if( p.getErrorStream() != null ) {
-					int len = p.getErrorStream().available();
-					if( len > 0 ) {
-						char[] buffer = new char[ len ];
-						try( BufferedReader reader =
-							new BufferedReader( new InputStreamReader( p.getErrorStream() ) ) ) {
-							reader.read( buffer, 0, len );
-						}
-						response.getFirstChild( "stderr" ).setValue( new String( buffer ) );
-					}
+				byte[] bytes = Files.readAllBytes( execution.stderr );
+				if( bytes.length > 0 ) {
+					response.getFirstChild( "stderr" ).setValue( new String( bytes ) );
+				}
+				result.complete( response );
+			} catch( IOException e ) {
+				result.completeExceptionally( new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ) );
+			} finally {
+				execution.deleteOutput();
+			}
+		} );
+		return result;
+	}
+
+	public String start( Value request )
+		throws FaultException {
+		final String handle = Long.toString( handleCounter.incrementAndGet() );
+		final String outputOperation =
+			request.hasChildren( "outputOperation" ) ? request.getFirstChild( "outputOperation" ).strValue() : null;
+		final Execution execution = launch( request, true, handle, outputOperation );
+		executions.put( handle, execution );
+		execution.exit.thenRun( () -> expire( execution ) );
+		if( outputOperation != null ) {
+			schedulePoll();
+		}
+		if( outputOperation != null || request.hasChildren( "exitOperation" ) ) {
+			final String exitOperation =
+				request.hasChildren( "exitOperation" ) ? request.getFirstChild( "exitOperation" ).strValue() : null;
+			execution.exit.thenAccept( exitCode -> {
+				if( outputOperation != null ) {
+					execution.streamOutput();
 				}
-				if( outputStreamGobbler.isAlive() ) {
-					outputStreamGobbler.join();
+				if( exitOperation != null ) {
+					final CommMessage message =
+						CommMessage.createRequest( exitOperation, "/", exitValue( execution, exitCode ) );
+					execution.notifyEmbedder( () -> sendNotification( message ) );
 				}
-				p.getInputStream().close();
-				p.getErrorStream().close();
-				p.getOutputStream().close();
+			} );
+		}
+		return handle;
+	}
+
+	/*
+	 * Local messages are dispatched concurrently, so the notifications of a process wait for the
+	 * previous one to be acknowledged (i.e., queued by the embedder) to be received in order. The
+	 * returned future is completed when this happens, also if the notification failed.
+	 */
+	private CompletableFuture< Void > sendNotification( CommMessage message ) {
+		try {
+			final Future< CommMessage > response = sendMessage( message ).recvResponseFor( message );
+			if( response instanceof CompletableFuture ) {
+				return ((CompletableFuture< CommMessage >) response).handle( ( ack, error ) -> {
+					if( error != null ) {
+						interpreter().logWarning( error );
+					}
+					return null;
+				} );
 			}
+		} catch( IOException e ) {
+			interpreter().logWarning( e );
+		}
+		return CompletableFuture.completedFuture( null );
+	}
+
+	public Value readOutput( Value request )
+		throws FaultException {
+		final Execution execution = execution( request.getFirstChild( "handle" ).strValue() );
+		final String stream = request.hasChildren( "stream" ) ? request.getFirstChild( "stream" ).strValue() : STDOUT;
+		final Path file = execution.output( stream );
+		final long cursor = request.getFirstChild( "cursor" ).longValue();
+		final int maxBytes = request.hasChildren( "maxBytes" ) ? request.getFirstChild( "maxBytes" ).intValue()
+			: DEFAULT_READ_SIZE;
+		try {
+			// Check termination before reading, so that no output written in between can be missed
+			final boolean exited = !execution.process.isAlive();
+			final byte[] data = readChunk( file, cursor, maxBytes );
+			Value response = Value.create();
+			response.getFirstChild( "data" ).setValue( new ByteArray( data ) );
+			response.getFirstChild( "cursor" ).setValue( cursor + data.length );
+			response.getFirstChild( "eof" ).setValue( exited && cursor + data.length >= Files.size( file ) );
 			return response;
-		} catch( IOException | InterruptedException e ) {
+		} catch( IOException e ) {
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		}
 	}
 
-	private static class StreamGobbler extends Thread {
-		private final InputStream is;
+	@RequestResponse
+	public CompletableFuture< Value > await( Value request )
+		throws FaultException {
+		final Execution execution = execution( request.getFirstChild( "handle" ).strValue() );
+		final CompletableFuture< Value > result =
+			execution.exit.thenApply( exitCode -> exitValue( execution, exitCode ) );
+		if( request.hasChildren( "timeout" ) ) {
+			final TimerTask timeoutTask = new TimerTask() {
+				@Override
+				public void run() {
+					Value response = Value.create();
+					response.getFirstChild( "handle" ).setValue( execution.handle );
+					response.getFirstChild( "running" ).setValue( true );
+					result.complete( response );
+				}
+			};
+			interpreter().schedule( timeoutTask, request.getFirstChild( "timeout" ).longValue() );
+			result.whenComplete( ( response, error ) -> timeoutTask.cancel() );
+		}
+		return result;
+	}
+
+	public Boolean kill( Value request )
+		throws FaultException {
+		return execution( request.getFirstChild( "handle" ).strValue() )
+			.destroy( request.getFirstChild( "force" ).boolValue() );
+	}
+
+	@RequestResponse
+	public void release( String handle ) {
+		final Execution execution = executions.remove( handle );
+		if( execution != null ) {
+			execution.destroy( true );
+			execution.deleteOutput();
+		}
+	}
 
-		private StreamGobbler( InputStream is ) {
-			this.is = is;
+	private Execution execution( String handle )
+		throws FaultException {
+		final Execution execution = executions.get( handle );
+		if( execution == null ) {
+			throw new FaultException( PROCESS_NOT_FOUND_FAULT_NAME, "Unknown process handle: " + handle );
 		}
+		return execution;
+	}
 
-		@Override
-		public void run() {
-			try {
-				InputStreamReader isr = new InputStreamReader( is );
-				BufferedReader br = new BufferedReader( isr );
-				String line;
-				while( (line = br.readLine()) != null ) {
-					System.out.println( line );
+	private static Value exitValue( Execution execution, int exitCode ) {
+		Value response = Value.create();
+		response.getFirstChild( "handle" ).setValue( execution.handle );
+		response.getFirstChild( "exitCode" ).setValue( exitCode );
+		response.getFirstChild( "timedOut" ).setValue( execution.timedOut );
+		return response;
+	}
+
+	// Releases a terminated process some time after its termination, if the embedder did not release it
+	private void expire( Execution execution ) {
+		final TimerTask releaseTask = new TimerTask() {
+			@Override
+			public void run() {
+				if( executions.remove( execution.handle, execution ) ) {
+					execution.deleteOutput();
+				}
+			}
+		};
+		if( interpreter().exiting() ) {
+			// Nobody can read the output anymore, and the timer is stopped
+			releaseTask.run();
+		} else {
+			interpreter().schedule( releaseTask, EXITED_RETENTION );
+		}
+	}
+
+	// A single timer task streams the output of all running processes that asked for it
+	private void schedulePoll() {
+		if( polling.compareAndSet( false, true ) ) {
+			interpreter().schedule( new TimerTask() {
+				@Override
+				public void run() {
+					pollOutput();
+				}
+			}, OUTPUT_POLL_INTERVAL );
+		}
+	}
+
+	private void pollOutput() {
+		polling.set( false );
+		boolean streaming = false;
+		for( Execution execution : executions.values() ) {
+			if( execution.outputOperation != null && !execution.exit.isDone() ) {
+				if( !execution.notifying() ) { // otherwise the output is sent after the pending notifications
+					execution.streamOutput();
 				}
-			} catch( IOException ioe ) {
-				ioe.printStackTrace();
+				streaming = true;
+			}
+		}
+		if( streaming ) {
+			schedulePoll();
+		}
+	}
+
+	private static Path createOutputFile()
+		throws IOException {
+		return Files.createTempFile( "jolie-exec", ".out" );
+	}
+
+	private static byte[] readChunk( Path file, long position, int maxBytes )
+		throws IOException {
+		try( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+			final long available = channel.size() - position;
+			if( available <= 0 || maxBytes <= 0 ) {
+				return new byte[ 0 ];
+			}
+			final ByteBuffer buffer = ByteBuffer.allocate( (int) Math.min( maxBytes, available ) );
+			int n = 0;
+			while( buffer.hasRemaining() && n >= 0 ) {
+				n = channel.read( buffer, position + buffer.position() );
+			}
+			return buffer.position() == buffer.capacity() ? buffer.array()
+				: Arrays.copyOf( buffer.array(), buffer.position() );
+		}
+	}
+
+	private static void deleteQuietly( Path file ) {
+		if( file != null ) {
+			try {
+				Files.deleteIfExists( file );
+			} catch( IOException e ) {
 			}
 		}
 	}
@@ -21,14 +21,206 @@
 
 package joliex.util;
 
-import java.util.LinkedList;
 import java.util.Map;
+import java.util.Queue;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import jolie.monitoring.metrics.MetricsRegistry;
 import jolie.runtime.JavaService;
 import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
 
+/**
+ * Named FIFO queues of values, shared by the sessions of a service.
+ *
+ * Elements are stored in lock-free queues, which can be used concurrently by any number of
+ * producers and consumers. Queues can be bounded, in which case pushing to a full queue fails or
+ * waits for space. Consumers can wait for elements with {@link #take(Value)}, which replies
+ * asynchronously: waiting consumers and producers do not hold any thread of this service. Waiting
+ * is coordinated by a per-queue lock, which is only taken when someone is waiting.
+ */
 public class QueueUtils extends JavaService {
-	private final Map< String, LinkedList< Value > > queueMap = new ConcurrentHashMap<>();
+	private static class Waiter< T > {
+		private final CompletableFuture< T > future = new CompletableFuture<>();
+		private final Value element; // only for producers
+		private TimerTask timeoutTask = null;
+
+		private Waiter( Value element ) {
+			this.element = element;
+		}
+	}
+
+	private static class ValueQueue {
+		private final int capacity;
+		private final Queue< Value > elements = new ConcurrentLinkedQueue<>();
+		// Counts the elements in the queue, including those being pushed
+		private final AtomicInteger size = new AtomicInteger( 0 );
+		// Only modified while holding waitersLock
+		private final Queue< Waiter< Value > > consumers = new ConcurrentLinkedQueue<>();
+		private final Queue< Waiter< Boolean > > producers = new ConcurrentLinkedQueue<>();
+		private final Object waitersLock = new Object();
+		private boolean deleted = false; // guarded by waitersLock
+		private final String name;
+		private final MetricsRegistry metrics;
+		private final LongAdder pushed;
+		private final LongAdder polled;
+		private final LongAdder rejected;
+		private final LongSupplier sizeGauge = () -> size.get();
+		private final LongSupplier consumersGauge = () -> consumers.size();
+		private boolean metricsRemoved = false; // guarded by this
+
+		private ValueQueue( String name, int capacity, MetricsRegistry metrics ) {
+			this.name = name;
+			this.capacity = capacity;
+			this.metrics = metrics;
+			this.pushed = metrics.counter( "jolie_queue_pushed_total", "Elements pushed, by queue", "queue", name );
+			this.polled = metrics.counter( "jolie_queue_polled_total", "Elements removed, by queue", "queue", name );
+			this.rejected = metrics.counter( "jolie_queue_rejected_total",
+				"Elements that could not be pushed because the queue was full, by queue", "queue", name );
+		}
+
+		// Synchronized with unregisterMetrics, for deletions that happen while the queue is being created
+		private synchronized void registerGauges() {
+			if( metricsRemoved ) {
+				return;
+			}
+			metrics.gauge( "jolie_queue_size", "Elements in the queue, by queue", sizeGauge, "queue", name );
+			metrics.gauge( "jolie_queue_waiting_consumers", "Consumers waiting for an element, by queue",
+				consumersGauge, "queue", name );
+		}
+
+		// Only removes the metrics of this queue, not those of a queue with the same name created later
+		private synchronized void unregisterMetrics() {
+			metricsRemoved = true;
+			metrics.remove( "jolie_queue_size", sizeGauge, "queue", name );
+			metrics.remove( "jolie_queue_waiting_consumers", consumersGauge, "queue", name );
+			metrics.remove( "jolie_queue_pushed_total", pushed, "queue", name );
+			metrics.remove( "jolie_queue_polled_total", polled, "queue", name );
+			metrics.remove( "jolie_queue_rejected_total", rejected, "queue", name );
+		}
+
+		private boolean reserve() {
+			int s;
+			do {
+				s = size.get();
+				if( s >= capacity ) {
+					return false;
+				}
+			} while( !size.compareAndSet( s, s + 1 ) );
+			return true;
+		}
+
+		private boolean tryPush( Value element ) {
+			if( !reserve() ) {
+				return false;
+			}
+			elements.add( element );
+			pushed.increment();
+			// A consumer that starts waiting after this check will find the element when it registers
+			if( !consumers.isEmpty() ) {
+				dispatch();
+			}
+			return true;
+		}
+
+		private Value tryPoll() {
+			final Value element = elements.poll();
+			if( element != null ) {
+				size.decrementAndGet();
+				polled.increment();
+				if( !producers.isEmpty() ) {
+					dispatch();
+				}
+			}
+			return element;
+		}
+
+		/*
+		 * Hands over elements to waiting consumers and space to waiting producers.
+		 */
+		private void dispatch() {
+			synchronized( waitersLock ) {
+				boolean progress;
+				do {
+					progress = false;
+					Waiter< Boolean > producer;
+					while( (producer = producers.peek()) != null && reserve() ) {
+						producers.poll();
+						elements.add( producer.element );
+						pushed.increment();
+						complete( producer, true );
+						progress = true;
+					}
+					Waiter< Value > consumer;
+					Value element;
+					while( (consumer = consumers.peek()) != null && (element = elements.poll()) != null ) {
+						consumers.poll();
+						size.decrementAndGet();
+						polled.increment();
+						complete( consumer, element );
+						progress = true;
+					}
+				} while( progress );
+			}
+		}
+
+		private < T > void wait( QueueUtils service, Queue< Waiter< T > > waiters, Waiter< T > waiter,
+			long timeout, T timeoutResult ) {
+			synchronized( waitersLock ) {
+				if( deleted ) {
+					waiter.future.complete( timeoutResult );
+					return;
+				}
+				waiters.add( waiter );
+				if( timeout > 0 ) {
+					waiter.timeoutTask = new TimerTask() {
+						@Override
+						public void run() {
+							synchronized( waitersLock ) {
+								if( waiters.remove( waiter ) ) {
+									if( waiter.element != null ) {
+										rejected.increment();
+									}
+									waiter.future.complete( timeoutResult );
+								}
+							}
+						}
+					};
+					service.interpreter().schedule( waiter.timeoutTask, timeout );
+				}
+			}
+			// Elements or space may have become available before we registered
+			dispatch();
+		}
+
+		private static < T > void complete( Waiter< T > waiter, T result ) {
+			if( waiter.timeoutTask != null ) {
+				waiter.timeoutTask.cancel();
+			}
+			waiter.future.complete( result );
+		}
+
+		private void delete() {
+			synchronized( waitersLock ) {
+				deleted = true;
+				Waiter< Value > consumer;
+				while( (consumer = consumers.poll()) != null ) {
+					complete( consumer, null );
+				}
+				Waiter< Boolean > producer;
+				while( (producer = producers.poll()) != null ) {
+					complete( producer, false );
+				}
+			}
+		}
+	}
+
+	private final Map< String, ValueQueue > queueMap = new ConcurrentHashMap<>();
 
 	private boolean has_queue( String queue_name ) {
 		return queueMap.containsKey( queue_name );
@@ -37,50 +229,84 @@ public class QueueUtils extends JavaService {
 	/**
 	 * Creates a new queue in the HashMap with the given queue_name as key
 	 * 
-	 * @param queue_name the key corresponding to the queue
+	 * @param request the key corresponding to the queue, with an optional capacity
 	 * @return Boolean - false if the queue_name is already in use
 	 */
-	public Boolean new_queue( String queue_name ) {
+	public Boolean new_queue( Value request ) {
+		final String queue_name = request.strValue();
+		final int capacity = request.firstChildOrDefault( "capacity", Value::intValue, Integer.MAX_VALUE );
 		if( has_queue( queue_name ) ) {
 			return false;
-		} else {
-			LinkedList< Value > new_queue = new LinkedList<>();
-			queueMap.put( queue_name, new_queue );
-			return true;
 		}
+		final ValueQueue queue = new ValueQueue( queue_name, capacity, interpreter().metrics() );
+		if( queueMap.putIfAbsent( queue_name, queue ) != null ) {
+			return false;
+		}
+		queue.registerGauges();
+		return true;
 	}
 
 	/**
-	 * Removes an existing queue from the HashMap
+	 * Removes an existing queue from the HashMap. Consumers and producers waiting on the queue are
+	 * released.
 	 * 
 	 * @param queue_name the key corresponding to the queue
 	 * @return Boolean - false if the queue_name does not exist
 	 */
 	public Boolean delete_queue( String queue_name ) {
-		if( has_queue( queue_name ) ) {
-			queueMap.remove( queue_name );
-			return true;
-		} else {
+		final ValueQueue queue = queueMap.remove( queue_name );
+		if( queue == null ) {
 			return false;
 		}
+		queue.delete();
+		queue.unregisterMetrics();
+		return true;
 	}
 
 	/**
-	 * Pushes an element at the end of an existing queue
+	 * Pushes an element at the end of an existing queue. If the queue is full, waits for space for at
+	 * most request.timeout milliseconds, if given.
 	 * 
 	 * @param request
-	 * @return Boolean - false if the queue does not exist
+	 * @return Boolean - false if the queue does not exist or is full
 	 */
-	public Boolean push( Value request ) {
-		String queue_key = request.getFirstChild( "queue_name" ).strValue();
-		if( has_queue( queue_key ) ) {
-			Value element = request.getFirstChild( "element" );
-			LinkedList queue = queueMap.get( queue_key );
-			queue.offerLast( element );
-			return true;
-		} else {
-			return false;
+	public CompletableFuture< Boolean > push( Value request ) {
+		final ValueQueue queue = queueMap.get( request.getFirstChild( "queue_name" ).strValue() );
+		if( queue == null ) {
+			return CompletableFuture.completedFuture( false );
+		}
+		final Value element = request.getFirstChild( "element" );
+		if( queue.tryPush( element ) ) {
+			return CompletableFuture.completedFuture( true );
 		}
+		final long timeout = request.firstChildOrDefault( "timeout", Value::longValue, 0L );
+		if( timeout <= 0 ) {
+			queue.rejected.increment();
+			return CompletableFuture.completedFuture( false );
+		}
+		final Waiter< Boolean > producer = new Waiter<>( element );
+		queue.wait( this, queue.producers, producer, timeout, false );
+		return producer.future;
+	}
+
+	/**
+	 * Pushes elements at the end of an existing queue, in order, until the queue is full.
+	 *
+	 * @param request
+	 * @return the number of elements pushed
+	 */
+	public Integer push_all( Value request ) {
+		final ValueQueue queue = queueMap.get( request.getFirstChild( "queue_name" ).strValue() );
+		if( queue == null ) {
+			return 0;
+		}
+		final ValueVector elements = request.getChildren( "element" );
+		int i = 0;
+		while( i < elements.size() && queue.tryPush( elements.get( i ) ) ) {
+			i++;
+		}
+		queue.rejected.add( elements.size() - i );
+		return i;
 	}
 
 	/**
@@ -90,11 +316,8 @@ public class QueueUtils extends JavaService {
 	 * @return The element, null otherwise
 	 */
 	public Value peek( String queue_name ) {
-		Value element = null;
-		if( has_queue( queue_name ) ) {
-			element = queueMap.get( queue_name ).peekFirst();
-		}
-		return element;
+		final ValueQueue queue = queueMap.get( queue_name );
+		return queue == null ? null : queue.elements.peek();
 	}
 
 	/**
@@ -104,11 +327,50 @@ public class QueueUtils extends JavaService {
 	 * @return The element, null otherwise
 	 */
 	public Value poll( String queue_name ) {
-		Value element = null;
-		if( has_queue( queue_name ) ) {
-			element = queueMap.get( queue_name ).pollFirst();
+		final ValueQueue queue = queueMap.get( queue_name );
+		return queue == null ? null : queue.tryPoll();
+	}
+
+	/**
+	 * Removes and returns the head of the queue, waiting for an element if the queue is empty. Waits
+	 * for at most request.timeout milliseconds, if given.
+	 *
+	 * @param request
+	 * @return The element, null if the queue does not exist, times out or is deleted
+	 */
+	public CompletableFuture< Value > take( Value request ) {
+		final ValueQueue queue = queueMap.get( request.getFirstChild( "queue_name" ).strValue() );
+		if( queue == null ) {
+			return CompletableFuture.completedFuture( null );
+		}
+		final Value element = queue.tryPoll();
+		final long timeout = request.firstChildOrDefault( "timeout", Value::longValue, 0L );
+		if( element != null || (request.hasChildren( "timeout" ) && timeout <= 0) ) {
+			return CompletableFuture.completedFuture( element );
+		}
+		final Waiter< Value > consumer = new Waiter<>( null );
+		queue.wait( this, queue.consumers, consumer, timeout, null );
+		return consumer.future;
+	}
+
+	/**
+	 * Removes and returns the elements at the head of the queue, at most request.max if given.
+	 *
+	 * @param request
+	 * @return The removed elements, as children named element
+	 */
+	public Value drain( Value request ) {
+		final Value response = Value.create();
+		final ValueQueue queue = queueMap.get( request.getFirstChild( "queue_name" ).strValue() );
+		if( queue != null ) {
+			final int max = request.firstChildOrDefault( "max", Value::intValue, Integer.MAX_VALUE );
+			final ValueVector elements = response.getChildren( "element" );
+			Value element;
+			while( elements.size() < max && (element = queue.tryPoll()) != null ) {
+				elements.add( element );
+			}
 		}
-		return element;
+		return response;
 	}
 
 	/**
@@ -118,12 +380,31 @@ public class QueueUtils extends JavaService {
 	 * @return The size of the queue, null otherwise
 	 */
 	public Integer size( String queue_name ) {
-		Integer queue_size = null;
-		if( has_queue( queue_name ) ) {
-			LinkedList queue = queueMap.get( queue_name );
-			queue_size = queue.size();
-		}
-		return queue_size;
+		final ValueQueue queue = queueMap.get( queue_name );
+		return queue == null ? null : queue.size.get();
 	}
 
+	/**
+	 * Returns statistics about an existing queue, null otherwise
+	 *
+	 * @param queue_name
+	 * @return The statistics of the queue, null otherwise
+	 */
+	public Value stats( String queue_name ) {
+		final ValueQueue queue = queueMap.get( queue_name );
+		if( queue == null ) {
+			return null;
+		}
+		final Value stats = Value.create();
+		stats.setFirstChild( "size", queue.size.get() );
+		if( queue.capacity < Integer.MAX_VALUE ) {
+			stats.setFirstChild( "capacity", queue.capacity );
+		}
+		stats.setFirstChild( "pushed", queue.pushed.sum() );
+		stats.setFirstChild( "polled", queue.polled.sum() );
+		stats.setFirstChild( "rejected", queue.rejected.sum() );
+		stats.setFirstChild( "waiting_consumers", queue.consumers.size() );
+		stats.setFirstChild( "waiting_producers", queue.producers.size() );
+		return stats;
+	}
 }
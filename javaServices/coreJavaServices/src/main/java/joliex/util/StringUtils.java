@@ -29,13 +29,34 @@ import java.io.Writer;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import jolie.runtime.*;
+import jolie.runtime.embedding.RequestResponse;
 
 public class StringUtils extends JavaService {
+	private static final String INVALID_PATTERN = "InvalidPattern";
+
+	private static class RegisteredPattern {
+		private final String regex;
+		private final Pattern pattern;
+		private int registrations = 1;
+
+		private RegisteredPattern( String regex, Pattern pattern ) {
+			this.regex = regex;
+			this.pattern = pattern;
+		}
+	}
+
+	private final Map< Integer, RegisteredPattern > registeredPatterns = new HashMap<>();
+	private final Map< String, Integer > patternHandles = new HashMap<>();
+	private int nextPatternHandle = 0;
+
 	public Integer length( String request ) {
 		return request.length();
 	}
@@ -80,12 +101,12 @@ public class StringUtils extends JavaService {
 
 
 	public String replaceAll( ReplaceRequest request ) {
-		return request.self.replaceAll( request.regex, request.replacement );
+		return PatternCache.get( request.regex ).matcher( request.self ).replaceAll( request.replacement );
 	}
 
 
 	public String replaceFirst( ReplaceRequest request ) {
-		return request.self.replaceFirst( request.regex, request.replacement );
+		return PatternCache.get( request.regex ).matcher( request.self ).replaceFirst( request.replacement );
 	}
 
 	public static class StartsWithRequest implements ValueConverter {
@@ -193,9 +214,7 @@ public class StringUtils extends JavaService {
 		if( lValue.isDefined() ) {
 			limit = lValue.intValue();
 		}
-		String[] ss = str.split(
-			request.getFirstChild( "regex" ).strValue(),
-			limit );
+		String[] ss = PatternCache.get( request.getFirstChild( "regex" ).strValue() ).split( str, limit );
 		Value value = Value.create();
 		for( String s : ss ) {
 			value.getNewChild( "result" ).add( Value.create( s ) );
@@ -224,29 +243,133 @@ public class StringUtils extends JavaService {
 	}
 
 	public Value match( Value request ) {
-		Pattern p = Pattern.compile( request.getFirstChild( "regex" ).strValue() );
-		Matcher m = p.matcher( request.strValue() );
-		Value response = Value.create();
-		if( m.matches() ) {
-			response.setValue( 1 );
-			if( m.groupCount() > 0 ) {
-				ValueVector groups = response.getChildren( "group" );
-				groups.add( Value.create( (m.group( 0 ) == null) ? "" : m.group( 0 ) ) );
-				for( int i = 0; i < m.groupCount(); i++ ) {
-					groups.add( Value.create( (m.group( i + 1 ) == null) ? "" : m.group( i + 1 ) ) );
+		return matchResult( PatternCache.get( request.getFirstChild( "regex" ).strValue() ), request.strValue(),
+			false );
+	}
+
+	public Value find( Value request ) {
+		return matchResult( PatternCache.get( request.getFirstChild( "regex" ).strValue() ), request.strValue(),
+			true );
+	}
+
+	/**
+	 * Compiles a regular expression and returns a handle for it, to be used with the operations that
+	 * take a pattern instead of a regex. Registering the same regex again returns the same handle,
+	 * which stays valid until it has been unregistered as many times as it has been registered.
+	 */
+	public Integer registerPattern( String regex )
+		throws FaultException {
+		synchronized( registeredPatterns ) {
+			Integer handle = patternHandles.get( regex );
+			if( handle == null ) {
+				final Pattern pattern;
+				try {
+					pattern = PatternCache.get( regex );
+				} catch( PatternSyntaxException e ) {
+					throw new FaultException( INVALID_PATTERN, e.getMessage() );
 				}
+				// Handles are not reused, so that a stale handle cannot refer to another pattern
+				handle = nextPatternHandle++;
+				registeredPatterns.put( handle, new RegisteredPattern( regex, pattern ) );
+				patternHandles.put( regex, handle );
+			} else {
+				registeredPatterns.get( handle ).registrations++;
 			}
-		} else {
-			response.setValue( 0 );
+			return handle;
+		}
+	}
+
+	/**
+	 * Releases a handle returned by {@link #registerPattern(String)}.
+	 */
+	@RequestResponse
+	public void unregisterPattern( Integer handle )
+		throws FaultException {
+		synchronized( registeredPatterns ) {
+			final RegisteredPattern registered = registeredPatterns.get( handle );
+			if( registered == null ) {
+				throw new FaultException( INVALID_PATTERN, "Unknown pattern handle: " + handle );
+			}
+			if( --registered.registrations == 0 ) {
+				registeredPatterns.remove( handle );
+				patternHandles.remove( registered.regex );
+			}
+		}
+	}
+
+	public Value matchPattern( Value request )
+		throws FaultException {
+		return matchResult( pattern( request ), request.strValue(), false );
+	}
+
+	public Value findPattern( Value request )
+		throws FaultException {
+		return matchResult( pattern( request ), request.strValue(), true );
+	}
+
+	public String replaceAllPattern( Value request )
+		throws FaultException {
+		return pattern( request ).matcher( request.strValue() )
+			.replaceAll( request.getFirstChild( "replacement" ).strValue() );
+	}
+
+	public String replaceFirstPattern( Value request )
+		throws FaultException {
+		return pattern( request ).matcher( request.strValue() )
+			.replaceFirst( request.getFirstChild( "replacement" ).strValue() );
+	}
+
+	public Value matchEach( Value request )
+		throws FaultException {
+		final Pattern p = pattern( request );
+		final Value response = Value.create();
+		final ValueVector results = response.getChildren( "result" );
+		for( Value item : request.getChildren( "item" ) ) {
+			results.add( matchResult( p, item.strValue(), false ) );
 		}
 		return response;
 	}
 
-	public Value find( Value request ) {
-		Pattern p = Pattern.compile( request.getFirstChild( "regex" ).strValue() );
-		Matcher m = p.matcher( request.strValue() );
+	public Value replaceAllEach( Value request )
+		throws FaultException {
+		final Pattern p = pattern( request );
+		final String replacement = request.getFirstChild( "replacement" ).strValue();
+		final Value response = Value.create();
+		final ValueVector items = response.getChildren( "item" );
+		for( Value item : request.getChildren( "item" ) ) {
+			items.add( Value.create( p.matcher( item.strValue() ).replaceAll( replacement ) ) );
+		}
+		return response;
+	}
+
+	/**
+	 * Returns the pattern of a request, given either as a registered handle (pattern) or as a regex.
+	 */
+	private Pattern pattern( Value request )
+		throws FaultException {
+		if( request.hasChildren( "pattern" ) ) {
+			final int handle = request.getFirstChild( "pattern" ).intValue();
+			synchronized( registeredPatterns ) {
+				final RegisteredPattern registered = registeredPatterns.get( handle );
+				if( registered != null ) {
+					return registered.pattern;
+				}
+			}
+			throw new FaultException( INVALID_PATTERN, "Unknown pattern handle: " + handle );
+		} else if( request.hasChildren( "regex" ) ) {
+			try {
+				return PatternCache.get( request.getFirstChild( "regex" ).strValue() );
+			} catch( PatternSyntaxException e ) {
+				throw new FaultException( INVALID_PATTERN, e.getMessage() );
+			}
+		}
+		throw new FaultException( INVALID_PATTERN, "Either a pattern or a regex is required" );
+	}
+
+	private static Value matchResult( Pattern p, String str, boolean find ) {
+		Matcher m = p.matcher( str );
 		Value response = Value.create();
-		if( m.find() ) {
+		if( find ? m.find() : m.matches() ) {
 			response.setValue( 1 );
 			if( m.groupCount() > 0 ) {
 				ValueVector groups = response.getChildren( "group" );
@@ -29,8 +29,6 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 
-import jolie.Interpreter;
-import jolie.InterpreterThread;
 import jolie.net.CommMessage;
 import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
@@ -38,72 +36,59 @@ import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.embedding.RequestResponse;
 
+/**
+ * Time utilities and timeouts.
+ *
+ * All timeouts are scheduled on the timer of the interpreter, so pending timeouts do not occupy a
+ * thread each, and sleep replies asynchronously instead of blocking a thread.
+ */
 public class TimeService extends JavaService {
-	protected static class TimeThread extends Thread implements InterpreterThread {
-		private final long waitTime;
-		private final String callbackOperation;
-		private final Value callbackValue;
-		private final TimeService parent;
-
-		public TimeThread( TimeService parent, long waitTime, String callbackOperation, Value callbackValue ) {
-			this.waitTime = waitTime;
-			this.callbackOperation =
-				(callbackOperation == null) ? "timeout" : callbackOperation;
-			this.callbackValue =
-				(callbackValue == null) ? Value.create() : callbackValue;
-			this.parent = parent;
-		}
+	private final DateFormat dateFormat, dateTimeFormat;
+	private final Map< Long, TimerTask > scheduledTimeouts = new ConcurrentHashMap<>();
+	private final AtomicLong atomicLong = new AtomicLong();
+	private TimerTask nextTimeout = null;
 
+	/**
+	 * A task for the timer of the interpreter. The timer is shared by the whole interpreter and stops
+	 * if a task throws, so nothing may escape from a task.
+	 */
+	private abstract class TimeoutTask extends TimerTask {
 		@Override
-		public void run() {
+		public final void run() {
 			try {
-				Thread.sleep( waitTime );
-				parent.sendMessage( CommMessage.createRequest( callbackOperation, "/", callbackValue ) );
-			} catch( InterruptedException e ) {
+				fire();
+			} catch( Throwable t ) {
+				interpreter().logWarning( t );
 			}
 		}
 
-		@Override
-		public Interpreter interpreter() {
-			return parent.interpreter();
-		}
+		protected abstract void fire();
 	}
 
-	private TimeThread thread = null;
-	private final DateFormat dateFormat, dateTimeFormat;
-	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-	private final Map< Long, ScheduledFuture > scheduledFutureHashMap = new ConcurrentHashMap<>();
-	private final AtomicLong atomicLong = new AtomicLong();
-
 	public TimeService() {
 		dateFormat = DateFormat.getDateInstance( DateFormat.SHORT );
 		dateTimeFormat = DateFormat.getDateTimeInstance( DateFormat.SHORT, DateFormat.MEDIUM );
 	}
 
-	@Override
-	protected void finalize()
-		throws Throwable {
-		try {
-			if( thread != null ) {
-				thread.interrupt();
-			}
-		} finally {
-			super.finalize();
+	private synchronized void launchTimeThread( long waitTime, String callbackOperation, Value callbackValue ) {
+		final String operation = (callbackOperation == null) ? "timeout" : callbackOperation;
+		final Value message = (callbackValue == null) ? Value.create() : callbackValue;
+		if( nextTimeout != null ) {
+			nextTimeout.cancel();
 		}
+		nextTimeout = new TimeoutTask() {
+			@Override
+			protected void fire() {
+				sendMessage( CommMessage.createRequest( operation, "/", message ) );
+			}
+		};
+		interpreter().schedule( nextTimeout, Math.max( waitTime, 0L ) );
 	}
 
-	private void launchTimeThread( long waitTime, String callbackOperation, Value callbackValue ) {
-		waitTime = (waitTime > 0) ? waitTime : 0L;
-		if( thread != null ) {
-			thread.interrupt();
-		}
-		thread = new TimeThread( this, waitTime, callbackOperation, callbackValue );
-		thread.start();
-	}
-
-	public void stopNextTimeout( Value request ) {
-		if( thread != null ) {
-			thread.interrupt();
+	public synchronized void stopNextTimeout( Value request ) {
+		if( nextTimeout != null ) {
+			nextTimeout.cancel();
+			nextTimeout = null;
 		}
 	}
 
@@ -167,14 +152,26 @@ public class TimeService extends JavaService {
 		launchTimeThread( waitTime, callbackOperation, callbackValue );
 	}
 
-	@RequestResponse
-	public void sleep( Integer millis ) {
+	public CompletableFuture< Void > sleep( Integer millis ) {
+		if( millis <= 0 ) {
+			return CompletableFuture.completedFuture( null );
+		}
+		final CompletableFuture< Void > future = new CompletableFuture<>();
 		try {
-			if( millis > 0 ) {
-				Thread.sleep( millis );
-			}
-		} catch( InterruptedException e ) {
+			interpreter().schedule( new TimeoutTask() {
+				@Override
+				protected void fire() {
+					future.complete( null );
+				}
+			}, millis );
+		} catch( IllegalStateException e ) {
+			// The timer has been stopped in the meantime
+		}
+		if( interpreter().exiting() ) {
+			// The timer does not run tasks anymore
+			future.completeExceptionally( new InterruptedException( "The interpreter is exiting" ) );
 		}
+		return future;
 	}
 
 	public Long getCurrentTimeMillis() {
@@ -433,17 +430,39 @@ public class TimeService extends JavaService {
 			operationName = "timeout";
 		}
 
-		ScheduledFuture scheduledFuture = executor.schedule( () -> {
-			sendMessage( CommMessage.createRequest( operationName, "/", request.getFirstChild( "message" ) ) );
-		}, request.intValue(), unit );
-		scheduledFutureHashMap.put( timeoutId, scheduledFuture );
+		final Value message = request.getFirstChild( "message" );
+		final long delay = Math.max( unit.toMillis( request.longValue() ), 0L );
+		// Tasks are registered before being scheduled, so that a task that fires right away can remove
+		// its entry
+		final TimerTask task;
+		if( request.hasChildren( "period" ) ) {
+			task = new TimeoutTask() {
+				@Override
+				protected void fire() {
+					sendMessage( CommMessage.createRequest( operationName, "/", message.clone() ) );
+				}
+			};
+			scheduledTimeouts.put( timeoutId, task );
+			interpreter().schedule( task, delay,
+				Math.max( unit.toMillis( request.getFirstChild( "period" ).longValue() ), 1L ) );
+		} else {
+			task = new TimeoutTask() {
+				@Override
+				protected void fire() {
+					scheduledTimeouts.remove( timeoutId );
+					sendMessage( CommMessage.createRequest( operationName, "/", message ) );
+				}
+			};
+			scheduledTimeouts.put( timeoutId, task );
+			interpreter().schedule( task, delay );
+		}
 		return timeoutId;
 	}
 
 	@RequestResponse
 	public Boolean cancelTimeout( Value request ) {
 		long timeoutId = request.longValue();
-		ScheduledFuture f = scheduledFutureHashMap.remove( timeoutId );
-		return f != null && f.cancel( false );
+		TimerTask task = scheduledTimeouts.remove( timeoutId );
+		return task != null && task.cancel();
 	}
 }
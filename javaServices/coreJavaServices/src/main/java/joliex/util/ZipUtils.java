@@ -21,18 +21,29 @@
 
 package joliex.util;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import jolie.lang.Constants;
@@ -41,13 +52,41 @@ import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
+import jolie.runtime.embedding.RequestResponse;
 
 /**
+ * Archives given as files are accessed with {@link ZipFile}, which looks entries up in the central
+ * directory instead of decompressing the archive up to the requested entry, and files are zipped
+ * and unzipped by streaming them, without holding whole archives in memory.
  *
  * @author Fabrizio Montesi
  */
 public class ZipUtils extends JavaService {
-	private static final int BUFFER_SIZE = 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static byte[] readAll( InputStream istream, long sizeHint )
+		throws IOException {
+		if( sizeHint >= 0 && sizeHint < Integer.MAX_VALUE - 8 ) {
+			// The size is known, read directly into the result
+			final byte[] bytes = new byte[ (int) sizeHint ];
+			int len = 0;
+			int n;
+			while( len < bytes.length && (n = istream.read( bytes, len, bytes.length - len )) >= 0 ) {
+				len += n;
+			}
+			if( len == bytes.length && istream.read() < 0 ) {
+				return bytes;
+			}
+			throw new ZipException( "Entry size does not match its declared size" );
+		}
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[ BUFFER_SIZE ];
+		int size;
+		while( (size = istream.read( buffer, 0, buffer.length )) != -1 ) {
+			baos.write( buffer, 0, size );
+		}
+		return baos.toByteArray();
+	}
 
 	public Value readEntry( Value request )
 		throws FaultException {
@@ -58,32 +97,32 @@ public class ZipUtils extends JavaService {
 		Value response = Value.create();
 		String entryName = request.getFirstChild( "entry" ).strValue();
 
-		try( ZipInputStream zIStream =
-			(request.hasChildren( "filename" ))
-				? new ZipInputStream( new FileInputStream( request.getFirstChild( "filename" ).strValue() ) )
-				: new ZipInputStream(
-					new ByteArrayInputStream( request.getFirstChild( "archive" ).byteArrayValue().getBytes() ) ) ) {
-			boolean found = false;
-			ZipEntry zipEntry = zIStream.getNextEntry();
-			while( zipEntry != null && !found ) {
-				if( zipEntry.getName().equals( entryName ) ) {
-					found = true;
-				} else {
-					zipEntry = zIStream.getNextEntry();
-				}
-			}
-
-			if( found ) {
-				byte[] buffer = new byte[ BUFFER_SIZE ];
-				int size;
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				while( (size = zIStream.read( buffer, 0, buffer.length )) != -1 ) {
-					baos.write( buffer, 0, size );
+		try {
+			if( request.hasChildren( "filename" ) ) {
+				try( ZipFile zipFile = new ZipFile( request.getFirstChild( "filename" ).strValue() ) ) {
+					final ZipEntry zipEntry = zipFile.getEntry( entryName );
+					if( zipEntry == null ) {
+						throw new FaultException( "EntryNotFound" );
+					}
+					try( InputStream istream = zipFile.getInputStream( zipEntry ) ) {
+						response.setValue( new ByteArray( readAll( istream, zipEntry.getSize() ) ) );
+					}
 				}
-				response.setValue( new ByteArray( baos.toByteArray() ) );
 			} else {
-				throw new FaultException( "EntryNotFound" );
+				try( ZipInputStream zIStream = new ZipInputStream(
+					new ByteArrayInputStream( request.getFirstChild( "archive" ).byteArrayValue().getBytes() ) ) ) {
+					ZipEntry zipEntry = zIStream.getNextEntry();
+					while( zipEntry != null && !zipEntry.getName().equals( entryName ) ) {
+						zipEntry = zIStream.getNextEntry();
+					}
+					if( zipEntry == null ) {
+						throw new FaultException( "EntryNotFound" );
+					}
+					response.setValue( new ByteArray( readAll( zIStream, zipEntry.getSize() ) ) );
+				}
 			}
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFoundException", e );
 		} catch( IOException e ) {
 			throw new FaultException( e );
 		}
@@ -97,19 +136,26 @@ public class ZipUtils extends JavaService {
 		}
 
 		Value response = Value.create();
-		try(
-			InputStream is =
-				(request.hasChildren( "filename" ))
-					? new FileInputStream( request.getFirstChild( "filename" ).strValue() )
-					: new ByteArrayInputStream( request.getFirstChild( "archive" ).byteArrayValue().getBytes() );
-			ZipInputStream zIStream = new ZipInputStream( is ) ) {
-			ZipEntry zipEntry = zIStream.getNextEntry();
-			int count = 0;
-			while( zipEntry != null ) {
-				response.getChildren( "entry" ).get( count ).setValue( zipEntry.getName() );
-				zipEntry = zIStream.getNextEntry();
-				count++;
+		ValueVector entries = response.getChildren( "entry" );
+		try {
+			if( request.hasChildren( "filename" ) ) {
+				try( ZipFile zipFile = new ZipFile( request.getFirstChild( "filename" ).strValue() ) ) {
+					final Enumeration< ? extends ZipEntry > zipEntries = zipFile.entries();
+					while( zipEntries.hasMoreElements() ) {
+						entries.add( Value.create( zipEntries.nextElement().getName() ) );
+					}
+				}
+			} else {
+				try( ZipInputStream zIStream = new ZipInputStream(
+					new ByteArrayInputStream( request.getFirstChild( "archive" ).byteArrayValue().getBytes() ) ) ) {
+					ZipEntry zipEntry;
+					while( (zipEntry = zIStream.getNextEntry()) != null ) {
+						entries.add( Value.create( zipEntry.getName() ) );
+					}
+				}
 			}
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFoundException", e );
 		} catch( IOException e ) {
 			throw new FaultException( e );
 		}
@@ -138,44 +184,102 @@ public class ZipUtils extends JavaService {
 		return new ByteArray( bbstream.toByteArray() );
 	}
 
+	/**
+	 * Writes an archive to a file. The content of each entry is either taken from a file, which is
+	 * streamed into the archive, or given as raw data. All the files under request.directory are added
+	 * too, with entry names relative to the directory.
+	 */
+	@RequestResponse
+	public void zipFiles( Value request )
+		throws FaultException {
+		try( OutputStream ostream = new BufferedOutputStream(
+			Files.newOutputStream( Paths.get( request.getFirstChild( "filename" ).strValue() ) ), BUFFER_SIZE );
+			ZipOutputStream zipStream = new ZipOutputStream( ostream ) ) {
+			if( request.hasChildren( "level" ) ) {
+				zipStream.setLevel( request.getFirstChild( "level" ).intValue() );
+			}
+			for( Value entry : request.getChildren( "entry" ) ) {
+				zipStream.putNextEntry( new ZipEntry( entry.getFirstChild( "name" ).strValue() ) );
+				if( entry.hasChildren( "file" ) ) {
+					Files.copy( Paths.get( entry.getFirstChild( "file" ).strValue() ), zipStream );
+				} else {
+					final ByteArray content = entry.getFirstChild( "content" ).byteArrayValue();
+					zipStream.write( content.getBytes(), 0, content.size() );
+				}
+				zipStream.closeEntry();
+			}
+			if( request.hasChildren( "directory" ) ) {
+				final Path directory = Paths.get( request.getFirstChild( "directory" ).strValue() );
+				Files.walkFileTree( directory, new SimpleFileVisitor< Path >() {
+					@Override
+					public FileVisitResult visitFile( Path file, BasicFileAttributes attrs )
+						throws IOException {
+						// Entry names always use / as separator
+						final StringBuilder name = new StringBuilder();
+						for( Path element : directory.relativize( file ) ) {
+							if( name.length() > 0 ) {
+								name.append( '/' );
+							}
+							name.append( element.toString() );
+						}
+						final ZipEntry zipEntry = new ZipEntry( name.toString() );
+						zipEntry.setTime( attrs.lastModifiedTime().toMillis() );
+						zipStream.putNextEntry( zipEntry );
+						Files.copy( file, zipStream );
+						zipStream.closeEntry();
+						return FileVisitResult.CONTINUE;
+					}
+				} );
+			}
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFound", e );
+		} catch( IOException | InvalidPathException e ) {
+			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
+		}
+	}
+
+	/**
+	 * Extracts the entries of an archive to a directory, streaming them from the archive to the target
+	 * files. If request.entry is given, only the entries with those names are extracted.
+	 */
 	public Value unzip( Value request )
 		throws FaultException {
 		Path targetPath = Paths.get( request.getFirstChild( "targetPath" ).strValue() );
 		String filename = request.getFirstChild( "filename" ).strValue();
 
+		Set< String > selected = null;
+		if( request.hasChildren( "entry" ) ) {
+			selected = new HashSet<>();
+			for( Value entry : request.getChildren( "entry" ) ) {
+				selected.add( entry.strValue() );
+			}
+		}
+
 		Value response = Value.create();
+		ValueVector entries = response.getChildren( "entry" );
 
-		byte[] buffer = new byte[ BUFFER_SIZE ];
-		try(
-			FileInputStream fis = new FileInputStream( filename );
-			ZipInputStream zipInputStream = new ZipInputStream( fis ) ) {
-			ZipEntry zipEntry = zipInputStream.getNextEntry();
-			int entryCounter = 0;
-			while( zipEntry != null ) {
-				if( !zipEntry.isDirectory() ) {
-					String targetFilename = zipEntry.getName();
-					File newFile = new File( targetPath + File.separator + targetFilename );
-					if( !newFile.toPath().normalize().startsWith( targetPath.normalize() ) ) {
-						throw new IOException( "Bad zip entry: " + targetFilename );
-					}
-					response.getChildren( "entry" ).get( entryCounter ).setValue( targetFilename );
-					entryCounter++;
-
-					new File( newFile.getParent() ).mkdirs();
-					try( FileOutputStream fileOutputStream = new FileOutputStream( newFile ) ) {
-						int len;
-						while( (len = zipInputStream.read( buffer )) > 0 ) {
-							fileOutputStream.write( buffer, 0, len );
-						}
-					}
+		try( ZipFile zipFile = new ZipFile( filename ) ) {
+			final Enumeration< ? extends ZipEntry > zipEntries = zipFile.entries();
+			while( zipEntries.hasMoreElements() ) {
+				final ZipEntry zipEntry = zipEntries.nextElement();
+				final String targetFilename = zipEntry.getName();
+				if( zipEntry.isDirectory() || (selected != null && !selected.contains( targetFilename )) ) {
+					continue;
+				}
+				final Path newFile = targetPath.resolve( targetFilename ).normalize();
+				if( !newFile.startsWith( targetPath.normalize() ) ) {
+					throw new IOException( "Bad zip entry: " + targetFilename );
+				}
+				entries.add( Value.create( targetFilename ) );
+
+				Files.createDirectories( newFile.getParent() );
+				try( InputStream istream = zipFile.getInputStream( zipEntry ) ) {
+					Files.copy( istream, newFile, StandardCopyOption.REPLACE_EXISTING );
 				}
-				zipInputStream.closeEntry();
-				zipEntry = zipInputStream.getNextEntry();
 			}
-			zipInputStream.closeEntry();
-		} catch( FileNotFoundException e ) {
+		} catch( FileNotFoundException | NoSuchFileException e ) {
 			throw new FaultException( "FileNotFound", e );
-		} catch( IOException e ) {
+		} catch( IOException | InvalidPathException e ) {
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		}
 		return response;
@@ -23,6 +23,7 @@ package joliex.monitoring;
 
 import jolie.monitoring.MonitoringEvent;
 import jolie.runtime.JavaService;
+import jolie.runtime.Value;
 
 /**
  * Abstract class for implementing a {@link JavaService} supporting monitoring.
@@ -31,4 +32,16 @@ import jolie.runtime.JavaService;
  */
 public abstract class AbstractMonitorJavaService extends JavaService {
 	public abstract void pushEvent( MonitoringEvent e );
+
+	/**
+	 * Receives a batch of events, as sent by monitoring pipelines with a batch size greater than 1. The
+	 * default implementation passes each event to {@link #pushEvent(MonitoringEvent)}.
+	 *
+	 * @param request a value of shape <code>{ .events*: MonitorEvent, .dropped: long }</code>
+	 */
+	public void pushEvents( Value request ) {
+		for( Value event : request.getChildren( "events" ) ) {
+			pushEvent( MonitoringEvent.fromValue( event ) );
+		}
+	}
 }
@@ -48,6 +48,7 @@ import jolie.jap.JapURLConnection;
 import jolie.lang.Constants;
 import jolie.lang.parse.Scanner;
 import jolie.runtime.correlation.CorrelationEngine;
+import jolie.tracer.TracerUtils;
 import jolie.util.UriUtils;
 
 /**
@@ -149,8 +150,8 @@ public class CommandLineParser implements Closeable {
 			.append(
 				getOptionString( "--check", "Check for syntactic and semantic errors." ) )
 			.append(
-				getOptionString( "--trace [console|file]",
-					"Activate tracer. console prints out in the console, file creates a json file" ) )
+				getOptionString( "--trace [console|file|binary][:options]",
+					"Activate tracer. console prints out in the console, file creates a json file, binary creates compact binary files in the background (convert them with jolie.tracer.TraceConverter). Options are comma-separated: sampling=N traces one action every N, maxFileSize=bytes and rotationInterval=seconds set when binary files are rotated" ) )
 			.append(
 				getOptionString( "--traceLevel [all|comm|comp]",
 					"Defines tracer level: all - all the traces; comm - only communication traces; comp - only computation traces. Default is all. " ) )
@@ -372,6 +373,23 @@ public class CommandLineParser implements Closeable {
 					i++;
 					optionsList.add( argsList.get( i ) );
 					break;
+				case "binary":
+					tMode = "binary";
+					i++;
+					optionsList.add( argsList.get( i ) );
+					break;
+				default:
+					if( argsList.get( i + 1 ).matches( "(console|file|binary):.*" ) ) {
+						i++;
+						tMode = argsList.get( i );
+						optionsList.add( argsList.get( i ) );
+						try {
+							TracerUtils.parseTracerOptions( tMode );
+						} catch( IllegalArgumentException e ) {
+							throw new CommandLineException( "Invalid tracer option: " + e.getMessage() );
+						}
+					}
+					break;
 				}
 			} else if( "--traceLevel".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
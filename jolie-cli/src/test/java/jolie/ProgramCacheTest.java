@@ -0,0 +1,157 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jolie.cli.CommandLineParser;
+
+/**
+ * Checks that interpreters share cached programs safely, and that cached programs follow the changes
+ * to the files they include or import.
+ */
+public class ProgramCacheTest {
+	private final List< Interpreter > interpreters = new ArrayList<>();
+	private Path dir;
+
+	@Before
+	public void createDirectory()
+		throws IOException {
+		dir = Files.createTempDirectory( "program_cache" );
+	}
+
+	@After
+	public void exitAndDeleteDirectory()
+		throws IOException {
+		interpreters.forEach( Interpreter::exit );
+		try( Stream< Path > paths = Files.walk( dir ) ) {
+			paths.sorted( Comparator.reverseOrder() ).map( Path::toFile ).forEach( File::delete );
+		}
+	}
+
+	private Path write( String filename, String content )
+		throws IOException {
+		final Path path = dir.resolve( filename );
+		// Move the modification time forward, as the file could be rewritten within the same millisecond
+		final long lastModified = Files.exists( path ) ? path.toFile().lastModified() : 0;
+		Files.write( path, content.getBytes() );
+		path.toFile().setLastModified( Math.max( lastModified + 1000, System.currentTimeMillis() ) );
+		return path;
+	}
+
+	/**
+	 * Runs a program. The interpreter exits after the test, so that its state can still be inspected.
+	 */
+	private Interpreter run( Path program )
+		throws Exception {
+		try( CommandLineParser parser = new CommandLineParser( new String[] { program.toString() },
+			ProgramCacheTest.class.getClassLoader(), false ) ) {
+			final Interpreter interpreter =
+				new Interpreter( parser.getInterpreterConfiguration(), null, Optional.empty() );
+			interpreters.add( interpreter );
+			interpreter.run();
+			return interpreter;
+		}
+	}
+
+	private static ProgramCache.Entry cached( Interpreter interpreter, Path program )
+		throws IOException {
+		return ProgramCache.get(
+			ProgramCache.sourceKey( interpreter.configuration(), Files.readAllBytes( program ) ) );
+	}
+
+	@Test
+	public void interpretersDoNotShareRuntimeState()
+		throws Exception {
+		final Path program = write( "counter.ol",
+			"define increment { global.counter++ }\n" +
+				"main { increment; global.items[ #global.items ] = \"item\" }" );
+
+		final Interpreter first = run( program );
+		final ProgramCache.Entry entry = cached( first, program );
+		assertNotNull( entry );
+
+		final Interpreter second = run( program );
+		assertSame( entry, cached( second, program ) );
+
+		// The second interpreter built its own processes and state from the shared entry
+		assertNotSame( first.getDefinition( "main" ), second.getDefinition( "main" ) );
+		assertNotSame( first.getDefinition( "increment" ), second.getDefinition( "increment" ) );
+		assertNotSame( first.globalValue(), second.globalValue() );
+		for( Interpreter interpreter : new Interpreter[] { first, second } ) {
+			assertEquals( 1, interpreter.globalValue().getFirstChild( "counter" ).intValue() );
+			assertEquals( 1, interpreter.globalValue().getChildren( "items" ).size() );
+		}
+	}
+
+	@Test
+	public void changedIncludesInvalidateTheEntry()
+		throws Exception {
+		write( "constants.iol", "constants { Answer = 1 }" );
+		final Path program = write( "include.ol",
+			"include \"constants.iol\"\n" +
+				"main { global.answer = Answer }" );
+
+		final Interpreter first = run( program );
+		assertEquals( 1, first.globalValue().getFirstChild( "answer" ).intValue() );
+		assertNotNull( cached( first, program ) );
+
+		write( "constants.iol", "constants { Answer = 2 }" );
+		assertNull( cached( first, program ) );
+		assertEquals( 2, run( program ).globalValue().getFirstChild( "answer" ).intValue() );
+	}
+
+	@Test
+	public void changedImportsInvalidateTheEntry()
+		throws Exception {
+		write( "types.ol", "type T: int" );
+		final Path program = write( "import.ol",
+			"from .types import T\n" +
+				"main { global.isT = 1 instanceof T }" );
+
+		final Interpreter first = run( program );
+		assertTrue( first.globalValue().getFirstChild( "isT" ).boolValue() );
+
+		write( "types.ol", "type T: string" );
+		assertFalse( run( program ).globalValue().getFirstChild( "isT" ).boolValue() );
+	}
+}
@@ -0,0 +1,95 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the options of --trace are validated when the command line is parsed.
+ */
+public class TraceOptionsTest {
+	private static File program;
+
+	@BeforeClass
+	public static void createProgram()
+		throws IOException {
+		program = File.createTempFile( "trace_options", ".ol" );
+		Files.write( program.toPath(), "main { nullProcess }".getBytes() );
+	}
+
+	@AfterClass
+	public static void deleteProgram() {
+		program.delete();
+	}
+
+	private static void parse( String traceMode )
+		throws CommandLineException, IOException {
+		new CommandLineParser( new String[] { "--trace", traceMode, program.getPath() },
+			TraceOptionsTest.class.getClassLoader(), false ).close();
+	}
+
+	@Test
+	public void acceptsValidOptions()
+		throws CommandLineException, IOException {
+		parse( "console:sampling=10" );
+		parse( "file:sampling=1" );
+		parse( "binary:sampling=2,maxFileSize=1048576,rotationInterval=60" );
+	}
+
+	@Test
+	public void rejectsMalformedNumbers() {
+		assertThrows( CommandLineException.class, () -> parse( "binary:maxFileSize=64MB" ) );
+		assertThrows( CommandLineException.class, () -> parse( "binary:rotationInterval=" ) );
+		assertThrows( CommandLineException.class, () -> parse( "console:sampling=ten" ) );
+	}
+
+	@Test
+	public void rejectsNumbersOutOfRange() {
+		assertThrows( CommandLineException.class, () -> parse( "file:sampling=0" ) );
+		assertThrows( CommandLineException.class, () -> parse( "binary:maxFileSize=-1" ) );
+		assertThrows( CommandLineException.class, () -> parse( "console:sampling=4294967296" ) );
+	}
+
+	@Test
+	public void rejectsUnsupportedOptions() {
+		assertThrows( CommandLineException.class, () -> parse( "binary:samplig=2" ) );
+		assertThrows( CommandLineException.class, () -> parse( "file:maxFileSize=1024" ) );
+		assertThrows( CommandLineException.class, () -> parse( "console:rotationInterval=60" ) );
+	}
+
+	@Test
+	public void reportsTheOffendingOption() {
+		final CommandLineException e =
+			assertThrows( CommandLineException.class, () -> parse( "binary:maxFileSize=64MB" ) );
+		assertEquals( "Invalid tracer option: maxFileSize must be a positive integer, found \"64MB\"",
+			e.getMessage() );
+	}
+}
@@ -0,0 +1,218 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jolie.Interpreter;
+import jolie.cli.CommandLineParser;
+
+public class DistributedTracerTest {
+	/**
+	 * An exporter that keeps the spans it receives.
+	 */
+	private static final class CollectingExporter implements SpanExporter {
+		private final List< Span > spans = Collections.synchronizedList( new ArrayList<>() );
+		private volatile boolean closed = false;
+
+		@Override
+		public void export( String serviceName, List< Span > batch ) {
+			assertEquals( "service", serviceName );
+			spans.addAll( batch );
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static final TraceContext SAMPLED_PARENT =
+		TraceContext.parse( "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01" );
+	private static final TraceContext UNSAMPLED_PARENT =
+		TraceContext.parse( "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00" );
+
+	private Path program;
+	private Interpreter interpreter;
+
+	@Before
+	public void createInterpreter()
+		throws Exception {
+		program = Files.createTempFile( "distributed_tracer", ".ol" );
+		Files.write( program, "main { nullProcess }".getBytes() );
+		try( CommandLineParser parser = new CommandLineParser( new String[] { program.toString() },
+			DistributedTracerTest.class.getClassLoader(), false ) ) {
+			interpreter = new Interpreter( parser.getInterpreterConfiguration(), null, Optional.empty() );
+		}
+	}
+
+	@After
+	public void exitInterpreter()
+		throws IOException {
+		interpreter.exit();
+		Files.delete( program );
+	}
+
+	@Test
+	public void samplesNewTracesWithTheConfiguredRatio() {
+		final DistributedTracer always = new DistributedTracer( interpreter, "service", new CollectingExporter(), 1.0 );
+		final Span recorded = always.startSpan( "op", Span.Kind.SERVER, null );
+		assertTrue( recorded.isRecording() );
+		assertTrue( recorded.context().isSampled() );
+		assertNull( recorded.parentSpanId() );
+		always.close();
+
+		final DistributedTracer never = new DistributedTracer( interpreter, "service", new CollectingExporter(), 0.0 );
+		final Span notRecorded = never.startSpan( "op", Span.Kind.SERVER, null );
+		assertFalse( notRecorded.isRecording() );
+		// the decision is passed along, so that the services we call do not record the trace either
+		assertFalse( notRecorded.context().isSampled() );
+		never.close();
+
+		final DistributedTracer half = new DistributedTracer( interpreter, "service", new CollectingExporter(), 0.5 );
+		int sampled = 0;
+		for( int i = 0; i < 2000; i++ ) {
+			if( half.startSpan( "op", Span.Kind.SERVER, null ).isRecording() ) {
+				sampled++;
+			}
+		}
+		half.close();
+		assertTrue( "sampled " + sampled + " traces out of 2000", sampled > 800 && sampled < 1200 );
+	}
+
+	@Test
+	public void followsTheDecisionOfTheCaller() {
+		final DistributedTracer never = new DistributedTracer( interpreter, "service", new CollectingExporter(), 0.0 );
+		final Span child = never.startSpan( "op", Span.Kind.SERVER, SAMPLED_PARENT );
+		assertTrue( child.isRecording() );
+		assertEquals( SAMPLED_PARENT.traceId(), child.context().traceId() );
+		assertEquals( SAMPLED_PARENT.spanId(), child.parentSpanId() );
+		assertFalse( SAMPLED_PARENT.spanId().equals( child.context().spanId() ) );
+		never.close();
+
+		final DistributedTracer always = new DistributedTracer( interpreter, "service", new CollectingExporter(), 1.0 );
+		final Span notRecorded = always.startSpan( "op", Span.Kind.SERVER, UNSAMPLED_PARENT );
+		assertFalse( notRecorded.isRecording() );
+		assertSame( UNSAMPLED_PARENT, notRecorded.context() );
+		always.close();
+	}
+
+	@Test
+	public void exportsEndedSpansWhenClosed() {
+		final CollectingExporter exporter = new CollectingExporter();
+		final DistributedTracer tracer = new DistributedTracer( interpreter, "service", exporter, 1.0 );
+		final Span server = tracer.startSpan( "op", Span.Kind.SERVER, null );
+		final Span client = tracer.startSpan( "call", Span.Kind.CLIENT, server.context() );
+		client.end();
+		client.end();
+		server.end();
+		tracer.startSpan( "unfinished", Span.Kind.INTERNAL, null );
+		tracer.close();
+
+		assertTrue( exporter.closed );
+		assertEquals( Arrays.asList( client, server ), exporter.spans );
+		assertEquals( 2, tracer.exported() );
+		assertEquals( 0, tracer.dropped() );
+		assertTrue( server.endEpochNanos() >= server.startEpochNanos() );
+
+		// spans ended after closing are discarded
+		final Span late = tracer.startSpan( "late", Span.Kind.SERVER, null );
+		assertFalse( late.isRecording() );
+	}
+
+	@Test
+	public void encodesSpansAsOtlpJson() {
+		final CollectingExporter exporter = new CollectingExporter();
+		final DistributedTracer tracer = new DistributedTracer( interpreter, "service", exporter, 1.0 );
+		final Span root = tracer.startSpan( "op", Span.Kind.SERVER, null );
+		final Span child = tracer.startSpan( "say \"hi\"\n", Span.Kind.CLIENT, root.context() );
+		child.putAttribute( "rpc.method", "say" ).putAttribute( "size", 42L ).putAttribute( "cached", true );
+		child.setError( "IOException" );
+		child.end();
+		root.end();
+		tracer.close();
+
+		final String expected = "{\"resourceSpans\":[{\"resource\":{\"attributes\":["
+			+ "{\"key\":\"service.name\",\"value\":{\"stringValue\":\"my \\\"service\\\"\"}}]},"
+			+ "\"scopeSpans\":[{\"scope\":{\"name\":\"jolie\"},\"spans\":["
+			+ "{\"traceId\":\"" + root.context().traceId() + "\",\"spanId\":\"" + child.context().spanId()
+			+ "\",\"parentSpanId\":\"" + root.context().spanId()
+			+ "\",\"name\":\"say \\\"hi\\\"\\n\",\"kind\":3"
+			+ ",\"startTimeUnixNano\":\"" + child.startEpochNanos()
+			+ "\",\"endTimeUnixNano\":\"" + child.endEpochNanos()
+			+ "\",\"attributes\":["
+			+ "{\"key\":\"rpc.method\",\"value\":{\"stringValue\":\"say\"}},"
+			+ "{\"key\":\"size\",\"value\":{\"intValue\":\"42\"}},"
+			+ "{\"key\":\"cached\",\"value\":{\"boolValue\":true}}]"
+			+ ",\"status\":{\"code\":2,\"message\":\"IOException\"}},"
+			+ "{\"traceId\":\"" + root.context().traceId() + "\",\"spanId\":\"" + root.context().spanId()
+			+ "\",\"name\":\"op\",\"kind\":2"
+			+ ",\"startTimeUnixNano\":\"" + root.startEpochNanos()
+			+ "\",\"endTimeUnixNano\":\"" + root.endEpochNanos()
+			+ "\",\"attributes\":[]}"
+			+ "]}]}]}";
+		assertEquals( expected, OtlpJson.encode( "my \"service\"", exporter.spans ) );
+	}
+
+	@Test
+	public void writesOneJsonLinePerBatch()
+		throws IOException {
+		final CollectingExporter collector = new CollectingExporter();
+		final DistributedTracer tracer = new DistributedTracer( interpreter, "service", collector, 1.0 );
+		tracer.startSpan( "first", Span.Kind.SERVER, null ).end();
+		tracer.startSpan( "second", Span.Kind.SERVER, null ).end();
+		tracer.close();
+		final List< Span > first = collector.spans.subList( 0, 1 );
+		final List< Span > second = collector.spans.subList( 1, 2 );
+
+		final Path file = Files.createTempFile( "spans", ".jsonl" );
+		try {
+			final OtlpJsonFileExporter exporter = new OtlpJsonFileExporter( file );
+			exporter.export( "service", first );
+			exporter.export( "service", second );
+			exporter.close();
+			assertEquals(
+				Arrays.asList( OtlpJson.encode( "service", first ), OtlpJson.encode( "service", second ) ),
+				Files.readAllLines( file, StandardCharsets.UTF_8 ) );
+		} finally {
+			Files.delete( file );
+		}
+	}
+}
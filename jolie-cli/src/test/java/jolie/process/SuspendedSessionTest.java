@@ -0,0 +1,195 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jolie.Interpreter;
+import jolie.SessionListener;
+import jolie.SessionThread;
+import jolie.cli.CommandLineParser;
+import jolie.lang.Constants;
+import jolie.runtime.FaultException;
+
+/**
+ * Checks how sessions that are suspended while waiting for a future react to faults, kills and
+ * cancellations.
+ */
+public class SuspendedSessionTest {
+	/**
+	 * A process that waits for a future and then throws the given fault, if any.
+	 */
+	private static final class AwaitProcess implements SuspendableProcess {
+		private final CompletableFuture< ? > future;
+		private final FaultException fault;
+		private final CountDownLatch waiting = new CountDownLatch( 1 );
+		private volatile boolean resumed = false;
+
+		private AwaitProcess( CompletableFuture< ? > future, FaultException fault ) {
+			this.future = future;
+			this.fault = fault;
+		}
+
+		@Override
+		public Continuation continuation() {
+			return new Continuation() {
+				private boolean started = false;
+
+				@Override
+				protected Step step()
+					throws FaultException {
+					if( !started ) {
+						started = true;
+						waiting.countDown();
+						return await( future );
+					}
+					resumed = true;
+					if( fault != null ) {
+						throw fault;
+					}
+					return done();
+				}
+			};
+		}
+
+		@Override
+		public void run() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Process copy( TransformationReason reason ) {
+			return this;
+		}
+
+		@Override
+		public boolean isKillable() {
+			return true;
+		}
+	}
+
+	private Path program;
+	private Interpreter interpreter;
+
+	@Before
+	public void createInterpreter()
+		throws Exception {
+		program = Files.createTempFile( "suspended_session", ".ol" );
+		Files.write( program, "main { nullProcess }".getBytes() );
+		try( CommandLineParser parser = new CommandLineParser( new String[] { program.toString() },
+			SuspendedSessionTest.class.getClassLoader(), false ) ) {
+			interpreter = new Interpreter( parser.getInterpreterConfiguration(), null, Optional.empty() );
+		}
+	}
+
+	@After
+	public void exitInterpreter()
+		throws IOException {
+		interpreter.exit();
+		Files.delete( program );
+	}
+
+	/**
+	 * Starts a session running the given process, and returns a future completed with the fault the
+	 * session terminated with, or with <code>null</code> if it terminated normally.
+	 */
+	private CompletableFuture< FaultException > start( SessionThread session ) {
+		final CompletableFuture< FaultException > result = new CompletableFuture<>();
+		session.addSessionListener( new SessionListener() {
+			@Override
+			public void onSessionExecuted( SessionThread session ) {
+				result.complete( null );
+			}
+
+			@Override
+			public void onSessionError( SessionThread session, FaultException fault ) {
+				result.complete( fault );
+			}
+		} );
+		session.start();
+		return result;
+	}
+
+	@Test( timeout = 10000 )
+	public void faultsAfterResumingReachTheSession()
+		throws Exception {
+		final CompletableFuture< Void > future = new CompletableFuture<>();
+		final AwaitProcess process = new AwaitProcess( future, new FaultException( "Failed" ) );
+		final SessionThread session = new SessionThread( interpreter, process );
+		final CompletableFuture< FaultException > result = start( session );
+
+		process.waiting.await();
+		future.complete( null );
+		session.join();
+		assertTrue( process.resumed );
+		assertEquals( "Failed", result.get().faultName() );
+	}
+
+	@Test( timeout = 10000 )
+	public void killingASuspendedSessionSurfacesTheKillerFault()
+		throws Exception {
+		final AwaitProcess process = new AwaitProcess( new CompletableFuture<>(), null );
+		final SessionThread session = new SessionThread( interpreter, process );
+		final CompletableFuture< FaultException > result = start( session );
+
+		process.waiting.await();
+		session.kill( new FaultException( "Killer" ) );
+		session.join();
+		assertFalse( process.resumed );
+		assertEquals( "Killer", result.get().faultName() );
+	}
+
+	@Test( timeout = 10000 )
+	public void cancellingTheAwaitedFutureKillsTheSession()
+		throws Exception {
+		final CompletableFuture< Void > future = new CompletableFuture<>();
+		final AwaitProcess process = new AwaitProcess( future, null );
+		final SessionThread session = new SessionThread( interpreter, process );
+		final CompletableFuture< FaultException > result = start( session );
+
+		process.waiting.await();
+		future.cancel( true );
+		session.join();
+		assertFalse( process.resumed );
+		assertTrue( session.isKilled() );
+		assertEquals( Constants.IO_EXCEPTION_FAULT_NAME, result.get().faultName() );
+	}
+
+	@Test( timeout = 10000 )
+	public void joiningASessionThatNeverStartedReturns()
+		throws Exception {
+		new SessionThread( interpreter, new AwaitProcess( new CompletableFuture<>(), null ) ).join();
+	}
+}
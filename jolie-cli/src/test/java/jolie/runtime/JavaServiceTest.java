@@ -0,0 +1,300 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jolie.Interpreter;
+import jolie.cli.CommandLineParser;
+import jolie.net.CommMessage;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Checks the invocation of JavaService operations with the supported return types.
+ */
+public class JavaServiceTest {
+	private static final long TIMEOUT = 5; // seconds
+
+	public static class Counter implements JavaService.ValueConverter {
+		private static volatile Thread lastConversionThread;
+		private final int count;
+
+		public Counter( int count ) {
+			this.count = count;
+		}
+
+		public static Counter fromValue( Value value ) {
+			return new Counter( value.intValue() );
+		}
+
+		public static Value toValue( Counter counter ) {
+			lastConversionThread = Thread.currentThread();
+			return Value.create( counter.count );
+		}
+	}
+
+	public static class TestService extends JavaService {
+		private volatile Value stored;
+		private final CountDownLatch notified = new CountDownLatch( 1 );
+		private volatile CompletableFuture< Counter > pendingCounter;
+		private volatile CompletableFuture< Void > pendingVoid;
+
+		public Value echo( Value request ) {
+			final Value response = Value.create();
+			response.deepCopy( request );
+			response.setFirstChild( "echoed", true );
+			return response;
+		}
+
+		public String upper( String s ) {
+			return s.toUpperCase();
+		}
+
+		public Integer twice( Integer n ) {
+			return n * 2;
+		}
+
+		public Long successor( Long n ) {
+			return n + 1;
+		}
+
+		public Double half( Double d ) {
+			return d / 2;
+		}
+
+		public Boolean negate( Boolean b ) {
+			return !b;
+		}
+
+		public ByteArray reversed( ByteArray bytes ) {
+			final byte[] b = bytes.getBytes();
+			final byte[] r = new byte[ b.length ];
+			for( int i = 0; i < b.length; i++ ) {
+				r[ i ] = b[ b.length - 1 - i ];
+			}
+			return new ByteArray( r );
+		}
+
+		public Integer positive( Integer n )
+			throws FaultException {
+			if( n < 0 ) {
+				throw new FaultException( "Negative", "not positive: " + n );
+			}
+			return n;
+		}
+
+		@RequestResponse
+		public void store( Value request ) {
+			stored = request;
+		}
+
+		public void notifyMe( Value request ) {
+			stored = request;
+			notified.countDown();
+		}
+
+		public CompletableFuture< Integer > completedNow( Integer n ) {
+			return CompletableFuture.completedFuture( n + 1 );
+		}
+
+		public CompletionStage< Counter > completedLater( Counter counter ) {
+			pendingCounter = new CompletableFuture<>();
+			return pendingCounter.thenApply( c -> new Counter( c.count + counter.count ) );
+		}
+
+		public CompletionStage< Void > voidLater() {
+			pendingVoid = new CompletableFuture<>();
+			return pendingVoid;
+		}
+
+		public CompletionStage< Integer > faultLater( Integer n ) {
+			final CompletableFuture< Integer > f = new CompletableFuture<>();
+			new Thread( () -> f.completeExceptionally( new FaultException( "Late", "fault " + n ) ) ).start();
+			return f;
+		}
+	}
+
+	private static File program;
+	private static Interpreter interpreter;
+
+	@BeforeClass
+	public static void createInterpreter()
+		throws Exception {
+		program = File.createTempFile( "java_service", ".ol" );
+		Files.write( program.toPath(), "main { nullProcess }".getBytes() );
+		try( CommandLineParser parser = new CommandLineParser( new String[] { program.getPath() },
+			JavaServiceTest.class.getClassLoader(), false ) ) {
+			interpreter = new Interpreter( parser.getInterpreterConfiguration(), null, Optional.empty() );
+		}
+	}
+
+	@AfterClass
+	public static void exitInterpreter() {
+		interpreter.exit();
+		program.delete();
+	}
+
+	private static TestService service() {
+		final TestService service = new TestService();
+		service.setInterpreter( interpreter );
+		return service;
+	}
+
+	private static CompletableFuture< CommMessage > call( JavaService service, String operation, Value value )
+		throws InvalidIdException, IllegalAccessException {
+		return service.callOperationAsync( CommMessage.createRequest( operation, "/", value ) );
+	}
+
+	private static Value callAndGet( JavaService service, String operation, Value value )
+		throws Exception {
+		final CommMessage response = call( service, operation, value ).get( TIMEOUT, TimeUnit.SECONDS );
+		assertFalse( operation + " faulted", response.isFault() );
+		return response.value();
+	}
+
+	@Test
+	public void valueTypedReturns()
+		throws Exception {
+		final TestService service = service();
+
+		final Value request = Value.create( "hi" );
+		request.setFirstChild( "n", 1 );
+		final Value echoed = callAndGet( service, "echo", request );
+		assertEquals( "hi", echoed.strValue() );
+		assertEquals( 1, echoed.getFirstChild( "n" ).intValue() );
+		assertTrue( echoed.getFirstChild( "echoed" ).boolValue() );
+
+		assertEquals( "HI", callAndGet( service, "upper", Value.create( "hi" ) ).strValue() );
+		assertEquals( 42, callAndGet( service, "twice", Value.create( 21 ) ).intValue() );
+		assertEquals( 1L << 40, callAndGet( service, "successor", Value.create( (1L << 40) - 1 ) ).longValue() );
+		assertEquals( 1.25, callAndGet( service, "half", Value.create( 2.5 ) ).doubleValue(), 0.0 );
+		assertFalse( callAndGet( service, "negate", Value.create( true ) ).boolValue() );
+		assertArrayEquals( new byte[] { 3, 2, 1 },
+			callAndGet( service, "reversed", Value.create( new ByteArray( new byte[] { 1, 2, 3 } ) ) )
+				.byteArrayValue().getBytes() );
+	}
+
+	@Test
+	public void faultsFromSynchronousOperations()
+		throws Exception {
+		final CommMessage response = call( service(), "positive", Value.create( -1 ) ).get();
+		assertTrue( response.isFault() );
+		assertEquals( "Negative", response.fault().faultName() );
+	}
+
+	@Test
+	public void voidReturns()
+		throws Exception {
+		final TestService service = service();
+
+		final Value stored = Value.create( "x" );
+		final CompletableFuture< CommMessage > response = call( service, "store", stored );
+		assertTrue( response.isDone() );
+		assertFalse( response.get().isFault() );
+		assertFalse( response.get().value().isDefined() );
+		assertEquals( "x", service.stored.strValue() );
+
+		// One-way operations are acknowledged at once and run on the interpreter executor
+		final Value notification = Value.create( "y" );
+		assertFalse( call( service, "notifyMe", notification ).get().isFault() );
+		assertTrue( service.notified.await( TIMEOUT, TimeUnit.SECONDS ) );
+		assertEquals( "y", service.stored.strValue() );
+	}
+
+	@Test
+	public void completedStagesReplyInline()
+		throws Exception {
+		final TestService service = service();
+		assertTrue( service.isNonBlocking( CommMessage.createRequest( "completedNow", "/", Value.create() ) ) );
+		assertFalse( service.isNonBlocking( CommMessage.createRequest( "twice", "/", Value.create() ) ) );
+
+		final CompletableFuture< CommMessage > response = call( service, "completedNow", Value.create( 1 ) );
+		assertTrue( response.isDone() );
+		assertEquals( 2, response.get().value().intValue() );
+	}
+
+	@Test
+	public void pendingStagesReplyOnTheExecutor()
+		throws Exception {
+		final TestService service = service();
+		final CompletableFuture< CommMessage > response = call( service, "completedLater", Value.create( 1 ) );
+		assertFalse( response.isDone() );
+
+		final Thread completer = new Thread( () -> service.pendingCounter.complete( new Counter( 41 ) ) );
+		completer.start();
+		assertEquals( 42, response.get( TIMEOUT, TimeUnit.SECONDS ).value().intValue() );
+		final Thread conversionThread = Counter.lastConversionThread;
+		assertNotSame( completer, conversionThread );
+		assertTrue( conversionThread instanceof jolie.InterpreterThread );
+
+		final CompletableFuture< CommMessage > voidResponse = call( service, "voidLater", Value.create() );
+		assertFalse( voidResponse.isDone() );
+		service.pendingVoid.complete( null );
+		final CommMessage message = voidResponse.get( TIMEOUT, TimeUnit.SECONDS );
+		assertFalse( message.isFault() );
+		assertFalse( message.value().isDefined() );
+
+		final CommMessage fault = call( service, "faultLater", Value.create( 3 ) ).get( TIMEOUT, TimeUnit.SECONDS );
+		assertTrue( fault.isFault() );
+		assertEquals( "Late", fault.fault().faultName() );
+	}
+
+	@Test
+	public void unknownOperations() {
+		assertThrows( InvalidIdException.class, () -> call( service(), "missing", Value.create() ) );
+	}
+
+	@Test
+	public void reflectiveFallback()
+		throws Throwable {
+		final MethodHandle twice = JavaService.reflectiveHandle( TestService.class.getMethod( "twice", Integer.class ) );
+		assertEquals( 6, (int) (Integer) twice.invoke( service(), 3 ) );
+
+		final MethodHandle parse = JavaService.reflectiveHandle( Integer.class.getMethod( "parseInt", String.class ) );
+		assertEquals( 42, (int) parse.invoke( "42" ) );
+
+		// Exceptions thrown by the method are not wrapped
+		final MethodHandle positive =
+			JavaService.reflectiveHandle( TestService.class.getMethod( "positive", Integer.class ) );
+		final FaultException e = assertThrows( FaultException.class, () -> positive.invoke( service(), -1 ) );
+		assertEquals( "Negative", e.faultName() );
+	}
+}
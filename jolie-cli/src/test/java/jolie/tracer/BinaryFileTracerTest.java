@@ -0,0 +1,167 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jolie.Interpreter;
+import jolie.cli.CommandLineParser;
+
+/**
+ * Checks that a binary trace converted to JSON matches the trace written by the file tracer, and
+ * that traced values are captured when the action happens, not when the trace is written.
+ */
+public class BinaryFileTracerTest {
+	private static final String PROGRAM = String.join( "\n",
+		"main {",
+		"	a = 1;",
+		"	a.x = 10;",
+		"	b << a;",
+		"	a.x = 20;",
+		"	a = 2;",
+		"	c -> a;",
+		"	a = 3",
+		"}" );
+
+	private static final Pattern TIMESTAMP = Pattern.compile( "^\\{\"(\\d+)\":\\[\"[^\"]*\"," );
+	private static final Pattern PAYLOAD = Pattern.compile( "\"([^\"]*)\"\\]\\}$" );
+
+	private final File workingDirectory = new File( System.getProperty( "user.dir" ) );
+	private final List< File > createdFiles = new ArrayList<>();
+	private File program;
+
+	@Before
+	public void createProgram()
+		throws IOException {
+		program = File.createTempFile( "binary_trace", ".ol" );
+		Files.write( program.toPath(), PROGRAM.getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	@After
+	public void deleteFiles() {
+		program.delete();
+		createdFiles.forEach( File::delete );
+	}
+
+	private File runTraced( String traceMode, String extension )
+		throws Exception {
+		final Set< String > before = new HashSet<>( Arrays.asList( workingDirectory.list() ) );
+		try( CommandLineParser parser = new CommandLineParser(
+			new String[] { "--trace", traceMode, program.getPath() },
+			BinaryFileTracerTest.class.getClassLoader(), false ) ) {
+			final Interpreter interpreter =
+				new Interpreter( parser.getInterpreterConfiguration(), null, Optional.empty() );
+			interpreter.run();
+			interpreter.exit();
+		}
+
+		File trace = null;
+		for( File file : workingDirectory.listFiles() ) {
+			if( !before.contains( file.getName() ) && file.getName().endsWith( ".jolie.log" + extension ) ) {
+				createdFiles.add( file );
+				trace = file;
+			}
+		}
+		assertTrue( "no " + extension + " trace written by " + traceMode, trace != null );
+		return trace;
+	}
+
+	private static List< String > withoutTimestamps( File trace )
+		throws IOException {
+		final List< String > lines = new ArrayList<>();
+		for( String line : Files.readAllLines( trace.toPath(), StandardCharsets.UTF_8 ) ) {
+			lines.add( TIMESTAMP.matcher( line ).replaceFirst( "{\"$1\":[" ) );
+		}
+		return lines;
+	}
+
+	private static String payload( String line ) {
+		final Matcher matcher = PAYLOAD.matcher( line );
+		assertTrue( line, matcher.find() );
+		return new String( Base64.getDecoder().decode( matcher.group( 1 ) ), StandardCharsets.UTF_8 );
+	}
+
+	@Test
+	public void convertedTraceMatchesFileTrace()
+		throws Exception {
+		final File jsonTrace = runTraced( "file", ".json" );
+		final File binaryTrace = runTraced( "binary", ".bin" );
+		final File converted = new File( binaryTrace.getPath() + ".json" );
+		createdFiles.add( converted );
+		TraceConverter.convert( binaryTrace, converted );
+
+		final List< String > expected = withoutTimestamps( jsonTrace );
+		assertTrue( expected.size() >= 7 );
+		assertEquals( expected, withoutTimestamps( converted ) );
+	}
+
+	@Test
+	public void tracedValuesAreNotAliased()
+		throws Exception {
+		final File binaryTrace = runTraced( "binary", ".bin" );
+		final File converted = new File( binaryTrace.getPath() + ".json" );
+		createdFiles.add( converted );
+		TraceConverter.convert( binaryTrace, converted );
+
+		final List< String > lines = withoutTimestamps( converted );
+		final String[][] expected = {
+			{ "ASSIGN", "int = 1" },
+			{ "ASSIGN", "int = 10" },
+			{ "COPIED", "int = 1\n", "x:int = 10" },
+			{ "ASSIGN", "int = 20" },
+			{ "ASSIGN", "int = 2" },
+			{ "POINTS", "int = 2\n", "x:int = 20" },
+			{ "ASSIGN", "int = 3" }
+		};
+		assertEquals( expected.length, lines.size() );
+		for( int i = 0; i < expected.length; i++ ) {
+			final String line = lines.get( i );
+			assertTrue( line, line.contains( "\"" + expected[ i ][ 0 ] + "\"" ) );
+			final String payload = payload( line );
+			if( expected[ i ].length == 2 ) {
+				assertTrue( payload, payload.endsWith( expected[ i ][ 1 ] ) );
+			} else {
+				assertTrue( payload, payload.contains( expected[ i ][ 1 ] ) );
+				assertTrue( payload, payload.endsWith( expected[ i ][ 2 ] ) );
+			}
+		}
+	}
+}
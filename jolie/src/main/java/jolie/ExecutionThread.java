@@ -28,11 +28,14 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import jolie.Interpreter.StarterThread;
 import jolie.lang.Constants;
+import jolie.monitoring.tracing.TraceContext;
 import jolie.net.CommChannelHandler;
 import jolie.net.SessionMessage;
 import jolie.process.Process;
@@ -167,11 +170,43 @@ public abstract class ExecutionThread extends JolieThread {
 	private boolean canBeInterrupted = false;
 	private FaultException killerFault = null;
 	private Future< ? > taskFuture;
+	private final CompletableFuture< Void > termination = new CompletableFuture<>();
+	private CompletableFuture< ? > suspension = null;
+	private CompletableFuture< Void > wakeUp = null;
+	private volatile boolean started = false;
+	private volatile boolean running = false;
+	private TraceContext traceContext = null;
 
 	private void setTaskFuture( Future< ? > taskFuture ) {
 		this.taskFuture = taskFuture;
 	}
 
+	/**
+	 * Returns the context of the distributed trace this thread is working for, i.e., the context of the
+	 * last request received by this thread or by its ancestors, or <code>null</code>.
+	 */
+	public TraceContext traceContext() {
+		for( ExecutionThread t = this; t != null; t = t.parent ) {
+			if( t.traceContext != null ) {
+				return t.traceContext;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the context of the distributed trace this thread is working for.
+	 *
+	 * @param traceContext the new trace context, or <code>null</code> to inherit the one of the parent
+	 *        thread
+	 * @return the previous trace context of this thread
+	 */
+	public TraceContext replaceTraceContext( TraceContext traceContext ) {
+		final TraceContext previous = this.traceContext;
+		this.traceContext = traceContext;
+		return previous;
+	}
+
 	/**
 	 * Sets if this thread can be interrupted by a fault signal or not.
 	 */
@@ -218,8 +253,13 @@ public abstract class ExecutionThread extends JolieThread {
 			}
 		}
 
-		if( canBeInterrupted ) {
-			taskFuture.cancel( canBeInterrupted );
+		if( canBeInterrupted && taskFuture.cancel( canBeInterrupted ) && !running ) {
+			// The task will never run, so nobody else will report its termination
+			termination.complete( null );
+		}
+
+		if( wakeUp != null ) { // Resume a suspended thread, so that it can terminate
+			wakeUp.complete( null );
 		}
 	}
 
@@ -471,22 +511,77 @@ public abstract class ExecutionThread extends JolieThread {
 
 	public abstract void runProcess();
 
+	/**
+	 * Suspends this thread until the given future is completed, freeing the underlying executor thread.
+	 * This must be called by {@link #runProcess()} right before returning; {@link #runProcess()} is
+	 * then called again, possibly by another executor thread, once the future is completed.
+	 *
+	 * @param future the future to wait for
+	 */
+	protected void suspendUntil( CompletableFuture< ? > future ) {
+		suspension = future;
+	}
+
 	@Override
 	public final void run() {
 		JolieExecutorThread t = JolieExecutorThread.currentThread();
 		t.setExecutionThread( this );
 		t.setContextClassLoader( interpreter().getClassLoader() );
-		runProcess();
+		running = true;
+		try {
+			runProcess();
+		} catch( RuntimeException | Error e ) {
+			termination.completeExceptionally( e );
+			throw e;
+		}
+
+		final CompletableFuture< ? > future = suspension;
+		if( future == null ) {
+			termination.complete( null );
+		} else {
+			suspension = null;
+			final CompletableFuture< Void > w = new CompletableFuture<>();
+			future.whenComplete( ( result, exception ) -> w.complete( null ) );
+			synchronized( this ) {
+				wakeUp = w;
+				if( isKilled() ) {
+					w.complete( null );
+				}
+			}
+			w.thenRun( this::resume );
+		}
+	}
+
+	private void resume() {
+		try {
+			start();
+		} catch( RejectedExecutionException e ) {
+			// The interpreter is shutting down
+		}
 	}
 
 	public void start() {
-		setTaskFuture( interpreter().runJolieThread( this ) );
+		started = true;
+		running = false;
+		try {
+			setTaskFuture( interpreter().runJolieThread( this ) );
+		} catch( RejectedExecutionException e ) {
+			termination.complete( null );
+			throw e;
+		}
 	}
 
+	/**
+	 * Waits for this thread to terminate, including any time it spends suspended. Returns immediately
+	 * if this thread was never started.
+	 */
 	public void join()
 		throws InterruptedException {
+		if( !started ) {
+			return;
+		}
 		try {
-			taskFuture.get();
+			termination.get();
 		} catch( ExecutionException e ) {
 			ByteArrayOutputStream bs = new ByteArrayOutputStream();
 			e.printStackTrace( new PrintStream( bs ) );
@@ -19,6 +19,7 @@
 
 package jolie;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -29,13 +30,11 @@ import java.io.PrintStream;
 import java.io.StringWriter;
 import java.lang.ref.WeakReference;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -62,10 +61,14 @@ import jolie.lang.parse.module.ModuleParsingConfiguration;
 import jolie.lang.parse.module.Modules;
 import jolie.lang.parse.module.SymbolTable;
 import jolie.monitoring.MonitoringEvent;
+import jolie.monitoring.MonitoringPipeline;
 import jolie.monitoring.events.MonitorAttachedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
 import jolie.monitoring.events.SessionEndedEvent;
 import jolie.monitoring.events.SessionStartedEvent;
+import jolie.monitoring.metrics.MetricsHttpServer;
+import jolie.monitoring.metrics.MetricsRegistry;
+import jolie.monitoring.tracing.DistributedTracer;
 import jolie.net.CommChannel;
 import jolie.net.CommCore;
 import jolie.net.CommMessage;
@@ -80,9 +83,11 @@ import jolie.runtime.correlation.CorrelationError;
 import jolie.runtime.correlation.CorrelationSet;
 import jolie.runtime.embedding.EmbeddedServiceLoader;
 import jolie.runtime.embedding.EmbeddedServiceLoaderFactory;
+import jolie.tracer.BinaryFileTracer;
 import jolie.tracer.DummyTracer;
 import jolie.tracer.FileTracer;
 import jolie.tracer.PrintingTracer;
+import jolie.tracer.SamplingTracer;
 import jolie.tracer.Tracer;
 import jolie.tracer.TracerUtils;
 
@@ -251,6 +256,10 @@ public class Interpreter {
 
 	private final String logPrefix;
 	private final Tracer tracer;
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final AtomicInteger activeSessions = new AtomicInteger( 0 );
+	private MetricsHttpServer metricsServer = null;
+	private volatile DistributedTracer distributedTracer = null;
 
 	private boolean check = false;
 	private Timer timer;
@@ -274,9 +283,13 @@ public class Interpreter {
 
 
 	private final File programDirectory;
-	private OutputPort monitor = null;
+	private MonitoringPipeline monitor = null;
 
 	public void setMonitor( OutputPort monitor ) {
+		setMonitor( new MonitoringPipeline( this, monitor ) );
+	}
+
+	public void setMonitor( MonitoringPipeline monitor ) {
 		this.monitor = monitor;
 		fireMonitorEvent( new MonitorAttachedEvent() );
 	}
@@ -297,31 +310,91 @@ public class Interpreter {
 		return tracer;
 	}
 
+	/**
+	 * Returns the registry of the runtime metrics of this interpreter.
+	 */
+	public MetricsRegistry metrics() {
+		return metrics;
+	}
+
+	/**
+	 * Starts serving the metrics of this interpreter over HTTP, replacing the server started by a
+	 * previous call, if any. The server is stopped when the interpreter exits.
+	 *
+	 * @param host the address to listen on, or <code>null</code> for all addresses
+	 * @param port the port to listen on, 0 for a free one
+	 * @return the port the server is listening on
+	 */
+	public synchronized int startMetricsServer( String host, int port )
+		throws IOException {
+		if( metricsServer != null ) {
+			metricsServer.stop();
+		}
+		metricsServer = new MetricsHttpServer( metrics, host, port );
+		return metricsServer.port();
+	}
+
+	/**
+	 * Returns the tracer recording the spans of distributed traces, or <code>null</code> if distributed
+	 * tracing is disabled.
+	 */
+	public DistributedTracer distributedTracer() {
+		return distributedTracer;
+	}
+
+	/**
+	 * Sets the tracer recording the spans of distributed traces, closing the previous one, if any.
+	 *
+	 * @param distributedTracer the new tracer, or <code>null</code> to disable distributed tracing
+	 */
+	public synchronized void setDistributedTracer( DistributedTracer distributedTracer ) {
+		final DistributedTracer previous = this.distributedTracer;
+		this.distributedTracer = distributedTracer;
+		if( previous != null ) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Hands an event over to the monitor, if any. Events are shipped asynchronously, so this method
+	 * does not block the calling thread.
+	 */
 	public void fireMonitorEvent( MonitoringEvent event ) {
 		if( monitor != null ) {
-			CommMessage m = CommMessage.createRequest( "pushEvent", "/", MonitoringEvent.toValue( event ) );
-			CommChannel channel = null;
-			try {
-				channel = monitor.getCommChannel();
-				channel.send( m );
-				CommMessage response;
-				do {
-					response = channel.recvResponseFor( m ).get();
-				} while( response == null );
-			} catch( URISyntaxException | InterruptedException | ExecutionException | IOException e ) {
-				logWarning( e );
-			} finally {
-				if( channel != null ) {
-					try {
-						channel.release();
-					} catch( IOException e ) {
-						logWarning( e );
-					}
-				}
-			}
+			monitor.fire( event );
 		}
 	}
 
+	/*
+	 * See TracerUtils.parseTracerOptions for the format of the tracer mode.
+	 */
+	private Tracer createTracer( String tracerMode, TracerUtils.TracerLevels tracerLevel ) {
+		final Map< String, Long > options = TracerUtils.parseTracerOptions( tracerMode );
+
+		Tracer ret;
+		switch( tracerMode.split( ":", 2 )[ 0 ] ) {
+		case "file":
+			ret = new FileTracer( this, tracerLevel );
+			break;
+		case "binary":
+			ret = new BinaryFileTracer( this, tracerLevel,
+				options.getOrDefault( TracerUtils.MAX_FILE_SIZE, BinaryFileTracer.DEFAULT_MAX_FILE_SIZE ),
+				options.containsKey( TracerUtils.ROTATION_INTERVAL )
+					? TimeUnit.SECONDS.toMillis( options.get( TracerUtils.ROTATION_INTERVAL ) )
+					: BinaryFileTracer.DEFAULT_ROTATION_INTERVAL );
+			break;
+		default:
+			ret = new PrintingTracer( this, tracerLevel );
+			break;
+		}
+
+		final long sampling = options.getOrDefault( TracerUtils.SAMPLING, 1L );
+		if( sampling > 1 ) {
+			ret = new SamplingTracer( ret, (int) sampling );
+		}
+		return ret;
+	}
+
 	public long persistentConnectionTimeout() {
 		return persistentConnectionTimeout;
 	}
@@ -334,7 +407,7 @@ public class Interpreter {
 		return correlationEngine;
 	}
 
-	private Timer timer() {
+	private synchronized Timer timer() {
 		if( timer == null ) {
 			timer = new Timer( configuration.programFilepath().getName() + "-Timer" );
 		}
@@ -347,6 +420,20 @@ public class Interpreter {
 		}
 	}
 
+	/**
+	 * Schedules a task for repeated execution on the timer of this interpreter, first after the
+	 * specified delay and then every period milliseconds.
+	 *
+	 * @param task the task to schedule
+	 * @param delay the delay before the first execution, in milliseconds
+	 * @param period the time between the end of an execution and the start of the next, in milliseconds
+	 */
+	public void schedule( TimerTask task, long delay, long period ) {
+		if( !exiting ) {
+			timer().schedule( task, delay, period );
+		}
+	}
+
 	public void addTimeoutHandler( TimeoutHandler handler ) {
 		synchronized( timeoutHandlerQueue ) {
 			timeoutHandlerQueue.add( new WeakReference<>( handler ) );
@@ -613,6 +700,10 @@ public class Interpreter {
 		} finally {
 			exitingLock.unlock();
 		}
+		if( monitor != null ) {
+			// Shipping needs the executors and timers stopped below
+			monitor.close( terminationTimeout );
+		}
 		if( timer != null ) {
 			timer.cancel();
 		}
@@ -621,6 +712,16 @@ public class Interpreter {
 		nativeExecutorService.shutdown();
 		timeoutHandlerExecutor.shutdown();
 		commCore.shutdown( terminationTimeout );
+		tracer.close();
+		synchronized( this ) {
+			if( metricsServer != null ) {
+				metricsServer.stop();
+				metricsServer = null;
+			}
+			if( distributedTracer != null ) {
+				distributedTracer.close();
+			}
+		}
 		try {
 			nativeExecutorService.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
 		} catch( InterruptedException e ) {
@@ -854,6 +955,12 @@ public class Interpreter {
 		this.correlationEngine = configuration.correlationAlgorithm().createInstance( this );
 
 		commCore = new CommCore( this, configuration.connectionsLimit() /* , cmdParser.connectionsCache() */ );
+		metrics.gauge( "jolie_sessions_active", "Sessions currently running", activeSessions::get );
+		metrics.gauge( "jolie_timeout_handlers_pending", "Timeout handlers waiting to expire", () -> {
+			synchronized( timeoutHandlerQueue ) {
+				return timeoutHandlerQueue.size();
+			}
+		} );
 		includePaths = configuration.includePaths();
 
 		logPrefix = '[' +
@@ -861,11 +968,7 @@ public class Interpreter {
 			"] ";
 
 		if( configuration.tracer() ) {
-			if( configuration.tracerMode().equals( "file" ) ) {
-				tracer = new FileTracer( this, tracerLevel );
-			} else {
-				tracer = new PrintingTracer( this, tracerLevel );
-			}
+			tracer = createTracer( configuration.tracerMode(), tracerLevel );
 		} else {
 			tracer = new DummyTracer();
 		}
@@ -1197,7 +1300,11 @@ public class Interpreter {
 	private boolean buildOOIT( Value initValue )
 		throws InterpreterException {
 		try {
+			check = configuration.check();
 			Program program;
+			Object cacheKey = null;
+			ProgramCache.Entry cached = null;
+			Set< URI > sources = Set.of();
 			if( configuration.isProgramCompiled() ) {
 				try( final ObjectInputStream istream = new ObjectInputStream( configuration.inputStream() ) ) {
 					final Object o = istream.readObject();
@@ -1207,12 +1314,24 @@ public class Interpreter {
 						throw new InterpreterException( "Input compiled program is not a JOLIE program" );
 					}
 				}
-			} else {
-				if( this.internalServiceProgram != null ) {
-					program = this.internalServiceProgram;
-					program = OLParseTreeOptimizer.optimize( program );
+			} else if( this.internalServiceProgram != null ) {
+				if( !check ) {
+					cacheKey = ProgramCache.internalServiceKey( configuration, this.internalServiceProgram );
+					cached = ProgramCache.get( cacheKey );
+				}
+				if( cached == null ) {
+					program = OLParseTreeOptimizer.optimize( this.internalServiceProgram );
 					symbolTables.putAll( this.parentInterpreter.symbolTables );
 				} else {
+					program = cached.program();
+				}
+			} else {
+				final byte[] source = configuration.inputStream().readAllBytes();
+				if( !check ) {
+					cacheKey = ProgramCache.sourceKey( configuration, source );
+					cached = ProgramCache.get( cacheKey );
+				}
+				if( cached == null ) {
 					ModuleParsingConfiguration configuration = new ModuleParsingConfiguration(
 						configuration().charset(),
 						configuration().includePaths(),
@@ -1221,59 +1340,80 @@ public class Interpreter {
 						configuration().constants(),
 						false );
 					Modules.ModuleParsedResult parsedResult =
-						Modules.parseModule( configuration, configuration().inputStream(),
+						Modules.parseModule( configuration, new ByteArrayInputStream( source ),
 							configuration().programFilepath().toURI() );
 					symbolTables.putAll( parsedResult.symbolTables() );
+					sources = parsedResult.sources();
 					program = parsedResult.mainProgram();
+				} else {
+					program = cached.program();
 				}
 			}
 
 			configuration.inputStream().close();
 
-			check = configuration.check();
-
-			final SemanticVerifier semanticVerifier;
+			if( cached == null ) {
+				cached = verify( program, sources );
+				if( cached == null ) {
+					return false;
+				}
+				if( cacheKey != null ) {
+					ProgramCache.put( cacheKey, cached );
+				}
+			} else {
+				symbolTables.putAll( cached.symbolTables() );
+			}
 
-			SemanticVerifier.Configuration conf =
-				new SemanticVerifier.Configuration( configuration.executionTarget() );
+			return (new OOITBuilder(
+				this,
+				cached.program(),
+				cached.constantFlags(),
+				cached.correlationFunctionInfo(),
+				initValue ))
+					.build();
+		} catch( IOException | ParserException | ClassNotFoundException | ModuleException e ) {
+			throw new InterpreterException( e );
+		}
+	}
 
-			if( check ) {
-				conf.setCheckForMain( false );
-			}
-			semanticVerifier = new SemanticVerifier( program, symbolTables, conf );
+	/*
+	 * Runs the semantic verification and, if requested, the type checking of a program read from the
+	 * given sources. Returns null if we are only checking the program.
+	 */
+	private ProgramCache.Entry verify( Program program, Set< URI > sources )
+		throws InterpreterException {
+		final SemanticVerifier semanticVerifier;
 
-			try {
-				semanticVerifier.validate();
-			} catch( CodeCheckException e ) {
-				LOGGER.severe( e.getMessage() );
-				throw new InterpreterException( "Exiting" );
-			}
+		SemanticVerifier.Configuration conf =
+			new SemanticVerifier.Configuration( configuration.executionTarget() );
 
-			if( configuration.typeCheck() ) {
-				TypeChecker typeChecker = new TypeChecker(
-					program,
-					semanticVerifier.executionMode(),
-					semanticVerifier.correlationFunctionInfo() );
-				if( !typeChecker.check() ) {
-					throw new InterpreterException( "Exiting" );
-				}
-			}
+		if( check ) {
+			conf.setCheckForMain( false );
+		}
+		semanticVerifier = new SemanticVerifier( program, symbolTables, conf );
 
-			if( check ) {
-				return false;
-			} else {
-				return (new OOITBuilder(
-					this,
-					program,
-					semanticVerifier.constantFlags(),
-					semanticVerifier.correlationFunctionInfo(),
-					initValue ))
-						.build();
+		try {
+			semanticVerifier.validate();
+		} catch( CodeCheckException e ) {
+			LOGGER.severe( e.getMessage() );
+			throw new InterpreterException( "Exiting" );
+		}
+
+		if( configuration.typeCheck() ) {
+			TypeChecker typeChecker = new TypeChecker(
+				program,
+				semanticVerifier.executionMode(),
+				semanticVerifier.correlationFunctionInfo() );
+			if( !typeChecker.check() ) {
+				throw new InterpreterException( "Exiting" );
 			}
+		}
 
-		} catch( IOException | ParserException | ClassNotFoundException | ModuleException e ) {
-			throw new InterpreterException( e );
+		if( check ) {
+			return null;
 		}
+		return new ProgramCache.Entry( program, symbolTables, semanticVerifier.constantFlags(),
+			semanticVerifier.correlationFunctionInfo(), sources );
 	}
 
 	/**
@@ -1312,7 +1452,7 @@ public class Interpreter {
 			correlationEngine.onSessionStart( spawnedSession, starter, message );
 			spawnedSession.addSessionListener( correlationEngine );
 
-			logSessionStart( message, spawnedSession.getSessionId() );
+			logSessionStart( starter, message, spawnedSession.getSessionId() );
 
 			spawnedSession.addSessionListener( new SessionListener() {
 				public void onSessionExecuted( SessionThread session ) {
@@ -1337,7 +1477,7 @@ public class Interpreter {
 				sequence, state, initExecutionThread );
 			correlationEngine.onSessionStart( spawnedSession, starter, message );
 
-			logSessionStart( message, spawnedSession.getSessionId() );
+			logSessionStart( starter, message, spawnedSession.getSessionId() );
 			spawnedSession.addSessionListener( correlationEngine );
 			spawnedSession.addSessionListener( new SessionListener() {
 				public void onSessionExecuted( SessionThread session ) {
@@ -1376,7 +1516,9 @@ public class Interpreter {
 		return true;
 	}
 
-	private void logSessionStart( CommMessage commMessage, String sessionId ) {
+	private void logSessionStart( SessionStarter starter, CommMessage commMessage, String sessionId ) {
+		activeSessions.incrementAndGet();
+		starter.guard.inputOperation().metrics( metrics ).sessionsStarted().increment();
 		if( isMonitoring() ) {
 			fireMonitorEvent( new SessionStartedEvent( commMessage.operationName(), sessionId,
 				Long.toString( commMessage.id() ) ) );
@@ -1388,6 +1530,7 @@ public class Interpreter {
 	}
 
 	private void logSessionEnd( CommMessage commMessage, String sessionId ) {
+		activeSessions.decrementAndGet();
 		if( isMonitoring() ) {
 			fireMonitorEvent(
 				new SessionEndedEvent( commMessage.operationName(), sessionId, Long.toString( commMessage.id() ) ) );
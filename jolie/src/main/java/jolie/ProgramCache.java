@@ -0,0 +1,161 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jolie.lang.parse.CorrelationFunctionInfo;
+import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.module.SymbolTable;
+import jolie.util.Helpers;
+
+/**
+ * A cache of parsed and verified programs, shared by all the interpreters in the JVM. Interpreters
+ * that run the same program (for example, many instances of the same embedded service) parse and
+ * verify it only once, and then only build their own runtime structures from the cached
+ * {@link Entry}.
+ *
+ * Programs read from a source are identified by their path, their source code and the configuration
+ * that affects parsing. An entry also records the stamps of the files that the program includes or
+ * imports, and it is discarded when any of them changes. Internal services are identified by the
+ * syntax nodes that define them.
+ *
+ * @author Fabrizio Montesi
+ */
+final class ProgramCache {
+	private static final int MAX_SIZE = 64;
+
+	private static final Map< Object, ProgramCache.Entry > ENTRIES = new LinkedHashMap<>( 16, 0.75f, true ) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry< Object, ProgramCache.Entry > eldest ) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	/**
+	 * A program that has passed semantic verification, together with the results of the verification.
+	 * Entries are never changed after creation and can be shared by interpreters.
+	 */
+	static final class Entry {
+		private final Program program;
+		private final Map< URI, SymbolTable > symbolTables;
+		private final Map< String, Boolean > constantFlags;
+		private final CorrelationFunctionInfo correlationFunctionInfo;
+		private final Map< URI, List< Long > > dependencies;
+
+		Entry( Program program, Map< URI, SymbolTable > symbolTables, Map< String, Boolean > constantFlags,
+			CorrelationFunctionInfo correlationFunctionInfo, Set< URI > sources ) {
+			this.program = program;
+			this.symbolTables = Collections.unmodifiableMap( new HashMap<>( symbolTables ) );
+			this.constantFlags = Collections.unmodifiableMap( new HashMap<>( constantFlags ) );
+			this.correlationFunctionInfo = correlationFunctionInfo;
+			this.dependencies = new HashMap<>();
+			for( URI source : sources ) {
+				final List< Long > stamp = Helpers.fileStamp( source );
+				if( stamp != null ) {
+					dependencies.put( source, stamp );
+				}
+			}
+		}
+
+		/**
+		 * Returns true if none of the files the program was read from has changed.
+		 */
+		private boolean isUpToDate() {
+			for( Map.Entry< URI, List< Long > > dependency : dependencies.entrySet() ) {
+				if( !dependency.getValue().equals( Helpers.fileStamp( dependency.getKey() ) ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		Program program() {
+			return program;
+		}
+
+		Map< URI, SymbolTable > symbolTables() {
+			return symbolTables;
+		}
+
+		/**
+		 * Returns a copy of the constant flags, since the builder of the runtime structures adds to them.
+		 */
+		Map< String, Boolean > constantFlags() {
+			return new HashMap<>( constantFlags );
+		}
+
+		CorrelationFunctionInfo correlationFunctionInfo() {
+			return correlationFunctionInfo;
+		}
+	}
+
+	private ProgramCache() {}
+
+	static Object sourceKey( Interpreter.Configuration configuration, byte[] source ) {
+		final Map< String, String > constants = new HashMap<>();
+		configuration.constants()
+			.forEach( ( name, token ) -> constants.put( name, token.type() + " " + token.content() ) );
+		return Arrays.asList(
+			configuration.programFilepath().getPath(),
+			ByteBuffer.wrap( source ),
+			paths( configuration.includePaths() ),
+			paths( configuration.packagePaths() ),
+			constants,
+			configuration.charset(),
+			configuration.executionTarget(),
+			configuration.typeCheck() );
+	}
+
+	private static Object paths( String[] paths ) {
+		return paths == null ? null : Arrays.asList( paths );
+	}
+
+	static Object internalServiceKey( Interpreter.Configuration configuration, Program program ) {
+		return Arrays.asList(
+			program.children(),
+			configuration.executionTarget(),
+			configuration.typeCheck() );
+	}
+
+	static synchronized Entry get( Object key ) {
+		final Entry entry = ENTRIES.get( key );
+		if( entry != null && !entry.isUpToDate() ) {
+			ENTRIES.remove( key );
+			return null;
+		}
+		return entry;
+	}
+
+	static synchronized void put( Object key, Entry entry ) {
+		ENTRIES.put( key, entry );
+	}
+}
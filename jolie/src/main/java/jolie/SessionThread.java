@@ -26,16 +26,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import jolie.lang.Constants;
 import jolie.net.SessionMessage;
+import jolie.process.ContinuationStack;
 import jolie.process.Process;
 import jolie.process.Processes;
 import jolie.runtime.ExitingException;
@@ -53,86 +50,27 @@ import jolie.util.Pair;
  * @author Fabrizio Montesi
  */
 public class SessionThread extends ExecutionThread {
-	private static class SessionMessageFuture implements Future< SessionMessage > {
-		private final Lock lock;
-		private final Condition condition;
-		private SessionMessage sessionMessage = null;
-		private boolean isDone = false;
-		private boolean isCancelled = false;
-
-		public SessionMessageFuture() {
-			lock = new ReentrantLock();
-			condition = lock.newCondition();
-		}
+	/**
+	 * A future for a message of this session. A cancelled future is completed with <code>null</code>.
+	 */
+	private static class SessionMessageFuture extends CompletableFuture< SessionMessage > {
+		private volatile boolean isCancelled = false;
 
 		@Override
 		public boolean cancel( boolean mayInterruptIfRunning ) {
-			lock.lock();
-			try {
-				if( !isDone ) {
-					this.sessionMessage = null;
-					isDone = true;
-					isCancelled = true;
-					condition.signalAll();
-				}
-			} finally {
-				lock.unlock();
+			if( complete( null ) ) {
+				isCancelled = true;
 			}
-
 			return true;
 		}
 
-		@Override
-		public SessionMessage get( long timeout, TimeUnit unit )
-			throws InterruptedException, TimeoutException {
-			try {
-				lock.lock();
-				if( !isDone ) {
-					if( !condition.await( timeout, unit ) ) {
-						throw new TimeoutException();
-					}
-				}
-			} finally {
-				lock.unlock();
-			}
-			return sessionMessage;
-		}
-
-		@Override
-		public SessionMessage get()
-			throws InterruptedException {
-			try {
-				lock.lock();
-				if( !isDone ) {
-					condition.await();
-				}
-			} finally {
-				lock.unlock();
-			}
-			return sessionMessage;
-		}
-
 		@Override
 		public boolean isCancelled() {
 			return isCancelled;
 		}
 
-		@Override
-		public boolean isDone() {
-			return isDone;
-		}
-
 		protected void setResult( SessionMessage sessionMessage ) {
-			lock.lock();
-			try {
-				if( !isDone ) {
-					this.sessionMessage = sessionMessage;
-					isDone = true;
-					condition.signalAll();
-				}
-			} finally {
-				lock.unlock();
-			}
+			complete( sessionMessage );
 		}
 	}
 
@@ -140,7 +78,6 @@ public class SessionThread extends ExecutionThread {
 		private final String[] operationNames;
 
 		public SessionMessageNDFuture( String[] operationNames ) {
-			super();
 			this.operationNames = operationNames;
 		}
 
@@ -166,6 +103,7 @@ public class SessionThread extends ExecutionThread {
 	protected final Map< CorrelationSet, Deque< SessionMessage > > messageQueues = new HashMap<>();
 	protected final Deque< SessionMessage > uncorrelatedMessageQueue = new ArrayDeque<>();
 	private final Map< String, Deque< SessionMessageFuture > > messageWaiters = new HashMap<>();
+	private ContinuationStack continuations = null;
 
 	private final static VariablePath TYPE_MISMATCH_PATH;
 	private final static VariablePath IO_EXCEPTION_PATH;
@@ -407,7 +345,15 @@ public class SessionThread extends ExecutionThread {
 		try {
 			try {
 				try {
-					process().run();
+					if( continuations == null ) {
+						continuations = new ContinuationStack( process() );
+					}
+					final CompletableFuture< ? > pending = continuations.run();
+					if( pending != null ) {
+						// Free the executor thread until the process can go on
+						suspendUntil( pending );
+						return;
+					}
 				} catch( ExitingException e ) {
 				}
 				listeners.forEach( listener -> listener.onSessionExecuted( this ) );
@@ -31,17 +31,22 @@ import jolie.runtime.Value;
  * @author Fabrizio Montesi
  */
 public class MonitoringEvent implements ValueConverter {
+	// Memory usage is sampled at most once per interval, since events can be fired at a high rate
+	private static final long MEMORY_SAMPLING_INTERVAL = 100L; // milliseconds
+	private static volatile long lastMemorySample = 0L;
+	private static volatile long lastMemorySampleTime = 0L;
+
 	private final String type;
 	private final long timestamp;
 	private final long memory;
 	private final Value data;
 
 	public MonitoringEvent( String type, Value data ) {
-		this(
-			type,
-			System.currentTimeMillis(),
-			Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory(),
-			data );
+		this( type, System.currentTimeMillis(), data );
+	}
+
+	private MonitoringEvent( String type, long timestamp, Value data ) {
+		this( type, timestamp, usedMemory( timestamp ), data );
 	}
 
 	private MonitoringEvent( String type, long timestamp, long memory, Value data ) {
@@ -51,6 +56,15 @@ public class MonitoringEvent implements ValueConverter {
 		this.data = data;
 	}
 
+	private static long usedMemory( long now ) {
+		if( now - lastMemorySampleTime >= MEMORY_SAMPLING_INTERVAL ) {
+			final Runtime runtime = Runtime.getRuntime();
+			lastMemorySample = runtime.totalMemory() - runtime.freeMemory();
+			lastMemorySampleTime = now;
+		}
+		return lastMemorySample;
+	}
+
 	public String type() {
 		return type;
 	}
@@ -0,0 +1,242 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import jolie.ExecutionThread;
+import jolie.Interpreter;
+import jolie.net.CommChannel;
+import jolie.net.CommChannelHandler;
+import jolie.net.CommMessage;
+import jolie.net.ports.OutputPort;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Delivers {@link MonitoringEvent}s to a monitor without blocking the threads that fire them.
+ *
+ * Events are stored in a bounded lock-free ring buffer, which is drained by a single shipping task
+ * running in the communication core executor. The task is started on demand and terminates when the
+ * buffer is empty, so events that are fired while a batch is in flight are naturally grouped in the
+ * next batch. When the buffer is full, new events are dropped and counted.
+ *
+ * If the batch size is 1, every event is sent with the <code>pushEvent</code> operation, which
+ * every monitor supports. Otherwise, events are sent in groups with the <code>pushEvents</code>
+ * operation, whose request has the shape <code>{ .events*: MonitorEvent, .dropped: long }</code>.
+ *
+ * @author Fabrizio Montesi
+ */
+public class MonitoringPipeline {
+	public static final int DEFAULT_BUFFER_SIZE = 4096;
+	public static final int DEFAULT_BATCH_SIZE = 1;
+	public static final int DEFAULT_SAMPLING = 1;
+
+	private final Interpreter interpreter;
+	private final OutputPort port;
+	private final int batchSize;
+	private final int sampling;
+	private final AtomicReferenceArray< MonitoringEvent > slots;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong( 0L );
+	private volatile long head = 0L;
+	private final AtomicBoolean shipping = new AtomicBoolean( false );
+	private final AtomicLong fired = new AtomicLong( 0L );
+	private final AtomicLong dropped = new AtomicLong( 0L );
+	private final AtomicLong shipped = new AtomicLong( 0L );
+
+	/**
+	 * @param interpreter the interpreter firing the events
+	 * @param port the output port of the monitor
+	 * @param bufferSize the maximum number of events waiting to be shipped, rounded up to a power of
+	 *        two
+	 * @param batchSize the maximum number of events sent in a single message
+	 * @param sampling only one event every <code>sampling</code> events is kept
+	 */
+	public MonitoringPipeline( Interpreter interpreter, OutputPort port, int bufferSize, int batchSize,
+		int sampling ) {
+		this.interpreter = interpreter;
+		this.port = port;
+		this.batchSize = Math.max( 1, batchSize );
+		this.sampling = Math.max( 1, sampling );
+		int capacity = Integer.highestOneBit( Math.max( 2, bufferSize ) - 1 ) << 1;
+		this.slots = new AtomicReferenceArray<>( capacity );
+		this.mask = capacity - 1;
+	}
+
+	public MonitoringPipeline( Interpreter interpreter, OutputPort port ) {
+		this( interpreter, port, DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_SAMPLING );
+	}
+
+	/**
+	 * Enqueues an event for shipping. This method never blocks.
+	 *
+	 * @param event the event to ship
+	 */
+	public void fire( MonitoringEvent event ) {
+		if( sampling > 1 && fired.getAndIncrement() % sampling != 0 ) {
+			return;
+		}
+
+		long t;
+		do {
+			t = tail.get();
+			if( t - head >= slots.length() ) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while( !tail.compareAndSet( t, t + 1 ) );
+		slots.set( (int) t & mask, event );
+
+		if( shipping.compareAndSet( false, true ) ) {
+			final ExecutionThread ethread = interpreter.initThread();
+			try {
+				interpreter.commCore().executor().execute( () -> {
+					CommChannelHandler.currentThread().setExecutionThread( ethread );
+					ship();
+				} );
+			} catch( RejectedExecutionException e ) {
+				// The interpreter is exiting, the remaining events will not be shipped
+				shipping.set( false );
+			}
+		}
+	}
+
+	/**
+	 * Waits for the events in the buffer to be shipped, for at most the given time. The interpreter
+	 * calls this when it exits, before stopping the executor that ships them.
+	 *
+	 * @param timeout the maximum time to wait, in milliseconds
+	 */
+	public void close( long timeout ) {
+		final long deadline = System.currentTimeMillis() + timeout;
+		synchronized( this ) {
+			long remaining = timeout;
+			while( (shipping.get() || head != tail.get()) && remaining > 0 ) {
+				try {
+					wait( remaining );
+				} catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				remaining = deadline - System.currentTimeMillis();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of events that have been dropped because the buffer was full.
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Returns the number of events that have been delivered to the monitor.
+	 */
+	public long shipped() {
+		return shipped.get();
+	}
+
+	private MonitoringEvent poll() {
+		final int index = (int) head & mask;
+		final MonitoringEvent event = slots.get( index );
+		if( event != null ) {
+			slots.set( index, null );
+			head++;
+		}
+		return event;
+	}
+
+	private boolean hasNext() {
+		return slots.get( (int) head & mask ) != null;
+	}
+
+	private void ship() {
+		do {
+			List< MonitoringEvent > batch = new ArrayList<>( batchSize );
+			MonitoringEvent event;
+			do {
+				while( batch.size() < batchSize && (event = poll()) != null ) {
+					batch.add( event );
+				}
+				if( !batch.isEmpty() ) {
+					send( batch );
+					batch.clear();
+				}
+			} while( hasNext() );
+			shipping.set( false );
+		} while( hasNext() && shipping.compareAndSet( false, true ) );
+		synchronized( this ) {
+			notifyAll();
+		}
+	}
+
+	private void send( List< MonitoringEvent > batch ) {
+		if( batchSize == 1 ) {
+			for( MonitoringEvent event : batch ) {
+				send( CommMessage.createRequest( "pushEvent", "/", MonitoringEvent.toValue( event ) ) );
+			}
+		} else {
+			Value request = Value.create();
+			ValueVector events = request.getChildren( "events" );
+			for( MonitoringEvent event : batch ) {
+				events.add( MonitoringEvent.toValue( event ) );
+			}
+			request.getFirstChild( "dropped" ).setValue( dropped.get() );
+			send( CommMessage.createRequest( "pushEvents", "/", request ) );
+		}
+		shipped.addAndGet( batch.size() );
+	}
+
+	private void send( CommMessage m ) {
+		CommChannel channel = null;
+		try {
+			channel = port.getCommChannel();
+			channel.send( m );
+			CommMessage response;
+			do {
+				response = channel.recvResponseFor( m ).get();
+			} while( response == null );
+			if( response.isFault() ) {
+				interpreter.logWarning( response.fault() );
+			}
+		} catch( URISyntaxException | InterruptedException | ExecutionException | IOException e ) {
+			interpreter.logWarning( e );
+		} finally {
+			if( channel != null ) {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					interpreter.logWarning( e );
+				}
+			}
+		}
+	}
+}
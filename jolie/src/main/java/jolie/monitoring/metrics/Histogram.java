@@ -0,0 +1,210 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values, typically durations in nanoseconds.
+ *
+ * Values are counted in log-linear buckets, as in HdrHistogram: every power of two is split in
+ * 2<sup>subBucketBits</sup> buckets of equal width, so that the relative error of reported
+ * percentiles is bounded by 1/2<sup>subBucketBits</sup> over the whole range of long values. The
+ * default precision ({@value #DEFAULT_SUB_BUCKET_BITS} bits, i.e., 12.5%) keeps the histograms of
+ * the metrics registry small; tools that report precise percentiles can ask for more. Recording a
+ * value is a couple of atomic increments.
+ *
+ * @author Fabrizio Montesi
+ */
+public class Histogram {
+	public static final int DEFAULT_SUB_BUCKET_BITS = 3;
+	public static final int MAX_SUB_BUCKET_BITS = 10;
+
+	private final int subBucketBits;
+	private final int subBuckets;
+	private final AtomicLongArray buckets;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong min = new AtomicLong( Long.MAX_VALUE );
+	private final AtomicLong max = new AtomicLong( 0L );
+
+	public Histogram() {
+		this( DEFAULT_SUB_BUCKET_BITS );
+	}
+
+	/**
+	 * @param subBucketBits the precision of the histogram: every power of two is split in
+	 *        2<sup>subBucketBits</sup> buckets, between 0 and {@value #MAX_SUB_BUCKET_BITS}
+	 */
+	public Histogram( int subBucketBits ) {
+		if( subBucketBits < 0 || subBucketBits > MAX_SUB_BUCKET_BITS ) {
+			throw new IllegalArgumentException( "The sub-bucket bits of a histogram must be between 0 and "
+				+ MAX_SUB_BUCKET_BITS + ", got " + subBucketBits );
+		}
+		this.subBucketBits = subBucketBits;
+		this.subBuckets = 1 << subBucketBits;
+		this.buckets = new AtomicLongArray( (64 - subBucketBits + 1) * subBuckets );
+	}
+
+	public int subBucketBits() {
+		return subBucketBits;
+	}
+
+	public void record( long value ) {
+		if( value < 0 ) {
+			value = 0;
+		}
+		buckets.incrementAndGet( index( value ) );
+		count.increment();
+		sum.add( value );
+		updateMin( value );
+		updateMax( value );
+	}
+
+	private void updateMin( long value ) {
+		long currentMin = min.get();
+		while( value < currentMin && !min.compareAndSet( currentMin, value ) ) {
+			currentMin = min.get();
+		}
+	}
+
+	private void updateMax( long value ) {
+		long currentMax = max.get();
+		while( value > currentMax && !max.compareAndSet( currentMax, value ) ) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * Records the time elapsed since <code>startNanos</code>, as given by {@link System#nanoTime()}.
+	 */
+	public void recordSince( long startNanos ) {
+		record( System.nanoTime() - startNanos );
+	}
+
+	/**
+	 * Adds the values recorded by another histogram to this one, e.g., to combine the histograms
+	 * filled by different threads. Values that are recorded into the other histogram meanwhile may or
+	 * may not be added.
+	 *
+	 * @throws IllegalArgumentException if the histograms have different precisions
+	 */
+	public void merge( Histogram other ) {
+		if( other.subBucketBits != subBucketBits ) {
+			throw new IllegalArgumentException( "Cannot merge a histogram with " + other.subBucketBits
+				+ " sub-bucket bits into one with " + subBucketBits );
+		}
+		for( int i = 0; i < buckets.length(); i++ ) {
+			final long n = other.buckets.get( i );
+			if( n > 0 ) {
+				buckets.addAndGet( i, n );
+			}
+		}
+		count.add( other.count.sum() );
+		sum.add( other.sum.sum() );
+		updateMin( other.min.get() );
+		updateMax( other.max.get() );
+	}
+
+	public long count() {
+		return count.sum();
+	}
+
+	public long sum() {
+		return sum.sum();
+	}
+
+	/**
+	 * Returns the smallest recorded value, or 0 if no value has been recorded.
+	 */
+	public long min() {
+		final long ret = min.get();
+		return ret == Long.MAX_VALUE ? 0L : ret;
+	}
+
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the recorded values, or 0 if no value has been recorded.
+	 */
+	public double mean() {
+		final long total = count.sum();
+		return total == 0 ? 0.0 : (double) sum.sum() / total;
+	}
+
+	/**
+	 * Returns an upper bound of the value below which the given fraction of the recorded values falls,
+	 * or 0 if no value has been recorded.
+	 *
+	 * @param quantile a number between 0 and 1
+	 */
+	public long valueAtQuantile( double quantile ) {
+		final long total = count.sum();
+		if( total == 0 ) {
+			return 0;
+		}
+		final long target = Math.max( 1L, (long) Math.ceil( quantile * total ) );
+		long seen = 0;
+		for( int i = 0; i < buckets.length(); i++ ) {
+			seen += buckets.get( i );
+			if( seen >= target ) {
+				return Math.min( highestValue( i ), max.get() );
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Returns the number of recorded values that are certainly less than or equal to
+	 * <code>value</code>, i.e., those in buckets that lie entirely below it.
+	 */
+	public long countAtOrBelow( long value ) {
+		long ret = 0;
+		for( int i = 0; i < buckets.length() && highestValue( i ) <= value; i++ ) {
+			ret += buckets.get( i );
+		}
+		return ret;
+	}
+
+	private int index( long value ) {
+		if( value < subBuckets ) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros( value );
+		final int subBucket = (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+		return (exponent - subBucketBits + 1) * subBuckets + subBucket;
+	}
+
+	// Highest value counted in a bucket
+	private long highestValue( int index ) {
+		if( index < subBuckets ) {
+			return index;
+		}
+		final int shift = index / subBuckets - 1;
+		// The exclusive bound of the last bucket is 2^63, which wraps to Long.MIN_VALUE
+		return ((long) (subBuckets + index % subBuckets + 1) << shift) - 1;
+	}
+}
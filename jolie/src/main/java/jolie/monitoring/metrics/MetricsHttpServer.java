@@ -0,0 +1,91 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A minimal HTTP server exposing a {@link MetricsRegistry} for scraping, in the Prometheus text
+ * format, at <code>/metrics</code>.
+ *
+ * @author Fabrizio Montesi
+ */
+public class MetricsHttpServer {
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * @param registry the metrics to serve
+	 * @param host the address to listen on, or <code>null</code> for all addresses
+	 * @param port the port to listen on, 0 for a free one
+	 */
+	public MetricsHttpServer( MetricsRegistry registry, String host, int port )
+		throws IOException {
+		server = HttpServer.create( host == null ? new InetSocketAddress( port ) : new InetSocketAddress( host, port ),
+			0 );
+		executor = Executors.newSingleThreadExecutor( r -> {
+			final Thread t = new Thread( r, "jolie-metrics-" + port );
+			t.setDaemon( true );
+			return t;
+		} );
+		server.setExecutor( executor );
+		server.createContext( "/metrics", exchange -> {
+			try {
+				if( "GET".equals( exchange.getRequestMethod() ) ) {
+					final StringBuilder builder = new StringBuilder();
+					registry.writePrometheus( builder );
+					final byte[] body = builder.toString().getBytes( StandardCharsets.UTF_8 );
+					exchange.getResponseHeaders().set( "Content-Type", CONTENT_TYPE );
+					exchange.sendResponseHeaders( 200, body.length );
+					try( OutputStream os = exchange.getResponseBody() ) {
+						os.write( body );
+					}
+				} else {
+					exchange.sendResponseHeaders( 405, -1 );
+				}
+			} finally {
+				exchange.close();
+			}
+		} );
+		server.start();
+	}
+
+	/**
+	 * Returns the port the server is listening on.
+	 */
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop( 0 );
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,232 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import jolie.runtime.Value;
+
+/**
+ * A registry of runtime metrics: counters, gauges and histograms, optionally labelled.
+ *
+ * Metrics are created on first use and identified by their name and label values, given as
+ * alternating label names and values, e.g., <code>counter( "requests_total", "Requests",
+ * "operation", "sum" )</code>. Histograms record nanoseconds and are exported in seconds.
+ *
+ * The registry can be exported in the Prometheus text exposition format with
+ * {@link #writePrometheus(Appendable)}, or as a Jolie value with {@link #toValue()}.
+ *
+ * @author Fabrizio Montesi
+ */
+public class MetricsRegistry {
+	private static final double NANOS_PER_SECOND = 1e9;
+	// Bucket bounds of exported histograms, in seconds
+	private static final double[] HISTOGRAM_BOUNDS =
+		{ 0.0001, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
+	private enum Type {
+		COUNTER, GAUGE, HISTOGRAM
+	}
+
+	private static class Family {
+		private final String name;
+		private final String help;
+		private final Type type;
+		private final Map< List< String >, Object > children = new ConcurrentHashMap<>();
+
+		private Family( String name, String help, Type type ) {
+			this.name = name;
+			this.help = help;
+			this.type = type;
+		}
+	}
+
+	private final Map< String, Family > families = new ConcurrentHashMap<>();
+
+	private Family family( String name, String help, Type type ) {
+		final Family family = families.computeIfAbsent( name, n -> new Family( n, help, type ) );
+		if( family.type != type ) {
+			throw new IllegalArgumentException( "Metric " + name + " is already registered as a "
+				+ family.type.name().toLowerCase() );
+		}
+		return family;
+	}
+
+	/**
+	 * Returns the counter with the given name and labels, creating it if necessary.
+	 */
+	public LongAdder counter( String name, String help, String... labels ) {
+		return (LongAdder) family( name, help, Type.COUNTER ).children
+			.computeIfAbsent( Arrays.asList( labels ), k -> new LongAdder() );
+	}
+
+	/**
+	 * Registers a gauge, whose value is read from <code>supplier</code> when the registry is exported.
+	 * A previously registered gauge with the same name and labels is replaced.
+	 */
+	public void gauge( String name, String help, LongSupplier supplier, String... labels ) {
+		family( name, help, Type.GAUGE ).children.put( Arrays.asList( labels ), supplier );
+	}
+
+	/**
+	 * Returns the histogram with the given name and labels, creating it if necessary.
+	 */
+	public Histogram histogram( String name, String help, String... labels ) {
+		return (Histogram) family( name, help, Type.HISTOGRAM ).children
+			.computeIfAbsent( Arrays.asList( labels ), k -> new Histogram() );
+	}
+
+	/**
+	 * Removes the metric with the given name and labels, if it is still <code>metric</code>, e.g., when
+	 * the resource it measures is disposed of.
+	 *
+	 * @return <code>true</code> if the metric was removed
+	 */
+	public boolean remove( String name, Object metric, String... labels ) {
+		final Family family = families.get( name );
+		return family != null && family.children.remove( Arrays.asList( labels ), metric );
+	}
+
+	private static Map< String, Family > sorted( Map< String, Family > map ) {
+		return new TreeMap<>( map );
+	}
+
+	/**
+	 * Writes all metrics in the Prometheus text exposition format (version 0.0.4).
+	 */
+	public void writePrometheus( Appendable out )
+		throws IOException {
+		for( Family family : sorted( families ).values() ) {
+			out.append( "# HELP " ).append( family.name ).append( ' ' ).append( escape( family.help, false ) )
+				.append( '\n' );
+			out.append( "# TYPE " ).append( family.name ).append( ' ' )
+				.append( family.type.name().toLowerCase() ).append( '\n' );
+			for( Map.Entry< List< String >, Object > entry : family.children.entrySet() ) {
+				final List< String > labels = entry.getKey();
+				switch( family.type ) {
+				case COUNTER:
+					writeSample( out, family.name, labels, null, ((LongAdder) entry.getValue()).sum() );
+					break;
+				case GAUGE:
+					writeSample( out, family.name, labels, null, ((LongSupplier) entry.getValue()).getAsLong() );
+					break;
+				case HISTOGRAM:
+					final Histogram h = (Histogram) entry.getValue();
+					final long count = h.count();
+					for( double bound : HISTOGRAM_BOUNDS ) {
+						writeSample( out, family.name + "_bucket", labels, Double.toString( bound ),
+							h.countAtOrBelow( (long) (bound * NANOS_PER_SECOND) ) );
+					}
+					writeSample( out, family.name + "_bucket", labels, "+Inf", count );
+					writeSample( out, family.name + "_sum", labels, null, h.sum() / NANOS_PER_SECOND );
+					writeSample( out, family.name + "_count", labels, null, count );
+					break;
+				default:
+					break;
+				}
+			}
+		}
+	}
+
+	private static void writeSample( Appendable out, String name, List< String > labels, String le, Number value )
+		throws IOException {
+		out.append( name );
+		if( !labels.isEmpty() || le != null ) {
+			out.append( '{' );
+			for( int i = 0; i + 1 < labels.size(); i += 2 ) {
+				if( i > 0 ) {
+					out.append( ',' );
+				}
+				out.append( labels.get( i ) ).append( "=\"" ).append( escape( labels.get( i + 1 ), true ) )
+					.append( '"' );
+			}
+			if( le != null ) {
+				if( !labels.isEmpty() ) {
+					out.append( ',' );
+				}
+				out.append( "le=\"" ).append( le ).append( '"' );
+			}
+			out.append( '}' );
+		}
+		out.append( ' ' ).append( value.toString() ).append( '\n' );
+	}
+
+	private static String escape( String s, boolean quotes ) {
+		String ret = s.replace( "\\", "\\\\" ).replace( "\n", "\\n" );
+		return quotes ? ret.replace( "\"", "\\\"" ) : ret;
+	}
+
+	/**
+	 * Returns all metrics as a Jolie value, with the shape of the response of getMetrics@Runtime.
+	 * Histogram statistics are given in seconds.
+	 */
+	public Value toValue() {
+		final Value ret = Value.create();
+		for( Family family : sorted( families ).values() ) {
+			final Value metric = Value.create();
+			metric.setFirstChild( "name", family.name );
+			metric.setFirstChild( "type", family.type.name().toLowerCase() );
+			metric.setFirstChild( "help", family.help );
+			final List< Map.Entry< List< String >, Object > > entries = new ArrayList<>( family.children.entrySet() );
+			for( Map.Entry< List< String >, Object > entry : entries ) {
+				final Value sample = Value.create();
+				final List< String > labels = entry.getKey();
+				for( int i = 0; i + 1 < labels.size(); i += 2 ) {
+					sample.getFirstChild( "labels" ).setFirstChild( labels.get( i ), labels.get( i + 1 ) );
+				}
+				switch( family.type ) {
+				case COUNTER:
+					sample.setFirstChild( "value", ((LongAdder) entry.getValue()).sum() );
+					break;
+				case GAUGE:
+					sample.setFirstChild( "value", ((LongSupplier) entry.getValue()).getAsLong() );
+					break;
+				case HISTOGRAM:
+					final Histogram h = (Histogram) entry.getValue();
+					sample.setFirstChild( "count", h.count() );
+					sample.setFirstChild( "sum", h.sum() / NANOS_PER_SECOND );
+					sample.setFirstChild( "max", h.max() / NANOS_PER_SECOND );
+					for( double quantile : QUANTILES ) {
+						final Value q = Value.create();
+						q.setFirstChild( "quantile", quantile );
+						q.setFirstChild( "value", h.valueAtQuantile( quantile ) / NANOS_PER_SECOND );
+						sample.getChildren( "percentile" ).add( q );
+					}
+					break;
+				default:
+					break;
+				}
+				metric.getChildren( "sample" ).add( sample );
+			}
+			ret.getChildren( "metric" ).add( metric );
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,74 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of an input operation, resolved once from a {@link MetricsRegistry} so that recording
+ * them does not look them up by name and labels on every message.
+ *
+ * @author Fabrizio Montesi
+ */
+public final class OperationMetrics {
+	private final LongAdder requests;
+	private final LongAdder faults;
+	private final LongAdder sessionsStarted;
+	private final Histogram duration;
+
+	/**
+	 * @param requestResponse whether the operation is request-response: only those have faults and a
+	 *        duration, which are <code>null</code> otherwise
+	 */
+	public OperationMetrics( MetricsRegistry registry, String operation, boolean requestResponse ) {
+		this.requests = registry.counter( "jolie_operation_requests_total",
+			"Messages received, by input operation", "operation", operation );
+		this.sessionsStarted = registry.counter( "jolie_sessions_started_total",
+			"Sessions started, by starting operation", "operation", operation );
+		if( requestResponse ) {
+			this.faults = registry.counter( "jolie_operation_faults_total",
+				"Faults sent as responses, by request-response operation", "operation", operation );
+			this.duration = registry.histogram( "jolie_operation_duration_seconds",
+				"Time from the reception of a request to the sending of its response, by request-response operation",
+				"operation", operation );
+		} else {
+			this.faults = null;
+			this.duration = null;
+		}
+	}
+
+	public LongAdder requests() {
+		return requests;
+	}
+
+	public LongAdder faults() {
+		return faults;
+	}
+
+	public LongAdder sessionsStarted() {
+		return sessionsStarted;
+	}
+
+	public Histogram duration() {
+		return duration;
+	}
+}
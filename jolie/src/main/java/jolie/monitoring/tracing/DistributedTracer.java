@@ -0,0 +1,176 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jolie.Interpreter;
+
+/**
+ * Records the spans of distributed traces and exports them in the background.
+ *
+ * Traces are sampled when they start: a trace started by this service is recorded with probability
+ * <code>samplingRatio</code>, whereas traces started by callers are recorded if and only if the
+ * caller recorded them. Ended spans are queued and handed over to the {@link SpanExporter} in
+ * batches by a daemon thread. If the exporter cannot keep up, spans are dropped and counted.
+ *
+ * @author Fabrizio Montesi
+ */
+public class DistributedTracer {
+	public static final double DEFAULT_SAMPLING_RATIO = 1.0;
+
+	private static final int MAX_QUEUED_SPANS = 8192;
+	private static final int BATCH_SIZE = 512;
+	private static final long FLUSH_INTERVAL = 1000L; // milliseconds
+
+	private final Interpreter interpreter;
+	private final String serviceName;
+	private final SpanExporter exporter;
+	private final double samplingRatio;
+	private final BlockingQueue< Span > queue = new LinkedBlockingQueue<>( MAX_QUEUED_SPANS );
+	private final AtomicLong dropped = new AtomicLong( 0L );
+	private final AtomicLong exported = new AtomicLong( 0L );
+	private final Thread exporterThread;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param interpreter the interpreter whose spans are recorded
+	 * @param serviceName the name of the service reported to the exporter
+	 * @param exporter the destination of the spans
+	 * @param samplingRatio the fraction of the traces started by this service that are recorded
+	 */
+	public DistributedTracer( Interpreter interpreter, String serviceName, SpanExporter exporter,
+		double samplingRatio ) {
+		this.interpreter = interpreter;
+		this.serviceName = serviceName;
+		this.exporter = exporter;
+		this.samplingRatio = samplingRatio;
+		this.exporterThread = new Thread( this::runExporter, interpreter.programFilename() + "-span-exporter" );
+		exporterThread.setDaemon( true );
+		exporterThread.start();
+	}
+
+	/**
+	 * Starts a span.
+	 *
+	 * @param name the name of the span
+	 * @param kind the role of the span
+	 * @param parent the context received from the caller, or <code>null</code> to start a new trace
+	 * @return the started span, which is not recorded if the trace is not sampled
+	 */
+	public Span startSpan( String name, Span.Kind kind, TraceContext parent ) {
+		if( closed ) {
+			return Span.notRecorded( parent );
+		}
+		if( parent == null ) {
+			final boolean sampled = samplingRatio >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRatio;
+			final TraceContext context = TraceContext.createRoot( sampled );
+			return sampled ? new Span( this, context, null, name, kind ) : Span.notRecorded( context );
+		} else if( parent.isSampled() ) {
+			return new Span( this, parent.createChild(), parent.spanId(), name, kind );
+		} else {
+			return Span.notRecorded( parent );
+		}
+	}
+
+	void export( Span span ) {
+		if( !queue.offer( span ) ) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the number of spans that have been dropped because the exporter could not keep up.
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Returns the number of spans that have been handed over to the exporter.
+	 */
+	public long exported() {
+		return exported.get();
+	}
+
+	/**
+	 * Exports the queued spans and closes the exporter. Spans ended afterwards are discarded.
+	 */
+	public void close() {
+		closed = true;
+		exporterThread.interrupt();
+		try {
+			exporterThread.join();
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			exporter.close();
+		} catch( IOException e ) {
+			interpreter.logWarning( e );
+		}
+		if( dropped.get() > 0 ) {
+			interpreter.logWarning( "Span exporter could not keep up: " + dropped.get() + " spans have been dropped" );
+		}
+	}
+
+	private void runExporter() {
+		final List< Span > batch = new ArrayList<>( BATCH_SIZE );
+		long lastFlush = System.currentTimeMillis();
+		boolean failing = false;
+		while( !closed || !queue.isEmpty() ) {
+			if( !closed ) {
+				try {
+					final Span span = queue.poll( FLUSH_INTERVAL, TimeUnit.MILLISECONDS );
+					if( span != null ) {
+						batch.add( span );
+					}
+				} catch( InterruptedException e ) {
+					// We are being closed, export what is left
+				}
+			}
+			queue.drainTo( batch, BATCH_SIZE - batch.size() );
+			final long now = System.currentTimeMillis();
+			if( batch.size() >= BATCH_SIZE || (!batch.isEmpty() && (closed || now - lastFlush >= FLUSH_INTERVAL)) ) {
+				try {
+					exporter.export( serviceName, batch );
+					exported.addAndGet( batch.size() );
+					failing = false;
+				} catch( IOException e ) {
+					dropped.addAndGet( batch.size() );
+					if( !failing ) { // Log only the first of a series of failures
+						interpreter.logWarning( e );
+					}
+					failing = true;
+				}
+				batch.clear();
+				lastFlush = now;
+			}
+		}
+	}
+}
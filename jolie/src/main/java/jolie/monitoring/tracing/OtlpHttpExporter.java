@@ -0,0 +1,78 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sends spans to a trace collector with the HTTP transport of the OpenTelemetry protocol, using the
+ * JSON encoding.
+ *
+ * @author Fabrizio Montesi
+ */
+public class OtlpHttpExporter implements SpanExporter {
+	public static final String DEFAULT_ENDPOINT = "http://localhost:4318/v1/traces";
+	private static final int TIMEOUT = 10000; // milliseconds
+
+	private final URL endpoint;
+
+	public OtlpHttpExporter( URL endpoint ) {
+		this.endpoint = endpoint;
+	}
+
+	@Override
+	public void export( String serviceName, List< Span > spans )
+		throws IOException {
+		final byte[] body = OtlpJson.encode( serviceName, spans ).getBytes( StandardCharsets.UTF_8 );
+		final HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+		try {
+			connection.setRequestMethod( "POST" );
+			connection.setConnectTimeout( TIMEOUT );
+			connection.setReadTimeout( TIMEOUT );
+			connection.setDoOutput( true );
+			connection.setFixedLengthStreamingMode( body.length );
+			connection.setRequestProperty( "Content-Type", "application/json" );
+			try( OutputStream os = connection.getOutputStream() ) {
+				os.write( body );
+			}
+			final int status = connection.getResponseCode();
+			// Read the response fully, so that the connection can be reused
+			try( InputStream is = status < 400 ? connection.getInputStream() : connection.getErrorStream() ) {
+				if( is != null ) {
+					is.readAllBytes();
+				}
+			}
+			if( status < 200 || status >= 300 ) {
+				throw new IOException( "Trace collector at " + endpoint + " replied with status " + status );
+			}
+		} catch( IOException e ) {
+			connection.disconnect();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes spans in the JSON encoding of the OpenTelemetry protocol (OTLP), as the body of an
+ * <code>ExportTraceServiceRequest</code>.
+ *
+ * @author Fabrizio Montesi
+ */
+final class OtlpJson {
+	private static final int STATUS_CODE_ERROR = 2;
+
+	private OtlpJson() {}
+
+	static String encode( String serviceName, List< Span > spans ) {
+		final StringBuilder b = new StringBuilder( 256 * spans.size() + 128 );
+		b.append( "{\"resourceSpans\":[{\"resource\":{\"attributes\":[" );
+		appendAttribute( b, "service.name", serviceName );
+		b.append( "]},\"scopeSpans\":[{\"scope\":{\"name\":\"jolie\"},\"spans\":[" );
+		boolean first = true;
+		for( Span span : spans ) {
+			if( !first ) {
+				b.append( ',' );
+			}
+			first = false;
+			appendSpan( b, span );
+		}
+		b.append( "]}]}]}" );
+		return b.toString();
+	}
+
+	private static void appendSpan( StringBuilder b, Span span ) {
+		b.append( "{\"traceId\":\"" ).append( span.context().traceId() )
+			.append( "\",\"spanId\":\"" ).append( span.context().spanId() ).append( '"' );
+		if( span.parentSpanId() != null ) {
+			b.append( ",\"parentSpanId\":\"" ).append( span.parentSpanId() ).append( '"' );
+		}
+		b.append( ",\"name\":" );
+		appendString( b, span.name() );
+		b.append( ",\"kind\":" ).append( span.kind().code() )
+			.append( ",\"startTimeUnixNano\":\"" ).append( span.startEpochNanos() )
+			.append( "\",\"endTimeUnixNano\":\"" ).append( span.endEpochNanos() )
+			.append( "\",\"attributes\":[" );
+		boolean first = true;
+		for( Map.Entry< String, Object > attribute : span.attributes().entrySet() ) {
+			if( !first ) {
+				b.append( ',' );
+			}
+			first = false;
+			appendAttribute( b, attribute.getKey(), attribute.getValue() );
+		}
+		b.append( ']' );
+		if( span.errorMessage() != null ) {
+			b.append( ",\"status\":{\"code\":" ).append( STATUS_CODE_ERROR ).append( ",\"message\":" );
+			appendString( b, span.errorMessage() );
+			b.append( '}' );
+		}
+		b.append( '}' );
+	}
+
+	private static void appendAttribute( StringBuilder b, String key, Object value ) {
+		b.append( "{\"key\":" );
+		appendString( b, key );
+		b.append( ",\"value\":{" );
+		if( value instanceof Long ) {
+			// 64-bit integers are encoded as strings in OTLP/JSON
+			b.append( "\"intValue\":\"" ).append( value ).append( '"' );
+		} else if( value instanceof Boolean ) {
+			b.append( "\"boolValue\":" ).append( value );
+		} else {
+			b.append( "\"stringValue\":" );
+			appendString( b, String.valueOf( value ) );
+		}
+		b.append( "}}" );
+	}
+
+	private static void appendString( StringBuilder b, String s ) {
+		b.append( '"' );
+		for( int i = 0; i < s.length(); i++ ) {
+			final char c = s.charAt( i );
+			switch( c ) {
+			case '"':
+				b.append( "\\\"" );
+				break;
+			case '\\':
+				b.append( "\\\\" );
+				break;
+			case '\n':
+				b.append( "\\n" );
+				break;
+			case '\r':
+				b.append( "\\r" );
+				break;
+			case '\t':
+				b.append( "\\t" );
+				break;
+			default:
+				if( c < 0x20 ) {
+					b.append( String.format( "\\u%04x", (int) c ) );
+				} else {
+					b.append( c );
+				}
+			}
+		}
+		b.append( '"' );
+	}
+}
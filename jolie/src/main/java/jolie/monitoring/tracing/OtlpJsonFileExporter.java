@@ -0,0 +1,62 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends spans to a file in the OTLP JSON Lines format: every batch of spans is written as an
+ * <code>ExportTraceServiceRequest</code> on its own line. Such files can be loaded by the file
+ * receivers of OpenTelemetry collectors.
+ *
+ * @author Fabrizio Montesi
+ */
+public class OtlpJsonFileExporter implements SpanExporter {
+	private final Writer writer;
+
+	public OtlpJsonFileExporter( Path path )
+		throws IOException {
+		this.writer = new BufferedWriter( Files.newBufferedWriter( path, StandardCharsets.UTF_8,
+			StandardOpenOption.CREATE, StandardOpenOption.APPEND ) );
+	}
+
+	@Override
+	public void export( String serviceName, List< Span > spans )
+		throws IOException {
+		writer.write( OtlpJson.encode( serviceName, spans ) );
+		writer.write( '\n' );
+		writer.flush();
+	}
+
+	@Override
+	public void close()
+		throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,205 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jolie.Interpreter;
+
+/**
+ * A timed operation that is part of a distributed trace, e.g., the handling of a request by an
+ * input operation. Spans are started with {@link #start(String, Kind, TraceContext)} and handed
+ * over to the exporter of the {@link DistributedTracer} of the interpreter when they are ended.
+ *
+ * Only the spans of sampled traces are recorded. The others just carry the context to propagate,
+ * and their methods do nothing, so that requests excluded by sampling cost next to nothing. A span
+ * is meant to be used by a single thread.
+ *
+ * @author Fabrizio Montesi
+ */
+public class Span {
+	/**
+	 * The role of a span in a communication, numbered as in OpenTelemetry.
+	 */
+	public enum Kind {
+		INTERNAL( 1 ), SERVER( 2 ), CLIENT( 3 ), PRODUCER( 4 ), CONSUMER( 5 );
+
+		private final int code;
+
+		Kind( int code ) {
+			this.code = code;
+		}
+
+		public int code() {
+			return code;
+		}
+	}
+
+	private static final Span EMPTY = new Span( null );
+	// Converts System.nanoTime() to nanoseconds since the epoch, which have no precise clock
+	private static final long EPOCH_NANOS_OFFSET = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+	private final DistributedTracer tracer; // null if this span is not recorded
+	private final TraceContext context; // may be null
+	private final String parentSpanId; // null for root spans
+	private final String name;
+	private final Kind kind;
+	private final long startEpochNanos;
+	private final long startNanos;
+	private Map< String, Object > attributes = null;
+	private long endEpochNanos = 0L;
+	private String errorMessage = null;
+
+	Span( DistributedTracer tracer, TraceContext context, String parentSpanId, String name, Kind kind ) {
+		this.tracer = tracer;
+		this.context = context;
+		this.parentSpanId = parentSpanId;
+		this.name = name;
+		this.kind = kind;
+		this.startNanos = System.nanoTime();
+		this.startEpochNanos = startNanos + EPOCH_NANOS_OFFSET;
+	}
+
+	/**
+	 * Creates a span that is not recorded and only propagates the given context.
+	 */
+	static Span notRecorded( TraceContext context ) {
+		return context == null ? EMPTY : new Span( context );
+	}
+
+	private Span( TraceContext context ) {
+		this.tracer = null;
+		this.context = context;
+		this.parentSpanId = null;
+		this.name = null;
+		this.kind = null;
+		this.startEpochNanos = 0L;
+		this.startNanos = 0L;
+	}
+
+	/**
+	 * Starts a span with the distributed tracer of the current interpreter. If distributed tracing is
+	 * disabled, the returned span is not recorded and propagates the parent context unchanged.
+	 *
+	 * @param name the name of the span, e.g., the name of an operation
+	 * @param kind the role of the span
+	 * @param parent the context received from the caller, or <code>null</code> if the span starts a new
+	 *        trace
+	 */
+	public static Span start( String name, Kind kind, TraceContext parent ) {
+		final Interpreter interpreter = Interpreter.getInstance();
+		final DistributedTracer tracer = interpreter == null ? null : interpreter.distributedTracer();
+		return tracer == null ? notRecorded( parent ) : tracer.startSpan( name, kind, parent );
+	}
+
+	/**
+	 * Returns <code>true</code> if this span is recorded and will be exported when it ends.
+	 */
+	public boolean isRecording() {
+		return tracer != null;
+	}
+
+	/**
+	 * Returns the context of this span, which is propagated to the spans started on its behalf, or
+	 * <code>null</code> if there is no context to propagate.
+	 */
+	public TraceContext context() {
+		return context;
+	}
+
+	public String parentSpanId() {
+		return parentSpanId;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public Kind kind() {
+		return kind;
+	}
+
+	public long startEpochNanos() {
+		return startEpochNanos;
+	}
+
+	/**
+	 * Returns the end time of this span in nanoseconds since the epoch, or 0 if it has not ended.
+	 */
+	public long endEpochNanos() {
+		return endEpochNanos;
+	}
+
+	/**
+	 * Returns the attributes of this span. Values are strings, longs or booleans.
+	 */
+	public Map< String, Object > attributes() {
+		return attributes == null ? Collections.emptyMap() : Collections.unmodifiableMap( attributes );
+	}
+
+	/**
+	 * Returns the message of the error that made this span fail, or <code>null</code>.
+	 */
+	public String errorMessage() {
+		return errorMessage;
+	}
+
+	public Span putAttribute( String key, String value ) {
+		return put( key, value );
+	}
+
+	public Span putAttribute( String key, long value ) {
+		return put( key, value );
+	}
+
+	public Span putAttribute( String key, boolean value ) {
+		return put( key, value );
+	}
+
+	private Span put( String key, Object value ) {
+		if( tracer != null ) {
+			if( attributes == null ) {
+				attributes = new LinkedHashMap<>();
+			}
+			attributes.put( key, value );
+		}
+		return this;
+	}
+
+	/**
+	 * Marks this span as failed.
+	 */
+	public void setError( String message ) {
+		errorMessage = message;
+	}
+
+	/**
+	 * Ends this span and hands it over for export. Calling this method more than once has no effect.
+	 */
+	public void end() {
+		if( tracer != null && endEpochNanos == 0L ) {
+			endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+			tracer.export( this );
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Sends ended {@link Span}s to a destination, e.g., a file or a trace collector. Exporters are
+ * invoked by a single background thread of their {@link DistributedTracer}, so they do not need to
+ * be thread-safe.
+ *
+ * @author Fabrizio Montesi
+ */
+public interface SpanExporter {
+	/**
+	 * Exports a batch of spans.
+	 *
+	 * @param serviceName the name of the service that recorded the spans
+	 * @param spans the spans to export
+	 */
+	void export( String serviceName, List< Span > spans )
+		throws IOException;
+
+	/**
+	 * Releases the resources held by this exporter. Called once, after the last export.
+	 */
+	default void close()
+		throws IOException {}
+}
@@ -0,0 +1,146 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The context of a distributed trace, as carried between services: the id of the trace, the id of
+ * the span that is the parent of the spans started by the receiver, and whether the trace is
+ * sampled. A context is written and read in the format of the <code>traceparent</code> header of
+ * the W3C Trace Context specification, e.g.,
+ * <code>00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01</code>.
+ *
+ * @author Fabrizio Montesi
+ */
+public final class TraceContext implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final String VERSION = "00";
+	private static final int TRACEPARENT_LENGTH = 55;
+	private static final int FLAG_SAMPLED = 0x01;
+
+	private final long traceIdHigh;
+	private final long traceIdLow;
+	private final long spanId;
+	private final boolean sampled;
+
+	private TraceContext( long traceIdHigh, long traceIdLow, long spanId, boolean sampled ) {
+		this.traceIdHigh = traceIdHigh;
+		this.traceIdLow = traceIdLow;
+		this.spanId = spanId;
+		this.sampled = sampled;
+	}
+
+	/**
+	 * Creates the context of a new trace, with random ids.
+	 */
+	public static TraceContext createRoot( boolean sampled ) {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		long high, low;
+		do {
+			high = random.nextLong();
+			low = random.nextLong();
+		} while( high == 0L && low == 0L );
+		return new TraceContext( high, low, newSpanId(), sampled );
+	}
+
+	/**
+	 * Creates the context of a new span in the same trace as this context.
+	 */
+	public TraceContext createChild() {
+		return new TraceContext( traceIdHigh, traceIdLow, newSpanId(), sampled );
+	}
+
+	private static long newSpanId() {
+		long id;
+		do {
+			id = ThreadLocalRandom.current().nextLong();
+		} while( id == 0L );
+		return id;
+	}
+
+	/**
+	 * Parses a <code>traceparent</code> header.
+	 *
+	 * @return the parsed context, or <code>null</code> if the header is <code>null</code> or invalid
+	 */
+	public static TraceContext parse( String traceparent ) {
+		if( traceparent == null ) {
+			return null;
+		}
+		final String s = traceparent.trim();
+		// Future versions may append fields, which we ignore
+		if( s.length() < TRACEPARENT_LENGTH || s.charAt( 2 ) != '-' || s.charAt( 35 ) != '-'
+			|| s.charAt( 52 ) != '-' || (s.length() > TRACEPARENT_LENGTH && s.charAt( TRACEPARENT_LENGTH ) != '-')
+			|| s.startsWith( "ff" ) ) {
+			return null;
+		}
+		try {
+			final long high = Long.parseUnsignedLong( s.substring( 3, 19 ), 16 );
+			final long low = Long.parseUnsignedLong( s.substring( 19, 35 ), 16 );
+			final long spanId = Long.parseUnsignedLong( s.substring( 36, 52 ), 16 );
+			final int flags = Integer.parseInt( s.substring( 53, 55 ), 16 );
+			if( (high == 0L && low == 0L) || spanId == 0L ) {
+				return null;
+			}
+			return new TraceContext( high, low, spanId, (flags & FLAG_SAMPLED) != 0 );
+		} catch( NumberFormatException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the id of the trace, as 32 lowercase hexadecimal digits.
+	 */
+	public String traceId() {
+		return hex( traceIdHigh ) + hex( traceIdLow );
+	}
+
+	/**
+	 * Returns the id of the span, as 16 lowercase hexadecimal digits.
+	 */
+	public String spanId() {
+		return hex( spanId );
+	}
+
+	/**
+	 * Returns <code>true</code> if the spans of this trace are recorded.
+	 */
+	public boolean isSampled() {
+		return sampled;
+	}
+
+	private static String hex( long value ) {
+		final String s = Long.toHexString( value );
+		return s.length() == 16 ? s : "0000000000000000".substring( s.length() ) + s;
+	}
+
+	/**
+	 * Returns this context in the format of the <code>traceparent</code> header.
+	 */
+	@Override
+	public String toString() {
+		return VERSION + '-' + traceId() + '-' + spanId() + (sampled ? "-01" : "-00");
+	}
+}
@@ -22,6 +22,7 @@
 package jolie.net;
 
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,66 +38,45 @@ import jolie.runtime.FaultException;
 import jolie.runtime.TimeoutHandler;
 import jolie.runtime.Value;
 
+/**
+ * A {@link CommChannel} that can be used by many callers waiting for responses at the same time.
+ * Responses are read by a {@link ResponseReceiver}, which completes the future returned by
+ * {@link #recvResponseFor(CommMessage)} of the matching request. No thread is blocked while waiting
+ * for a response, except for the receiver itself.
+ */
 public abstract class AbstractCommChannel extends CommChannel {
 	private static final long RECEIVER_KEEP_ALIVE = 20000; // msecs
 
 	private final Map< Long, CommMessage > pendingResponses = new HashMap<>();
-	private final Map< Long, ResponseContainer > waiters = new HashMap<>();
+	private final Map< Long, CompletableFuture< CommMessage > > waiters = new HashMap<>();
 	private final List< CommMessage > pendingGenericResponses = new LinkedList<>();
 	private ResponseReceiver responseReceiver = null;
 	private final Object responseRecvMutex = new Object();
 
-	private static class ResponseContainer {
-		private ResponseContainer() {}
-
-		private CommMessage response = null;
-	}
-
 	@Override
 	public Future< CommMessage > recvResponseFor( CommMessage request )
 		throws IOException {
-		final ExecutionThread ethread = ExecutionThread.currentThread();
-		return CompletableFuture.supplyAsync( () -> {
-			CommMessage response;
-			ResponseContainer monitor = null;
-			synchronized( responseRecvMutex ) {
-				response = pendingResponses.remove( request.requestId() );
-				if( response == null ) {
-					if( pendingGenericResponses.isEmpty() ) {
-						assert (waiters.containsKey( request.requestId() ) == false);
-						monitor = new ResponseContainer();
-						waiters.put( request.requestId(), monitor );
-						// responseRecvMutex.notify();
-					} else {
-						response = pendingGenericResponses.remove( 0 );
-					}
-				}
+		final CompletableFuture< CommMessage > future = new CompletableFuture<>();
+		synchronized( responseRecvMutex ) {
+			CommMessage response = pendingResponses.remove( request.requestId() );
+			if( response == null && !pendingGenericResponses.isEmpty() ) {
+				response = pendingGenericResponses.remove( 0 );
 			}
-			if( response == null ) {
-				synchronized( responseRecvMutex ) {
-					if( responseReceiver == null ) {
-						responseReceiver = new ResponseReceiver( this, ethread );
-						ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
-					} else {
-						responseReceiver.wakeUp();
-					}
-				}
-
-				if( monitor != null ) {
-					synchronized( monitor ) {
-						if( monitor.response == null ) {
-							try {
-								monitor.wait();
-							} catch( InterruptedException e ) {
-								ethread.interpreter().logSevere( e );
-							}
-						}
-						response = monitor.response;
-					}
-				}
+			if( response != null ) {
+				future.complete( response );
+				return future;
+			}
+			assert (waiters.containsKey( request.requestId() ) == false);
+			waiters.put( request.requestId(), future );
+			if( responseReceiver == null ) {
+				final ExecutionThread ethread = ExecutionThread.currentThread();
+				responseReceiver = new ResponseReceiver( this, ethread );
+				ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
+			} else {
+				responseReceiver.wakeUp();
 			}
-			return response;
-		}, Interpreter.getInstance().commCore().executor() );
+		}
+		return future;
 	}
 
 	private static class ResponseReceiver implements Runnable {
@@ -152,55 +132,47 @@ public abstract class AbstractCommChannel extends CommChannel {
 			this.timeoutHandler = null;
 		}
 
-		private void handleGenericMessage( CommMessage response ) {
-			ResponseContainer monitor;
+		// Returns the waiter to be completed with the response, which is adjusted to its request id
+		private Entry< CompletableFuture< CommMessage >, CommMessage > handleGenericMessage( CommMessage response ) {
 			if( parent.waiters.isEmpty() ) {
 				parent.pendingGenericResponses.add( response );
-			} else {
-				Entry< Long, ResponseContainer > entry =
-					parent.waiters.entrySet().iterator().next();
-				monitor = entry.getValue();
-				parent.waiters.remove( entry.getKey() );
-				synchronized( monitor ) {
-					monitor.response = new CommMessage(
-						entry.getKey(),
-						response.operationName(),
-						response.resourcePath(),
-						response.value(),
-						response.fault() );
-					monitor.notify();
-				}
+				return null;
 			}
+			final Entry< Long, CompletableFuture< CommMessage > > entry =
+				parent.waiters.entrySet().iterator().next();
+			parent.waiters.remove( entry.getKey() );
+			return new SimpleImmutableEntry<>( entry.getValue(), new CommMessage(
+				entry.getKey(),
+				response.operationName(),
+				response.resourcePath(),
+				response.value(),
+				response.fault() ) );
 		}
 
-		private void handleMessage( CommMessage response ) {
-			ResponseContainer monitor;
-			if( (monitor = parent.waiters.remove( response.requestId() )) == null ) {
+		private Entry< CompletableFuture< CommMessage >, CommMessage > handleMessage( CommMessage response ) {
+			final CompletableFuture< CommMessage > waiter = parent.waiters.remove( response.requestId() );
+			if( waiter == null ) {
 				parent.pendingResponses.put( response.requestId(), response );
-			} else {
-				synchronized( monitor ) {
-					monitor.response = response;
-					monitor.notify();
-				}
+				return null;
 			}
+			return new SimpleImmutableEntry<>( waiter, response );
 		}
 
-		private void throwIOExceptionFault( IOException e ) {
-			if( parent.waiters.isEmpty() == false ) {
-				ResponseContainer monitor;
-				for( Entry< Long, ResponseContainer > entry : parent.waiters.entrySet() ) {
-					monitor = entry.getValue();
-					synchronized( monitor ) {
-						monitor.response = new CommMessage(
-							entry.getKey(),
-							"",
-							Constants.ROOT_RESOURCE_PATH,
-							Value.create(),
-							new FaultException( "IOException", e ) );
-						monitor.notify();
-					}
-				}
-				parent.waiters.clear();
+		private Map< Long, CompletableFuture< CommMessage > > takeWaiters() {
+			final Map< Long, CompletableFuture< CommMessage > > ret = new HashMap<>( parent.waiters );
+			parent.waiters.clear();
+			return ret;
+		}
+
+		private static void throwIOExceptionFault( Map< Long, CompletableFuture< CommMessage > > waiters,
+			IOException e ) {
+			for( Entry< Long, CompletableFuture< CommMessage > > entry : waiters.entrySet() ) {
+				entry.getValue().complete( new CommMessage(
+					entry.getKey(),
+					"",
+					Constants.ROOT_RESOURCE_PATH,
+					Value.create(),
+					new FaultException( "IOException", e ) ) );
 			}
 		}
 
@@ -212,26 +184,41 @@ public abstract class AbstractCommChannel extends CommChannel {
 			 */
 			CommChannelHandler.currentThread().setExecutionThread( ethread ); // TODO: this is hacky..
 
-			CommMessage response;
 			while( keepRun ) {
-				synchronized( parent.responseRecvMutex ) {
-					try {
-						response = parent.recv();
-						if( response != null ) {
-							if( response.hasGenericRequestId() ) {
-								handleGenericMessage( response );
-							} else {
-								handleMessage( response );
-							}
-						}
-						if( parent.waiters.isEmpty() ) {
-							sleep();
+				/*
+				 * Only this thread reads from the channel, so we do not need to hold the mutex while waiting for
+				 * data. Waiters are completed outside of the mutex, since completing them may run their
+				 * continuations.
+				 */
+				Entry< CompletableFuture< CommMessage >, CommMessage > completion = null;
+				try {
+					final CommMessage response = parent.recv();
+					if( response != null ) {
+						synchronized( parent.responseRecvMutex ) {
+							completion = response.hasGenericRequestId()
+								? handleGenericMessage( response )
+								: handleMessage( response );
 						}
-					} catch( IOException e ) {
-						throwIOExceptionFault( e );
+					}
+				} catch( IOException e ) {
+					// The stream is in an unknown state, so the channel must not be reused
+					parent.setToBeClosed( true );
+					final Map< Long, CompletableFuture< CommMessage > > failed;
+					synchronized( parent.responseRecvMutex ) {
+						failed = takeWaiters();
 						keepRun = false;
 						parent.responseReceiver = null;
 					}
+					throwIOExceptionFault( failed, e );
+					return;
+				}
+				if( completion != null ) {
+					completion.getKey().complete( completion.getValue() );
+				}
+				synchronized( parent.responseRecvMutex ) {
+					if( parent.waiters.isEmpty() ) {
+						sleep();
+					}
 				}
 			}
 		}
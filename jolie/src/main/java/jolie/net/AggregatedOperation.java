@@ -23,7 +23,9 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import jolie.ExecutionThread;
 import jolie.Interpreter;
@@ -240,26 +242,70 @@ public abstract class AggregatedOperation {
 			return type;
 		}
 
+		/*
+		 * The request is forwarded on a channel drawn from the persistent channels of the output port. If
+		 * the channel provides a CompletableFuture for the response, the response is forwarded when the
+		 * future completes, so that no thread is blocked waiting for it.
+		 */
 		@Override
 		public void runAggregationBehaviour( CommMessage requestMessage, CommChannel channel )
 			throws IOException, URISyntaxException {
-			CommChannel oChannel = null;
+			final CommChannel oChannel;
+			final Future< CommMessage > response;
+			try {
+				oChannel = outputPort.getExclusiveCommChannel();
+			} catch( IOException e ) {
+				forwardResponse( requestMessage, channel, null, null, e );
+				return;
+			}
 			try {
-				oChannel = outputPort.getNewCommChannel();
 				final CommMessage requestToAggregated = outputPort.createAggregatedRequest( requestMessage );
 				oChannel.send( requestToAggregated );
-				final CommMessage response = oChannel.recvResponseFor( requestToAggregated ).get();
-				channel.send(
-					new CommMessage( requestMessage.requestId(), response.operationName(), response.resourcePath(),
-						response.value(), response.fault() ) );
-			} catch( InterruptedException | ExecutionException | IOException e ) {
-				channel.send( CommMessage.createFaultResponse( requestMessage,
-					new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ) ) );
+				response = oChannel.recvResponseFor( requestToAggregated );
+			} catch( IOException e ) {
+				forwardResponse( requestMessage, channel, oChannel, null, e );
+				return;
+			}
+			if( response instanceof CompletableFuture ) {
+				((CompletableFuture< CommMessage >) response).whenComplete( ( message, error ) -> {
+					try {
+						forwardResponse( requestMessage, channel, oChannel, message, error );
+					} catch( IOException e ) {
+						Interpreter.getInstance().logWarning( e );
+					}
+				} );
+			} else {
+				try {
+					forwardResponse( requestMessage, channel, oChannel, response.get(), null );
+				} catch( InterruptedException | ExecutionException e ) {
+					forwardResponse( requestMessage, channel, oChannel, null, e );
+				}
+			}
+		}
+
+		private static void forwardResponse( CommMessage requestMessage, CommChannel channel, CommChannel oChannel,
+			CommMessage response, Throwable error )
+			throws IOException {
+			try {
+				if( response == null ) {
+					channel.send( CommMessage.createFaultResponse( requestMessage,
+						new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, error ) ) );
+				} else {
+					channel.send(
+						new CommMessage( requestMessage.requestId(), response.operationName(), response.resourcePath(),
+							response.value(), response.fault() ) );
+				}
 			} finally {
-				if( oChannel != null ) {
-					oChannel.close();
+				try {
+					if( oChannel != null ) {
+						if( response == null ) {
+							oChannel.setToBeClosed( true );
+						}
+						oChannel.release();
+					}
+				} finally {
+					channel.disposeForInput();
 				}
-				channel.disposeForInput();
 			}
 		}
 
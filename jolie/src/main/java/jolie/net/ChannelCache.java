@@ -26,10 +26,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 public class ChannelCache {
 	// Location URI -> Protocol name -> Persistent CommChannel object
 	private final Map< URI, Map< String, CommChannel > > persistentChannels = new HashMap<>();
+	// Multiplexing channel -> Number of callers currently using it
+	private final Map< CommChannel, Integer > sharedChannelUsers = new WeakHashMap<>();
 
 	private void removePersistentChannel( URI location, String protocol, Map< String, CommChannel > protocolChannels ) {
 		protocolChannels.remove( protocol );
@@ -46,13 +49,36 @@ public class ChannelCache {
 		}
 	}
 
-	public CommChannel getPersistentChannel( URI location, String protocol ) {
+	/**
+	 * Returns a cached channel for the given location and protocol, or <code>null</code> if there is
+	 * none that can be used.
+	 *
+	 * @param exclusive <code>true</code> if the caller needs a channel that is not used by anybody else
+	 *        until it is released, in which case multiplexing channels are not returned
+	 */
+	public CommChannel getPersistentChannel( URI location, String protocol, boolean exclusive ) {
 		CommChannel ret = null;
 		synchronized( persistentChannels ) {
 			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
 			if( protocolChannels != null ) {
 				ret = protocolChannels.get( protocol );
-				if( ret != null ) {
+				if( ret != null && ret.isMultiplexing() && exclusive ) {
+					// Multiplexing channels are shared by definition, leave it to the other callers
+					ret = null;
+				} else if( ret != null && ret.isMultiplexing() ) {
+					/*
+					 * Multiplexing channels stay in the cache while they are used, so that concurrent callers
+					 * share them. We only need to make sure that they do not time out in the meantime.
+					 */
+					if( ret.isOpen() && !ret.toBeClosed() ) {
+						ret.setTimeoutHandler( null );
+						sharedChannelUsers.merge( ret, 1, Integer::sum );
+					} else {
+						removePersistentChannel( location, protocol, protocolChannels );
+						sharedChannelUsers.remove( ret );
+						ret = null;
+					}
+				} else if( ret != null ) {
 					if( ret.lock.tryLock() ) {
 						if( ret.isOpen() ) {
 							/*
@@ -86,9 +112,26 @@ public class ChannelCache {
 		return ret;
 	}
 
+	/**
+	 * Makes a multiplexing channel that has just been opened available to concurrent callers, while its
+	 * first caller is still using it.
+	 */
+	public void shareChannel( URI location, String protocol, CommChannel channel ) {
+		synchronized( persistentChannels ) {
+			sharedChannelUsers.put( channel, 1 );
+			persistentChannels.computeIfAbsent( location, k -> new HashMap<>() ).putIfAbsent( protocol, channel );
+		}
+	}
+
 	public void putPersistentChannel( URI location, String protocol, final CommChannel channel,
 		Interpreter interpreter ) {
 		synchronized( persistentChannels ) {
+			final Integer users = sharedChannelUsers.remove( channel );
+			if( users != null && users > 1 ) {
+				// Other callers are still waiting for responses on this channel
+				sharedChannelUsers.put( channel, users - 1 );
+				return;
+			}
 			Map< String, CommChannel > protocolChannels =
 				persistentChannels.computeIfAbsent( location, k -> new HashMap<>() );
 			// Set the timeout
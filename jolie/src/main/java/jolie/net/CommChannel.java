@@ -166,6 +166,16 @@ public abstract class CommChannel {
 		return false;
 	}
 
+	/**
+	 * Returns <code>true</code> if this channel can be used by many callers at the same time, each
+	 * sending its request and waiting for its response independently.
+	 *
+	 * @return <code>true</code> if this channel can be shared by concurrent callers
+	 */
+	public boolean isMultiplexing() {
+		return false;
+	}
+
 	/**
 	 * Receives a message from the channel. This is a blocking operation.
 	 * 
@@ -26,6 +26,7 @@ import jolie.Interpreter;
 import jolie.JolieThreadPoolExecutor;
 import jolie.NativeJolieThread;
 import jolie.lang.Constants;
+import jolie.monitoring.metrics.Histogram;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ext.CommListenerFactory;
 import jolie.net.ext.CommProtocolFactory;
@@ -49,6 +50,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -104,7 +106,13 @@ public class CommCore {
 		 * new CommThreadFactory() ); } else { executorService = Executors.newCachedThreadPool( new
 		 * CommThreadFactory() ); }
 		 */
-		executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		final ThreadPoolExecutor executor = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		executorService = executor;
+		// The executor hands tasks over directly to threads, so there is no queue to measure
+		interpreter.metrics().gauge( "jolie_comm_executor_threads",
+			"Threads in the communication executor", executor::getPoolSize );
+		interpreter.metrics().gauge( "jolie_comm_executor_active_threads",
+			"Threads of the communication executor that are running a task", executor::getActiveCount );
 
 		// TODO make socket an extension, too?
 		CommListenerFactory listenerFactory = new SocketListenerFactory( this );
@@ -338,7 +346,8 @@ public class CommCore {
 					}
 				}
 			} finally {
-				channel.closeImpl();
+				// Give the channel back to the output port, so that the next redirection can reuse it
+				channel.release();
 			}
 		}
 
@@ -363,8 +372,9 @@ public class CommCore {
 				interpreter.logWarning( error );
 				throw new IOException( error );
 			}
+			CommChannel oChannel = null;
 			try {
-				CommChannel oChannel = oPort.getNewCommChannel();
+				oChannel = oPort.getExclusiveCommChannel();
 				CommMessage rMessage =
 					new CommMessage(
 						message.requestId(),
@@ -378,9 +388,23 @@ public class CommCore {
 				oChannel.setToBeClosed( false );
 				oChannel.disposeForInput();
 			} catch( IOException e ) {
-				channel.send( CommMessage.createFaultResponse( message,
-					new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ) ) );
-				channel.disposeForInput();
+				try {
+					if( oChannel != null ) {
+						// The channel to the redirected service failed, it must not be reused
+						oChannel.setToBeClosed( true );
+						oChannel.setRedirectionChannel( null );
+						oChannel.release();
+					}
+				} catch( IOException e2 ) {
+					interpreter.logFine( e2 );
+				} finally {
+					try {
+						channel.send( CommMessage.createFaultResponse( message,
+							new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ) ) );
+					} finally {
+						channel.disposeForInput();
+					}
+				}
 				throw e;
 			}
 		}
@@ -487,6 +511,7 @@ public class CommCore {
 						interpreter.logFine( e );
 					} finally {
 						if( response == null ) {
+							channel.setToBeClosed( true );
 							response = new CommMessage( channel.redirectionMessageId(), "", "/", Value.UNDEFINED_VALUE,
 								new FaultException( "IOException", "Internal server error" ) );
 						}
@@ -645,11 +670,14 @@ public class CommCore {
 		private final Selector selector;
 		private final SelectorMutex selectingMutex = new SelectorMutex();
 		private final Deque< Runnable > selectorTasks = new ArrayDeque<>();
+		private final Histogram loopDuration;
 
 		public SelectorThread( Interpreter interpreter )
 			throws IOException {
 			super( interpreter, threadGroup, interpreter.programFilename() + "-SelectorThread" );
 			this.selector = Selector.open();
+			this.loopDuration = interpreter.metrics().histogram( "jolie_selector_loop_duration_seconds",
+				"Time spent by selector threads handling selected channels" );
 		}
 
 		private Deque< Runnable > runKeys( SelectionKey[] selectedKeys )
@@ -675,6 +703,10 @@ public class CommCore {
 													 * channel.selectionTimeoutHandler() ); }
 													 */
 													scheduleReceive( channel, channel.parentInputPort() );
+												} else if( channel.redirectionChannel() != null ) {
+													// The redirected service went away: let the handler reply
+													// to the waiting client with a fault
+													scheduleReceive( channel, channel.parentInputPort() );
 												} else {
 													channel.closeImpl();
 												}
@@ -727,8 +759,10 @@ public class CommCore {
 						selector.select();
 						selectedKeys = selector.selectedKeys().toArray( new SelectionKey[ 0 ] );
 					}
+					final long start = System.nanoTime();
 					final Deque< Runnable > tasks = runKeys( selectedKeys );
 					runTasks( tasks );
+					loopDuration.recordSince( start );
 				} catch( IOException e ) {
 					interpreter.logSevere( e );
 				}
@@ -747,7 +781,7 @@ public class CommCore {
 
 		public void register( SelectableStreamingCommChannel channel, int index ) {
 			try {
-				if( channel.inputStream().available() > 0 ) {
+				if( channel.inputStream().available() > 0 || channel.protocol().hasCachedMessages() ) {
 					scheduleReceive( channel, channel.parentInputPort() );
 					return;
 				}
@@ -27,6 +27,7 @@ import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicLong;
 import jolie.Interpreter;
 import jolie.lang.Constants;
+import jolie.monitoring.tracing.TraceContext;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 
@@ -39,7 +40,8 @@ import jolie.runtime.Value;
  * request) or the operation that generated the message (in case of a response);</li>
  * <li>a resource path, used for redirection;</li>
  * <li>a value, holding the message data;</li>
- * <li>potentially, a fault.</li>
+ * <li>potentially, a fault;</li>
+ * <li>potentially, the context of the distributed trace the message belongs to.</li>
  * </ul>
  *
  * Message instances destined to be used in a Request-Response pattern should always be created
@@ -65,6 +67,7 @@ public class CommMessage implements Serializable {
 	private final Value value;
 	private final FaultException fault;
 	private final long id;
+	private TraceContext traceContext = null;
 
 	/**
 	 * Returns the resource path of this message.
@@ -218,4 +221,24 @@ public class CommMessage implements Serializable {
 	public FaultException fault() {
 		return fault;
 	}
+
+	/**
+	 * Returns the context of the distributed trace this message belongs to, or <code>null</code> if the
+	 * message does not carry one.
+	 *
+	 * @return the trace context of this message
+	 */
+	public TraceContext traceContext() {
+		return traceContext;
+	}
+
+	/**
+	 * Sets the context of the distributed trace this message belongs to. Protocols that support trace
+	 * propagation send it along with the message.
+	 *
+	 * @param traceContext the trace context, or <code>null</code>
+	 */
+	public void setTraceContext( TraceContext traceContext ) {
+		this.traceContext = traceContext;
+	}
 }
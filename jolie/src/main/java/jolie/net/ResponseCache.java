@@ -0,0 +1,209 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import jolie.net.protocols.CommProtocol;
+import jolie.runtime.Value;
+
+/**
+ * Caches the responses of the request-response operations invoked through an output port. Caching
+ * is enabled per operation in the protocol configuration of the port, e.g.:
+ *
+ * <pre>
+ * protocol: sodep {
+ * 	osc.getUser.cache.ttl = 30000 // time to live of an entry in milliseconds
+ * 	osc.getUser.cache.size = 500 // maximum number of entries
+ * }
+ * </pre>
+ *
+ * Entries are keyed by the location of the port and the structure of the request. They expire after
+ * their time to live and are evicted in least-recently-used order when the operation exceeds its
+ * size. Only successful responses are cached.
+ *
+ * @author Fabrizio Montesi
+ */
+public class ResponseCache {
+	private static final String CACHE = "cache";
+	private static final String TTL = "ttl";
+	private static final String SIZE = "size";
+	private static final long DEFAULT_TTL = 60000;
+	private static final int DEFAULT_SIZE = 1000;
+
+	private final Map< String, OperationCache > operations = new ConcurrentHashMap<>();
+
+	public static class OperationCache {
+		private final LinkedHashMap< Key, Entry > entries = new LinkedHashMap<>( 16, 0.75f, true );
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+
+		private synchronized Value get( Key key ) {
+			final Entry entry = entries.get( key );
+			if( entry != null ) {
+				if( entry.expirationTime > System.currentTimeMillis() ) {
+					return entry.response;
+				}
+				entries.remove( key );
+			}
+			return null;
+		}
+
+		private synchronized void put( Key key, Value response, long ttl, int size ) {
+			entries.put( key, new Entry( response, System.currentTimeMillis() + ttl ) );
+			final Iterator< Entry > it = entries.values().iterator();
+			while( entries.size() > size && it.hasNext() ) {
+				it.next();
+				it.remove();
+			}
+		}
+
+		public long hits() {
+			return hits.get();
+		}
+
+		public long misses() {
+			return misses.get();
+		}
+
+		public synchronized int size() {
+			return entries.size();
+		}
+	}
+
+	private static class Entry {
+		private final Value response;
+		private final long expirationTime;
+
+		private Entry( Value response, long expirationTime ) {
+			this.response = response;
+			this.expirationTime = expirationTime;
+		}
+	}
+
+	private static class Key {
+		private final Object location;
+		private final Value request;
+		private final int hashCode;
+
+		private Key( Value location, Value request ) {
+			this.location = location.isChannel() ? location.channelValue() : location.strValue();
+			this.request = request;
+			this.hashCode = 31 * this.location.hashCode() + request.structuralHashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals( Object obj ) {
+			if( !(obj instanceof Key) ) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return hashCode == other.hashCode && location.equals( other.location )
+				&& request.structurallyEquals( other.request );
+		}
+	}
+
+	/**
+	 * Returns the cache configuration of an operation, or null if the operation is not cached.
+	 */
+	private static Value configuration( Value protocolConfiguration, String operationName ) {
+		if( !protocolConfiguration.hasChildren( CommProtocol.Parameters.OPERATION_SPECIFIC_CONFIGURATION ) ) {
+			return null;
+		}
+		final Value osc =
+			protocolConfiguration.getFirstChild( CommProtocol.Parameters.OPERATION_SPECIFIC_CONFIGURATION );
+		if( !osc.hasChildren( operationName ) ) {
+			return null;
+		}
+		final Value operation = osc.getFirstChild( operationName );
+		if( !operation.hasChildren( CACHE ) ) {
+			return null;
+		}
+		final Value cache = operation.getFirstChild( CACHE );
+		if( cache.isBool() && !cache.boolValue() ) {
+			return null;
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns a copy of the cached response to a request, or null if there is none or the operation is
+	 * not cached.
+	 *
+	 * @param protocolConfiguration the protocol configuration of the output port
+	 * @param operationName the invoked operation
+	 * @param location the location of the output port
+	 * @param request the request value
+	 */
+	public Value get( Value protocolConfiguration, String operationName, Value location, Value request ) {
+		if( configuration( protocolConfiguration, operationName ) == null ) {
+			return null;
+		}
+		final OperationCache cache = operations.computeIfAbsent( operationName, k -> new OperationCache() );
+		final Value response = cache.get( new Key( location, request ) );
+		if( response == null ) {
+			cache.misses.incrementAndGet();
+			return null;
+		}
+		cache.hits.incrementAndGet();
+		return Value.createDeepCopy( response );
+	}
+
+	/**
+	 * Stores the response to a request, if the operation is cached.
+	 *
+	 * @param protocolConfiguration the protocol configuration of the output port
+	 * @param operationName the invoked operation
+	 * @param location the location of the output port
+	 * @param request the request value
+	 * @param response the response value
+	 */
+	public void put( Value protocolConfiguration, String operationName, Value location, Value request,
+		Value response ) {
+		final Value configuration = configuration( protocolConfiguration, operationName );
+		if( configuration == null ) {
+			return;
+		}
+		final long ttl = configuration.firstChildOrDefault( TTL, Value::longValue, DEFAULT_TTL );
+		final int size = configuration.firstChildOrDefault( SIZE, Value::intValue, DEFAULT_SIZE );
+		if( ttl > 0 && size > 0 ) {
+			operations.computeIfAbsent( operationName, k -> new OperationCache() ).put(
+				new Key( location, Value.createDeepCopy( request ) ), Value.createDeepCopy( response ), ttl, size );
+		}
+	}
+
+	/**
+	 * Returns the caches of the operations that have been invoked with caching enabled.
+	 */
+	public Map< String, OperationCache > operations() {
+		return Collections.unmodifiableMap( operations );
+	}
+}
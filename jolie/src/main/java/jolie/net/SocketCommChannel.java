@@ -172,6 +172,10 @@ public class SocketCommChannel extends SelectableStreamingCommChannel {
 		if( socketChannel.isConnected() == false || socketChannel.isOpen() == false ) {
 			return false;
 		}
+		if( isMultiplexing() ) {
+			// Probing would race with the response receiver, which owns the input side of the socket
+			return true;
+		}
 
 		final boolean ret;
 		try {
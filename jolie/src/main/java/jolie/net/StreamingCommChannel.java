@@ -27,6 +27,7 @@ import jolie.util.Helpers;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This abstract class implements a communication channel based on a <code>CommProtocol</code>.
@@ -37,6 +38,8 @@ import java.net.URI;
 public abstract class StreamingCommChannel extends AbstractCommChannel {
 	private final URI location;
 	private final CommProtocol protocol;
+	// Guards receiving on multiplexing channels, which must not hold up senders while waiting for data
+	private final ReentrantLock recvLock = new ReentrantLock();
 
 	public StreamingCommChannel( URI location, CommProtocol protocol ) {
 		this.location = location;
@@ -53,6 +56,20 @@ public abstract class StreamingCommChannel extends AbstractCommChannel {
 		return protocol.isThreadSafe();
 	}
 
+	@Override
+	public boolean isMultiplexing() {
+		return protocol.isMultiplexing();
+	}
+
+	@Override
+	public CommMessage recv()
+		throws IOException {
+		if( isMultiplexing() ) {
+			return Helpers.lockAndThen( recvLock, this::recvImpl );
+		}
+		return super.recv();
+	}
+
 	@Override
 	protected void releaseImpl()
 		throws IOException {
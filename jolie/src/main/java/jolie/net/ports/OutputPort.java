@@ -28,11 +28,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.net.ChannelCache;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
+import jolie.net.ResponseCache;
 import jolie.net.protocols.CommProtocol;
 import jolie.process.AssignmentProcess;
 import jolie.process.DeepCopyProcess;
@@ -61,6 +63,8 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 	private final boolean isConstant;
 	private final Interface iface;
 	private final ChannelCache channelCache = new ChannelCache();
+	private final ResponseCache responseCache = new ResponseCache();
+	private final LongAdder channelCacheHits, channelCacheMisses;
 
 	/*
 	 * To be called at runtime, after main is run. Requires the caller to set the variables by itself.
@@ -87,6 +91,9 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		this.isConstant = false;
 
 		this.iface = Interface.UNDEFINED;
+
+		this.channelCacheHits = channelCacheHits( interpreter, id );
+		this.channelCacheMisses = channelCacheMisses( interpreter, id );
 	}
 
 	public OutputPort(
@@ -104,6 +111,18 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		this.iface = iface;
 		this.locationExpression = locationVariablePath;
 		this.configurationProcess = NullProcess.getInstance();
+		this.channelCacheHits = channelCacheHits( interpreter, id );
+		this.channelCacheMisses = channelCacheMisses( interpreter, id );
+	}
+
+	private static LongAdder channelCacheHits( Interpreter interpreter, String id ) {
+		return interpreter.metrics().counter( "jolie_channel_cache_hits_total",
+			"Requests for a channel served by reusing a persistent one, by output port", "port", id );
+	}
+
+	private static LongAdder channelCacheMisses( Interpreter interpreter, String id ) {
+		return interpreter.metrics().counter( "jolie_channel_cache_misses_total",
+			"Requests for a channel that required opening a new one, by output port", "port", id );
 	}
 
 	/**
@@ -154,6 +173,9 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		this.isConstant = isConstant;
 
 		this.iface = iface;
+
+		this.channelCacheHits = channelCacheHits( interpreter, id );
+		this.channelCacheMisses = channelCacheMisses( interpreter, id );
 	}
 
 	/**
@@ -210,7 +232,7 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 
 	}
 
-	private CommChannel getCommChannel( boolean forceNew )
+	private CommChannel getCommChannel( boolean forceNew, boolean exclusive )
 		throws URISyntaxException, IOException {
 		CommChannel ret;
 		Value loc;
@@ -219,7 +241,7 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		if( loc.isChannel() ) {
 			// It's a local channel
 			ret = loc.channelValue();
-			if( forceNew ) {
+			if( forceNew || exclusive ) {
 				ret = ret.createDuplicate();
 			}
 		} else {
@@ -230,9 +252,15 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 			} else {
 				// Try reusing an existing channel first
 				String protocol = protocolVariablePath.getValue().strValue();
-				ret = channelCache.getPersistentChannel( uri, protocol );
+				ret = channelCache.getPersistentChannel( uri, protocol, exclusive );
 				if( ret == null ) {
+					channelCacheMisses.increment();
 					ret = interpreter.commCore().createCommChannel( uri, this );
+					if( !exclusive && ret.isMultiplexing() ) {
+						channelCache.shareChannel( uri, protocol, ret );
+					}
+				} else {
+					channelCacheHits.increment();
 				}
 			}
 		}
@@ -245,6 +273,15 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		channelCache.putPersistentChannel( location, protocol, channel, interpreter );
 	}
 
+	/**
+	 * Returns the cache of the responses received through this output port.
+	 *
+	 * @return the cache of the responses received through this output port
+	 */
+	public ResponseCache responseCache() {
+		return responseCache;
+	}
+
 	private static class LazyLocalUriHolder {
 		private LazyLocalUriHolder() {}
 
@@ -295,7 +332,7 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 	 */
 	public final CommChannel getNewCommChannel()
 		throws URISyntaxException, IOException {
-		return getCommChannel( true );
+		return getCommChannel( true, true );
 	}
 
 	/**
@@ -307,7 +344,22 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 	 */
 	public final CommChannel getCommChannel()
 		throws URISyntaxException, IOException {
-		return getCommChannel( false );
+		return getCommChannel( false, false );
+	}
+
+	/**
+	 * Returns a CommChannel for this OutputPort that is not shared with other callers, possibly reusing
+	 * an open persistent channel. Multiplexing channels (e.g., HTTP/2 connections) are shared by the
+	 * callers of {@link #getCommChannel()}, so they are never returned here. Callers should
+	 * {@link CommChannel#release() release} the channel after use, so that it can be reused.
+	 * 
+	 * @return a CommChannel for this OutputPort
+	 * @throws java.net.URISyntaxException
+	 * @throws java.io.IOException
+	 */
+	public final CommChannel getExclusiveCommChannel()
+		throws URISyntaxException, IOException {
+		return getCommChannel( false, true );
 	}
 
 	/**
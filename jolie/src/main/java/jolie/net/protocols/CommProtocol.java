@@ -227,4 +227,24 @@ public abstract class CommProtocol {
 		throws IOException;
 
 	abstract public boolean isThreadSafe();
+
+	/**
+	 * Returns <code>true</code> if this protocol has already decoded messages that the next calls to
+	 * {@link #recv(InputStream, OutputStream)} will return without reading from the input stream, e.g.,
+	 * the remaining entries of a batch request. Channels holding such a protocol are scheduled for
+	 * receiving again instead of waiting for new data.
+	 */
+	public boolean hasCachedMessages() {
+		return false;
+	}
+
+	/**
+	 * Returns <code>true</code> if this protocol can have several requests in flight on the same
+	 * connection and match their responses by request id, while sending and receiving from different
+	 * threads at the same time. Output ports share channels with such a protocol among all callers,
+	 * instead of handing each caller a channel of its own.
+	 */
+	public boolean isMultiplexing() {
+		return false;
+	}
 }
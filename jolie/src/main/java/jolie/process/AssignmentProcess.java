@@ -79,7 +79,7 @@ public class AssignmentProcess implements Process, Expression {
 			AssignmentTraceAction.Type.ASSIGNMENT,
 			"ASSIGN",
 			null,
-			evaluationValue.clone(),
+			evaluationValue,
 			context ) );
 	}
 
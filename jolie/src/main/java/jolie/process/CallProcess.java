@@ -33,7 +33,7 @@ import jolie.runtime.InvalidIdException;
  * @see DefinitionProcess
  * @author Fabrizio Montesi
  */
-public class CallProcess implements Process {
+public class CallProcess implements SuspendableProcess {
 	private final String definitionName;
 
 	/**
@@ -60,6 +60,27 @@ public class CallProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		return new Continuation() {
+			private boolean started = false;
+
+			@Override
+			protected Step step()
+				throws FaultException {
+				if( started ) {
+					return done();
+				}
+				started = true;
+				try {
+					return run( Interpreter.getInstance().getDefinition( definitionName ) );
+				} catch( InvalidIdException e ) {
+					throw new FaultException( "FatalError", "Definition not found: " + definitionName );
+				}
+			}
+		};
+	}
+
 	public boolean isKillable() {
 		try {
 			DefinitionProcess definition = Interpreter.getInstance().getDefinition( definitionName );
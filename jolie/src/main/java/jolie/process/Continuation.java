@@ -0,0 +1,119 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.process;
+
+import java.util.concurrent.CompletableFuture;
+import jolie.runtime.ExitingException;
+import jolie.runtime.FaultException;
+
+/**
+ * The state of an execution of a {@link SuspendableProcess}. A continuation is advanced by a
+ * {@link ContinuationStack} one {@link Step} at a time: each step either terminates the
+ * continuation, asks for a child process to be run, or asks for the session to be suspended until a
+ * future is completed. The continuation is advanced again when the child process terminates or the
+ * future is completed.
+ *
+ * @author Fabrizio Montesi
+ */
+public abstract class Continuation {
+	/**
+	 * What a {@link Continuation} asks its {@link ContinuationStack} to do next.
+	 */
+	public static final class Step {
+		private static final Step DONE = new Step( null, null );
+
+		private final Process process;
+		private final CompletableFuture< ? > future;
+
+		private Step( Process process, CompletableFuture< ? > future ) {
+			this.process = process;
+			this.future = future;
+		}
+
+		Process process() {
+			return process;
+		}
+
+		CompletableFuture< ? > future() {
+			return future;
+		}
+
+		boolean isDone() {
+			return this == DONE;
+		}
+	}
+
+	/**
+	 * Returns the step terminating a continuation.
+	 */
+	protected static Step done() {
+		return Step.DONE;
+	}
+
+	/**
+	 * Returns the step running the given process as a child of a continuation.
+	 */
+	protected static Step run( Process process ) {
+		return new Step( process, null );
+	}
+
+	/**
+	 * Returns the step suspending the session until the given future is completed.
+	 */
+	protected static Step await( CompletableFuture< ? > future ) {
+		return new Step( null, future );
+	}
+
+	/**
+	 * Returns a continuation that runs a process and then terminates.
+	 */
+	public static Continuation of( Process process ) {
+		return new Continuation() {
+			private boolean started = false;
+
+			@Override
+			protected Step step() {
+				if( started ) {
+					return done();
+				}
+				started = true;
+				return run( process );
+			}
+		};
+	}
+
+	/**
+	 * Advances this continuation. This is called when the continuation starts, when the child process
+	 * it asked for terminates normally, and when the future it awaited is completed.
+	 */
+	protected abstract Step step()
+		throws FaultException, ExitingException;
+
+	/**
+	 * Called when the child process this continuation asked for throws a fault. The default
+	 * implementation propagates the fault.
+	 */
+	protected Step onFault( FaultException fault )
+		throws FaultException, ExitingException {
+		throw fault;
+	}
+}
@@ -0,0 +1,148 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.process;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import jolie.ExecutionThread;
+import jolie.lang.Constants;
+import jolie.runtime.ExitingException;
+import jolie.runtime.FaultException;
+
+/**
+ * Runs a process as a stack of {@link Continuation}s, so that its execution can be suspended while
+ * waiting for a future and resumed later, possibly by another thread.
+ * <p>
+ * Child processes that are {@link SuspendableProcess}es get a frame of their own on the stack.
+ * Other processes are run by blocking the calling thread, as usual. A fault thrown by a child
+ * process is passed to {@link Continuation#onFault(FaultException)} of the continuation that asked
+ * for the child; a fault thrown by a continuation itself terminates it and is passed on to its
+ * parent.
+ * <p>
+ * A thread that is killed while suspended is resumed right away: the continuation that was waiting
+ * is terminated, the others terminate as killed processes do (running termination handlers), and
+ * the fault that killed the thread is then thrown by {@link #run()}. A cancelled future counts as
+ * a kill.
+ *
+ * @author Fabrizio Montesi
+ */
+public final class ContinuationStack {
+	private final Deque< Continuation > frames = new ArrayDeque<>();
+	private CompletableFuture< ? > awaited = null;
+
+	public ContinuationStack( Process process ) {
+		push( process );
+	}
+
+	private void push( Process process ) {
+		frames.push( process instanceof SuspendableProcess ? ((SuspendableProcess) process).continuation()
+			: Continuation.of( process ) );
+	}
+
+	/**
+	 * Runs the process until it terminates or needs to wait.
+	 *
+	 * @return <code>null</code> if the process terminated, or the future that the process is waiting
+	 *         for. In the latter case, this method must be called again after the future is completed
+	 *         in order to resume the execution.
+	 * @throws FaultException if the process threw a fault, or the fault that killed the thread
+	 */
+	public CompletableFuture< ? > run()
+		throws FaultException, ExitingException {
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		FaultException fault = null;
+		while( !frames.isEmpty() ) {
+			if( awaited != null ) {
+				if( !awaited.isDone() && !ethread.isKilled() ) {
+					return awaited;
+				}
+				if( !ethread.isKilled() && isCancelled( awaited ) ) {
+					ethread.kill( new FaultException( Constants.IO_EXCEPTION_FAULT_NAME,
+						"The operation the process was waiting for has been cancelled" ) );
+				}
+				awaited = null;
+				if( ethread.isKilled() ) { // The waiting continuation is not resumed
+					frames.pop();
+					continue;
+				}
+			}
+
+			final Continuation top = frames.peek();
+			final Continuation.Step step;
+			try {
+				step = fault == null ? top.step() : top.onFault( fault );
+				fault = null;
+			} catch( FaultException f ) {
+				frames.pop();
+				fault = f;
+				continue;
+			} catch( FaultException.RuntimeFaultException rf ) {
+				frames.pop();
+				fault = rf.faultException();
+				continue;
+			}
+
+			if( step.isDone() ) {
+				frames.pop();
+			} else if( step.future() != null ) {
+				awaited = step.future();
+			} else if( step.process() instanceof SuspendableProcess ) {
+				push( step.process() );
+			} else {
+				try {
+					step.process().run();
+				} catch( FaultException f ) {
+					fault = f;
+				} catch( FaultException.RuntimeFaultException rf ) {
+					fault = rf.faultException();
+				}
+			}
+		}
+
+		if( fault != null ) {
+			throw fault;
+		}
+		if( ethread.isKilled() ) {
+			throw ethread.killerFault();
+		}
+		return null;
+	}
+
+	private static boolean isCancelled( CompletableFuture< ? > future ) {
+		if( future.isCancelled() ) {
+			return true;
+		}
+		if( future.isCompletedExceptionally() ) {
+			try {
+				future.join();
+			} catch( CancellationException e ) {
+				return true;
+			} catch( CompletionException e ) {
+				return e.getCause() instanceof CancellationException;
+			}
+		}
+		return false;
+	}
+}
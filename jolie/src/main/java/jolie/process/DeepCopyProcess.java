@@ -73,7 +73,7 @@ public class DeepCopyProcess implements Process {
 			AssignmentTraceAction.Type.DEEPCOPY,
 			"COPIED",
 			null,
-			leftPath.getValue( ExecutionThread.currentThread().state().root().clone() ),
+			leftPath.getValueOrNull(),
 			context ) );
 
 	}
@@ -25,7 +25,7 @@ package jolie.process;
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 
-public class DefinitionProcess implements Process {
+public class DefinitionProcess implements SuspendableProcess {
 	final protected Process process;
 
 	public DefinitionProcess( Process process ) {
@@ -43,6 +43,11 @@ public class DefinitionProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		return Continuation.of( process == null ? NullProcess.getInstance() : process );
+	}
+
 	public boolean isKillable() {
 		if( process != null ) {
 			return process.isKillable();
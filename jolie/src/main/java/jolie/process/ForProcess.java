@@ -24,7 +24,7 @@ import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.expression.Expression;
 
-public final class ForProcess implements Process {
+public final class ForProcess implements SuspendableProcess {
 	private final Expression condition;
 	private final Process init, post, process;
 
@@ -61,6 +61,32 @@ public final class ForProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		return new Continuation() {
+			private boolean started = false;
+			private boolean inBody = false;
+
+			@Override
+			protected Step step() {
+				if( !started ) {
+					started = true;
+					return ethread.isKilled() ? done() : run( init );
+				}
+				if( inBody ) {
+					inBody = false;
+					return ethread.isKilled() ? done() : run( post );
+				}
+				if( !condition.evaluate().boolValue() ) {
+					return done();
+				}
+				inBody = true;
+				return run( process );
+			}
+		};
+	}
+
 	@Override
 	public boolean isKillable() {
 		return true;
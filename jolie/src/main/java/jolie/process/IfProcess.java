@@ -24,7 +24,7 @@ import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.expression.Expression;
 
-public final class IfProcess implements Process {
+public final class IfProcess implements SuspendableProcess {
 	public static class CPPair {
 		private final Expression condition;
 		private final Process process;
@@ -89,6 +89,27 @@ public final class IfProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		return new Continuation() {
+			private boolean started = false;
+
+			@Override
+			protected Step step() {
+				if( started || ExecutionThread.currentThread().isKilled() ) {
+					return done();
+				}
+				started = true;
+				for( CPPair pair : pairs ) {
+					if( pair.condition().evaluate().boolValue() ) {
+						return run( pair.process() );
+					}
+				}
+				return elseProcess == null ? done() : run( elseProcess );
+			}
+		};
+	}
+
 	@Override
 	public boolean isKillable() {
 		return true;
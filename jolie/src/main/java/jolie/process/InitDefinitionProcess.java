@@ -37,6 +37,39 @@ public class InitDefinitionProcess extends DefinitionProcess {
 
 	@Override
 	public void run()
+		throws FaultException {
+		if( initialize() ) {
+			try {
+				super.run();
+			} catch( ExitingException e ) {
+			}
+		}
+	}
+
+	@Override
+	public Continuation continuation() {
+		return new Continuation() {
+			private boolean started = false;
+
+			@Override
+			protected Step step()
+				throws FaultException {
+				if( started ) {
+					return done();
+				}
+				started = true;
+				return initialize() ? run( process == null ? NullProcess.getInstance() : process ) : done();
+			}
+		};
+	}
+
+	/**
+	 * Prepares the ports and embedded services of the interpreter.
+	 *
+	 * @return <code>false</code> if an embedded service could not be loaded
+	 * @throws FaultException if a protocol configuration threw a fault
+	 */
+	private boolean initialize()
 		throws FaultException {
 		Interpreter interpreter = Interpreter.getInstance();
 		try {
@@ -90,12 +123,10 @@ public class InitDefinitionProcess extends DefinitionProcess {
 				}
 			}
 
-			try {
-				super.run();
-			} catch( ExitingException e ) {
-			}
+			return true;
 		} catch( EmbeddedServiceLoadingException e ) {
 			interpreter.logSevere( e );
+			return false;
 		}
 	}
 }
@@ -0,0 +1,76 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.process;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import jolie.ExecutionThread;
+import jolie.Interpreter;
+import jolie.net.SessionMessage;
+
+/**
+ * The continuation of an {@link InputOperationProcess}: it waits for a message for the operation of
+ * the process and then runs the process returned by
+ * {@link InputOperationProcess#receiveMessage(SessionMessage, jolie.State)}.
+ *
+ * @author Fabrizio Montesi
+ */
+class InputOperationContinuation extends Continuation {
+	private final InputOperationProcess process;
+	private final ExecutionThread ethread = ExecutionThread.currentThread();
+	private Future< SessionMessage > future = null;
+	private boolean received = false;
+
+	InputOperationContinuation( InputOperationProcess process ) {
+		this.process = process;
+	}
+
+	@Override
+	protected Step step() {
+		if( received ) {
+			return done();
+		}
+		if( future == null ) {
+			if( ethread.isKilled() ) {
+				return done();
+			}
+			future = ethread.requestMessage( process.inputOperation(), ethread );
+			if( future instanceof CompletableFuture && !future.isDone() ) {
+				return await( (CompletableFuture< ? >) future );
+			}
+		}
+
+		received = true;
+		final SessionMessage m;
+		try {
+			m = future.get();
+		} catch( InterruptedException | ExecutionException e ) {
+			Interpreter.getInstance().logSevere( e );
+			return done();
+		}
+		if( m == null ) { // If it is null, we got killed by a fault
+			return done();
+		}
+		return run( process.receiveMessage( m, ethread.state() ) );
+	}
+}
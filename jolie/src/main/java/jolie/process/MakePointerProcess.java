@@ -21,9 +21,11 @@
 
 package jolie.process;
 
+import java.util.Optional;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.parse.context.ParsingContext;
+import jolie.runtime.Value;
 import jolie.runtime.VariablePath;
 import jolie.tracer.AssignmentTraceAction;
 import jolie.tracer.Tracer;
@@ -67,7 +69,7 @@ public class MakePointerProcess implements Process {
 			AssignmentTraceAction.Type.ASSIGNMENT,
 			"POINTS",
 			null,
-			rightPath.getValue( ExecutionThread.currentThread().state().root().clone() ),
+			Optional.ofNullable( rightPath.getValueOrNull() ).orElseGet( Value::create ),
 			context ) );
 
 	}
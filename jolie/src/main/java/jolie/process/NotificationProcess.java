@@ -23,13 +23,16 @@ package jolie.process;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.parse.context.ParsingContext;
 import jolie.monitoring.events.OperationCallEvent;
+import jolie.monitoring.tracing.Span;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.net.ports.OutputPort;
@@ -41,7 +44,7 @@ import jolie.runtime.typing.TypeCheckingException;
 import jolie.tracer.MessageTraceAction;
 import jolie.tracer.Tracer;
 
-public class NotificationProcess implements Process {
+public class NotificationProcess implements SuspendableProcess {
 	private final String operationId;
 	private final OutputPort outputPort;
 	private final Expression outputExpression; // may be null
@@ -80,13 +83,110 @@ public class NotificationProcess implements Process {
 			context ) );
 	}
 
+	/**
+	 * A notification whose message has been sent, waiting for its acknowledgement.
+	 */
+	private class Delivery {
+		private final CommChannel channel;
+		private final CommMessage message;
+		private final Span span;
+		private Future< CommMessage > ack;
+
+		private Delivery( CommChannel channel, CommMessage message, Span span )
+			throws IOException {
+			this.channel = channel;
+			this.message = message;
+			this.span = span;
+			this.ack = channel.recvResponseFor( message );
+		}
+
+		// Returns the future of the acknowledgement if it can be awaited without blocking, null otherwise
+		private CompletableFuture< CommMessage > pendingAck() {
+			return ack instanceof CompletableFuture && !ack.isDone() ? (CompletableFuture< CommMessage >) ack : null;
+		}
+
+		private void receiveAck()
+			throws FaultException {
+			try {
+				CommMessage response = null;
+				do {
+					try {
+						response = ack.get();
+					} catch( InterruptedException | ExecutionException e ) {
+						Interpreter.getInstance().logFine( e );
+					}
+					if( response == null ) {
+						ack = channel.recvResponseFor( message );
+					}
+				} while( response == null );
+
+				log( "RECEIVED ACK", response );
+
+				if( response.isFault() ) {
+					if( response.fault().faultName().equals( "CorrelationError" )
+						|| response.fault().faultName().equals( "IOException" )
+						|| response.fault().faultName().equals( "TypeMismatch" ) ) {
+						throw response.fault();
+					} else {
+						Interpreter.getInstance().logSevere( "Notification process for operation " + operationId
+							+ " received an unexpected fault: " + response.fault().faultName() );
+					}
+				}
+			} catch( IOException e ) {
+				span.setError( Constants.IO_EXCEPTION_FAULT_NAME );
+				span.end();
+				throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
+			} finally {
+				releaseChannel( channel );
+			}
+		}
+	}
+
 	public void run()
 		throws FaultException {
 		if( ExecutionThread.currentThread().isKilled() ) {
 			return;
 		}
 
+		final Delivery delivery = send();
+		if( delivery != null ) {
+			delivery.receiveAck();
+		}
+	}
+
+	@Override
+	public Continuation continuation() {
+		return new Continuation() {
+			private Delivery delivery = null;
+
+			@Override
+			protected Step step()
+				throws FaultException {
+				if( delivery == null ) {
+					if( ExecutionThread.currentThread().isKilled() ) {
+						return done();
+					}
+					delivery = send();
+					if( delivery == null ) {
+						return done();
+					}
+					final CompletableFuture< CommMessage > ack = delivery.pendingAck();
+					if( ack != null ) {
+						return await( ack );
+					}
+				}
+				delivery.receiveAck();
+				return done();
+			}
+		};
+	}
+
+	// Returns null if the message could not be sent because of an invalid location
+	private Delivery send()
+		throws FaultException {
 		CommChannel channel = null;
+		Span span = null;
+		boolean sent = false;
 		try {
 			CommMessage message =
 				(outputExpression == null)
@@ -107,11 +207,23 @@ public class NotificationProcess implements Process {
 					throw (e);
 				}
 			}
+			span = Span.start( operationId, Span.Kind.PRODUCER, ExecutionThread.currentThread().traceContext() );
+			if( span.isRecording() ) {
+				span.putAttribute( "rpc.system", "jolie" ).putAttribute( "rpc.method", operationId )
+					.putAttribute( "jolie.output_port", outputPort.id() );
+				final Value location = outputPort.locationVariablePath().getValue();
+				if( location.isString() ) {
+					span.putAttribute( "server.address", location.strValue() );
+				}
+			}
+			message.setTraceContext( span.context() );
 			channel = outputPort.getCommChannel();
 
 			log( "SENDING", message );
 
 			channel.send( message );
+			// The span covers the sending of the message, not the wait for its acknowledgement
+			span.end();
 
 			log( "SENT", message );
 			if( Interpreter.getInstance().isMonitoring() ) {
@@ -122,28 +234,14 @@ public class NotificationProcess implements Process {
 						Long.toString( message.id() ) ) );
 			}
 
-			CommMessage response = null;
-			do {
-				try {
-					response = channel.recvResponseFor( message ).get();
-				} catch( InterruptedException | ExecutionException e ) {
-					Interpreter.getInstance().logFine( e );
-				}
-			} while( response == null );
-
-			log( "RECEIVED ACK", response );
-
-			if( response.isFault() ) {
-				if( response.fault().faultName().equals( "CorrelationError" )
-					|| response.fault().faultName().equals( "IOException" )
-					|| response.fault().faultName().equals( "TypeMismatch" ) ) {
-					throw response.fault();
-				} else {
-					Interpreter.getInstance().logSevere( "Notification process for operation " + operationId
-						+ " received an unexpected fault: " + response.fault().faultName() );
-				}
-			}
+			final Delivery delivery = new Delivery( channel, message, span );
+			sent = true;
+			return delivery;
 		} catch( IOException e ) {
+			if( span != null ) {
+				span.setError( Constants.IO_EXCEPTION_FAULT_NAME );
+				span.end();
+			}
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		} catch( URISyntaxException e ) {
 			Interpreter.getInstance().logSevere( e );
@@ -151,12 +249,19 @@ public class NotificationProcess implements Process {
 			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME,
 				"TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
 		} finally {
-			if( channel != null ) {
-				try {
-					channel.release();
-				} catch( IOException e ) {
-					Interpreter.getInstance().logWarning( e );
-				}
+			if( !sent ) {
+				releaseChannel( channel );
+			}
+		}
+		return null;
+	}
+
+	private static void releaseChannel( CommChannel channel ) {
+		if( channel != null ) {
+			try {
+				channel.release();
+			} catch( IOException e ) {
+				Interpreter.getInstance().logWarning( e );
 			}
 		}
 	}
@@ -27,6 +27,7 @@ import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.parse.context.ParsingContext;
 import jolie.monitoring.events.OperationStartedEvent;
+import jolie.monitoring.tracing.Span;
 import jolie.net.CommMessage;
 import jolie.net.SessionMessage;
 import jolie.runtime.ExitingException;
@@ -37,7 +38,7 @@ import jolie.runtime.VariablePath;
 import jolie.tracer.MessageTraceAction;
 import jolie.tracer.Tracer;
 
-public class OneWayProcess implements InputOperationProcess {
+public class OneWayProcess implements InputOperationProcess, SuspendableProcess {
 	private final OneWayOperation operation;
 	private final VariablePath varPath;
 	private boolean isSessionStarter = false;
@@ -66,6 +67,7 @@ public class OneWayProcess implements InputOperationProcess {
 	}
 
 	public Process receiveMessage( final SessionMessage sessionMessage, jolie.State state ) {
+		operation.metrics( Interpreter.getInstance().metrics() ).requests().increment();
 		if( Interpreter.getInstance().isMonitoring() && !isSessionStarter ) {
 			Interpreter.getInstance().fireMonitorEvent(
 				new OperationStartedEvent( operation.id(), ExecutionThread.currentThread().getSessionId(),
@@ -78,7 +80,33 @@ public class OneWayProcess implements InputOperationProcess {
 			varPath.getValue( state.root() ).refCopy( sessionMessage.message().value() );
 		}
 
-		return NullProcess.getInstance();
+		final Span span = Span.start( operation.id(), Span.Kind.CONSUMER, sessionMessage.message().traceContext() );
+		if( span.isRecording() ) {
+			span.putAttribute( "rpc.system", "jolie" ).putAttribute( "rpc.method", operation.id() );
+			span.end();
+		}
+		if( span.context() == null ) {
+			return NullProcess.getInstance();
+		}
+		// The rest of the session works on behalf of the sender of the message
+		return new Process() {
+			public void run() {
+				ExecutionThread.currentThread().replaceTraceContext( span.context() );
+			}
+
+			public Process copy( TransformationReason reason ) {
+				return this;
+			}
+
+			public boolean isKillable() {
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public Continuation continuation() {
+		return new InputOperationContinuation( this );
 	}
 
 	public void run()
@@ -99,8 +127,8 @@ public class OneWayProcess implements InputOperationProcess {
 				throw rf.faultException();
 			}
 		} catch( FaultException | ExitingException e ) {
-			// Should never happen since receiveMessage always
-			// returns a NullProcess here.
+			// Should never happen since the process returned
+			// by receiveMessage does not throw.
 			throw e;
 		} catch( Exception e ) {
 			Interpreter.getInstance().logSevere( e );
@@ -30,6 +30,9 @@ import jolie.lang.Constants;
 import jolie.lang.parse.context.ParsingContext;
 import jolie.monitoring.events.OperationEndedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
+import jolie.monitoring.metrics.OperationMetrics;
+import jolie.monitoring.tracing.Span;
+import jolie.monitoring.tracing.TraceContext;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.net.SessionMessage;
@@ -45,7 +48,7 @@ import jolie.runtime.typing.TypeCheckingException;
 import jolie.tracer.MessageTraceAction;
 import jolie.tracer.Tracer;
 
-public class RequestResponseProcess implements InputOperationProcess {
+public class RequestResponseProcess implements InputOperationProcess, SuspendableProcess {
 	private final RequestResponseOperation operation;
 	private final VariablePath inputVarPath; // may be null
 	private final Expression outputExpression; // may be null
@@ -99,6 +102,8 @@ public class RequestResponseProcess implements InputOperationProcess {
 	}
 
 	public Process receiveMessage( final SessionMessage sessionMessage, jolie.State state ) {
+		final long startTime = System.nanoTime();
+		operation.metrics( Interpreter.getInstance().metrics() ).requests().increment();
 		if( Interpreter.getInstance().isMonitoring() && !isSessionStarter ) {
 			Interpreter.getInstance().fireMonitorEvent(
 				new OperationStartedEvent( operation.id(), ExecutionThread.currentThread().getSessionId(),
@@ -111,10 +116,58 @@ public class RequestResponseProcess implements InputOperationProcess {
 			inputVarPath.getValue( state.root() ).refCopy( sessionMessage.message().value() );
 		}
 
-		return new Process() {
+		final Span span = Span.start( operation.id(), Span.Kind.SERVER, sessionMessage.message().traceContext() );
+		if( span.isRecording() ) {
+			span.putAttribute( "rpc.system", "jolie" ).putAttribute( "rpc.method", operation.id() );
+		}
+
+		return new SuspendableProcess() {
 			public void run()
 				throws FaultException, ExitingException {
-				runBehaviour( sessionMessage.channel(), sessionMessage.message() );
+				final ExecutionThread ethread = ExecutionThread.currentThread();
+				final TraceContext previousTraceContext = ethread.replaceTraceContext( span.context() );
+				try {
+					runBehaviour( sessionMessage.channel(), sessionMessage.message(), startTime, span );
+				} finally {
+					ethread.replaceTraceContext( previousTraceContext );
+				}
+			}
+
+			@Override
+			public Continuation continuation() {
+				final ExecutionThread ethread = ExecutionThread.currentThread();
+				return new Continuation() {
+					private TraceContext previousTraceContext = null;
+					private boolean started = false;
+
+					@Override
+					protected Step step()
+						throws FaultException {
+						if( !started ) {
+							started = true;
+							previousTraceContext = ethread.replaceTraceContext( span.context() );
+							return run( process );
+						}
+						return reply( null );
+					}
+
+					@Override
+					protected Step onFault( FaultException f )
+						throws FaultException {
+						return reply( f );
+					}
+
+					private Step reply( FaultException fault )
+						throws FaultException {
+						try {
+							RequestResponseProcess.this.reply( sessionMessage.channel(), sessionMessage.message(),
+								startTime, span, fault );
+						} finally {
+							ethread.replaceTraceContext( previousTraceContext );
+						}
+						return done();
+					}
+				};
 			}
 
 			public Process copy( TransformationReason reason ) {
@@ -127,6 +180,11 @@ public class RequestResponseProcess implements InputOperationProcess {
 		};
 	}
 
+	@Override
+	public Continuation continuation() {
+		return new InputOperationContinuation( this );
+	}
+
 	public void run()
 		throws FaultException, ExitingException {
 		ExecutionThread ethread = ExecutionThread.currentThread();
@@ -155,6 +213,14 @@ public class RequestResponseProcess implements InputOperationProcess {
 		return inputVarPath;
 	}
 
+	private void recordMetrics( CommMessage response, long startTime ) {
+		final OperationMetrics metrics = operation.metrics( Interpreter.getInstance().metrics() );
+		metrics.duration().recordSince( startTime );
+		if( response.isFault() ) {
+			metrics.faults().increment();
+		}
+	}
+
 	private CommMessage createFaultMessage( CommMessage request, FaultException f )
 		throws TypeCheckingException {
 		if( operation.typeDescription().faults().containsKey( f.faultName() ) ) {
@@ -171,7 +237,29 @@ public class RequestResponseProcess implements InputOperationProcess {
 		return CommMessage.createFaultResponse( request, f );
 	}
 
-	private void runBehaviour( CommChannel channel, CommMessage message )
+	private void runBehaviour( CommChannel channel, CommMessage message, long startTime, Span span )
+		throws FaultException {
+		FaultException fault = null;
+		try {
+			try {
+				process.run();
+			} catch( ExitingException e ) {
+			}
+		} catch( FaultException f ) {
+			fault = f;
+		} catch( FaultException.RuntimeFaultException rf ) {
+			fault = rf.faultException();
+		}
+		reply( channel, message, startTime, span, fault );
+	}
+
+	/**
+	 * Sends the response to a request, once the behaviour of this process has been run.
+	 *
+	 * @param processFault the fault thrown by the behaviour, or <code>null</code>
+	 */
+	private void reply( CommChannel channel, CommMessage message, long startTime, Span span,
+		FaultException processFault )
 		throws FaultException {
 		// Variables for monitor
 		int responseStatus;
@@ -182,9 +270,8 @@ public class RequestResponseProcess implements InputOperationProcess {
 		CommMessage response;
 		try {
 			try {
-				try {
-					process.run();
-				} catch( ExitingException e ) {
+				if( processFault != null ) {
+					throw processFault;
 				}
 				ExecutionThread ethread = ExecutionThread.currentThread();
 				if( ethread.isKilled() ) {
@@ -241,8 +328,13 @@ public class RequestResponseProcess implements InputOperationProcess {
 			fault = f;
 		}
 
+		if( response.isFault() ) {
+			span.setError( response.fault().faultName() );
+		}
+
 		try {
 			channel.send( response );
+			recordMetrics( response, startTime );
 			Value monitorValue;
 			if( response.isFault() ) {
 				log( "SENT FAULT", response );
@@ -259,8 +351,10 @@ public class RequestResponseProcess implements InputOperationProcess {
 			}
 		} catch( IOException e ) {
 			// Interpreter.getInstance().logSevere( e );
+			span.setError( Constants.IO_EXCEPTION_FAULT_NAME );
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		} finally {
+			span.end();
 			try {
 				channel.release(); // TODO: what if the channel is in disposeForInput?
 			} catch( IOException e ) {
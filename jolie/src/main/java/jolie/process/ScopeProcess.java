@@ -21,6 +21,9 @@
 
 package jolie.process;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
 import jolie.ExecutionThread;
 import jolie.lang.Constants;
 import jolie.runtime.ExitingException;
@@ -28,7 +31,7 @@ import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.runtime.VariablePathBuilder;
 
-public class ScopeProcess implements Process {
+public class ScopeProcess implements SuspendableProcess {
 	private class Execution {
 		final private ScopeProcess parent;
 		final private ExecutionThread ethread;
@@ -89,6 +92,72 @@ public class ScopeProcess implements Process {
 		}
 	}
 
+	/**
+	 * The continuation counterpart of {@link Execution}. The nested runs of termination and fault
+	 * handlers are kept as levels: a level started by a termination handler records the fault that
+	 * killed the thread, which is restored when the level ends.
+	 */
+	private class ExecutionContinuation extends Continuation {
+		private final ExecutionThread ethread = ExecutionThread.currentThread();
+		private final Deque< Optional< FaultException > > levels = new ArrayDeque<>();
+		private boolean started = false;
+		private boolean shouldMerge = true;
+		private FaultException fault = null;
+
+		@Override
+		protected Step step()
+			throws FaultException {
+			if( !started ) {
+				started = true;
+				ethread.pushScope( id );
+				return run( process );
+			}
+			if( ethread.isKilled() ) {
+				shouldMerge = false;
+				final Process p = ethread.getCompensation( id );
+				if( p != null ) { // Termination handling
+					levels.push( Optional.of( ethread.killerFault() ) );
+					ethread.clearKill();
+					return run( p );
+				}
+			}
+			return finish();
+		}
+
+		@Override
+		protected Step onFault( FaultException f )
+			throws FaultException {
+			final Process p = ethread.getFaultHandler( f.faultName(), true );
+			if( p != null ) {
+				Value scopeValue =
+					new VariablePathBuilder( false )
+						.add( ethread.currentScopeId(), 0 )
+						.toVariablePath()
+						.getValue();
+				scopeValue.getChildren( f.faultName() ).set( 0, f.value() );
+				scopeValue.getFirstChild( Constants.DEFAULT_HANDLER_NAME ).setValue( f.faultName() );
+				levels.push( Optional.empty() );
+				return run( p );
+			}
+			fault = f;
+			return finish();
+		}
+
+		private Step finish()
+			throws FaultException {
+			while( !levels.isEmpty() ) {
+				levels.pop().ifPresent( ethread::kill );
+			}
+			if( autoPop ) {
+				ethread.popScope( shouldMerge );
+			}
+			if( shouldMerge && fault != null ) {
+				throw fault;
+			}
+			return done();
+		}
+	}
+
 	private final String id;
 	private final Process process;
 	private final boolean autoPop;
@@ -112,6 +181,11 @@ public class ScopeProcess implements Process {
 		(new Execution( this )).run();
 	}
 
+	@Override
+	public Continuation continuation() {
+		return new ExecutionContinuation();
+	}
+
 	public boolean isKillable() {
 		return process.isKillable();
 	}
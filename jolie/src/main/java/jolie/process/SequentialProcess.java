@@ -26,7 +26,7 @@ import jolie.ExecutionThread;
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 
-public class SequentialProcess implements Process {
+public class SequentialProcess implements SuspendableProcess {
 	final private Process[] children;
 
 	public SequentialProcess( Process[] children ) {
@@ -56,6 +56,26 @@ public class SequentialProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		return new Continuation() {
+			private int next = 0;
+
+			@Override
+			protected Step step() {
+				if( next == children.length ) {
+					return done();
+				}
+				final Process proc = children[ next++ ];
+				if( ethread.isKilled() && proc.isKillable() ) {
+					return done();
+				}
+				return run( proc );
+			}
+		};
+	}
+
 	public boolean isKillable() {
 		return children[ 0 ].isKillable();
 	}
@@ -21,7 +21,7 @@
 
 package jolie.process;
 
-
+import java.util.concurrent.CompletableFuture;
 
 import jolie.ExecutionThread;
 import jolie.lang.parse.context.ParsingContext;
@@ -33,7 +33,7 @@ import jolie.runtime.expression.Expression;
 import jolie.runtime.expression.SolicitResponseExpression;
 import jolie.runtime.typing.RequestResponseTypeDescription;
 
-public class SolicitResponseProcess implements Process {
+public class SolicitResponseProcess implements SuspendableProcess {
 	private final String operationId;
 	private final OutputPort outputPort;
 	private final VariablePath inputVarPath; // may be null
@@ -70,23 +70,24 @@ public class SolicitResponseProcess implements Process {
 			context );
 	}
 
+	private SolicitResponseExpression expression() {
+		return new SolicitResponseExpression(
+			operationId,
+			outputPort,
+			outputExpression,
+			types,
+			context,
+			inputVarPath );
+	}
+
 	public void run()
 		throws FaultException {
 		if( ExecutionThread.currentThread().isKilled() ) {
 			return;
 		}
 
-		SolicitResponseExpression solicitResponseExpression =
-			new SolicitResponseExpression(
-				operationId,
-				outputPort,
-				outputExpression,
-				types,
-				context,
-				inputVarPath );
-
 		try {
-			solicitResponseExpression.evaluate();
+			expression().evaluate();
 		} catch( FaultException.RuntimeFaultException e ) {
 			throw e.faultException();
 		}
@@ -98,6 +99,34 @@ public class SolicitResponseProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		return new Continuation() {
+			private SolicitResponseExpression.Call call = null;
+			private boolean received = false;
+
+			@Override
+			protected Step step() {
+				if( received ) {
+					return done();
+				}
+				if( call == null ) {
+					if( ExecutionThread.currentThread().isKilled() ) {
+						return done();
+					}
+					call = expression().send();
+					final CompletableFuture< ? > response = call.pendingResponse();
+					if( response != null ) {
+						return await( response );
+					}
+				}
+				call.receive();
+				received = true;
+				return run( installProcess );
+			}
+		};
+	}
+
 	public boolean isKillable() {
 		return true;
 	}
@@ -0,0 +1,38 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.process;
+
+/**
+ * A {@link Process} that can be executed as a {@link Continuation}, so that the session running it
+ * can be suspended while the process waits for a message, instead of blocking its thread.
+ * <p>
+ * Suspendable processes must still support blocking execution through {@link #run()}, which is used
+ * whenever they are run by a process that is not suspendable.
+ *
+ * @author Fabrizio Montesi
+ */
+public interface SuspendableProcess extends Process {
+	/**
+	 * Returns a new continuation for an execution of this process.
+	 */
+	Continuation continuation();
+}
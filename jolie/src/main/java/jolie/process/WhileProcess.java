@@ -26,7 +26,7 @@ import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.expression.Expression;
 
-public class WhileProcess implements Process {
+public class WhileProcess implements SuspendableProcess {
 	private final Expression condition;
 	private final Process process;
 
@@ -54,6 +54,19 @@ public class WhileProcess implements Process {
 		}
 	}
 
+	@Override
+	public Continuation continuation() {
+		return new Continuation() {
+			@Override
+			protected Step step() {
+				if( ExecutionThread.currentThread().isKilled() || !condition.evaluate().boolValue() ) {
+					return done();
+				}
+				return run( process );
+			}
+		};
+	}
+
 	public boolean isKillable() {
 		return true;
 	}
@@ -0,0 +1,52 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import java.util.Map;
+
+/**
+ * The encoded form of a value received by a protocol, from which a value created with
+ * {@link Value#createLazy(EncodedValue)} decodes its content only when it is accessed.
+ *
+ * Protocols that can send an encoded value as it is can obtain it back from
+ * {@link Value#encodedValue()}, as long as the value has not been changed in the meantime.
+ *
+ * @author Fabrizio Montesi
+ */
+public interface EncodedValue {
+	/**
+	 * Decodes the content of the root node of the value.
+	 */
+	Object decodeValueObject();
+
+	/**
+	 * Returns <code>true</code> if the encoded value has children, without decoding them.
+	 */
+	boolean hasChildren();
+
+	/**
+	 * Decodes the children of the root node of the value into the given map. Implementations should
+	 * create the children with {@link Value#createLazy(EncodedValue)}, so that their subtrees are
+	 * decoded only if they are accessed as well.
+	 */
+	void decodeChildren( Map< String, ValueVector > children );
+}
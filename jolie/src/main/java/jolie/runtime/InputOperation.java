@@ -23,6 +23,8 @@
 package jolie.runtime;
 
 
+import jolie.monitoring.metrics.MetricsRegistry;
+import jolie.monitoring.metrics.OperationMetrics;
 import jolie.runtime.typing.Type;
 
 /**
@@ -30,6 +32,8 @@ import jolie.runtime.typing.Type;
  * 
  */
 public abstract class InputOperation extends AbstractIdentifiableObject {
+	private volatile OperationMetrics metrics = null;
+
 	/**
 	 * Constructor
 	 * 
@@ -41,6 +45,19 @@ public abstract class InputOperation extends AbstractIdentifiableObject {
 
 	public abstract Type requestType();
 
+	/**
+	 * Returns the metrics of this operation, resolving them from the given registry on first use.
+	 * Resolving them concurrently is harmless, since the registry returns the same metrics.
+	 */
+	public OperationMetrics metrics( MetricsRegistry registry ) {
+		OperationMetrics ret = metrics;
+		if( ret == null ) {
+			ret = new OperationMetrics( registry, id(), this instanceof RequestResponseOperation );
+			metrics = ret;
+		}
+		return ret;
+	}
+
 	/**
 	 * Receives a message from CommCore and passes it to the right InputProcess. If no suitable
 	 * InputProcess is found, the message is enqueued in memory.
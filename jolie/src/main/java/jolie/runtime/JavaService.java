@@ -23,16 +23,26 @@
 package jolie.runtime;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 import jolie.Interpreter;
 import jolie.lang.parse.ast.OLSyntaxNode;
 import jolie.lang.parse.ast.OutputPortInfo;
@@ -48,13 +58,27 @@ import jolie.runtime.embedding.java.OutputPort;
 import jolie.util.Pair;
 
 /**
+ * A service implemented in Java. Public methods become operations: methods with a parameter and a
+ * return value of a supported type (or none) are request-response operations, as well as void
+ * methods annotated with {@link RequestResponse}; the other void methods are one-way operations.
+ *
+ * A request-response operation can also return a {@link CompletionStage} of a supported type, or of
+ * {@link Void}, to reply asynchronously: the response is sent when the stage completes, and the
+ * thread that invoked the method is released in the meantime. The response is built by the
+ * invoking thread if the returned stage is already complete, and by the interpreter executor
+ * otherwise.
+ *
+ * Operations are bound to method handles when the service is created, so invoking them does not go
+ * through reflection, unless no handle can be obtained for their method (e.g., because of module
+ * encapsulation).
  *
  * @author Fabrizio Montesi
  */
 public abstract class JavaService {
 	@FunctionalInterface
 	private interface JavaOperationCallable {
-		CommMessage call( JavaService service, JavaOperation javaOperation, CommMessage message )
+		CompletableFuture< CommMessage > call( JavaService service, JavaOperation javaOperation,
+			CommMessage message )
 			throws IllegalAccessException;
 	}
 
@@ -62,20 +86,121 @@ public abstract class JavaService {
 	}
 
 	private static class JavaOperation {
-		private final Method method;
-		private final Method parameterConstructor;
-		private final Method returnValueConstructor;
+		private static final MethodType INVOKER_TYPE =
+			MethodType.methodType( Object.class, JavaService.class, Object.class );
+		private static final MethodType PARAMETER_CONSTRUCTOR_TYPE =
+			MethodType.methodType( Object.class, Value.class );
+		private static final MethodType RETURN_VALUE_CONSTRUCTOR_TYPE =
+			MethodType.methodType( Value.class, Object.class );
+
+		private final MethodHandle invoker; // (JavaService, Object)Object
+		private final MethodHandle parameterConstructor; // (Value)Object, null if there is no parameter
+		private final MethodHandle returnValueConstructor; // (Object)Value, null if there is no return value
 		private final JavaOperationCallable callable;
+		private final boolean nonBlocking;
 
 		private JavaOperation(
 			Method method,
 			Method parameterConstructor,
 			Method returnValueConstructor,
-			JavaOperationCallable callable ) {
-			this.method = method;
-			this.parameterConstructor = parameterConstructor;
-			this.returnValueConstructor = returnValueConstructor;
+			JavaOperationCallable callable,
+			boolean nonBlocking ) {
+			MethodHandle handle = unreflect( method );
+			if( method.getParameterCount() == 0 ) {
+				handle = MethodHandles.dropArguments( handle, 1, Object.class );
+			}
+			this.invoker = handle.asType( INVOKER_TYPE );
+			this.parameterConstructor = parameterConstructor == null ? null
+				: unreflect( parameterConstructor ).asType( PARAMETER_CONSTRUCTOR_TYPE );
+			this.returnValueConstructor = returnValueConstructor == null ? null
+				: unreflect( returnValueConstructor ).asType( RETURN_VALUE_CONSTRUCTOR_TYPE );
 			this.callable = callable;
+			this.nonBlocking = nonBlocking;
+		}
+
+		/*
+		 * Method handles can throw any Throwable, which is wrapped as reflection does, so that exceptions
+		 * thrown by operations become faults as before.
+		 */
+		@SuppressWarnings( "PMD" )
+		private Object invoke( JavaService service, Object arg )
+			throws InvocationTargetException {
+			try {
+				return (Object) invoker.invokeExact( service, arg );
+			} catch( Throwable t ) {
+				throw new InvocationTargetException( t );
+			}
+		}
+
+		@SuppressWarnings( "PMD" )
+		private Object toArgument( Value value )
+			throws InvocationTargetException {
+			try {
+				return (Object) parameterConstructor.invokeExact( value );
+			} catch( Throwable t ) {
+				throw new InvocationTargetException( t );
+			}
+		}
+
+		@SuppressWarnings( "PMD" )
+		private Value toValue( Object object )
+			throws InvocationTargetException {
+			try {
+				return (Value) returnValueConstructor.invokeExact( object );
+			} catch( Throwable t ) {
+				throw new InvocationTargetException( t );
+			}
+		}
+
+		private static MethodHandle unreflect( Method method ) {
+			try {
+				return MethodHandles.publicLookup().unreflect( method );
+			} catch( IllegalAccessException e ) {
+				// e.g., a public method of a class that is not public
+				try {
+					method.setAccessible( true );
+					return MethodHandles.lookup().unreflect( method );
+				} catch( IllegalAccessException | RuntimeException ex ) {
+					// e.g., a method of a class in a module that is not open to us
+					return reflectiveHandle( method );
+				}
+			}
+		}
+	}
+
+	private static final MethodHandle REFLECTIVE_INVOKER;
+
+	static {
+		try {
+			REFLECTIVE_INVOKER = MethodHandles.lookup().findStatic( JavaService.class, "invokeReflectively",
+				MethodType.methodType( Object.class, Method.class, Object.class, Object[].class ) );
+		} catch( NoSuchMethodException | IllegalAccessException e ) {
+			throw new ExceptionInInitializerError( e );
+		}
+	}
+
+	/*
+	 * Returns a handle with the same type as the one returned by unreflect for method, which invokes it
+	 * through Method.invoke. Exceptions thrown by the method are rethrown as they are, as a handle would.
+	 */
+	static MethodHandle reflectiveHandle( Method method ) {
+		MethodHandle handle = REFLECTIVE_INVOKER.bindTo( method );
+		if( Modifier.isStatic( method.getModifiers() ) ) {
+			handle = MethodHandles.insertArguments( handle, 0, (Object) null );
+		}
+		handle = handle.asCollector( Object[].class, method.getParameterCount() );
+		final MethodType type = MethodType.methodType( method.getReturnType(), method.getParameterTypes() );
+		return handle.asType( Modifier.isStatic( method.getModifiers() ) ? type
+			: type.insertParameterTypes( 0, method.getDeclaringClass() ) );
+	}
+
+	@SuppressWarnings( "PMD" )
+	private static Object invokeReflectively( Method method, Object target, Object[] args )
+		throws Throwable {
+		try {
+			return method.invoke( target, args );
+		} catch( InvocationTargetException e ) {
+			throw e.getCause();
 		}
 	}
 
@@ -237,44 +362,95 @@ public abstract class JavaService {
 		return null;
 	}
 
-	private static CommMessage oneWayCallable( JavaService javaService, JavaOperation javaOperation,
-		CommMessage message )
+	private static CompletableFuture< CommMessage > oneWayCallable( JavaService javaService,
+		JavaOperation javaOperation, CommMessage message )
 		throws IllegalAccessException {
-		final Object[] args = getArguments( javaOperation, message );
+		final Object arg = getArgument( javaOperation, message );
 		javaService.interpreter.execute( () -> {
 			try {
-				javaOperation.method.invoke( javaService, args );
-			} catch( InvocationTargetException | IllegalAccessException e ) {
-				// This should never happen, as we filtered this out in the constructor.
-				javaService.interpreter.logSevere( e );
+				javaOperation.invoke( javaService, arg );
+			} catch( InvocationTargetException e ) {
+				javaService.interpreter.logSevere( e.getCause() );
 			}
 		} );
-		return CommMessage.createEmptyResponse( message );
+		return CompletableFuture.completedFuture( CommMessage.createEmptyResponse( message ) );
 	}
 
-	private static CommMessage requestResponseCallable( JavaService javaService, JavaOperation javaOperation,
-		CommMessage message )
+	private static CompletableFuture< CommMessage > requestResponseCallable( JavaService javaService,
+		JavaOperation javaOperation, CommMessage message )
 		throws IllegalAccessException {
-		final Object[] args = getArguments( javaOperation, message );
+		final Object arg = getArgument( javaOperation, message );
 		try {
-			final Object retObject = javaOperation.method.invoke( javaService, args );
-			if( retObject == null ) {
-				return CommMessage.createEmptyResponse( message );
-			} else {
-				return CommMessage.createResponse( message,
-					(Value) javaOperation.returnValueConstructor.invoke( null, retObject ) );
-			}
+			final Object retObject = javaOperation.invoke( javaService, arg );
+			return CompletableFuture.completedFuture( createResponse( javaOperation, message, retObject ) );
 		} catch( InvocationTargetException e ) {
-			final FaultException fault =
-				(e.getCause() instanceof FaultException)
-					? (FaultException) e.getCause()
-					: new FaultException( e.getCause() );
-			return CommMessage.createFaultResponse(
-				message,
-				fault );
+			return CompletableFuture.completedFuture(
+				CommMessage.createFaultResponse( message, toFault( e.getCause() ) ) );
 		}
 	}
 
+	private static CompletableFuture< CommMessage > asyncRequestResponseCallable( JavaService javaService,
+		JavaOperation javaOperation, CommMessage message )
+		throws IllegalAccessException {
+		final Object arg = getArgument( javaOperation, message );
+		final CompletionStage< ? > stage;
+		try {
+			stage = (CompletionStage< ? >) javaOperation.invoke( javaService, arg );
+		} catch( InvocationTargetException e ) {
+			return CompletableFuture.completedFuture(
+				CommMessage.createFaultResponse( message, toFault( e.getCause() ) ) );
+		}
+		if( stage == null ) {
+			return CompletableFuture.completedFuture( CommMessage.createEmptyResponse( message ) );
+		}
+		final BiFunction< Object, Throwable, CommMessage > responseBuilder = ( retObject, error ) -> {
+			if( error != null ) {
+				return CommMessage.createFaultResponse( message,
+					toFault( error instanceof CompletionException && error.getCause() != null ? error.getCause()
+						: error ) );
+			}
+			try {
+				return createResponse( javaOperation, message, retObject );
+			} catch( InvocationTargetException e ) {
+				return CommMessage.createFaultResponse( message, new FaultException( e ) );
+			}
+		};
+		if( stage instanceof Future && ((Future< ? >) stage).isDone() ) {
+			return stage.handle( responseBuilder ).toCompletableFuture();
+		}
+		// Do not build the response on the thread that completes the stage, which may belong to the
+		// service or to a library
+		return stage.handleAsync( responseBuilder, javaService.interpreter::execute ).toCompletableFuture();
+	}
+
+	private static CommMessage createResponse( JavaOperation javaOperation, CommMessage request, Object retObject )
+		throws InvocationTargetException {
+		if( retObject == null || javaOperation.returnValueConstructor == null ) {
+			return CommMessage.createEmptyResponse( request );
+		} else {
+			return CommMessage.createResponse( request, javaOperation.toValue( retObject ) );
+		}
+	}
+
+	private static FaultException toFault( Throwable t ) {
+		return (t instanceof FaultException) ? (FaultException) t : new FaultException( t );
+	}
+
+	/*
+	 * Returns the class of the values a method returning a CompletionStage completes with, or null if
+	 * it cannot be determined.
+	 */
+	private static Class< ? > completionResultType( Method method ) {
+		final Type type = method.getGenericReturnType();
+		if( type instanceof ParameterizedType ) {
+			final Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+			if( arguments.length == 1 && arguments[ 0 ] instanceof Class ) {
+				return (Class< ? >) arguments[ 0 ];
+			}
+		}
+		return null;
+	}
+
 	private void checkMethod( Map< String, JavaOperation > ops, Method method, Method parameterConstructor ) {
 		final Class< ? > returnType;
 		final Class< ? >[] exceptions;
@@ -286,21 +462,21 @@ public abstract class JavaService {
 			exceptions = method.getExceptionTypes();
 			if( isRequestResponse ) { // && ( exceptions.length == 0 || (exceptions.length == 1 &&
 										// FaultException.class.isAssignableFrom( exceptions[0]) ) ) ) {
-				ops.put(
-					method.getName(),
-					new JavaOperation(
-						method,
-						parameterConstructor,
-						null,
-						JavaService::requestResponseCallable ) );
+				addOperation( ops, method.getName(), method, parameterConstructor, null,
+					JavaService::requestResponseCallable, false );
 			} else if( exceptions.length == 0 ) {
-				ops.put(
-					method.getName(),
-					new JavaOperation(
-						method,
-						parameterConstructor,
-						null,
-						JavaService::oneWayCallable ) );
+				addOperation( ops, method.getName(), method, parameterConstructor, null,
+					JavaService::oneWayCallable, false );
+			}
+		} else if( CompletionStage.class.isAssignableFrom( returnType ) ) {
+			final Class< ? > resultType = completionResultType( method );
+			returnValueConstructor = Void.class.equals( resultType ) ? null : getToValueConverter( resultType );
+			exceptions = method.getExceptionTypes();
+			if( (Void.class.equals( resultType ) || returnValueConstructor != null) &&
+				(exceptions.length == 0 ||
+					(exceptions.length == 1 && FaultException.class.isAssignableFrom( exceptions[ 0 ] ))) ) {
+				addOperation( ops, getMethodName( method ), method, parameterConstructor, returnValueConstructor,
+					JavaService::asyncRequestResponseCallable, true );
 			}
 		} else {
 			returnValueConstructor = getToValueConverter( returnType );
@@ -308,25 +484,27 @@ public abstract class JavaService {
 				exceptions = method.getExceptionTypes();
 				if( exceptions.length == 0 ||
 					(exceptions.length == 1 && FaultException.class.isAssignableFrom( exceptions[ 0 ] )) ) {
-					ops.put(
-						getMethodName( method ),
-						new JavaOperation(
-							method,
-							parameterConstructor,
-							returnValueConstructor,
-							JavaService::requestResponseCallable ) );
+					addOperation( ops, getMethodName( method ), method, parameterConstructor,
+						returnValueConstructor, JavaService::requestResponseCallable, false );
 				}
 			}
 		}
 	}
 
-	private static Object[] getArguments( final JavaOperation javaOperation, final CommMessage message )
+	private static void addOperation( Map< String, JavaOperation > ops, String name, Method method,
+		Method parameterConstructor, Method returnValueConstructor, JavaOperationCallable callable,
+		boolean nonBlocking ) {
+		ops.put( name,
+			new JavaOperation( method, parameterConstructor, returnValueConstructor, callable, nonBlocking ) );
+	}
+
+	private static Object getArgument( final JavaOperation javaOperation, final CommMessage message )
 		throws IllegalAccessException {
 		if( javaOperation.parameterConstructor == null ) {
-			return new Object[ 0 ];
+			return null;
 		} else {
 			try {
-				return new Object[] { javaOperation.parameterConstructor.invoke( null, message.value() ) };
+				return javaOperation.toArgument( message.value() );
 			} catch( InvocationTargetException e ) {
 				throw new IllegalAccessException( e.getMessage() );
 			}
@@ -380,6 +558,18 @@ public abstract class JavaService {
 	}
 
 	public CommMessage callOperation( CommMessage message )
+		throws InvalidIdException, IllegalAccessException {
+		return callOperationAsync( message ).join();
+	}
+
+	/**
+	 * Invokes the operation requested by a message.
+	 *
+	 * @param message the request message
+	 * @return a future completed with the response, possibly after this method returns if the operation
+	 *         replies asynchronously
+	 */
+	public CompletableFuture< CommMessage > callOperationAsync( CommMessage message )
 		throws InvalidIdException, IllegalAccessException {
 		final JavaOperation javaOperation = operations.get( message.operationName() );
 		if( javaOperation == null ) {
@@ -389,6 +579,16 @@ public abstract class JavaService {
 		return javaOperation.callable.call( this, javaOperation, message );
 	}
 
+	/**
+	 * Returns <code>true</code> if invoking the operation requested by a message does not block,
+	 * because the operation replies asynchronously. Such operations can be invoked directly by the
+	 * thread sending the message.
+	 */
+	public boolean isNonBlocking( CommMessage message ) {
+		final JavaOperation javaOperation = operations.get( message.operationName() );
+		return javaOperation != null && javaOperation.nonBlocking;
+	}
+
 	public final void setInterpreter( Interpreter interpreter ) {
 		this.interpreter = interpreter;
 	}
@@ -0,0 +1,112 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A cache of compiled regular expressions, shared by the services of the runtime that evaluate
+ * patterns received in messages. Programs typically use a handful of constant patterns, so
+ * compiling each of them once saves a compilation per call.
+ *
+ * Lookups take no lock. The cache is bounded: when it grows beyond {@link #MAX_SIZE} patterns, the
+ * least recently used quarter of them is evicted, so that programs that build patterns dynamically
+ * neither make it grow indefinitely nor push out the patterns they use all the time. Patterns
+ * added by other threads while an eviction is in progress can exceed the bound until it ends.
+ *
+ * @author Fabrizio Montesi
+ */
+public final class PatternCache {
+	public static final int MAX_SIZE = 1024;
+	private static final int SIZE_AFTER_EVICTION = MAX_SIZE - MAX_SIZE / 4;
+
+	private static class Entry {
+		private final Pattern pattern;
+		private volatile long lastUse;
+
+		private Entry( Pattern pattern ) {
+			this.pattern = pattern;
+			this.lastUse = System.nanoTime();
+		}
+	}
+
+	private static final Map< String, Entry > PATTERNS = new ConcurrentHashMap<>();
+	private static final AtomicBoolean EVICTING = new AtomicBoolean( false );
+
+	private PatternCache() {}
+
+	// Visible for testing
+	static int size() {
+		return PATTERNS.size();
+	}
+
+	/**
+	 * Returns the compiled form of a regular expression.
+	 *
+	 * @param regex the regular expression
+	 * @return the compiled pattern
+	 * @throws PatternSyntaxException if the regular expression is not valid
+	 */
+	public static Pattern get( String regex ) {
+		Entry entry = PATTERNS.get( regex );
+		if( entry == null ) {
+			// Compile outside of the map, so that a complex pattern does not stall the other callers
+			final Entry compiled = new Entry( Pattern.compile( regex ) );
+			entry = PATTERNS.putIfAbsent( regex, compiled );
+			if( entry == null ) {
+				if( PATTERNS.size() > MAX_SIZE ) {
+					evict();
+				}
+				return compiled.pattern;
+			}
+		}
+		entry.lastUse = System.nanoTime();
+		return entry.pattern;
+	}
+
+	/*
+	 * Only one thread evicts at a time: the others go on, and the evicting thread checks again when it
+	 * is done, so that patterns added in the meantime cannot leave the cache above its bound.
+	 */
+	private static void evict() {
+		do {
+			if( !EVICTING.compareAndSet( false, true ) ) {
+				return;
+			}
+			try {
+				final long[] uses = PATTERNS.values().stream().mapToLong( entry -> entry.lastUse ).toArray();
+				if( uses.length > SIZE_AFTER_EVICTION ) {
+					Arrays.sort( uses );
+					final long oldestKept = uses[ uses.length - SIZE_AFTER_EVICTION ];
+					PATTERNS.values().removeIf( entry -> entry.lastUse < oldestKept );
+				}
+			} finally {
+				EVICTING.set( false );
+			}
+		} while( PATTERNS.size() > MAX_SIZE );
+	}
+}
@@ -27,6 +27,9 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -102,6 +105,11 @@ class ValueLink extends Value implements Cloneable {
 		return getLinkedValue().children();
 	}
 
+	@Override
+	Map< String, ValueVector > childrenOrNull() {
+		return getLinkedValue().childrenOrNull();
+	}
+
 	@Override
 	public Object valueObject() {
 		return getLinkedValue().valueObject();
@@ -121,6 +129,11 @@ class ValueLink extends Value implements Cloneable {
 	public boolean isEqualTo( Value v ) {
 		return this.getLinkedValue().isEqualTo( v );
 	}
+
+	@Override
+	public EncodedValue encodedValue() {
+		return getLinkedValue().encodedValue();
+	}
 }
 
 
@@ -192,7 +205,6 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 
 		if( value.hasChildren() ) {
 			int i;
-			ValueImpl newValue;
 			Map< String, ValueVector > myChildren = children();
 			for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
 				if( copyLinks && entry.getValue().isLink() ) {
@@ -205,9 +217,7 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 						if( copyLinks && v.isLink() ) {
 							vec.set( i, ((ValueLink) v).clone() );
 						} else {
-							newValue = (v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl());
-							newValue._deepCopy( v, copyLinks );
-							vec.set( i, newValue );
+							vec.set( i, ValueImpl.deepCopyOf( v, copyLinks ) );
 						}
 						i++;
 					}
@@ -220,6 +230,20 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 		return children.computeIfAbsent( childId, k -> ValueVector.create() );
 	}
 
+	/*
+	 * Values that still have their received encoding are copied by sharing it, so that copying them
+	 * (e.g., to send them) does not decode them.
+	 */
+	static ValueImpl deepCopyOf( Value value, boolean copyLinks ) {
+		final EncodedValue encoded = value.encodedValue();
+		if( encoded != null ) {
+			return new LazyValueImpl( encoded );
+		}
+		final ValueImpl ret = value.isUsedInCorrelation() ? new CSetValue() : new ValueImpl();
+		ret._deepCopy( value, copyLinks );
+		return ret;
+	}
+
 	private final static int INITIAL_CAPACITY = 8;
 	private final static float LOAD_FACTOR = 0.75f;
 
@@ -230,6 +254,11 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 		return children.get();
 	}
 
+	@Override
+	Map< String, ValueVector > childrenOrNull() {
+		return children.get();
+	}
+
 	@Override
 	public Object valueObject() {
 		return valueObject;
@@ -296,6 +325,11 @@ class RootValueImpl extends Value implements Cloneable {
 		return children;
 	}
 
+	@Override
+	Map< String, ValueVector > childrenOrNull() {
+		return children;
+	}
+
 	@Override
 	public boolean hasChildren() {
 		return children.isEmpty() == false;
@@ -310,7 +344,6 @@ class RootValueImpl extends Value implements Cloneable {
 	protected void _deepCopy( Value value, boolean copyLinks ) {
 		if( value.hasChildren() ) {
 			int i;
-			ValueImpl newValue;
 			for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
 				if( copyLinks && entry.getValue().isLink() ) {
 					children.put( entry.getKey(), ValueVector.createClone( entry.getValue() ) );
@@ -322,9 +355,7 @@ class RootValueImpl extends Value implements Cloneable {
 						if( copyLinks && v.isLink() ) {
 							vec.set( i, ((ValueLink) v).clone() );
 						} else {
-							newValue = (v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl());
-							newValue._deepCopy( v, copyLinks );
-							vec.set( i, newValue );
+							vec.set( i, ValueImpl.deepCopyOf( v, copyLinks ) );
 						}
 						i++;
 					}
@@ -376,6 +407,172 @@ class CSetValue extends ValueImpl {
 }
 
 
+/**
+ * A value that decodes its content from an {@link EncodedValue} only when it is accessed. The
+ * encoding is forgotten as soon as the value is changed, so that {@link #encodedValue()} only
+ * returns encodings that still describe this value. Changes made through the children map are
+ * found by comparing the children with the ones that were decoded, which are remembered for this.
+ */
+class LazyValueImpl extends ValueImpl {
+	private static final long serialVersionUID = Constants.serialVersionUID();
+
+	private transient volatile EncodedValue encoded;
+	private transient volatile boolean changed = false;
+	private transient volatile boolean valueObjectDecoded = false;
+	private transient volatile boolean childrenDecoded = false;
+	private transient Map< String, List< Value > > decodedChildren = null;
+	private transient int decodedVectors = 0;
+
+	LazyValueImpl( EncodedValue encoded ) {
+		this.encoded = encoded;
+	}
+
+	private synchronized void decodeValueObject() {
+		if( !valueObjectDecoded ) {
+			super.setValueObject( encoded.decodeValueObject() );
+			valueObjectDecoded = true;
+			releaseEncoding();
+		}
+	}
+
+	private synchronized void decodeChildren() {
+		if( !childrenDecoded ) {
+			final Map< String, ValueVector > children = super.children();
+			encoded.decodeChildren( children );
+			decodedChildren = new HashMap<>();
+			children.forEach( ( name, vector ) -> {
+				final List< Value > values = vector.valuesCopy();
+				decodedChildren.put( name, values );
+				if( !values.isEmpty() ) {
+					decodedVectors++;
+				}
+			} );
+			childrenDecoded = true;
+			releaseEncoding();
+		}
+	}
+
+	private synchronized void markChanged( boolean discardContent ) {
+		if( discardContent ) {
+			valueObjectDecoded = true;
+			childrenDecoded = true;
+		}
+		changed = true;
+		releaseEncoding();
+	}
+
+	// Called with the lock held: a changed value needs its encoding only for what is still to decode
+	private void releaseEncoding() {
+		if( changed && valueObjectDecoded && childrenDecoded ) {
+			encoded = null;
+			decodedChildren = null;
+		}
+	}
+
+	// Called with the lock held. Vectors that are empty are not compared, since reading a child that
+	// does not exist creates one.
+	private boolean childrenChanged() {
+		final Map< String, ValueVector > children = super.childrenOrNull();
+		int vectors = 0;
+		if( children != null ) {
+			for( Entry< String, ValueVector > entry : children.entrySet() ) {
+				final List< Value > values = entry.getValue().valuesCopy();
+				if( values.isEmpty() ) {
+					continue;
+				}
+				final List< Value > decoded = decodedChildren.get( entry.getKey() );
+				if( decoded == null || decoded.size() != values.size() ) {
+					return true;
+				}
+				for( int i = 0; i < values.size(); i++ ) {
+					if( values.get( i ) != decoded.get( i ) || values.get( i ).encodedValue() == null ) {
+						return true;
+					}
+				}
+				vectors++;
+			}
+		}
+		return vectors != decodedVectors;
+	}
+
+	@Override
+	public Object valueObject() {
+		if( !valueObjectDecoded ) {
+			decodeValueObject();
+		}
+		return super.valueObject();
+	}
+
+	@Override
+	public synchronized void setValueObject( Object object ) {
+		super.setValueObject( object );
+		valueObjectDecoded = true;
+		markChanged( false );
+	}
+
+	@Override
+	public Map< String, ValueVector > children() {
+		if( !childrenDecoded ) {
+			decodeChildren();
+		}
+		return super.children();
+	}
+
+	@Override
+	Map< String, ValueVector > childrenOrNull() {
+		if( !childrenDecoded ) {
+			decodeChildren();
+		}
+		final Map< String, ValueVector > children = super.childrenOrNull();
+		return children == null ? null : Collections.unmodifiableMap( children );
+	}
+
+	@Override
+	public boolean hasChildren() {
+		synchronized( this ) {
+			if( !childrenDecoded ) {
+				return encoded.hasChildren();
+			}
+		}
+		return super.hasChildren();
+	}
+
+	@Override
+	public boolean hasChildren( String childId ) {
+		if( !childrenDecoded ) {
+			decodeChildren();
+		}
+		return super.hasChildren( childId );
+	}
+
+	@Override
+	public void erase() {
+		markChanged( true );
+		super.erase();
+	}
+
+	@Override
+	protected void _refCopy( Value value ) {
+		markChanged( true );
+		super._refCopy( value );
+	}
+
+	@Override
+	public synchronized EncodedValue encodedValue() {
+		if( !changed && childrenDecoded && childrenChanged() ) {
+			markChanged( false );
+		}
+		return changed ? null : encoded;
+	}
+
+	private Object writeReplace() {
+		final ValueImpl ret = new ValueImpl();
+		ret._deepCopy( this, false );
+		return ret;
+	}
+}
+
+
 /**
  * Handles JOLIE internal data representation.
  * 
@@ -407,6 +604,14 @@ public abstract class Value implements Expression, Cloneable {
 		return new CSetValue();
 	}
 
+	/**
+	 * Creates a value that decodes the given encoding only when (and as far as) its content is
+	 * accessed.
+	 */
+	public static Value createLazy( EncodedValue encoded ) {
+		return new LazyValueImpl( encoded );
+	}
+
 	public static Value create( Boolean bool ) {
 		return new ValueImpl( bool );
 	}
@@ -440,6 +645,9 @@ public abstract class Value implements Expression, Cloneable {
 	}
 
 	public static Value createDeepCopy( Value value ) {
+		if( value.encodedValue() != null ) {
+			return ValueImpl.deepCopyOf( value, false );
+		}
 		Value ret = Value.create();
 		ret.deepCopy( value );
 		return ret;
@@ -473,6 +681,13 @@ public abstract class Value implements Expression, Cloneable {
 
 	public abstract Map< String, ValueVector > children();
 
+	/**
+	 * Returns the children map of this value, or <code>null</code> if it has not been created. Unlike
+	 * {@link #children()}, this neither creates the map nor counts as a possible change of the value,
+	 * so it is meant for walks that only read the tree.
+	 */
+	abstract Map< String, ValueVector > childrenOrNull();
+
 	public abstract Object valueObject();
 
 	protected abstract void setValueObject( Object object );
@@ -485,6 +700,14 @@ public abstract class Value implements Expression, Cloneable {
 
 	public abstract boolean isEqualTo( Value v );
 
+	/**
+	 * Returns the encoding this value has been created from with {@link #createLazy(EncodedValue)}, or
+	 * <code>null</code> if this value has not been created lazily or might have changed since.
+	 */
+	public EncodedValue encodedValue() {
+		return null;
+	}
+
 	public final < V > V firstChildOrCompute( String childId, Function< ? super Value, ? extends V > mappingFunction,
 		Function< ? super String, ? extends V > defaultMappingFunction ) {
 		if( hasChildren( childId ) ) {
@@ -549,7 +772,7 @@ public abstract class Value implements Expression, Cloneable {
 		setValueObject( object );
 	}
 
-	public final synchronized boolean equals( Value val ) {
+	public final boolean equals( Value val ) {
 		boolean r = false;
 		if( val.isDefined() ) {
 			if( isByteArray() ) {
@@ -574,6 +797,82 @@ public abstract class Value implements Expression, Cloneable {
 		return r;
 	}
 
+	/**
+	 * Returns <code>true</code> if this value and the given one are equal trees: their root values are
+	 * equal and of the same type, and they have the same children, with structurally equal elements in
+	 * the same order. Children with no elements are ignored.
+	 *
+	 * @param other the value to compare with
+	 * @see #structuralHashCode()
+	 */
+	public final boolean structurallyEquals( Value other ) {
+		if( this == other ) {
+			return true;
+		}
+		if( !valueObjectEquals( valueObject(), other.valueObject() ) ) {
+			return false;
+		}
+		final Map< String, ValueVector > children = childrenOrNull();
+		final Map< String, ValueVector > otherChildren = other.childrenOrNull();
+		int size = 0;
+		if( children != null ) {
+			for( Entry< String, ValueVector > child : children.entrySet() ) {
+				if( !child.getValue().isEmpty() ) {
+					final ValueVector otherChild = otherChildren == null ? null : otherChildren.get( child.getKey() );
+					if( otherChild == null || !child.getValue().structurallyEquals( otherChild ) ) {
+						return false;
+					}
+					size++;
+				}
+			}
+		}
+		return size == nonEmptyCount( otherChildren );
+	}
+
+	/**
+	 * Returns a hash code of this value and of its whole sub-tree, consistent with
+	 * {@link #structurallyEquals(Value)}.
+	 */
+	public final int structuralHashCode() {
+		int hash = valueObjectHashCode( valueObject() );
+		final Map< String, ValueVector > children = childrenOrNull();
+		if( children != null ) {
+			for( Entry< String, ValueVector > child : children.entrySet() ) {
+				if( !child.getValue().isEmpty() ) {
+					// children are unordered, so their hashes are combined with a commutative operation
+					hash += child.getKey().hashCode() ^ child.getValue().structuralHashCode();
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static int nonEmptyCount( Map< String, ValueVector > children ) {
+		int size = 0;
+		if( children != null ) {
+			for( ValueVector vector : children.values() ) {
+				if( !vector.isEmpty() ) {
+					size++;
+				}
+			}
+		}
+		return size;
+	}
+
+	private static boolean valueObjectEquals( Object a, Object b ) {
+		if( a instanceof ByteArray ) {
+			return b instanceof ByteArray && ((ByteArray) a).equals( (ByteArray) b );
+		}
+		return a == null ? b == null : a.equals( b );
+	}
+
+	private static int valueObjectHashCode( Object object ) {
+		if( object instanceof ByteArray ) {
+			return Arrays.hashCode( ((ByteArray) object).getBytes() );
+		}
+		return object == null ? 0 : object.hashCode();
+	}
+
 	public final boolean isInt() {
 		return (valueObject() instanceof Integer);
 	}
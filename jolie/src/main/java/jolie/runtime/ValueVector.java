@@ -205,6 +205,39 @@ public abstract class ValueVector implements Iterable< Value > {
 	}
 
 
+	/**
+	 * Returns <code>true</code> if the given vector has the same size as this one and its elements are
+	 * structurally equal to the elements of this vector in the same positions.
+	 *
+	 * @see Value#structurallyEquals(Value)
+	 */
+	public final boolean structurallyEquals( ValueVector other ) {
+		final int size = size();
+		if( size != other.size() ) {
+			return false;
+		}
+		for( int i = 0; i < size; i++ ) {
+			if( !get( i ).structurallyEquals( other.get( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash code of the elements of this vector, consistent with
+	 * {@link #structurallyEquals(ValueVector)}.
+	 *
+	 * @see Value#structuralHashCode()
+	 */
+	public final int structuralHashCode() {
+		int hash = 1;
+		for( int i = 0; i < size(); i++ ) {
+			hash = 31 * hash + get( i ).structuralHashCode();
+		}
+		return hash;
+	}
+
 	protected abstract List< Value > values();
 
 	public abstract boolean isLink();
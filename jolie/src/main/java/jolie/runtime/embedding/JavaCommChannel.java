@@ -78,17 +78,31 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 		final CompletableFuture< CommMessage > f = new CompletableFuture<>();
 		messages.put( message.requestId(), f );
 
-		final ExecutionThread ethread = ExecutionThread.currentThread();
-		Interpreter.getInstance().commCore().executor().submit( () -> {
-			CommChannelHandler.currentThread().setExecutionThread( ethread );
-			Thread.currentThread().setContextClassLoader( ethread.interpreter().getClassLoader() );
-			try {
-				final CommMessage response = javaService.callOperation( message );
-				f.complete( response );
-			} catch( IllegalAccessException | InvalidIdException e ) {
-				f.completeExceptionally( new IOException( e ) );
-			}
-		} );
+		if( javaService.isNonBlocking( message ) ) {
+			// Asynchronous operations return immediately, so they are invoked right away
+			call( message, f );
+		} else {
+			final ExecutionThread ethread = ExecutionThread.currentThread();
+			Interpreter.getInstance().commCore().executor().submit( () -> {
+				CommChannelHandler.currentThread().setExecutionThread( ethread );
+				Thread.currentThread().setContextClassLoader( ethread.interpreter().getClassLoader() );
+				call( message, f );
+			} );
+		}
+	}
+
+	private void call( CommMessage message, CompletableFuture< CommMessage > f ) {
+		try {
+			javaService.callOperationAsync( message ).whenComplete( ( response, error ) -> {
+				if( error == null ) {
+					f.complete( response );
+				} else {
+					f.completeExceptionally( new IOException( error ) );
+				}
+			} );
+		} catch( IllegalAccessException | InvalidIdException e ) {
+			f.completeExceptionally( new IOException( e ) );
+		}
 	}
 
 	@Override
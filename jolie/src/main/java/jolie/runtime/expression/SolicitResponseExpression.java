@@ -23,7 +23,9 @@ package jolie.runtime.expression;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -33,6 +35,8 @@ import jolie.lang.Constants;
 import jolie.lang.parse.context.ParsingContext;
 import jolie.monitoring.events.OperationCallEvent;
 import jolie.monitoring.events.OperationReplyEvent;
+import jolie.monitoring.metrics.Histogram;
+import jolie.monitoring.tracing.Span;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.net.ports.OutputPort;
@@ -53,6 +57,7 @@ public class SolicitResponseExpression implements Expression {
 	private final RequestResponseTypeDescription types;
 	private final ParsingContext context;
 	private final VariablePath inputVarPath; // may be null
+	private volatile Histogram duration = null;
 
 	public SolicitResponseExpression(
 		String operationId,
@@ -93,6 +98,21 @@ public class SolicitResponseExpression implements Expression {
 			context );
 	}
 
+	/*
+	 * Resolved on first use, since the output port and the operation do not change. Resolving it
+	 * concurrently is harmless, since the registry returns the same histogram.
+	 */
+	private Histogram duration() {
+		Histogram ret = duration;
+		if( ret == null ) {
+			ret = Interpreter.getInstance().metrics().histogram( "jolie_solicit_response_duration_seconds",
+				"Time from the sending of a request to the reception of its response, by output port and operation",
+				"port", outputPort.id(), "operation", operationId );
+			duration = ret;
+		}
+		return ret;
+	}
+
 	private void log( String log, CommMessage message ) {
 		final Tracer tracer = Interpreter.getInstance().tracer();
 		tracer.trace( () -> new MessageTraceAction(
@@ -103,12 +123,201 @@ public class SolicitResponseExpression implements Expression {
 			context ) );
 	}
 
+	/**
+	 * A solicit-response whose request has been sent, waiting for its response.
+	 */
+	public final class Call {
+		private final CommMessage message; // null if the response was cached
+		private final CommChannel channel;
+		private final Span span;
+		private final long startTime;
+		private final Value cachedResponse;
+		private Future< CommMessage > responseFuture;
+
+		private Call( CommMessage message, CommChannel channel, Span span, long startTime )
+			throws IOException {
+			this.message = message;
+			this.channel = channel;
+			this.span = span;
+			this.startTime = startTime;
+			this.cachedResponse = null;
+			this.responseFuture = channel.recvResponseFor( message );
+		}
+
+		private Call( Value cachedResponse ) {
+			this.message = null;
+			this.channel = null;
+			this.span = null;
+			this.startTime = 0;
+			this.cachedResponse = cachedResponse;
+			this.responseFuture = null;
+		}
+
+		/**
+		 * Returns a future that is completed when the response is received or times out, so that the caller
+		 * can wait for it without blocking a thread. Returns <code>null</code> if {@link #receive()} can be
+		 * called right away, or if the channel does not support waiting for its responses asynchronously.
+		 */
+		public CompletableFuture< ? > pendingResponse() {
+			if( responseFuture == null || responseFuture.isDone()
+				|| !(responseFuture instanceof CompletableFuture) ) {
+				return null;
+			}
+			responseFuture = ((CompletableFuture< CommMessage >) responseFuture).copy()
+				.orTimeout( Interpreter.getInstance().responseTimeout(), TimeUnit.MILLISECONDS );
+			return (CompletableFuture< ? >) responseFuture;
+		}
+
+		/**
+		 * Receives the response, blocking until it is available.
+		 *
+		 * @return the value of the response
+		 */
+		public Value receive()
+			throws FaultException.RuntimeFaultException {
+			if( message == null ) {
+				return cachedResponse;
+			}
+
+			CommMessage response = null;
+			try {
+				do {
+					try {
+						response =
+							responseFuture.get( Interpreter.getInstance().responseTimeout(), TimeUnit.MILLISECONDS );
+					} catch( InterruptedException e ) {
+						throw new IOException( e );
+					} catch( ExecutionException e ) {
+						if( e.getCause() instanceof TimeoutException ) { // Timed out while we were suspended
+							throw (TimeoutException) e.getCause();
+						} else if( e.getCause() instanceof IOException ) {
+							throw (IOException) e.getCause();
+						} else {
+							throw new IOException( e.getCause() );
+						}
+					}
+					if( response == null ) {
+						responseFuture = channel.recvResponseFor( message );
+					}
+				} while( response == null );
+				log( "RECEIVED", response );
+				duration().recordSince( startTime );
+
+				if( inputVarPath != null ) {
+					inputVarPath.setValue( response.value() );
+				}
+
+				if( response.isFault() ) {
+					span.setError( response.fault().faultName() );
+					Type faultType = types.getFaultType( response.fault().faultName() );
+					if( faultType != null ) {
+						try {
+							faultType.check( response.fault().value() );
+							if( Interpreter.getInstance().isMonitoring() ) {
+								Interpreter.getInstance()
+									.fireMonitorEvent( new OperationReplyEvent( operationId,
+										ExecutionThread.currentThread().getSessionId(),
+										Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
+										response.fault().faultName(), outputPort.id(), response.fault().value(),
+										Long.toString( response.id() ) ) );
+							}
+						} catch( TypeCheckingException e ) {
+							span.setError( Constants.TYPE_MISMATCH_FAULT_NAME );
+							if( Interpreter.getInstance().isMonitoring() ) {
+								Interpreter.getInstance()
+									.fireMonitorEvent( new OperationReplyEvent( operationId,
+										ExecutionThread.currentThread().getSessionId(),
+										Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
+										"TypeMismatch on fault:" + response.fault().faultName() + "." + e.getMessage(),
+										outputPort.id(), response.fault().value(),
+										Long.toString( response.id() ) ) );
+							}
+							throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME,
+								"Received fault " + response.fault().faultName() + " TypeMismatch (" + operationId + "@"
+									+ outputPort.id() + "): " + e.getMessage() ).toRuntimeFaultException();
+						}
+					} else {
+						if( Interpreter.getInstance().isMonitoring() ) {
+							Interpreter.getInstance().fireMonitorEvent(
+								new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(),
+									Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
+									response.fault().faultName(), outputPort.id(), response.fault().value(),
+									Long.toString( response.id() ) ) );
+						}
+					}
+					throw response.fault();
+				} else {
+					if( types.responseType() != null ) {
+						try {
+							types.responseType().check( response.value() );
+							if( Interpreter.getInstance().isMonitoring() ) {
+								Interpreter.getInstance()
+									.fireMonitorEvent( new OperationReplyEvent( operationId,
+										ExecutionThread.currentThread().getSessionId(),
+										Long.toString( response.requestId() ), OperationReplyEvent.SUCCESS, "",
+										outputPort.id(), response.value(),
+										Long.toString( response.id() ) ) );
+							}
+						} catch( TypeCheckingException e ) {
+							span.setError( Constants.TYPE_MISMATCH_FAULT_NAME );
+							if( Interpreter.getInstance().isMonitoring() ) {
+								Interpreter.getInstance()
+									.fireMonitorEvent( new OperationReplyEvent( operationId,
+										ExecutionThread.currentThread().getSessionId(),
+										Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
+										e.getMessage(),
+										outputPort.id(), response.value(),
+										Long.toString( response.id() ) ) );
+							}
+							throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME,
+								"Received message TypeMismatch ("
+									+ operationId + "@" + outputPort.id() + "): " + e.getMessage() )
+										.toRuntimeFaultException();
+						}
+					} else {
+						if( Interpreter.getInstance().isMonitoring() ) {
+							Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId,
+								ExecutionThread.currentThread().getSessionId(), Long.toString( response.requestId() ),
+								OperationReplyEvent.SUCCESS, "", outputPort.id(), response.value(),
+								Long.toString( response.id() ) ) );
+						}
+					}
+					outputPort.responseCache().put( outputPort.protocolConfigurationPath().getValue(), operationId,
+						outputPort.locationVariablePath().getValue(), message.value(), response.value() );
+				}
+			} catch( TimeoutException e ) { // The response timed out
+				span.setError( Constants.TIMEOUT_EXCEPTION_FAULT_NAME );
+				throw new FaultException( Constants.TIMEOUT_EXCEPTION_FAULT_NAME ).toRuntimeFaultException();
+			} catch( IOException e ) {
+				span.setError( Constants.IO_EXCEPTION_FAULT_NAME );
+				throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ).toRuntimeFaultException();
+			} catch( FaultException e ) {
+				throw e.toRuntimeFaultException();
+			} finally {
+				span.end();
+				releaseChannel( channel );
+			}
+
+			return response.value();
+		}
+	}
 
 	@Override
 	public Value evaluate()
+		throws FaultException.RuntimeFaultException {
+		return send().receive();
+	}
+
+	/**
+	 * Sends the request of this solicit-response.
+	 *
+	 * @return the call waiting for the response
+	 */
+	public Call send()
 		throws FaultException.RuntimeFaultException {
 		CommChannel channel = null;
-		CommMessage response = null;
+		Span span = null;
+		boolean sent = false;
 		try {
 			CommMessage message =
 				CommMessage.createRequest(
@@ -139,6 +348,31 @@ public class SolicitResponseExpression implements Expression {
 				}
 			}
 
+			final Value cachedResponse = outputPort.responseCache().get(
+				outputPort.protocolConfigurationPath().getValue(), operationId,
+				outputPort.locationVariablePath().getValue(), message.value() );
+			if( cachedResponse != null ) {
+				// cached responses have already been type checked when they were received
+				log( "CACHE HIT", message );
+				if( inputVarPath != null ) {
+					inputVarPath.setValue( cachedResponse );
+				}
+				return new Call( cachedResponse );
+			}
+
+			final ExecutionThread ethread = ExecutionThread.currentThread();
+			span = Span.start( operationId, Span.Kind.CLIENT, ethread == null ? null : ethread.traceContext() );
+			if( span.isRecording() ) {
+				span.putAttribute( "rpc.system", "jolie" ).putAttribute( "rpc.method", operationId )
+					.putAttribute( "jolie.output_port", outputPort.id() );
+				final Value location = outputPort.locationVariablePath().getValue();
+				if( location.isString() ) {
+					span.putAttribute( "server.address", location.strValue() );
+				}
+			}
+			message.setTraceContext( span.context() );
+
+			final long startTime = System.nanoTime();
 			channel = outputPort.getCommChannel();
 			channel.send( message );
 			// channel.release(); TODO release channel if possible (i.e. it will not be closed)
@@ -151,100 +385,14 @@ public class SolicitResponseExpression implements Expression {
 						Long.toString( message.id() ) ) );
 			}
 
-			do {
-				try {
-					response = channel.recvResponseFor( message ).get( Interpreter.getInstance().responseTimeout(),
-						TimeUnit.MILLISECONDS );
-				} catch( InterruptedException e ) {
-					throw new IOException( e );
-				} catch( ExecutionException e ) {
-					if( e.getCause() instanceof IOException ) {
-						throw (IOException) e.getCause();
-					} else {
-						throw new IOException( e.getCause() );
-					}
-				}
-			} while( response == null );
-			log( "RECEIVED", response );
-
-			if( inputVarPath != null ) {
-				inputVarPath.setValue( response.value() );
-			}
 
-			if( response.isFault() ) {
-				Type faultType = types.getFaultType( response.fault().faultName() );
-				if( faultType != null ) {
-					try {
-						faultType.check( response.fault().value() );
-						if( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance()
-								.fireMonitorEvent( new OperationReplyEvent( operationId,
-									ExecutionThread.currentThread().getSessionId(),
-									Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
-									response.fault().faultName(), outputPort.id(), response.fault().value(),
-									Long.toString( response.id() ) ) );
-						}
-					} catch( TypeCheckingException e ) {
-						if( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance()
-								.fireMonitorEvent( new OperationReplyEvent( operationId,
-									ExecutionThread.currentThread().getSessionId(),
-									Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
-									"TypeMismatch on fault:" + response.fault().faultName() + "." + e.getMessage(),
-									outputPort.id(), response.fault().value(),
-									Long.toString( response.id() ) ) );
-						}
-						throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME,
-							"Received fault " + response.fault().faultName() + " TypeMismatch (" + operationId + "@"
-								+ outputPort.id() + "): " + e.getMessage() ).toRuntimeFaultException();
-					}
-				} else {
-					if( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent(
-							new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(),
-								Long.toString( response.requestId() ), OperationReplyEvent.FAULT,
-								response.fault().faultName(), outputPort.id(), response.fault().value(),
-								Long.toString( response.id() ) ) );
-					}
-				}
-				throw response.fault();
-			} else {
-				if( types.responseType() != null ) {
-					try {
-						types.responseType().check( response.value() );
-						if( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance()
-								.fireMonitorEvent( new OperationReplyEvent( operationId,
-									ExecutionThread.currentThread().getSessionId(),
-									Long.toString( response.requestId() ), OperationReplyEvent.SUCCESS, "",
-									outputPort.id(), response.value(),
-									Long.toString( response.id() ) ) );
-						}
-					} catch( TypeCheckingException e ) {
-						if( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance()
-								.fireMonitorEvent( new OperationReplyEvent( operationId,
-									ExecutionThread.currentThread().getSessionId(),
-									Long.toString( response.requestId() ), OperationReplyEvent.FAULT, e.getMessage(),
-									outputPort.id(), response.value(),
-									Long.toString( response.id() ) ) );
-						}
-						throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Received message TypeMismatch ("
-							+ operationId + "@" + outputPort.id() + "): " + e.getMessage() ).toRuntimeFaultException();
-					}
-				} else {
-					if( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId,
-							ExecutionThread.currentThread().getSessionId(), Long.toString( response.requestId() ),
-							OperationReplyEvent.SUCCESS, "", outputPort.id(), response.value(),
-							Long.toString( response.id() ) ) );
-					}
-				}
-			}
-
-		} catch( TimeoutException e ) { // The response timed out
-			throw new FaultException( Constants.TIMEOUT_EXCEPTION_FAULT_NAME ).toRuntimeFaultException();
+			final Call call = new Call( message, channel, span, startTime );
+			sent = true;
+			return call;
 		} catch( IOException e ) {
+			if( span != null ) {
+				span.setError( Constants.IO_EXCEPTION_FAULT_NAME );
+			}
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e ).toRuntimeFaultException();
 		} catch( URISyntaxException e ) {
 			Interpreter.getInstance().logSevere( e );
@@ -252,21 +400,25 @@ public class SolicitResponseExpression implements Expression {
 			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME,
 				"Output message TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() )
 					.toRuntimeFaultException();
-		} catch( FaultException e ) {
-			throw e.toRuntimeFaultException();
 		} finally {
-			if( channel != null ) {
-				try {
-					channel.release();
-				} catch( IOException e ) {
-					Interpreter.getInstance().logWarning( e );
+			if( !sent ) {
+				if( span != null ) {
+					span.end();
 				}
+				releaseChannel( channel );
 			}
 		}
 
-		if( response == null ) {
-			throw new AssertionError( "The value returned by a solicit-response expression should never be null" );
+		throw new AssertionError( "The value returned by a solicit-response expression should never be null" );
+	}
+
+	private static void releaseChannel( CommChannel channel ) {
+		if( channel != null ) {
+			try {
+				channel.release();
+			} catch( IOException e ) {
+				Interpreter.getInstance().logWarning( e );
+			}
 		}
-		return response.value();
 	}
 }
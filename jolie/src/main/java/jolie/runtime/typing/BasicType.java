@@ -81,6 +81,21 @@ public class BasicType< T extends Object > {
 		return nativeType;
 	}
 
+	boolean isValid( Value value ) {
+		if( !nativeTypePredicate.test( value ) ) {
+			return false;
+		}
+		if( !refinements.isEmpty() ) {
+			T nativeValue = mapper.apply( value );
+			for( BasicTypeRefinement< T > refinement : refinements ) {
+				if( !refinement.checkValue( nativeValue ) ) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	public void check( Value value, Supplier< String > pathSupplier )
 		throws TypeCheckingException {
 		if( !nativeTypePredicate.test( value ) ) {
@@ -28,14 +28,17 @@ import jolie.runtime.ValueVector;
 import jolie.util.Range;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 
 class TypeImpl extends Type {
 	private final Range cardinality;
 	private final BasicType< ? > basicType;
 	private final Map< String, Type > subTypes;
+	private final int requiredSubTypes; // the number of sub types that must be present
 
 	public TypeImpl(
 		BasicType< ? > basicType,
@@ -45,6 +48,8 @@ class TypeImpl extends Type {
 		this.basicType = basicType;
 		this.cardinality = cardinality;
 		this.subTypes = undefinedSubTypes ? null : subTypes;
+		this.requiredSubTypes = this.subTypes == null ? 0
+			: (int) this.subTypes.values().stream().filter( t -> t.cardinality().min() > 0 ).count();
 	}
 
 	@Override
@@ -74,13 +79,63 @@ class TypeImpl extends Type {
 		}
 	}
 
+	@Override
+	protected boolean isValid( Value value ) {
+		if( !basicType.isValid( value ) ) {
+			return false;
+		}
+		if( subTypes == null ) {
+			return true;
+		}
+
+		// A single pass over the children of the value finds unexpected nodes, checks cardinalities and
+		// counts the required nodes that are present
+		int required = 0;
+		if( value.hasChildren() ) {
+			for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
+				final Type type = subTypes.get( entry.getKey() );
+				if( type == null ) {
+					return false;
+				}
+				final ValueVector vector = entry.getValue();
+				final int size = vector.size();
+				if( type.cardinality().min() > size || type.cardinality().max() < size ) {
+					return false;
+				}
+				if( type.cardinality().min() > 0 ) {
+					required++;
+				}
+				for( Value v : vector ) {
+					if( !type.isValid( v ) ) {
+						return false;
+					}
+				}
+			}
+		}
+		return required == requiredSubTypes;
+	}
+
+	@Override
+	protected boolean containsChoice( Set< Type > visited ) {
+		if( subTypes != null && visited.add( this ) ) {
+			for( Type type : subTypes.values() ) {
+				if( type.containsChoice( visited ) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	@Override
 	protected Value cast( Value value, StringBuilder pathBuilder )
 		throws TypeCastingException {
 		castNativeType( value, pathBuilder );
 		if( subTypes != null ) {
+			final int l = pathBuilder.length();
 			for( Entry< String, Type > entry : subTypes.entrySet() ) {
-				castSubType( entry.getKey(), entry.getValue(), value, new StringBuilder( pathBuilder ) );
+				castSubType( entry.getKey(), entry.getValue(), value, pathBuilder );
+				pathBuilder.setLength( l );
 			}
 		}
 
@@ -105,20 +160,17 @@ class TypeImpl extends Type {
 						type.cardinality().min() + "," + type.cardinality().max() + "], found " + size );
 			}
 
+			final int l = pathBuilder.length();
 			for( Value v : vector ) {
 				type.cast( v, pathBuilder );
+				pathBuilder.setLength( l );
 			}
 		}
 	}
 
 	@Override
 	public Optional< Type > getMinimalType( Value value ) {
-		try {
-			check( value );
-			return Optional.of( this );
-		} catch( TypeCheckingException ex ) {
-			return Optional.empty();
-		}
+		return isValid( value ) ? Optional.of( this ) : Optional.empty();
 	}
 
 	@Override
@@ -133,11 +185,12 @@ class TypeImpl extends Type {
 				pathBuilder.setLength( l );
 			}
 
-			// TODO make this more performant
-			for( String childName : value.children().keySet() ) {
-				if( !subTypes.containsKey( childName ) ) {
-					throw new TypeCheckingException(
-						"Unexpected child node: " + pathBuilder.toString() + "." + childName );
+			if( value.hasChildren() ) {
+				for( String childName : value.children().keySet() ) {
+					if( !subTypes.containsKey( childName ) ) {
+						throw new TypeCheckingException(
+							"Unexpected child node: " + pathBuilder.toString() + "." + childName );
+					}
 				}
 			}
 		}
@@ -161,8 +214,10 @@ class TypeImpl extends Type {
 						type.cardinality().min() + "," + type.cardinality().max() + "], found " + size );
 			}
 
+			final int l = pathBuilder.length();
 			for( Value v : vector ) {
 				type.check( v, pathBuilder );
+				pathBuilder.setLength( l );
 			}
 		}
 	}
@@ -282,6 +337,16 @@ class TypeChoice extends Type {
 		}
 	}
 
+	@Override
+	protected boolean isValid( Value value ) {
+		return left.isValid( value ) || right.isValid( value );
+	}
+
+	@Override
+	protected boolean containsChoice( Set< Type > visited ) {
+		return true;
+	}
+
 	@Override
 	public Optional< Type > getMinimalType( Value value ) {
 		Optional< Type > leftType = left().getMinimalType( value );
@@ -319,6 +384,8 @@ class TypeChoice extends Type {
  * @author Fabrizio Montesi
  */
 public abstract class Type implements Cloneable {
+	private volatile Boolean choiceFree = null;
+
 	public static final Type UNDEFINED =
 		Type.create( BasicType.fromBasicTypeDefinition( BasicTypeDefinition.of( NativeType.ANY ) ),
 			new Range( 0, Integer.MAX_VALUE ), true, null );
@@ -405,16 +472,46 @@ public abstract class Type implements Cloneable {
 		return create( basicType, cardinality, false, subTypes );
 	}
 
+	/**
+	 * Checks that a value has this type. Values are first validated in a single pass that does not keep
+	 * track of paths; the path of the offending node is computed only if the value is invalid.
+	 */
 	public void check( Value value )
 		throws TypeCheckingException {
-		check( value, new StringBuilder( "#Message" ) );
+		if( !isValid( value ) ) {
+			check( value, new StringBuilder( "#Message" ) );
+		}
 	}
 
+	/**
+	 * Casts a value to this type. Values that already have this type are returned as they are, unless
+	 * the type contains choices: the left branch of a choice is preferred even if the value has the
+	 * type of the right branch.
+	 */
 	public Value cast( Value value )
 		throws TypeCastingException {
+		if( isChoiceFree() && isValid( value ) ) {
+			return value;
+		}
 		return cast( value, new StringBuilder( "#Message" ) );
 	}
 
+	// Computed on first use, when all type links have been resolved
+	private boolean isChoiceFree() {
+		Boolean b = choiceFree;
+		if( b == null ) {
+			b = !containsChoice( new HashSet<>() );
+			choiceFree = b;
+		}
+		return b;
+	}
+
+	/**
+	 * Returns <code>true</code> if this type or any of its sub types is a choice. Types in visited have
+	 * already been considered.
+	 */
+	protected abstract boolean containsChoice( Set< Type > visited );
+
 	public abstract Optional< Type > getMinimalType( Value value );
 
 	public abstract void cutChildrenFromValue( Value value );
@@ -423,6 +520,12 @@ public abstract class Type implements Cloneable {
 
 	public abstract Type findSubType( String key );
 
+	/**
+	 * Returns <code>true</code> if the value has this type. Equivalent to {@link #check(Value)} not
+	 * throwing, but cheaper.
+	 */
+	protected abstract boolean isValid( Value value );
+
 	protected abstract void check( Value value, StringBuilder pathBuilder )
 		throws TypeCheckingException;
 
@@ -462,6 +565,16 @@ public abstract class Type implements Cloneable {
 			return cardinality;
 		}
 
+		@Override
+		protected boolean isValid( Value value ) {
+			return linkedType.isValid( value );
+		}
+
+		@Override
+		protected boolean containsChoice( Set< Type > visited ) {
+			return linkedType.containsChoice( visited );
+		}
+
 		@Override
 		protected void check( Value value, StringBuilder pathBuilder )
 			throws TypeCheckingException {
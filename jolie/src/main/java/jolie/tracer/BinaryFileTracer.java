@@ -0,0 +1,239 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jolie.Interpreter;
+
+/**
+ * A {@link Tracer} that writes traces to files in a compact binary format, without blocking the
+ * traced threads on I/O.
+ *
+ * Every thread encodes its records in its own buffer. Full buffers are handed over to a background
+ * writer, which also collects partially filled buffers periodically. If the writer cannot keep up,
+ * buffers are dropped and a warning is logged when the tracer is closed. Files are rotated when
+ * they exceed a maximum size or age.
+ *
+ * Each file starts with the magic number {@link #MAGIC} and the format {@link #VERSION}, followed
+ * by a sequence of records (see {@link TraceRecord}). Since threads flush their buffers
+ * independently, records are not sorted by id. {@link TraceConverter} turns these files into the
+ * JSON files written by {@link FileTracer}.
+ *
+ * @author Fabrizio Montesi
+ */
+public class BinaryFileTracer implements Tracer {
+	public static final String FILE_EXTENSION = ".jolie.log.bin";
+	public static final int MAGIC = 0x4A545243; // "JTRC"
+	public static final int VERSION = 1;
+	public static final long DEFAULT_MAX_FILE_SIZE = 64L * 1024 * 1024; // bytes
+	public static final long DEFAULT_ROTATION_INTERVAL = 60L * 60 * 1000; // milliseconds
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_PENDING_BUFFERS = 256;
+	private static final long COLLECT_INTERVAL = 200L; // milliseconds
+
+	private static class ThreadBuffer {
+		private final Thread owner = Thread.currentThread();
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream( BUFFER_SIZE );
+		private final DataOutputStream output = new DataOutputStream( bytes );
+
+		private synchronized byte[] take() {
+			if( bytes.size() == 0 ) {
+				return null;
+			}
+			final byte[] ret = bytes.toByteArray();
+			bytes.reset();
+			return ret;
+		}
+	}
+
+	private final Interpreter interpreter;
+	private final TracerUtils.TracerLevels tracerLevels;
+	private final long maxFileSize;
+	private final long rotationInterval;
+	private final AtomicLong actionCounter = new AtomicLong( 0L );
+	private final AtomicLong droppedBuffers = new AtomicLong( 0L );
+	private final Queue< ThreadBuffer > threadBuffers = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal< ThreadBuffer > localBuffer = ThreadLocal.withInitial( () -> {
+		ThreadBuffer buffer = new ThreadBuffer();
+		threadBuffers.add( buffer );
+		return buffer;
+	} );
+	private final BlockingQueue< byte[] > pendingBuffers = new LinkedBlockingQueue<>( MAX_PENDING_BUFFERS );
+	private final Thread writerThread;
+	private volatile boolean closed = false;
+
+	// Only accessed by the writer thread
+	private BufferedOutputStream fileOutput = null;
+	private long fileSize = 0L;
+	private long fileCreationTime = 0L;
+
+	public BinaryFileTracer( Interpreter interpreter, TracerUtils.TracerLevels tLevel, long maxFileSize,
+		long rotationInterval ) {
+		this.interpreter = interpreter;
+		this.tracerLevels = tLevel;
+		this.maxFileSize = maxFileSize;
+		this.rotationInterval = rotationInterval;
+		this.writerThread = new Thread( this::runWriter, interpreter.programFilename() + "-tracer" );
+		writerThread.setDaemon( true );
+		writerThread.start();
+	}
+
+	public BinaryFileTracer( Interpreter interpreter, TracerUtils.TracerLevels tLevel ) {
+		this( interpreter, tLevel, DEFAULT_MAX_FILE_SIZE, DEFAULT_ROTATION_INTERVAL );
+	}
+
+	@Override
+	public void trace( Supplier< ? extends TraceAction > supplier ) {
+		if( closed ) {
+			return;
+		}
+		final TraceAction action = supplier.get();
+		final long id = actionCounter.incrementAndGet();
+		if( TraceRecord.isTraced( action, tracerLevels ) ) {
+			final TraceRecord record = TraceRecord.of( id, action, interpreter );
+			final ThreadBuffer buffer = localBuffer.get();
+			byte[] full = null;
+			synchronized( buffer ) {
+				try {
+					record.writeTo( buffer.output );
+				} catch( IOException e ) {
+				} // Should never happen
+				if( buffer.bytes.size() >= BUFFER_SIZE ) {
+					full = buffer.take();
+				}
+			}
+			if( full != null && !pendingBuffers.offer( full ) ) {
+				droppedBuffers.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			writerThread.join();
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		if( droppedBuffers.get() > 0 ) {
+			interpreter.logWarning( "Tracer could not keep up: " + droppedBuffers.get()
+				+ " trace buffers have been dropped" );
+		}
+	}
+
+	private void runWriter() {
+		long lastCollection = System.currentTimeMillis();
+		try {
+			while( !closed ) {
+				final byte[] bytes = pendingBuffers.poll( COLLECT_INTERVAL, TimeUnit.MILLISECONDS );
+				if( bytes != null ) {
+					write( bytes );
+				}
+				final long now = System.currentTimeMillis();
+				if( bytes == null || now - lastCollection >= COLLECT_INTERVAL ) {
+					collectThreadBuffers();
+					if( fileOutput != null ) {
+						fileOutput.flush();
+					}
+					lastCollection = now;
+				}
+			}
+			byte[] bytes;
+			while( (bytes = pendingBuffers.poll()) != null ) {
+				write( bytes );
+			}
+			collectThreadBuffers();
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		} catch( IOException e ) {
+			interpreter.logWarning( e );
+		} finally {
+			if( fileOutput != null ) {
+				try {
+					fileOutput.close();
+				} catch( IOException e ) {
+					interpreter.logWarning( e );
+				}
+			}
+		}
+	}
+
+	private void collectThreadBuffers()
+		throws IOException {
+		final Iterator< ThreadBuffer > it = threadBuffers.iterator();
+		while( it.hasNext() ) {
+			final ThreadBuffer buffer = it.next();
+			final byte[] bytes = buffer.take();
+			if( bytes != null ) {
+				write( bytes );
+			}
+			if( !buffer.owner.isAlive() ) {
+				it.remove();
+			}
+		}
+	}
+
+	private void write( byte[] bytes )
+		throws IOException {
+		final long now = System.currentTimeMillis();
+		if( fileOutput == null || fileSize >= maxFileSize || now - fileCreationTime >= rotationInterval ) {
+			rotate( now );
+		}
+		fileOutput.write( bytes );
+		fileSize += bytes.length;
+	}
+
+	private void rotate( long now )
+		throws IOException {
+		if( fileOutput != null ) {
+			fileOutput.close();
+		}
+		final String filename = new SimpleDateFormat( "ddMMyyyyHHmmssSSS" ).format( new Date( now ) );
+		File file = new File( filename + FILE_EXTENSION );
+		for( int i = 1; file.exists(); i++ ) {
+			file = new File( filename + "-" + i + FILE_EXTENSION );
+		}
+		fileOutput = new BufferedOutputStream( new FileOutputStream( file ), BUFFER_SIZE );
+		final DataOutputStream header = new DataOutputStream( fileOutput );
+		header.writeInt( MAGIC );
+		header.writeByte( VERSION );
+		fileSize = 5;
+		fileCreationTime = now;
+	}
+}
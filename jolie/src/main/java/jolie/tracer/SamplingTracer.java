@@ -0,0 +1,54 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Tracer} that passes only one action every <code>rate</code> actions to another tracer.
+ * Skipped actions are never created, so their cost is not paid.
+ *
+ * @author Fabrizio Montesi
+ */
+public class SamplingTracer implements Tracer {
+	private final Tracer tracer;
+	private final int rate;
+	private final AtomicLong counter = new AtomicLong( 0L );
+
+	public SamplingTracer( Tracer tracer, int rate ) {
+		this.tracer = tracer;
+		this.rate = rate;
+	}
+
+	@Override
+	public void trace( Supplier< ? extends TraceAction > supplier ) {
+		if( counter.getAndIncrement() % rate == 0 ) {
+			tracer.trace( supplier );
+		}
+	}
+
+	@Override
+	public void close() {
+		tracer.close();
+	}
+}
@@ -0,0 +1,107 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Converts trace files written by {@link BinaryFileTracer} to the JSON format written by
+ * {@link FileTracer}, which is the one read by jolietraceviewer. Records are sorted by id.
+ *
+ * Usage: <code>java -cp jolie.jar jolie.tracer.TraceConverter file.jolie.log.bin...</code>
+ *
+ * @author Fabrizio Montesi
+ */
+public class TraceConverter {
+	private TraceConverter() {}
+
+	/**
+	 * Converts a binary trace file to a JSON trace file.
+	 *
+	 * @param input the binary trace file
+	 * @param output the JSON trace file to write
+	 * @throws IOException if the input is not a valid binary trace file or an I/O error occurs
+	 */
+	public static void convert( File input, File output )
+		throws IOException {
+		final List< TraceRecord > records = new ArrayList<>();
+		try( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( input ) ) ) ) {
+			if( in.readInt() != BinaryFileTracer.MAGIC ) {
+				throw new IOException( input + " is not a binary trace file" );
+			}
+			final int version = in.readUnsignedByte();
+			if( version != BinaryFileTracer.VERSION ) {
+				throw new IOException( "Unsupported trace format version " + version + " in " + input );
+			}
+			while( true ) {
+				try {
+					records.add( TraceRecord.readFrom( in ) );
+				} catch( EOFException e ) {
+					break;
+				}
+			}
+		}
+
+		records.sort( Comparator.comparingLong( TraceRecord::id ) );
+		try( Writer writer = new BufferedWriter( new FileWriter( output ) ) ) {
+			final StringBuilder builder = new StringBuilder();
+			for( TraceRecord record : records ) {
+				builder.setLength( 0 );
+				record.appendJson( builder );
+				writer.write( builder.toString() );
+			}
+		}
+	}
+
+	public static void main( String[] args ) {
+		if( args.length == 0 ) {
+			System.err.println( "Usage: TraceConverter file" + BinaryFileTracer.FILE_EXTENSION + "..." );
+			System.exit( 1 );
+		}
+		for( String filename : args ) {
+			final File input = new File( filename );
+			String basename = input.getPath();
+			if( basename.endsWith( BinaryFileTracer.FILE_EXTENSION ) ) {
+				basename = basename.substring( 0, basename.length() - BinaryFileTracer.FILE_EXTENSION.length() );
+			}
+			final File output = new File( basename + ".jolie.log.json" );
+			try {
+				convert( input, output );
+				System.out.println( input + " -> " + output );
+			} catch( IOException e ) {
+				System.err.println( e.getMessage() );
+				System.exit( 2 );
+			}
+		}
+	}
+}
@@ -0,0 +1,323 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import jolie.Interpreter;
+import jolie.lang.parse.context.ParsingContext;
+import jolie.runtime.Value;
+import jolie.runtime.ValuePrettyPrinter;
+
+/**
+ * A trace entry in the format shared by {@link FileTracer} and {@link BinaryFileTracer}. A record
+ * can be written as a line of the JSON trace files read by jolietraceviewer, or in the compact
+ * binary encoding of {@link BinaryFileTracer}.
+ *
+ * @author Fabrizio Montesi
+ */
+final class TraceRecord {
+	private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+		DateTimeFormatter.ofPattern( "dd/MM/yyyy HH:mm:ss.SSS" ).withZone( ZoneId.systemDefault() );
+	private static final int PAYLOAD_BYTE_TRUNCATION = 50;
+
+	private final long id;
+	private final long timestamp;
+	private final String source;
+	private final String sourceName;
+	private final int line; // -1 if unknown
+	private final String kind; // null if unknown
+	private final String description;
+	private final String name;
+	private final String requestId; // null if the record has no payload
+	private final byte[] payload;
+
+	private TraceRecord( long id, long timestamp, String source, String sourceName, int line, String kind,
+		String description, String name, String requestId, byte[] payload ) {
+		this.id = id;
+		this.timestamp = timestamp;
+		this.source = source;
+		this.sourceName = sourceName;
+		this.line = line;
+		this.kind = kind;
+		this.description = description;
+		this.name = name;
+		this.requestId = requestId;
+		this.payload = payload;
+	}
+
+	long id() {
+		return id;
+	}
+
+	/**
+	 * Returns <code>true</code> if actions of the given kind should be traced at the given level.
+	 */
+	static boolean isTraced( TraceAction action, TracerUtils.TracerLevels levels ) {
+		if( levels == TracerUtils.TracerLevels.ALL ) {
+			return action instanceof MessageTraceAction || action instanceof EmbeddingTraceAction
+				|| action instanceof AssignmentTraceAction || action instanceof ProtocolTraceAction;
+		} else if( levels == TracerUtils.TracerLevels.COMM ) {
+			return action instanceof MessageTraceAction || action instanceof ProtocolTraceAction;
+		} else {
+			return action instanceof AssignmentTraceAction;
+		}
+	}
+
+	/**
+	 * Creates the record for a trace action. Message and assignment values are rendered immediately, so
+	 * the returned record does not refer to data that may be changed by the program.
+	 */
+	static TraceRecord of( long id, TraceAction action, Interpreter interpreter ) {
+		final long timestamp = System.currentTimeMillis();
+		final ParsingContext context;
+		final String kind;
+		final String description;
+		final String name;
+		String requestId = null;
+		byte[] payload = null;
+
+		if( action instanceof MessageTraceAction ) {
+			MessageTraceAction a = (MessageTraceAction) action;
+			context = a.context();
+			kind = kind( a.type() );
+			description = a.description();
+			name = a.name();
+			if( a.message() != null ) {
+				requestId = Long.toString( a.message().requestId() );
+				Value messageValue = a.message().value();
+				if( a.message().isFault() ) {
+					messageValue = a.message().fault().value().clone();
+					messageValue.getFirstChild( "__faultname" ).setValue( a.message().fault().faultName() );
+				}
+				payload = prettyPrint( messageValue, 0 );
+			}
+		} else if( action instanceof EmbeddingTraceAction ) {
+			EmbeddingTraceAction a = (EmbeddingTraceAction) action;
+			context = a.context();
+			kind = a.type() == EmbeddingTraceAction.Type.SERVICE_LOAD ? "emb" : null;
+			description = a.description();
+			name = a.name();
+		} else if( action instanceof AssignmentTraceAction ) {
+			AssignmentTraceAction a = (AssignmentTraceAction) action;
+			context = a.context();
+			kind = kind( a.type() );
+			description = a.description();
+			name = a.name();
+			if( a.value() != null ) {
+				requestId = "";
+				payload = prettyPrint( a.value(), 6 );
+			}
+		} else {
+			ProtocolTraceAction a = (ProtocolTraceAction) action;
+			context = a.context();
+			kind = kind( a.type() );
+			description = a.description();
+			name = a.name();
+			if( a.message() != null ) {
+				requestId = "";
+				payload = a.message().getBytes();
+			}
+		}
+
+		if( context == null ) {
+			return new TraceRecord( id, timestamp,
+				interpreter.programDirectory() + interpreter.programFilename(), interpreter.programFilename(), -1,
+				kind, description, name, requestId, payload );
+		} else {
+			return new TraceRecord( id, timestamp, context.source().toString(), context.sourceName(),
+				context.startLine() + 1, kind, description, name, requestId, payload );
+		}
+	}
+
+	private static String kind( MessageTraceAction.Type type ) {
+		switch( type ) {
+		case SOLICIT_RESPONSE:
+			return "sr";
+		case NOTIFICATION:
+			return "n";
+		case ONE_WAY:
+			return "ow";
+		case REQUEST_RESPONSE:
+			return "rr";
+		case COURIER_NOTIFICATION:
+			return "cn";
+		case COURIER_SOLICIT_RESPONSE:
+			return "csr";
+		default:
+			return null;
+		}
+	}
+
+	private static String kind( AssignmentTraceAction.Type type ) {
+		switch( type ) {
+		case ASSIGNMENT:
+			return "comp";
+		case POINTER:
+			return "alias";
+		case DEEPCOPY:
+			return "dcopy";
+		default:
+			return null;
+		}
+	}
+
+	private static String kind( ProtocolTraceAction.Type type ) {
+		switch( type ) {
+		case HTTP:
+			return "http";
+		case SOAP:
+			return "soap";
+		default:
+			return null;
+		}
+	}
+
+	private static byte[] prettyPrint( Value value, int indentationOffset ) {
+		Writer writer = new StringWriter();
+		ValuePrettyPrinter printer = new ValuePrettyPrinter( value, writer, "Value:" );
+		printer.setByteTruncation( PAYLOAD_BYTE_TRUNCATION );
+		printer.setIndentationOffset( indentationOffset );
+		try {
+			printer.run();
+		} catch( IOException e ) {
+		} // Should never happen
+		return writer.toString().trim().getBytes();
+	}
+
+	/**
+	 * Appends this record to a {@link StringBuilder} as a line of a JSON trace file.
+	 */
+	void appendJson( StringBuilder builder ) {
+		builder.append( "{\"" ).append( id ).append( "\":[" )
+			.append( '"' ).append( TIMESTAMP_FORMATTER.format( Instant.ofEpochMilli( timestamp ) ) ).append( "\"," )
+			.append( '"' ).append( source ).append( "\",\"" )
+			.append( sourceName ).append( "\",\"" )
+			.append( line < 0 ? "" : Integer.toString( line ) ).append( "\"," );
+		if( kind != null ) {
+			builder.append( '"' ).append( kind ).append( "\"," );
+		}
+		builder.append( '"' ).append( description ).append( "\"," )
+			.append( '"' ).append( name ).append( '"' );
+		if( requestId != null ) {
+			builder.append( ",\"" ).append( requestId ).append( "\"," )
+				.append( '"' ).append( Base64.getEncoder().encodeToString( payload ) ).append( '"' );
+		}
+		builder.append( "]}\n" );
+	}
+
+	/**
+	 * Writes this record in the binary trace format.
+	 */
+	void writeTo( DataOutput output )
+		throws IOException {
+		writeVarLong( output, id );
+		output.writeLong( timestamp );
+		writeString( output, source );
+		writeString( output, sourceName );
+		writeVarLong( output, line + 1L );
+		writeString( output, kind );
+		writeString( output, description );
+		writeString( output, name );
+		writeString( output, requestId );
+		if( requestId != null ) {
+			writeVarLong( output, payload.length );
+			output.write( payload );
+		}
+	}
+
+	/**
+	 * Reads a record written by {@link #writeTo(DataOutput)}.
+	 */
+	static TraceRecord readFrom( DataInput input )
+		throws IOException {
+		final long id = readVarLong( input );
+		final long timestamp = input.readLong();
+		final String source = readString( input );
+		final String sourceName = readString( input );
+		final int line = (int) readVarLong( input ) - 1;
+		final String kind = readString( input );
+		final String description = readString( input );
+		final String name = readString( input );
+		final String requestId = readString( input );
+		byte[] payload = null;
+		if( requestId != null ) {
+			payload = new byte[ (int) readVarLong( input ) ];
+			input.readFully( payload );
+		}
+		return new TraceRecord( id, timestamp, source, sourceName, line, kind, description, name, requestId,
+			payload );
+	}
+
+	// Strings are encoded as their UTF-8 length plus one (0 stands for null), followed by their bytes
+	private static void writeString( DataOutput output, String s )
+		throws IOException {
+		if( s == null ) {
+			output.writeByte( 0 );
+		} else {
+			byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+			writeVarLong( output, bytes.length + 1L );
+			output.write( bytes );
+		}
+	}
+
+	private static String readString( DataInput input )
+		throws IOException {
+		final long length = readVarLong( input );
+		if( length == 0 ) {
+			return null;
+		}
+		byte[] bytes = new byte[ (int) length - 1 ];
+		input.readFully( bytes );
+		return new String( bytes, StandardCharsets.UTF_8 );
+	}
+
+	private static void writeVarLong( DataOutput output, long value )
+		throws IOException {
+		while( (value & ~0x7FL) != 0 ) {
+			output.writeByte( (int) ((value & 0x7F) | 0x80) );
+			value >>>= 7;
+		}
+		output.writeByte( (int) value );
+	}
+
+	private static long readVarLong( DataInput input )
+		throws IOException {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = input.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while( (b & 0x80) != 0 );
+		return value;
+	}
+}
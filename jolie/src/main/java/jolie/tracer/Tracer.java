@@ -30,4 +30,10 @@ import java.util.function.Supplier;
 public interface Tracer {
 
 	void trace( Supplier< ? extends TraceAction > supplier );
+
+	/**
+	 * Releases the resources held by this tracer, writing out any pending trace. Called when the
+	 * interpreter exits.
+	 */
+	default void close() {}
 }
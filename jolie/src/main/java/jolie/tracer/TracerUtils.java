@@ -1,14 +1,58 @@
 package jolie.tracer;
 
+import java.util.HashMap;
+import java.util.Map;
 import jolie.runtime.expression.Expression;
 import jolie.util.Pair;
 
 public final class TracerUtils {
+	public static final String SAMPLING = "sampling";
+	public static final String MAX_FILE_SIZE = "maxFileSize"; // bytes
+	public static final String ROTATION_INTERVAL = "rotationInterval"; // seconds
 
 	public enum TracerLevels {
 		ALL, COMM, COMP
 	}
 
+	/**
+	 * Parses the options of a tracer mode of the form mode[:option=value,...], where mode is console,
+	 * file or binary. Every option takes a positive integer. The sampling option is supported by all
+	 * modes, maxFileSize and rotationInterval only by binary.
+	 *
+	 * @param tracerMode the tracer mode, as given to --trace
+	 * @return the options, by name
+	 * @throws IllegalArgumentException if an option is not supported by the mode or its value is not a
+	 *         positive integer
+	 */
+	public static Map< String, Long > parseTracerOptions( String tracerMode ) {
+		final String[] modeAndOptions = tracerMode.split( ":", 2 );
+		final Map< String, Long > options = new HashMap<>();
+		if( modeAndOptions.length > 1 ) {
+			for( String option : modeAndOptions[ 1 ].split( "," ) ) {
+				final String[] keyValue = option.split( "=", 2 );
+				final String name = keyValue[ 0 ].trim();
+				final String value = keyValue.length > 1 ? keyValue[ 1 ].trim() : "";
+				if( !name.equals( SAMPLING )
+					&& !(modeAndOptions[ 0 ].equals( "binary" )
+						&& (name.equals( MAX_FILE_SIZE ) || name.equals( ROTATION_INTERVAL ))) ) {
+					throw new IllegalArgumentException(
+						"unsupported option " + name + " for tracer mode " + modeAndOptions[ 0 ] );
+				}
+				final long number;
+				try {
+					number = Long.parseLong( value );
+				} catch( NumberFormatException e ) {
+					throw new IllegalArgumentException( name + " must be a positive integer, found \"" + value + "\"" );
+				}
+				if( number <= 0 || (name.equals( SAMPLING ) && number > Integer.MAX_VALUE) ) {
+					throw new IllegalArgumentException( name + " is out of range: " + value );
+				}
+				options.put( name, number );
+			}
+		}
+		return options;
+	}
+
 	public static String getVarPathString( Pair< Expression, Expression >[] path ) {
 		StringBuilder stringBuilder = new StringBuilder();
 		for( int p = 0; p < path.length; p++ ) {
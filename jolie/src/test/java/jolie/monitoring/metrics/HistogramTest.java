@@ -0,0 +1,104 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+	private static void assertWithin( long expected, long actual, double relativeError ) {
+		assertTrue( actual + " is not within " + relativeError + " of " + expected,
+			Math.abs( actual - expected ) <= expected * relativeError );
+	}
+
+	@Test
+	public void boundsTheErrorOfPercentilesByItsPrecision() {
+		for( int bits : new int[] { 0, Histogram.DEFAULT_SUB_BUCKET_BITS, 7, Histogram.MAX_SUB_BUCKET_BITS } ) {
+			final Histogram histogram = new Histogram( bits );
+			assertEquals( bits, histogram.subBucketBits() );
+			for( long value = 1; value <= 1_000_000; value++ ) {
+				histogram.record( value );
+			}
+			final double error = 1.0 / (1 << bits);
+			assertWithin( 500_000, histogram.valueAtQuantile( 0.5 ), error );
+			assertWithin( 990_000, histogram.valueAtQuantile( 0.99 ), error );
+			assertEquals( 1_000_000, histogram.valueAtQuantile( 1.0 ) );
+			assertEquals( 1, histogram.min() );
+			assertEquals( 1_000_000, histogram.max() );
+			assertEquals( 500_000.5, histogram.mean(), 0.0 );
+		}
+	}
+
+	@Test
+	public void countsSmallValuesExactly() {
+		final Histogram histogram = new Histogram( 7 );
+		for( long value = 0; value < 128; value++ ) {
+			histogram.record( value );
+		}
+		assertEquals( 63, histogram.valueAtQuantile( 0.5 ) );
+		assertEquals( 11, histogram.countAtOrBelow( 10 ) );
+	}
+
+	@Test
+	public void handlesTheWholeRangeOfLongs() {
+		final Histogram histogram = new Histogram( Histogram.MAX_SUB_BUCKET_BITS );
+		histogram.record( Long.MAX_VALUE );
+		histogram.record( -1 );
+		assertEquals( 0, histogram.min() );
+		assertEquals( Long.MAX_VALUE, histogram.valueAtQuantile( 1.0 ) );
+	}
+
+	@Test
+	public void mergesHistograms() {
+		final Histogram a = new Histogram( 7 );
+		final Histogram b = new Histogram( 7 );
+		final Histogram all = new Histogram( 7 );
+		for( long value = 1; value <= 10_000; value++ ) {
+			(value % 3 == 0 ? a : b).record( value * 1000 );
+			all.record( value * 1000 );
+		}
+		final Histogram merged = new Histogram( 7 );
+		merged.merge( a );
+		merged.merge( b );
+		assertEquals( all.count(), merged.count() );
+		assertEquals( all.sum(), merged.sum() );
+		assertEquals( all.min(), merged.min() );
+		assertEquals( all.max(), merged.max() );
+		for( double quantile : new double[] { 0.1, 0.5, 0.9, 0.99, 0.999 } ) {
+			assertEquals( all.valueAtQuantile( quantile ), merged.valueAtQuantile( quantile ) );
+		}
+
+		merged.merge( new Histogram( 7 ) );
+		assertEquals( all.min(), merged.min() );
+		assertEquals( all.count(), merged.count() );
+	}
+
+	@Test
+	public void rejectsMismatchedPrecisions() {
+		assertThrows( IllegalArgumentException.class, () -> new Histogram( -1 ) );
+		assertThrows( IllegalArgumentException.class, () -> new Histogram( Histogram.MAX_SUB_BUCKET_BITS + 1 ) );
+		assertThrows( IllegalArgumentException.class, () -> new Histogram( 3 ).merge( new Histogram( 7 ) ) );
+	}
+}
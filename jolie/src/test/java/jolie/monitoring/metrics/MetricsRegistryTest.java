@@ -0,0 +1,144 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+public class MetricsRegistryTest {
+	private static String prometheus( MetricsRegistry registry )
+		throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		registry.writePrometheus( builder );
+		return builder.toString();
+	}
+
+	@Test
+	public void countersAndGaugesInPrometheusFormat()
+		throws IOException {
+		final MetricsRegistry registry = new MetricsRegistry();
+		registry.counter( "requests_total", "Requests\nreceived", "operation", "say \"hi\"\\" ).add( 3 );
+		registry.gauge( "sessions", "Active sessions", () -> 7L );
+
+		assertEquals(
+			"# HELP requests_total Requests\\nreceived\n"
+				+ "# TYPE requests_total counter\n"
+				+ "requests_total{operation=\"say \\\"hi\\\"\\\\\"} 3\n"
+				+ "# HELP sessions Active sessions\n"
+				+ "# TYPE sessions gauge\n"
+				+ "sessions 7\n",
+			prometheus( registry ) );
+	}
+
+	@Test
+	public void histogramsInPrometheusFormat()
+		throws IOException {
+		final MetricsRegistry registry = new MetricsRegistry();
+		final Histogram histogram = registry.histogram( "duration_seconds", "Durations", "port", "P" );
+		histogram.record( TimeUnit.MICROSECONDS.toNanos( 50 ) );
+		histogram.record( TimeUnit.MILLISECONDS.toNanos( 3 ) );
+		histogram.record( TimeUnit.SECONDS.toNanos( 20 ) );
+
+		final String text = prometheus( registry );
+		assertTrue( text, text.startsWith( "# HELP duration_seconds Durations\n# TYPE duration_seconds histogram\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_bucket{port=\"P\",le=\"1.0E-4\"} 1\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_bucket{port=\"P\",le=\"0.0025\"} 1\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_bucket{port=\"P\",le=\"0.005\"} 2\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_bucket{port=\"P\",le=\"10.0\"} 2\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_bucket{port=\"P\",le=\"+Inf\"} 3\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_sum{port=\"P\"} 20.00305\n" ) );
+		assertTrue( text, text.contains( "duration_seconds_count{port=\"P\"} 3\n" ) );
+	}
+
+	@Test
+	public void metricsAreResolvedOnce() {
+		final MetricsRegistry registry = new MetricsRegistry();
+		assertSame( registry.counter( "c", "C", "operation", "a" ), registry.counter( "c", "C", "operation", "a" ) );
+		assertSame( registry.histogram( "h", "H" ), registry.histogram( "h", "H" ) );
+
+		final OperationMetrics requestResponse = new OperationMetrics( registry, "a", true );
+		assertSame( requestResponse.requests(), new OperationMetrics( registry, "a", false ).requests() );
+		assertSame( requestResponse.duration(), registry.histogram( "jolie_operation_duration_seconds", "",
+			"operation", "a" ) );
+		assertEquals( null, new OperationMetrics( registry, "b", false ).faults() );
+	}
+
+	@Test
+	public void removesOnlyTheGivenMetric()
+		throws IOException {
+		final MetricsRegistry registry = new MetricsRegistry();
+		final LongSupplier gauge = () -> 1L;
+		registry.gauge( "size", "Size", gauge, "queue", "q" );
+		assertFalse( registry.remove( "size", (LongSupplier) () -> 1L, "queue", "q" ) );
+		assertTrue( registry.remove( "size", gauge, "queue", "q" ) );
+		assertFalse( registry.remove( "size", gauge, "queue", "q" ) );
+		assertEquals( "# HELP size Size\n# TYPE size gauge\n", prometheus( registry ) );
+	}
+
+	@Test
+	public void rejectsTypeClashes() {
+		final MetricsRegistry registry = new MetricsRegistry();
+		registry.counter( "m", "M" );
+		assertThrows( IllegalArgumentException.class, () -> registry.histogram( "m", "M" ) );
+	}
+
+	@Test
+	public void metricsAsValue() {
+		final MetricsRegistry registry = new MetricsRegistry();
+		registry.counter( "requests_total", "Requests", "operation", "sum" ).add( 2 );
+		registry.histogram( "duration_seconds", "Durations" ).record( TimeUnit.MILLISECONDS.toNanos( 500 ) );
+
+		final ValueVector metrics = registry.toValue().getChildren( "metric" );
+		assertEquals( 2, metrics.size() );
+
+		final Value histogram = metrics.get( 0 );
+		assertEquals( "duration_seconds", histogram.getFirstChild( "name" ).strValue() );
+		assertEquals( "histogram", histogram.getFirstChild( "type" ).strValue() );
+		final Value histogramSample = histogram.getFirstChild( "sample" );
+		assertEquals( 1L, histogramSample.getFirstChild( "count" ).longValue() );
+		assertEquals( 0.5, histogramSample.getFirstChild( "max" ).doubleValue(), 0.0 );
+		assertEquals( 3, histogramSample.getChildren( "percentile" ).size() );
+		final double median = histogramSample.getChildren( "percentile" ).get( 0 ).getFirstChild( "value" )
+			.doubleValue();
+		assertTrue( Double.toString( median ), Math.abs( median - 0.5 ) <= 0.5 / (1 << Histogram.DEFAULT_SUB_BUCKET_BITS) );
+
+		final Value counter = metrics.get( 1 );
+		assertEquals( "requests_total", counter.getFirstChild( "name" ).strValue() );
+		assertEquals( "counter", counter.getFirstChild( "type" ).strValue() );
+		assertEquals( "Requests", counter.getFirstChild( "help" ).strValue() );
+		final Value counterSample = counter.getFirstChild( "sample" );
+		assertEquals( "sum", counterSample.getFirstChild( "labels" ).getFirstChild( "operation" ).strValue() );
+		assertEquals( 2L, counterSample.getFirstChild( "value" ).longValue() );
+	}
+}
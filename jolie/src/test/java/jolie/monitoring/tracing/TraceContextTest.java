@@ -0,0 +1,99 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TraceContextTest {
+	private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+	@Test
+	public void parsesAndFormatsTraceparents() {
+		TraceContext context = TraceContext.parse( TRACEPARENT );
+		assertEquals( "4bf92f3577b34da6a3ce929d0e0e4736", context.traceId() );
+		assertEquals( "00f067aa0ba902b7", context.spanId() );
+		assertTrue( context.isSampled() );
+		assertEquals( TRACEPARENT, context.toString() );
+
+		context = TraceContext.parse( "00-00000000000000000000000000000001-0000000000000001-00" );
+		assertFalse( context.isSampled() );
+		assertEquals( "00-00000000000000000000000000000001-0000000000000001-00", context.toString() );
+	}
+
+	@Test
+	public void roundTripsGeneratedContexts() {
+		for( boolean sampled : new boolean[] { true, false } ) {
+			final TraceContext root = TraceContext.createRoot( sampled );
+			final TraceContext parsed = TraceContext.parse( root.toString() );
+			assertEquals( root.traceId(), parsed.traceId() );
+			assertEquals( root.spanId(), parsed.spanId() );
+			assertEquals( sampled, parsed.isSampled() );
+			assertEquals( 32, root.traceId().length() );
+			assertEquals( 16, root.spanId().length() );
+		}
+	}
+
+	@Test
+	public void childrenKeepTheTraceWithANewSpan() {
+		final TraceContext parent = TraceContext.parse( TRACEPARENT );
+		final TraceContext child = parent.createChild();
+		assertEquals( parent.traceId(), child.traceId() );
+		assertNotEquals( parent.spanId(), child.spanId() );
+		assertEquals( parent.isSampled(), child.isSampled() );
+	}
+
+	@Test
+	public void acceptsSurroundingSpacesAndFieldsOfFutureVersions() {
+		assertEquals( TRACEPARENT, TraceContext.parse( "  " + TRACEPARENT + " " ).toString() );
+		assertEquals( "4bf92f3577b34da6a3ce929d0e0e4736",
+			TraceContext.parse( "01" + TRACEPARENT.substring( 2 ) + "-extra" ).traceId() );
+	}
+
+	@Test
+	public void rejectsMalformedTraceparents() {
+		final String[] malformed = {
+			null,
+			"",
+			"00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7", // no flags
+			"00-4bf92f3577b34da6a3ce929d0e0e473-00f067aa0ba902b7-01", // short trace id
+			"00_4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", // wrong separator
+			"00-4bf92f3577b34da6a3ce929d0e0e4736_00f067aa0ba902b7-01",
+			"00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7_01",
+			"00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01x", // garbage after the flags
+			"ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", // forbidden version
+			"00-4bf92f3577b34da6a3ce929d0e0e473g-00f067aa0ba902b7-01", // not hexadecimal
+			"00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902bz-01",
+			"00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-0z",
+			"00-00000000000000000000000000000000-00f067aa0ba902b7-01", // all-zero trace id
+			"00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01" // all-zero span id
+		};
+		for( String traceparent : malformed ) {
+			assertNull( traceparent, TraceContext.parse( traceparent ) );
+		}
+	}
+}
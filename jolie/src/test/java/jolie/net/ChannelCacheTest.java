@@ -0,0 +1,95 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class ChannelCacheTest {
+	private static final URI LOCATION = URI.create( "socket://localhost:8000" );
+
+	private static final class MultiplexingChannel extends CommChannel {
+		private MultiplexingChannel() {
+			setToBeClosed( false );
+		}
+
+		@Override
+		public boolean isMultiplexing() {
+			return true;
+		}
+
+		@Override
+		public Future< CommMessage > recvResponseFor( CommMessage request ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected CommMessage recvImpl() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected void sendImpl( CommMessage message ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected void closeImpl()
+			throws IOException {}
+	}
+
+	@Test
+	public void sharesMultiplexingChannels() {
+		final ChannelCache cache = new ChannelCache();
+		final CommChannel channel = new MultiplexingChannel();
+		cache.shareChannel( LOCATION, "http", channel );
+		assertSame( channel, cache.getPersistentChannel( LOCATION, "http", false ) );
+		assertSame( channel, cache.getPersistentChannel( LOCATION, "http", false ) );
+		assertNull( cache.getPersistentChannel( LOCATION, "sodep", false ) );
+	}
+
+	@Test
+	public void doesNotHandOutMultiplexingChannelsForExclusiveUse() {
+		final ChannelCache cache = new ChannelCache();
+		final CommChannel channel = new MultiplexingChannel();
+		cache.shareChannel( LOCATION, "http", channel );
+		assertNull( cache.getPersistentChannel( LOCATION, "http", true ) );
+		// the channel is still available to the callers that can share it
+		assertSame( channel, cache.getPersistentChannel( LOCATION, "http", false ) );
+	}
+
+	@Test
+	public void dropsClosedMultiplexingChannels()
+		throws IOException {
+		final ChannelCache cache = new ChannelCache();
+		final CommChannel channel = new MultiplexingChannel();
+		cache.shareChannel( LOCATION, "http", channel );
+		channel.close();
+		assertNull( cache.getPersistentChannel( LOCATION, "http", false ) );
+	}
+}
@@ -0,0 +1,110 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+/**
+ * Checks the reuse and the eviction policy of the cache of compiled regular expressions.
+ */
+public class PatternCacheTest {
+	@Test
+	public void reusesCompiledPatterns() {
+		final Pattern pattern = PatternCache.get( "a+b" );
+		assertEquals( "a+b", pattern.pattern() );
+		assertSame( pattern, PatternCache.get( "a+b" ) );
+		assertThrows( PatternSyntaxException.class, () -> PatternCache.get( "(" ) );
+	}
+
+	@Test
+	public void evictsTheLeastRecentlyUsed() {
+		final Pattern used = PatternCache.get( "used" );
+		final Pattern unused = PatternCache.get( "unused" );
+		for( int i = 0; i < PatternCache.MAX_SIZE - 1; i++ ) {
+			// Keep one pattern in use while the others fill the cache
+			assertSame( used, PatternCache.get( "used" ) );
+			PatternCache.get( "filler" + i );
+		}
+		assertSame( used, PatternCache.get( "used" ) );
+		assertNotSame( unused, PatternCache.get( "unused" ) );
+	}
+
+	@Test
+	public void staysBoundedUnderConcurrentInsertions()
+		throws Exception {
+		final int threads = 4;
+		final ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			final List< Future< ? > > results = new ArrayList<>();
+			for( int t = 0; t < threads; t++ ) {
+				final int n = t;
+				results.add( executor.submit( () -> {
+					for( int i = 0; i < 2 * PatternCache.MAX_SIZE; i++ ) {
+						PatternCache.get( "bounded" + n + "-" + i );
+					}
+				} ) );
+			}
+			for( Future< ? > result : results ) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue( PatternCache.size() <= PatternCache.MAX_SIZE );
+	}
+
+	@Test
+	public void sharesPatternsBetweenThreads()
+		throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try {
+			final List< Future< Pattern > > results = new ArrayList<>();
+			for( int i = 0; i < 64; i++ ) {
+				final int n = i;
+				results.add( executor.submit( () -> {
+					PatternCache.get( "concurrent" + n );
+					return PatternCache.get( "concurrent" );
+				} ) );
+			}
+			final Pattern pattern = PatternCache.get( "concurrent" );
+			for( Future< Pattern > result : results ) {
+				assertSame( pattern, result.get() );
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Checks structural equality and hashing of value trees.
+ */
+public class ValueTest {
+	/**
+	 * The encoding of a value with a string content and a child "a" holding the given number.
+	 */
+	// Encodes "root" with a child a, or just a when it has no child
+	private static class TestEncodedValue implements EncodedValue {
+		private final Object content;
+		private final Integer a;
+
+		private TestEncodedValue( int a ) {
+			this( "root", a );
+		}
+
+		private TestEncodedValue( Object content, Integer a ) {
+			this.content = content;
+			this.a = a;
+		}
+
+		@Override
+		public Object decodeValueObject() {
+			return content;
+		}
+
+		@Override
+		public boolean hasChildren() {
+			return a != null;
+		}
+
+		@Override
+		public void decodeChildren( Map< String, ValueVector > children ) {
+			if( a != null ) {
+				final ValueVector vector = ValueVector.create();
+				vector.add( Value.createLazy( new TestEncodedValue( a, null ) ) );
+				children.put( "a", vector );
+			}
+		}
+	}
+
+	private static Value tree() {
+		final Value v = Value.create( "root" );
+		v.getFirstChild( "a" ).setValue( 1 );
+		v.getFirstChild( "b" ).getFirstChild( "c" ).setValue( "x" );
+		v.getChildren( "b" ).get( 1 ).setValue( 2L );
+		return v;
+	}
+
+	@Test
+	public void equalTreesAreEqualAndHashEqually() {
+		final Value v = tree();
+		final Value w = Value.create();
+		// Same children, inserted in a different order
+		w.getChildren( "b" ).get( 1 ).setValue( 2L );
+		w.getFirstChild( "b" ).getFirstChild( "c" ).setValue( "x" );
+		w.getFirstChild( "a" ).setValue( 1 );
+		w.setValue( "root" );
+
+		assertTrue( v.structurallyEquals( w ) );
+		assertTrue( w.structurallyEquals( v ) );
+		assertEquals( v.structuralHashCode(), w.structuralHashCode() );
+
+		// Children with no elements are ignored
+		w.getChildren( "empty" );
+		assertTrue( v.structurallyEquals( w ) );
+		assertTrue( w.structurallyEquals( v ) );
+		assertEquals( v.structuralHashCode(), w.structuralHashCode() );
+	}
+
+	@Test
+	public void differentTreesAreNotEqual() {
+		final Value v = tree();
+
+		final Value type = tree();
+		type.getFirstChild( "a" ).setValue( 1L );
+		assertFalse( v.structurallyEquals( type ) );
+
+		final Value order = tree();
+		final ValueVector b = order.getChildren( "b" );
+		final Value first = b.get( 0 );
+		b.set( 0, b.get( 1 ) );
+		b.set( 1, first );
+		assertFalse( v.structurallyEquals( order ) );
+
+		final Value extra = tree();
+		extra.getFirstChild( "d" );
+		assertFalse( v.structurallyEquals( extra ) );
+		assertFalse( extra.structurallyEquals( v ) );
+
+		final Value undefined = Value.create();
+		assertFalse( Value.create( "defined" ).structurallyEquals( undefined ) );
+		assertFalse( undefined.structurallyEquals( Value.create( "defined" ) ) );
+	}
+
+	@Test
+	public void comparingDoesNotCreateChildren() {
+		final Value v = Value.create( 1 );
+		final Value w = tree();
+		assertFalse( v.structurallyEquals( w ) );
+		v.structuralHashCode();
+		assertNull( v.childrenOrNull() );
+		assertFalse( w.hasChildren( "d" ) );
+	}
+
+	@Test
+	public void hashesFollowChanges() {
+		final Value v = tree();
+		final Value w = tree();
+		final int hash = v.structuralHashCode();
+		assertEquals( hash, v.structuralHashCode() );
+
+		// A change deep in the tree
+		v.getFirstChild( "b" ).getFirstChild( "c" ).setValue( "y" );
+		assertNotEquals( hash, v.structuralHashCode() );
+		assertFalse( v.structurallyEquals( w ) );
+		v.getFirstChild( "b" ).getFirstChild( "c" ).setValue( "x" );
+		assertEquals( hash, v.structuralHashCode() );
+		assertTrue( v.structurallyEquals( w ) );
+
+		// Changes to vectors and maps
+		v.getChildren( "b" ).add( Value.create( 3 ) );
+		assertNotEquals( hash, v.structuralHashCode() );
+		v.getChildren( "b" ).remove( 2 );
+		assertEquals( hash, v.structuralHashCode() );
+		v.children().remove( "a" );
+		assertNotEquals( hash, v.structuralHashCode() );
+		v.getFirstChild( "a" ).setValue( 1 );
+		assertEquals( hash, v.structuralHashCode() );
+
+		// A change to a subtree shared with another value
+		final Value shared = Value.create();
+		shared.getChildren( "b" ).add( v.getFirstChild( "b" ) );
+		final int sharedHash = shared.structuralHashCode();
+		v.getFirstChild( "b" ).getFirstChild( "c" ).erase();
+		assertNotEquals( sharedHash, shared.structuralHashCode() );
+		assertNotEquals( hash, v.structuralHashCode() );
+	}
+
+	@Test
+	public void hashingLazyValuesKeepsTheirEncoding() {
+		final EncodedValue encoded = new TestEncodedValue( 1 );
+		final Value lazy = Value.createLazy( encoded );
+		final Value v = Value.create( "root" );
+		v.getFirstChild( "a" ).setValue( 1 );
+
+		assertEquals( v.structuralHashCode(), lazy.structuralHashCode() );
+		assertTrue( lazy.structurallyEquals( v ) );
+		assertTrue( v.structurallyEquals( lazy ) );
+		assertSame( encoded, lazy.encodedValue() );
+
+		assertFalse( lazy.structurallyEquals( Value.createLazy( new TestEncodedValue( 2 ) ) ) );
+		assertNotNull( lazy.encodedValue() );
+	}
+
+	@Test
+	public void readingLazyValuesKeepsTheirEncoding() {
+		final EncodedValue encoded = new TestEncodedValue( 1 );
+		final Value lazy = Value.createLazy( encoded );
+
+		assertEquals( 1, lazy.getFirstChild( "a" ).intValue() );
+		assertFalse( lazy.hasChildren( "b" ) );
+		assertTrue( lazy.getChildren( "c" ).isEmpty() );
+		assertSame( encoded, lazy.encodedValue() );
+	}
+
+	@Test
+	public void changingLazyValuesDropsTheirEncoding() {
+		Value lazy = Value.createLazy( new TestEncodedValue( 1 ) );
+		lazy.getFirstChild( "a" ).setValue( 2 );
+		assertNull( lazy.encodedValue() );
+
+		lazy = Value.createLazy( new TestEncodedValue( 1 ) );
+		lazy.getChildren( "a" ).add( Value.create( 2 ) );
+		assertNull( lazy.encodedValue() );
+
+		lazy = Value.createLazy( new TestEncodedValue( 1 ) );
+		lazy.getChildren( "a" ).set( 0, Value.create( 1 ) );
+		assertNull( lazy.encodedValue() );
+
+		lazy = Value.createLazy( new TestEncodedValue( 1 ) );
+		lazy.getFirstChild( "b" ).setValue( 2 );
+		assertNull( lazy.encodedValue() );
+
+		lazy = Value.createLazy( new TestEncodedValue( 1 ) );
+		lazy.children().remove( "a" );
+		assertNull( lazy.encodedValue() );
+	}
+}
@@ -0,0 +1,262 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime.typing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import jolie.lang.NativeType;
+import jolie.lang.parse.ast.types.BasicTypeDefinition;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringLength;
+import jolie.runtime.Value;
+import jolie.util.Range;
+
+/**
+ * Checks that the single-pass validation of {@link Type#check(Value)} and {@link Type#cast(Value)}
+ * agrees with the path-tracking check, and that errors are reported as before.
+ */
+public class TypeTest {
+	private static final Range ONE = new Range( 1, 1 );
+	private static final Range OPTIONAL = new Range( 0, 1 );
+	private static final Range MANY = new Range( 0, Integer.MAX_VALUE );
+
+	private static final BasicTypeRefinementStringLength NAME_LENGTH = new BasicTypeRefinementStringLength( 1, 5 );
+
+	private static BasicType< ? > basic( NativeType nativeType ) {
+		return BasicType.fromBasicTypeDefinition( BasicTypeDefinition.of( nativeType ) );
+	}
+
+	private static Type leaf( NativeType nativeType, Range cardinality ) {
+		return Type.create( basic( nativeType ), cardinality, false, new HashMap<>() );
+	}
+
+	/*
+	 * type Item: void { name: string( length( [1, 5] ) ), qty: int, tags*: string, note?: string }
+	 * type Order: void { id: long, item[1,3]: Item, meta?: undefined }
+	 */
+	private static Type orderType() {
+		final Map< String, Type > item = new HashMap<>();
+		item.put( "name", Type.create(
+			BasicType.fromBasicTypeDefinition( BasicTypeDefinition.of( NativeType.STRING, List.of( NAME_LENGTH ) ) ),
+			ONE, false, new HashMap<>() ) );
+		item.put( "qty", leaf( NativeType.INT, ONE ) );
+		item.put( "tags", leaf( NativeType.STRING, MANY ) );
+		item.put( "note", leaf( NativeType.STRING, OPTIONAL ) );
+
+		final Map< String, Type > order = new HashMap<>();
+		order.put( "id", leaf( NativeType.LONG, ONE ) );
+		order.put( "item", Type.create( basic( NativeType.VOID ), new Range( 1, 3 ), false, item ) );
+		order.put( "meta", Type.create( basic( NativeType.ANY ), OPTIONAL, true, null ) );
+		return Type.create( basic( NativeType.VOID ), ONE, false, order );
+	}
+
+	private static Value item( String name, int qty ) {
+		final Value item = Value.create();
+		item.setFirstChild( "name", name );
+		item.setFirstChild( "qty", qty );
+		return item;
+	}
+
+	private static Value order( int items ) {
+		final Value order = Value.create();
+		order.setFirstChild( "id", 42L );
+		for( int i = 0; i < items; i++ ) {
+			order.getChildren( "item" ).add( item( "n" + i, i ) );
+		}
+		return order;
+	}
+
+	/*
+	 * Asserts that the value is invalid for both the single-pass validation and the path-tracking
+	 * check, and that check reports the given message.
+	 */
+	private static void assertInvalid( Type type, Value value, String message ) {
+		assertFalse( type.isValid( value ) );
+		final TypeCheckingException slow =
+			assertThrows( TypeCheckingException.class, () -> type.check( value, new StringBuilder( "#Message" ) ) );
+		final TypeCheckingException fast = assertThrows( TypeCheckingException.class, () -> type.check( value ) );
+		assertEquals( message, slow.getMessage() );
+		assertEquals( message, fast.getMessage() );
+	}
+
+	private static void assertValid( Type type, Value value )
+		throws TypeCheckingException {
+		assertTrue( type.isValid( value ) );
+		type.check( value, new StringBuilder( "#Message" ) );
+		type.check( value );
+	}
+
+	@Test
+	public void validValues()
+		throws TypeCheckingException {
+		final Type type = orderType();
+		final Value order = order( 2 );
+		assertValid( type, order );
+
+		order.getFirstChild( "item" ).getNewChild( "tags" ).setValue( "a" );
+		order.getFirstChild( "item" ).getNewChild( "tags" ).setValue( "b" );
+		order.getFirstChild( "item" ).setFirstChild( "note", "fragile" );
+		order.getFirstChild( "meta" ).getFirstChild( "anything" ).getFirstChild( "goes" ).setValue( 1 );
+		assertValid( type, order );
+	}
+
+	@Test
+	public void errorMessages() {
+		final Type type = orderType();
+
+		Value order = order( 1 );
+		order.children().remove( "id" );
+		assertInvalid( type, order, "Undefined required child node: #Message.id" );
+
+		order = order( 1 );
+		order.getFirstChild( "item" ).setFirstChild( "qty", "three" );
+		assertInvalid( type, order,
+			"Invalid native type for node #Message.item.qty: expected INT, found java.lang.String(three)" );
+
+		order = order( 1 );
+		order.getFirstChild( "item" ).setFirstChild( "extra", 1 );
+		assertInvalid( type, order, "Unexpected child node: #Message.item.extra" );
+
+		order = order( 1 );
+		order.getFirstChild( "item" ).setFirstChild( "name", "too long" );
+		assertInvalid( type, order, "Invalid basic value for node #Message.item.name: does not respect the refinement "
+			+ NAME_LENGTH.getDocumentation() );
+
+		order = order( 1 );
+		order.setValue( "not void" );
+		assertInvalid( type, order,
+			"Invalid native type for node #Message: expected VOID, found java.lang.String(not void)" );
+	}
+
+	@Test
+	public void cardinalityBounds()
+		throws TypeCheckingException {
+		final Type type = orderType();
+		assertValid( type, order( 1 ) );
+		assertValid( type, order( 3 ) );
+		assertInvalid( type, order( 0 ), "Undefined required child node: #Message.item" );
+		assertInvalid( type, order( 4 ),
+			"Child node #Message.item has a wrong number of occurencies. Permitted range is [1,3], found 4" );
+
+		// An empty vector is a child node with no occurrences
+		final Value emptyItems = order( 0 );
+		emptyItems.getChildren( "item" );
+		assertInvalid( type, emptyItems,
+			"Child node #Message.item has a wrong number of occurencies. Permitted range is [1,3], found 0" );
+		final Value emptyNote = order( 1 );
+		emptyNote.getFirstChild( "item" ).getChildren( "note" );
+		assertValid( type, emptyNote );
+
+		final Value twoNotes = order( 1 );
+		twoNotes.getFirstChild( "item" ).getNewChild( "note" ).setValue( "a" );
+		twoNotes.getFirstChild( "item" ).getNewChild( "note" ).setValue( "b" );
+		assertInvalid( type, twoNotes,
+			"Child node #Message.item.note has a wrong number of occurencies. Permitted range is [0,1], found 2" );
+	}
+
+	@Test
+	public void castReturnsValidValuesAsTheyAre()
+		throws TypeCastingException {
+		final Type type = orderType();
+		final Value order = order( 2 );
+		assertSame( order, type.cast( order ) );
+		assertTrue( order.getChildren( "item" ).get( 1 ).getFirstChild( "qty" ).isInt() );
+	}
+
+	@Test
+	public void castConvertsInvalidValues()
+		throws TypeCastingException {
+		final Type type = orderType();
+		final Value order = order( 1 );
+		order.setFirstChild( "id", "7" );
+		order.getFirstChild( "item" ).setFirstChild( "qty", "3" );
+		final Value cast = type.cast( order );
+		assertTrue( cast.getFirstChild( "id" ).isLong() );
+		assertEquals( 7L, cast.getFirstChild( "id" ).longValue() );
+		assertTrue( cast.getFirstChild( "item" ).getFirstChild( "qty" ).isInt() );
+		assertEquals( 3, cast.getFirstChild( "item" ).getFirstChild( "qty" ).intValue() );
+
+		order.getFirstChild( "item" ).setFirstChild( "qty", "three" );
+		final TypeCastingException e = assertThrows( TypeCastingException.class, () -> type.cast( order ) );
+		assertEquals( "Cannot cast node value to int: #Message.item.qty", e.getMessage() );
+	}
+
+	@Test
+	public void castPrefersTheLeftBranchOfChoices()
+		throws TypeCastingException {
+		// type T: int | string
+		final Type choice = Type.createChoice( ONE, leaf( NativeType.INT, ONE ), leaf( NativeType.STRING, ONE ) );
+		final Value numeric = Value.create( "5" );
+		assertTrue( choice.isValid( numeric ) );
+		final Value cast = choice.cast( numeric );
+		assertTrue( cast.isInt() );
+		assertEquals( 5, cast.intValue() );
+
+		final Value text = Value.create( "abc" );
+		assertEquals( "abc", choice.cast( text ).strValue() );
+
+		// type U: void { x: T }, through a link: a nested choice disables returning valid values as they
+		// are, and the cast still succeeds on a value that only has the type of the right branch
+		final Type.TypeLink link = Type.createLink( "T", ONE );
+		link.setLinkedType( choice );
+		final Map< String, Type > subTypes = new HashMap<>();
+		subTypes.put( "x", link );
+		final Type outer = Type.create( basic( NativeType.VOID ), ONE, false, subTypes );
+		final Value value = Value.create();
+		value.setFirstChild( "x", "abc" );
+		assertTrue( outer.isValid( value ) );
+		assertEquals( "abc", outer.cast( value ).getFirstChild( "x" ).strValue() );
+	}
+
+	@Test
+	public void recursiveTypes()
+		throws TypeCheckingException, TypeCastingException {
+		// type Tree: int { child*: Tree }
+		final Type.TypeLink link = Type.createLink( "Tree", MANY );
+		final Map< String, Type > subTypes = new HashMap<>();
+		subTypes.put( "child", link );
+		final Type tree = Type.create( basic( NativeType.INT ), ONE, false, subTypes );
+		link.setLinkedType( tree );
+
+		final Value root = Value.create( 0 );
+		Value node = root;
+		for( int i = 1; i < 50; i++ ) {
+			node = node.getNewChild( "child" );
+			node.setValue( i );
+		}
+		assertValid( tree, root );
+		assertSame( root, tree.cast( root ) );
+
+		node.setFirstChild( "leaf", 1 );
+		final String path = "#Message" + ".child".repeat( 49 );
+		assertInvalid( tree, root, "Unexpected child node: " + path + ".leaf" );
+	}
+}
@@ -21,22 +21,26 @@
  ***************************************************************************/
 package jolie.net.ssl;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.nio.BufferOverflowException;
-import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -44,6 +48,8 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManagerFactory;
 
 import jolie.net.CommMessage;
@@ -58,7 +64,28 @@ import jolie.runtime.VariablePath;
  * @author Fabrizio Montesi 2010: complete rewrite 2015: major fixups
  */
 public class SSLProtocol extends SequentialCommProtocol {
-	private static final int INITIAL_BUFFER_SIZE = 8192;
+	// Maximum size of the plaintext carried by a single TLS record
+	private static final int MAX_RECORD_PLAINTEXT_SIZE = 16384;
+	private static final int RECORD_HEADER_SIZE = 5;
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate( 0 );
+
+	/*
+	 * SSLContexts are expensive to create (the key and trust stores have to be read and decoded) and
+	 * they hold the session caches used for session resumption, so they are shared among all the
+	 * protocol instances using the same configuration. The key includes the modification time and size
+	 * of the store files, so that rotated certificates are picked up, and only a digest of the
+	 * passwords.
+	 */
+	private static final int MAX_CONTEXTS = 32;
+	private static final Map< List< Object >, SSLContext > CONTEXTS =
+		new LinkedHashMap< List< Object >, SSLContext >( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry< List< Object >, SSLContext > eldest ) {
+				return size() > MAX_CONTEXTS;
+			}
+		};
 
 	private final boolean isClient;
 	private final URI location;
@@ -69,55 +96,56 @@ public class SSLProtocol extends SequentialCommProtocol {
 	private OutputStream outputStream;
 	private InputStream inputStream;
 
+	// Encrypted data received from the network, kept in read mode
+	private ByteBuffer netInBuffer = ByteBuffer.allocate( 0 );
+	// Decrypted data for the wrapped protocol, kept in read mode
+	private ByteBuffer appInBuffer = ByteBuffer.allocate( 0 );
+	// Encrypted data to be sent to the network
+	private ByteBuffer netOutBuffer = ByteBuffer.allocate( 0 );
+
 	private final SSLInputStream sslInputStream = new SSLInputStream();
 	private final SSLOutputStream sslOutputStream = new SSLOutputStream();
 
 	private class SSLInputStream extends InputStream {
-		private ByteBuffer clearInputBuffer = ByteBuffer.allocate( 0 );
-
-		@Override
-		public int read()
+		private boolean fill()
 			throws IOException {
-			if( !clearInputBuffer.hasRemaining() ) {
+			while( !appInBuffer.hasRemaining() ) {
+				// The other side may be waiting for what we have written so far before answering
+				if( sslOutputStream.hasCachedData() ) {
+					sslOutputStream.flush();
+				}
 				handshake();
-				unwrap( this );
-				// EOF reached?
-				if( !clearInputBuffer.hasRemaining() ) {
-					return -1;
+				if( !unwrap() ) {
+					// EOF reached
+					return false;
 				}
 			}
+			return true;
+		}
 
-			try {
-				return clearInputBuffer.get();
-			} catch( BufferUnderflowException e ) {
+		@Override
+		public int read()
+			throws IOException {
+			if( !fill() ) {
 				return -1;
 			}
+			return appInBuffer.get() & 0xFF;
 		}
 
 		@Override
 		public int read( byte[] b, int off, int len )
 			throws IOException {
-			if( len == 0 )
+			if( len == 0 ) {
 				return 0;
-
-			if( !clearInputBuffer.hasRemaining() ) {
-				handshake();
-				unwrap( this );
-				// EOF reached?
-				if( !clearInputBuffer.hasRemaining() ) {
-					return -1;
-				}
 			}
 
-			try {
-				clearInputBuffer.get( b, off, len );
-				return len;
-			} catch( BufferUnderflowException e ) {
-				// okay, just return the maximum possible
-				len = clearInputBuffer.remaining();
-				clearInputBuffer.get( b, off, len );
-				return len;
+			if( !fill() ) {
+				return -1;
 			}
+
+			len = Math.min( len, appInBuffer.remaining() );
+			appInBuffer.get( b, off, len );
+			return len;
 		}
 
 		@Override
@@ -127,29 +155,30 @@ public class SSLProtocol extends SequentialCommProtocol {
 				return 0;
 			}
 
-			long skipped = 0;
-			while( skipped < n && clearInputBuffer.hasRemaining() ) {
-				clearInputBuffer.get();
-				++skipped;
-			}
+			final int skipped = (int) Math.min( n, appInBuffer.remaining() );
+			appInBuffer.position( appInBuffer.position() + skipped );
 			return skipped;
 		}
 
 		@Override
 		public int available()
 			throws IOException {
-			return clearInputBuffer.remaining();
+			return appInBuffer.remaining();
 		}
 
 		// close() not necessary, does nothing
 	}
 
 	private class SSLOutputStream extends OutputStream {
-		private final ByteBuffer internalBuffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+		private final ByteBuffer internalBuffer = ByteBuffer.allocate( MAX_RECORD_PLAINTEXT_SIZE );
+
+		private boolean hasCachedData() {
+			return internalBuffer.position() > 0;
+		}
 
 		private void writeCache()
 			throws IOException {
-			if( internalBuffer.hasRemaining() ) {
+			if( hasCachedData() ) {
 				handshake();
 				internalBuffer.flip();
 				wrap( internalBuffer );
@@ -160,31 +189,23 @@ public class SSLProtocol extends SequentialCommProtocol {
 		@Override
 		public void write( int b )
 			throws IOException {
-			try {
-				internalBuffer.put( (byte) b );
-			} catch( BufferOverflowException e ) {
-				// let us retry after freeing the buffer
+			if( !internalBuffer.hasRemaining() ) {
 				writeCache();
-				internalBuffer.put( (byte) b );
 			}
+			internalBuffer.put( (byte) b );
 		}
 
 		@Override
 		public void write( byte[] b, int off, int len )
 			throws IOException {
-			try {
-
-				if( INITIAL_BUFFER_SIZE < (len - off) ) {
-					internalBuffer.put( b, off, (INITIAL_BUFFER_SIZE - 1) ); // otherwise it won't work in writeCache
-																				// wrt .remaining
-					writeCache();
-					write( b, (off + (INITIAL_BUFFER_SIZE - 1)), len );
-				} else {
-					internalBuffer.put( b, off, (len - off) );
+			while( len > 0 ) {
+				if( !internalBuffer.hasRemaining() ) {
 					writeCache();
 				}
-			} catch( BufferOverflowException e ) {
-				throw new IOException( e.fillInStackTrace() );
+				final int n = Math.min( len, internalBuffer.remaining() );
+				internalBuffer.put( b, off, n );
+				off += n;
+				len -= n;
 			}
 		}
 
@@ -192,20 +213,12 @@ public class SSLProtocol extends SequentialCommProtocol {
 		public void flush()
 			throws IOException {
 			writeCache();
+			outputStream.flush();
 		}
 
 		// close() not necessary, does nothing
 	}
 
-	private static class SSLResult {
-		private ByteBuffer buffer;
-		private SSLEngineResult log;
-
-		public SSLResult( int capacity ) {
-			buffer = ByteBuffer.allocate( capacity );
-		}
-	}
-
 	public SSLProtocol(
 		VariablePath configurationPath,
 		URI uri,
@@ -223,6 +236,11 @@ public class SSLProtocol extends SequentialCommProtocol {
 		return wrappedProtocol.name() + "s";
 	}
 
+	@Override
+	public boolean hasCachedMessages() {
+		return wrappedProtocol.hasCachedMessages();
+	}
+
 	private String getSSLStringParameter( String parameterName, String defaultValue ) {
 		if( hasParameter( "ssl" ) ) {
 			Value sslParams = getParameterFirstValue( "ssl" );
@@ -258,43 +276,25 @@ public class SSLProtocol extends SequentialCommProtocol {
 			throw new IOException( "Compulsory parameter needed for server mode: ssl.keyStore" );
 		}
 		try {
-			SSLContext context = SSLContext.getInstance( protocol );
-			KeyStore ks = KeyStore.getInstance( keyStoreFormat );
-			KeyStore ts = KeyStore.getInstance( trustStoreFormat );
-
-			char[] passphrase;
-			if( keyStorePassword != null ) {
-				passphrase = keyStorePassword.toCharArray();
-			} else {
-				passphrase = null;
+			final List< Object > contextKey = Arrays.asList( protocol,
+				keyStoreFormat, keyStoreFile, fileVersion( keyStoreFile ),
+				trustStoreFormat, trustStoreFile, fileVersion( trustStoreFile ),
+				passwordDigest( keyStorePassword, trustStorePassword ) );
+			SSLContext context;
+			synchronized( CONTEXTS ) {
+				context = CONTEXTS.get( contextKey );
 			}
-
-			if( keyStoreFile != null ) {
-				try( InputStream is = new FileInputStream( keyStoreFile ) ) {
-					ks.load( is, passphrase );
+			if( context == null ) {
+				context = createContext( protocol, keyStoreFormat, keyStoreFile, keyStorePassword, trustStoreFormat,
+					trustStoreFile, trustStorePassword );
+				synchronized( CONTEXTS ) {
+					final SSLContext existing = CONTEXTS.putIfAbsent( contextKey, context );
+					if( existing != null ) {
+						context = existing;
+					}
 				}
-			} else {
-				ks.load( null, null );
-			}
-
-			KeyManagerFactory kmf = KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
-			kmf.init( ks, passphrase );
-
-
-			if( trustStorePassword != null ) {
-				passphrase = trustStorePassword.toCharArray();
-			} else {
-				passphrase = null;
-			}
-			try( InputStream is = new FileInputStream( trustStoreFile ) ) {
-				ts.load( is, passphrase );
 			}
 
-			TrustManagerFactory tmf = TrustManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
-			tmf.init( ts );
-
-			context.init( kmf.getKeyManagers(), tmf.getTrustManagers(), null );
-
 			if( location.getHost() != null && location.getPort() != -1 ) {
 				sslEngine = context.createSSLEngine( location.getHost(), location.getPort() );
 			} else {
@@ -305,12 +305,92 @@ public class SSLProtocol extends SequentialCommProtocol {
 			if( isClient == false ) {
 				sslEngine.setWantClientAuth( getSSLIntegerParameter( "wantClientAuth", 1 ) > 0 );
 			}
+			final String applicationProtocols = getSSLStringParameter( "applicationProtocols", null );
+			if( applicationProtocols != null ) {
+				// ALPN, e.g., "h2" for HTTP/2
+				final SSLParameters parameters = sslEngine.getSSLParameters();
+				parameters.setApplicationProtocols( applicationProtocols.trim().split( "\\s*,\\s*" ) );
+				sslEngine.setSSLParameters( parameters );
+			}
+
+			final SSLSession session = sslEngine.getSession();
+			netInBuffer = ByteBuffer.allocate( session.getPacketBufferSize() );
+			netInBuffer.flip();
+			appInBuffer = ByteBuffer.allocate( session.getApplicationBufferSize() );
+			appInBuffer.flip();
+			netOutBuffer = ByteBuffer.allocate( session.getPacketBufferSize() );
 		} catch( NoSuchAlgorithmException | CertificateException | UnrecoverableKeyException | KeyStoreException
 			| KeyManagementException e ) {
 			throw new IOException( e );
 		}
 	}
 
+	private static List< Long > fileVersion( String filename ) {
+		if( filename == null ) {
+			return null;
+		}
+		final File file = new File( filename );
+		return Arrays.asList( file.lastModified(), file.length() );
+	}
+
+	private static String passwordDigest( String keyStorePassword, String trustStorePassword )
+		throws NoSuchAlgorithmException {
+		final MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+		for( String password : new String[] { keyStorePassword, trustStorePassword } ) {
+			if( password == null ) {
+				digest.update( (byte) 0 );
+			} else {
+				digest.update( (byte) 1 );
+				digest.update( password.getBytes( StandardCharsets.UTF_8 ) );
+				digest.update( (byte) 0 );
+			}
+		}
+		return Base64.getEncoder().encodeToString( digest.digest() );
+	}
+
+	private static SSLContext createContext( String protocol, String keyStoreFormat, String keyStoreFile,
+		String keyStorePassword, String trustStoreFormat, String trustStoreFile, String trustStorePassword )
+		throws IOException, NoSuchAlgorithmException, CertificateException, UnrecoverableKeyException,
+		KeyStoreException, KeyManagementException {
+		SSLContext context = SSLContext.getInstance( protocol );
+		KeyStore ks = KeyStore.getInstance( keyStoreFormat );
+		KeyStore ts = KeyStore.getInstance( trustStoreFormat );
+
+		char[] passphrase;
+		if( keyStorePassword != null ) {
+			passphrase = keyStorePassword.toCharArray();
+		} else {
+			passphrase = null;
+		}
+
+		if( keyStoreFile != null ) {
+			try( InputStream is = new FileInputStream( keyStoreFile ) ) {
+				ks.load( is, passphrase );
+			}
+		} else {
+			ks.load( null, null );
+		}
+
+		KeyManagerFactory kmf = KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
+		kmf.init( ks, passphrase );
+
+
+		if( trustStorePassword != null ) {
+			passphrase = trustStorePassword.toCharArray();
+		} else {
+			passphrase = null;
+		}
+		try( InputStream is = new FileInputStream( trustStoreFile ) ) {
+			ts.load( is, passphrase );
+		}
+
+		TrustManagerFactory tmf = TrustManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
+		tmf.init( ts );
+
+		context.init( kmf.getKeyManagers(), tmf.getTrustManagers(), null );
+		return context;
+	}
+
 	private void handshake()
 		throws IOException {
 		if( firstTime ) {
@@ -332,10 +412,11 @@ public class SSLProtocol extends SequentialCommProtocol {
 				}
 				break;
 			case NEED_WRAP:
-				wrap( ByteBuffer.allocate( INITIAL_BUFFER_SIZE ) );
+				wrap( EMPTY_BUFFER );
+				outputStream.flush();
 				break;
 			case NEED_UNWRAP:
-				keepRun = unwrap( null );
+				keepRun = unwrap();
 				if( sslEngine.isInboundDone() && sslEngine.isOutboundDone() ) {
 					keepRun = false;
 				}
@@ -344,95 +425,111 @@ public class SSLProtocol extends SequentialCommProtocol {
 		}
 	}
 
-	private boolean unwrap( SSLInputStream sslInputStream )
+	/**
+	 * Decrypts the next record received from the network, appending the resulting data (if any) to
+	 * appInBuffer.
+	 * 
+	 * @return false if the end of the stream has been reached or the engine has been closed
+	 */
+	private boolean unwrap()
 		throws IOException {
+		while( true ) {
+			appInBuffer.compact();
+			final SSLEngineResult result;
+			try {
+				result = sslEngine.unwrap( netInBuffer, appInBuffer );
+			} finally {
+				appInBuffer.flip();
+			}
 
-		ByteBuffer cryptBuffer = ByteBuffer.allocate( 0 );
-		final SSLResult result = new SSLResult( INITIAL_BUFFER_SIZE );
-
-		boolean keepRun = true;
-		boolean returnResult = true;
-
-		while( keepRun ) {
-			result.log = sslEngine.unwrap( cryptBuffer, result.buffer );
-
-			switch( result.log.getStatus() ) {
+			switch( result.getStatus() ) {
 			case BUFFER_OVERFLOW:
-				final int appSize = sslEngine.getSession().getApplicationBufferSize();
-				// Resize "result.buffer" if needed
-				if( appSize > result.buffer.capacity() ) {
-					final ByteBuffer b = ByteBuffer.allocate( appSize );
-					result.buffer.flip();
-					b.put( result.buffer );
-					result.buffer = b;
-				} else {
-					result.buffer.compact();
-				}
+				final ByteBuffer b = ByteBuffer.allocate(
+					appInBuffer.remaining() + sslEngine.getSession().getApplicationBufferSize() );
+				b.put( appInBuffer );
+				b.flip();
+				appInBuffer = b;
 				break;
 			case BUFFER_UNDERFLOW:
-				final int netSize = sslEngine.getSession().getPacketBufferSize();
-				// Resize "cryptBuffer" if needed
-				if( netSize > cryptBuffer.capacity() ) {
-					final ByteBuffer b = ByteBuffer.allocate( netSize );
-					cryptBuffer.flip();
-					b.put( cryptBuffer );
-					cryptBuffer = b;
-				} else {
-					cryptBuffer.compact();
-				}
-
-				int currByte = inputStream.read();
-				if( currByte >= 0 ) {
-					cryptBuffer.put( (byte) currByte );
-					cryptBuffer.flip();
-				} else {
+				if( !readRecord() ) {
 					// input stream EOF reached, we may not continue
-					returnResult = false;
-					keepRun = false;
+					return false;
 				}
 				break;
 			case CLOSED:
-				returnResult = false;
+				return false;
 			case OK:
-				if( result.log.bytesConsumed() > 0 && sslInputStream != null ) {
-					sslInputStream.clearInputBuffer = result.buffer;
-					sslInputStream.clearInputBuffer.flip();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Reads the missing part of the next TLS record into netInBuffer. We never read past the end of the
+	 * record, so that data that has not been consumed yet stays in the underlying stream (where the
+	 * channel can see it).
+	 * 
+	 * @return false if the end of the stream has been reached
+	 */
+	private boolean readRecord()
+		throws IOException {
+		int needed;
+		if( netInBuffer.remaining() < RECORD_HEADER_SIZE ) {
+			needed = RECORD_HEADER_SIZE - netInBuffer.remaining();
+		} else {
+			final int start = netInBuffer.position();
+			final int contentType = netInBuffer.get( start ) & 0xFF;
+			if( contentType >= 20 && contentType <= 24 ) {
+				final int recordLength =
+					((netInBuffer.get( start + 3 ) & 0xFF) << 8) | (netInBuffer.get( start + 4 ) & 0xFF);
+				needed = Math.max( 1, RECORD_HEADER_SIZE + recordLength - netInBuffer.remaining() );
+			} else {
+				// Unknown framing (e.g., SSLv2Hello), proceed byte by byte
+				needed = 1;
+			}
+		}
+
+		if( netInBuffer.capacity() - netInBuffer.remaining() < needed ) {
+			final ByteBuffer b = ByteBuffer.allocate( Math.max( netInBuffer.remaining() + needed,
+				sslEngine.getSession().getPacketBufferSize() ) );
+			b.put( netInBuffer );
+			b.flip();
+			netInBuffer = b;
+		}
+
+		netInBuffer.compact();
+		try {
+			while( needed > 0 ) {
+				final int read = inputStream.read( netInBuffer.array(),
+					netInBuffer.arrayOffset() + netInBuffer.position(), needed );
+				if( read < 0 ) {
+					return false;
 				}
-				keepRun = false;
-				break;
+				netInBuffer.position( netInBuffer.position() + read );
+				needed -= read;
 			}
+		} finally {
+			netInBuffer.flip();
 		}
-		return returnResult;
+		return true;
 	}
 
 	private void wrap( ByteBuffer source )
 		throws IOException {
-		final SSLResult result = new SSLResult( source.capacity() );
-		result.log = sslEngine.wrap( source, result.buffer );
-		while( result.log.getStatus() == Status.BUFFER_OVERFLOW ) {
-			// final int appSize = sslEngine.getSession().getApplicationBufferSize();
-			// Resize "result.buffer" if needed
-			// if ( appSize > result.buffer.capacity() ) {
-			// final ByteBuffer b = ByteBuffer.allocate( appSize );
-			// result.buffer.flip();
-			// b.put( result.buffer );
-			// result.buffer = b;
-			// } else {
-			// result.buffer.compact();
-			// }
-			// From the docs: "The size of the outbound application data buffer generally does not matter."
-			// For the time being we can double it and later implement some smarter optimisations.
-			result.buffer = ByteBuffer.allocate( result.buffer.capacity() * 2 );
-
-			result.log = sslEngine.wrap( source, result.buffer );
-		}
-		// must be Status.OK or Status.CLOSED here
-		if( result.log.bytesProduced() > 0 ) {
-			final WritableByteChannel outputChannel = Channels.newChannel( outputStream );
-			result.buffer.flip();
-			while( result.buffer.hasRemaining() )
-				outputChannel.write( result.buffer );
-			outputStream.flush();
+		boolean keepRun = true;
+		while( keepRun ) {
+			netOutBuffer.clear();
+			final SSLEngineResult result = sslEngine.wrap( source, netOutBuffer );
+			if( result.getStatus() == Status.BUFFER_OVERFLOW ) {
+				netOutBuffer = ByteBuffer.allocate(
+					Math.max( netOutBuffer.capacity() * 2, sslEngine.getSession().getPacketBufferSize() ) );
+			} else {
+				// must be Status.OK or Status.CLOSED here
+				if( result.bytesProduced() > 0 ) {
+					outputStream.write( netOutBuffer.array(), netOutBuffer.arrayOffset(), netOutBuffer.position() );
+				}
+				keepRun = result.getStatus() == Status.OK && source.hasRemaining();
+			}
 		}
 	}
 
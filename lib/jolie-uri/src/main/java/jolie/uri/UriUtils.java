@@ -22,24 +22,68 @@ package jolie.uri;
 import com.damnhandy.uri.template.UriTemplate;
 import com.damnhandy.uri.template.UriTemplateMatcherFactory;
 import jolie.runtime.Value;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class UriUtils {
+	private static final int CACHE_LIMIT = 1024;
+	// Least recently used templates are evicted first, so dynamic templates do not evict the hot ones
+	private static final Map< String, MatchingTemplate > MATCHING_TEMPLATES =
+		new LinkedHashMap< String, MatchingTemplate >( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry< String, MatchingTemplate > eldest ) {
+				return size() > CACHE_LIMIT;
+			}
+		};
+
+	/**
+	 * A URI template compiled for matching. Parsing a template and building its reverse-match pattern
+	 * is much more expensive than running the match itself, so we do it once per template string.
+	 */
+	private static class MatchingTemplate {
+		private final Pattern pattern;
+		private final String[] variables;
+
+		private MatchingTemplate( String template ) {
+			final UriTemplate t = UriTemplate.fromTemplate( template );
+			this.pattern = UriTemplateMatcherFactory.getReverseMatchPattern( t );
+			this.variables = t.getVariables();
+		}
+	}
+
+	private static MatchingTemplate getMatchingTemplate( String template ) {
+		MatchingTemplate t;
+		synchronized( MATCHING_TEMPLATES ) {
+			t = MATCHING_TEMPLATES.get( template );
+		}
+		if( t == null ) {
+			t = new MatchingTemplate( template );
+			synchronized( MATCHING_TEMPLATES ) {
+				final MatchingTemplate existing = MATCHING_TEMPLATES.putIfAbsent( template, t );
+				if( existing != null ) {
+					t = existing;
+				}
+			}
+		}
+		return t;
+	}
+
 	public static Value match( Value request ) {
 		return match( request.getFirstChild( "template" ).strValue(), request.getFirstChild( "uri" ).strValue() );
 	}
 
 	public static Value match( String template, String uri ) {
-		UriTemplate t = UriTemplate.fromTemplate( template );
-		Pattern p = UriTemplateMatcherFactory.getReverseMatchPattern( t );
-		Matcher m = p.matcher( uri );
+		final MatchingTemplate t = getMatchingTemplate( template );
+		Matcher m = t.pattern.matcher( uri );
 		Value response = Value.create();
 		boolean matches = m.matches();
 		response.setValue( matches );
 		if( matches ) {
-			for( String param : t.getVariables() ) {
+			for( String param : t.variables ) {
 				response.setFirstChild( param, m.group( param ) );
 			}
 		}
@@ -37,10 +37,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 //import jolie.lang.CodeCheckMessage;
@@ -172,6 +174,7 @@ public class OLParser extends AbstractParser {
 	private boolean insideInstallFunction = false;
 	private String[] includePaths;
 	private boolean hasIncludeDirective = false;
+	private final Set< URI > includedFiles = new LinkedHashSet<>();
 	private final Map< String, InterfaceExtenderDefinition > interfaceExtenders =
 		new HashMap<>();
 
@@ -211,6 +214,13 @@ public class OLParser extends AbstractParser {
 
 	}
 
+	/**
+	 * Returns the URIs of the files included by the parsed program, directly or through other includes.
+	 */
+	public Set< URI > includedFiles() {
+		return includedFiles;
+	}
+
 	public void putConstants( Map< String, Scanner.Token > constantsToPut ) {
 		constantsMap.putAll( constantsToPut );
 	}
@@ -1250,6 +1260,7 @@ public class OLParser extends AbstractParser {
 				}
 			}
 
+			includedFiles.add( includeFile.getURI() );
 			origIncludePaths = includePaths;
 			// includes are explicitly parsed in ASCII to be independent of program's encoding
 			setScanner( new Scanner( includeFile.getInputStream(), includeFile.getURI(), "US-ASCII",
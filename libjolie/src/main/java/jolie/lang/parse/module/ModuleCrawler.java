@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,6 +46,7 @@ import jolie.lang.parse.ParserException;
 import jolie.lang.parse.context.ParsingContext;
 import jolie.lang.parse.context.URIParsingContext;
 import jolie.lang.parse.module.exceptions.ModuleNotFoundException;
+import jolie.util.Helpers;
 
 class ModuleCrawler {
 
@@ -72,20 +74,60 @@ class ModuleCrawler {
 			this.moduleCrawled.values().stream().forEach( mr -> result.put( mr.uri(), mr.symbolTable() ) );
 			return result;
 		}
+
+		/**
+		 * Returns the URIs of the crawled modules and of the files they include.
+		 */
+		public Set< URI > sources() {
+			Set< URI > result = new HashSet<>();
+			this.moduleCrawled.values().forEach( mr -> {
+				result.add( mr.uri() );
+				result.addAll( mr.includedFiles() );
+			} );
+			return result;
+		}
 	}
 
-	private static final Map< URI, ModuleRecord > CACHE = new ConcurrentHashMap<>();
+	/**
+	 * A crawled module, together with the stamps of its file and of the files it includes when it was
+	 * crawled.
+	 */
+	private static class CachedRecord {
+		private final ModuleRecord record;
+		private final Map< URI, List< Long > > stamps = new HashMap<>();
+
+		private CachedRecord( ModuleRecord record ) {
+			this.record = record;
+			stamps.put( record.uri(), Helpers.fileStamp( record.uri() ) );
+			record.includedFiles().forEach( uri -> stamps.put( uri, Helpers.fileStamp( uri ) ) );
+		}
 
-	private static void putToCache( ModuleRecord mc ) {
-		ModuleCrawler.CACHE.put( mc.uri(), mc );
+		private boolean isUpToDate() {
+			return stamps.entrySet().stream()
+				.allMatch( e -> Objects.equals( e.getValue(), Helpers.fileStamp( e.getKey() ) ) );
+		}
 	}
 
-	private static boolean inCache( URI source ) {
-		return ModuleCrawler.CACHE.containsKey( source );
+	private static final Map< URI, CachedRecord > CACHE = new ConcurrentHashMap<>();
+
+	private static void putToCache( ModuleRecord mc ) {
+		ModuleCrawler.CACHE.put( mc.uri(), new CachedRecord( mc ) );
 	}
 
+	/**
+	 * Returns the cached record of a module, or <code>null</code> if the module has not been crawled
+	 * or its file has changed since.
+	 */
 	private static ModuleRecord getRecordFromCache( URI source ) {
-		return ModuleCrawler.CACHE.get( source );
+		final CachedRecord cached = ModuleCrawler.CACHE.get( source );
+		if( cached == null ) {
+			return null;
+		}
+		if( !cached.isUpToDate() ) {
+			ModuleCrawler.CACHE.remove( source, cached );
+			return null;
+		}
+		return cached.record;
 	}
 
 	private final ModuleFinder finder;
@@ -144,8 +186,9 @@ class ModuleCrawler {
 				continue;
 			}
 
-			if( ModuleCrawler.inCache( module.uri() ) ) {
-				result.addModuleRecord( ModuleCrawler.getRecordFromCache( module.uri() ) );
+			final ModuleRecord cached = ModuleCrawler.getRecordFromCache( module.uri() );
+			if( cached != null ) {
+				result.addModuleRecord( cached );
 			} else {
 				ModuleRecord record = new ModuleParser( parserConfiguration ).parse( module );
 				result.addModuleRecord( record );
@@ -66,6 +66,6 @@ public class ModuleParser {
 		Program program = olParser.parse();
 		program = OLParseTreeOptimizer.optimize( program );
 		SymbolTable st = SymbolTableGenerator.generate( program );
-		return new ModuleRecord( scanner.source(), program, st );
+		return new ModuleRecord( scanner.source(), program, st, olParser.includedFiles() );
 	}
 }
@@ -20,6 +20,7 @@
 package jolie.lang.parse.module;
 
 import java.net.URI;
+import java.util.Set;
 import jolie.lang.parse.ast.Program;
 
 /**
@@ -29,11 +30,17 @@ public class ModuleRecord {
 	private final URI uri;
 	private final Program program;
 	private final SymbolTable symbolTable;
+	private final Set< URI > includedFiles;
 
 	public ModuleRecord( URI uri, Program program, SymbolTable symbolTable ) {
+		this( uri, program, symbolTable, Set.of() );
+	}
+
+	public ModuleRecord( URI uri, Program program, SymbolTable symbolTable, Set< URI > includedFiles ) {
 		this.uri = uri;
 		this.program = program;
 		this.symbolTable = symbolTable;
+		this.includedFiles = Set.copyOf( includedFiles );
 	}
 
 	/**
@@ -57,6 +64,13 @@ public class ModuleRecord {
 		return symbolTable;
 	}
 
+	/**
+	 * @return the URIs of the files included by the Module
+	 */
+	public Set< URI > includedFiles() {
+		return includedFiles;
+	}
+
 	@Override
 	public String toString() {
 		return "ModuleRecord [uri=" + uri + ", symbolTable=" + symbolTable + "]";
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Map;
+import java.util.Set;
 import jolie.lang.parse.ParserException;
 import jolie.lang.parse.Scanner;
 import jolie.lang.parse.ast.Program;
@@ -21,9 +22,15 @@ public class Modules {
 		 */
 		private final Map< URI, SymbolTable > symbolTables;
 
-		private ModuleParsedResult( Program mainProgram, Map< URI, SymbolTable > symbolTables ) {
+		/**
+		 * The files the main program has been read from: its modules and the files they include
+		 */
+		private final Set< URI > sources;
+
+		private ModuleParsedResult( Program mainProgram, Map< URI, SymbolTable > symbolTables, Set< URI > sources ) {
 			this.mainProgram = mainProgram;
 			this.symbolTables = symbolTables;
+			this.sources = sources;
 		}
 
 		public Program mainProgram() {
@@ -33,6 +40,10 @@ public class Modules {
 		public Map< URI, SymbolTable > symbolTables() {
 			return symbolTables;
 		}
+
+		public Set< URI > sources() {
+			return sources;
+		}
 	}
 
 	public static ModuleParsedResult parseModule( ModuleParsingConfiguration configuration, InputStream stream,
@@ -48,6 +59,6 @@ public class Modules {
 
 		SymbolReferenceResolver.resolve( crawlResult );
 
-		return new ModuleParsedResult( mainRecord.program(), crawlResult.symbolTables() );
+		return new ModuleParsedResult( mainRecord.program(), crawlResult.symbolTables(), crawlResult.sources() );
 	}
 }
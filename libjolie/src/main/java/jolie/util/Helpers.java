@@ -25,6 +25,11 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
@@ -146,4 +151,21 @@ public class Helpers {
 		}
 		return ret;
 	}
+
+	/**
+	 * Returns a stamp of the file at the given URI, which changes when the file is modified, replaced
+	 * or deleted. Returns <code>null</code> if the URI does not point to a local file.
+	 */
+	public static List< Long > fileStamp( URI uri ) {
+		if( !"file".equals( uri.getScheme() ) ) {
+			return null;
+		}
+		try {
+			final Path path = Paths.get( uri );
+			final BasicFileAttributes attributes = Files.readAttributes( path, BasicFileAttributes.class );
+			return List.of( attributes.lastModifiedTime().toMillis(), attributes.size() );
+		} catch( IOException | IllegalArgumentException e ) {
+			return List.of();
+		}
+	}
 }
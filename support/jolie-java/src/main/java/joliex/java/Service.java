@@ -23,7 +23,9 @@ package joliex.java;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 import jolie.net.CommMessage;
+import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.util.LocationParser;
 
@@ -53,10 +55,57 @@ public abstract class Service {
 			createOneWayRunnable( CommMessage.createRequest( operationName, resourcePath, requestValue ), callback ) );
 	}
 
+	/**
+	 * Calls a request-response operation. The returned future is completed with the response, or
+	 * exceptionally with a {@link FaultException} or an {@link IOException}.
+	 */
+	public CompletableFuture< Value > callRequestResponse( String operationName, Value requestValue ) {
+		final CompletableFuture< Value > future = new CompletableFuture<>();
+		callRequestResponse( operationName, requestValue, new FutureCallback( future ) );
+		return future;
+	}
+
+	/**
+	 * Calls a one-way operation. The returned future is completed when the message has been delivered,
+	 * or exceptionally with an {@link IOException}.
+	 */
+	public CompletableFuture< Void > callOneWay( String operationName, Value requestValue ) {
+		final CompletableFuture< Value > future = new CompletableFuture<>();
+		callOneWay( operationName, requestValue, new FutureCallback( future ) );
+		return future.thenApply( response -> null );
+	}
+
+	protected String resourcePath() {
+		return resourcePath;
+	}
+
 	public abstract void close()
 		throws IOException;
 
 	protected abstract Runnable createOneWayRunnable( CommMessage message, Callback callback );
 
 	protected abstract Runnable createRequestResponseRunnable( CommMessage request, Callback callback );
+
+	private static class FutureCallback implements Callback {
+		private final CompletableFuture< Value > future;
+
+		private FutureCallback( CompletableFuture< Value > future ) {
+			this.future = future;
+		}
+
+		@Override
+		public void onSuccess( Value response ) {
+			future.complete( response );
+		}
+
+		@Override
+		public void onFault( FaultException fault ) {
+			future.completeExceptionally( fault );
+		}
+
+		@Override
+		public void onError( IOException exception ) {
+			future.completeExceptionally( exception );
+		}
+	}
 }
@@ -69,6 +69,24 @@ public class ServiceFactory implements Executor {
 	 * @throws IOException if the service creation failed.
 	 */
 	public Service create( URI location, String protocolName, Value protocolConfiguration )
+		throws IOException {
+		return create( location, protocolName, protocolConfiguration, 1, 0L );
+	}
+
+	/**
+	 * Creates a new {@link Service} instance that multiplexes calls over a pool of connections.
+	 *
+	 * @param location the location (e.g. {@code "socket://www.jolie-lang.org:80/"}) to connect to.
+	 * @param protocolName the name of the protocol to be used, e.g. {@code "sodep"}.
+	 * @param protocolConfiguration the configuration {@link jolie.runtime.Value} for the protocol.
+	 * @param connections the number of connections to open towards the service.
+	 * @param timeout the time in milliseconds after which calls without a response fail, or 0 for no
+	 *        timeout.
+	 * @return
+	 * @throws IOException if the service creation failed.
+	 */
+	public Service create( URI location, String protocolName, Value protocolConfiguration, int connections,
+		long timeout )
 		throws IOException {
 		if( executor.isShutdown() ) {
 			throw new IOException( "Service factory has been shut down" );
@@ -77,7 +95,7 @@ public class ServiceFactory implements Executor {
 		String mediumName = location.getScheme();
 		if( "socket".equals( mediumName ) ) {
 			if( "sodep".equals( protocolName ) ) {
-				return new SocketSodepService( this, location, protocolConfiguration );
+				return new SocketSodepService( this, location, protocolConfiguration, connections, timeout );
 			} else {
 				throw new IOException( "Unsupported communication protocol: " + protocolName );
 			}
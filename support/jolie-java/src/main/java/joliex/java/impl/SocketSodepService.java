@@ -22,19 +22,24 @@
 
 package joliex.java.impl;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.URI;
-import java.nio.channels.Channels;
-import java.nio.channels.SocketChannel;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import jolie.net.CommMessage;
 import jolie.net.SodepProtocol;
-import jolie.net.protocols.CommProtocol;
 import jolie.runtime.ClosedVariablePath;
+import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.util.Pair;
 import joliex.java.Callback;
@@ -45,100 +50,235 @@ import joliex.java.ServiceFactory;
  * A {@link Service} using sockets as medium and sodep as protocol. Do not instantiate this class
  * directly, its API is due to change in the future! Use
  * {@link ServiceFactory#create(java.net.URI, java.lang.String, jolie.runtime.Value)} instead.
- * 
+ *
+ * Requests are pipelined: many calls can be in flight at the same time over a small pool of
+ * connections, and responses are matched to their requests by request id. Each connection has a
+ * thread reading its responses with blocking reads; callers are never blocked waiting for them.
+ * Futures and callbacks are completed by the executor of the {@link ServiceFactory}, so code that
+ * reacts to a response cannot hold up the responses that follow it.
+ *
  * @author Fabrizio Montesi
  */
 public class SocketSodepService extends Service {
-	private final SocketChannel socketChannel;
-	private final CommProtocol protocol;
-	private final InputStream istream;
-	private final OutputStream ostream;
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
 
-	private final Lock lock = new ReentrantLock( true );
+	private final ServiceFactory factory;
+	private final URI location;
+	private final Value protocolConfiguration;
+	private final long timeout;
+	private final Connection[] connections;
+	private final AtomicInteger nextConnection = new AtomicInteger( 0 );
+	private volatile boolean closed = false;
 
 	public SocketSodepService( ServiceFactory factory, URI location, Value protocolConfiguration )
+		throws IOException {
+		this( factory, location, protocolConfiguration, 1, 0L );
+	}
+
+	/**
+	 * @param connections the number of connections to open towards the service
+	 * @param timeout the time in milliseconds after which calls without a response fail with a
+	 *        {@link TimeoutException}, or 0 for no timeout
+	 */
+	public SocketSodepService( ServiceFactory factory, URI location, Value protocolConfiguration, int connections,
+		long timeout )
 		throws IOException {
 		super( factory, location );
-		socketChannel = SocketChannel.open( new InetSocketAddress( location.getHost(), location.getPort() ) );
-		protocol = new SodepProtocol( new ClosedVariablePath( new Pair[ 0 ], protocolConfiguration ) );
-		istream = Channels.newInputStream( socketChannel );
-		ostream = Channels.newOutputStream( socketChannel );
+		this.factory = factory;
+		this.location = location;
+		this.protocolConfiguration = protocolConfiguration;
+		this.timeout = timeout;
+		this.connections = new Connection[ Math.max( connections, 1 ) ];
+		this.connections[ 0 ] = new Connection();
 	}
 
+	@Override
 	public void close()
 		throws IOException {
-		socketChannel.close();
+		closed = true;
+		synchronized( connections ) {
+			for( Connection connection : connections ) {
+				if( connection != null ) {
+					connection.close( new IOException( "Service has been closed" ) );
+				}
+			}
+		}
+	}
+
+	@Override
+	public CompletableFuture< Value > callRequestResponse( String operationName, Value requestValue ) {
+		final CompletableFuture< Value > future = new CompletableFuture<>();
+		send( CommMessage.createRequest( operationName, resourcePath(), requestValue ) )
+			.whenCompleteAsync( ( response, error ) -> {
+				if( error == null ) {
+					future.complete( response );
+				} else {
+					future.completeExceptionally( error );
+				}
+			}, factory );
+		return future;
+	}
+
+	@Override
+	public CompletableFuture< Void > callOneWay( String operationName, Value requestValue ) {
+		// The receiver acknowledges one-way messages with an empty response
+		return callRequestResponse( operationName, requestValue ).thenApply( response -> null );
 	}
 
+	@Override
 	protected Runnable createRequestResponseRunnable( CommMessage request, Callback callback ) {
-		return new RequestResponseRunnable( this, request, callback );
+		return () -> complete( send( request ), callback );
 	}
 
+	@Override
 	protected Runnable createOneWayRunnable( CommMessage message, Callback callback ) {
-		return new OneWayRunnable( this, message, callback );
+		return () -> complete( send( message ), callback );
 	}
 
-	private static class RequestResponseRunnable implements Runnable {
-		private final SocketSodepService service;
-		private final CommMessage request;
-		private final Callback callback;
+	private void complete( CompletableFuture< Value > future, Callback callback ) {
+		future.whenCompleteAsync( ( response, error ) -> {
+			if( error == null ) {
+				callback.onSuccess( response );
+			} else if( error instanceof FaultException ) {
+				callback.onFault( (FaultException) error );
+			} else if( error instanceof IOException ) {
+				callback.onError( (IOException) error );
+			} else {
+				callback.onError( new IOException( error ) );
+			}
+		}, factory );
+	}
 
-		private RequestResponseRunnable( SocketSodepService service, CommMessage request, Callback callback ) {
-			this.service = service;
-			this.request = request;
-			this.callback = callback;
+	private CompletableFuture< Value > send( CommMessage request ) {
+		final CompletableFuture< Value > future = new CompletableFuture<>();
+		final Connection connection;
+		try {
+			connection = connection();
+		} catch( IOException e ) {
+			future.completeExceptionally( e );
+			return future;
 		}
+		connection.send( request, future );
+		if( timeout > 0 ) {
+			future.orTimeout( timeout, TimeUnit.MILLISECONDS ).whenComplete( ( response, error ) -> {
+				if( error instanceof TimeoutException ) {
+					connection.pending.remove( request.requestId() );
+				}
+			} );
+		}
+		return future;
+	}
 
-		public void run() {
-			service.lock.lock();
-			try {
-				service.protocol.send( service.ostream, request, service.istream );
-				service.ostream.flush();
-			} catch( IOException e ) {
-				callback.onError( e );
-				return;
-			} finally {
-				service.lock.unlock();
+	// Picks connections in round-robin order, replacing the ones that failed
+	private Connection connection()
+		throws IOException {
+		final int i = Math.floorMod( nextConnection.getAndIncrement(), connections.length );
+		synchronized( connections ) {
+			if( closed ) {
+				throw new IOException( "Service has been closed" );
+			}
+			if( connections[ i ] != null && connections[ i ].failure.get() == null ) {
+				return connections[ i ];
 			}
+		}
+		// Connect without holding the lock, so that calls over the other connections can go on
+		final Connection connection = new Connection();
+		synchronized( connections ) {
+			if( closed ) {
+				final IOException e = new IOException( "Service has been closed" );
+				connection.close( e );
+				throw e;
+			}
+			if( connections[ i ] != null && connections[ i ].failure.get() == null ) {
+				// Another caller replaced the connection first
+				connection.close( new IOException( "Connection not needed" ) );
+				return connections[ i ];
+			}
+			connections[ i ] = connection;
+			return connection;
+		}
+	}
 
-			service.lock.lock();
+	// A ByteArrayOutputStream whose buffer can be written out without copying it
+	private static class MessageBuffer extends ByteArrayOutputStream {
+		private void writeTo( OutputStream ostream, boolean shrink )
+			throws IOException {
+			ostream.write( buf, 0, count );
+			reset();
+			if( shrink && buf.length > MAX_RETAINED_BUFFER_SIZE ) {
+				buf = new byte[ 32 ];
+			}
+		}
+	}
+
+	private class Connection {
+		private final Socket socket;
+		private final SodepProtocol protocol;
+		private final InputStream istream;
+		private final OutputStream ostream;
+		private final MessageBuffer buffer = new MessageBuffer(); // guarded by this
+		private final Map< Long, CompletableFuture< Value > > pending = new ConcurrentHashMap<>();
+		private final AtomicReference< IOException > failure = new AtomicReference<>();
+
+		private Connection()
+			throws IOException {
+			socket = new Socket( location.getHost(), location.getPort() );
+			socket.setTcpNoDelay( true );
+			protocol = new SodepProtocol( new ClosedVariablePath( new Pair[ 0 ], protocolConfiguration ) );
+			istream = new BufferedInputStream( socket.getInputStream() );
+			ostream = socket.getOutputStream();
+			final Thread reader = new Thread( this::readResponses, "jolie-java-" + location );
+			reader.setDaemon( true );
+			reader.start();
+		}
+
+		private void send( CommMessage request, CompletableFuture< Value > future ) {
+			pending.put( request.requestId(), future );
 			try {
-				CommMessage response = service.protocol.recv( service.istream, service.ostream );
-				if( response.isFault() ) {
-					callback.onFault( response.fault() );
-				} else {
-					callback.onSuccess( response.value() );
+				synchronized( this ) {
+					if( failure.get() != null ) {
+						throw failure.get();
+					}
+					protocol.send( buffer, request, null );
+					buffer.writeTo( ostream, true );
 				}
 			} catch( IOException e ) {
-				callback.onError( e );
-			} finally {
-				service.lock.unlock();
+				pending.remove( request.requestId() );
+				future.completeExceptionally( e );
+				close( e );
 			}
 		}
-	}
 
-	private static class OneWayRunnable implements Runnable {
-		private final SocketSodepService service;
-		private final CommMessage request;
-		private final Callback callback;
-
-		private OneWayRunnable( SocketSodepService service, CommMessage request, Callback callback ) {
-			this.service = service;
-			this.request = request;
-			this.callback = callback;
+		private void readResponses() {
+			try {
+				while( failure.get() == null ) {
+					final CommMessage response = protocol.recv( istream, null );
+					final CompletableFuture< Value > future = pending.remove( response.requestId() );
+					if( future != null ) { // null if the call timed out
+						if( response.isFault() ) {
+							future.completeExceptionally( response.fault() );
+						} else {
+							future.complete( response.value() );
+						}
+					}
+				}
+			} catch( IOException e ) {
+				close( e );
+			}
 		}
 
-		public void run() {
-			service.lock.lock();
+		// Does not synchronize on this, so that a connection can be closed while a sender is blocked
+		private void close( IOException cause ) {
+			if( !failure.compareAndSet( null, cause ) ) {
+				return;
+			}
 			try {
-				service.protocol.send( service.ostream, request, service.istream );
-				service.ostream.flush();
-				callback.onSuccess( Value.create() );
+				socket.close();
 			} catch( IOException e ) {
-				callback.onError( e );
-			} finally {
-				service.lock.unlock();
+				cause.addSuppressed( e );
 			}
+			pending.values().forEach( f -> f.completeExceptionally( cause ) );
+			pending.clear();
 		}
 	}
 }
@@ -0,0 +1,329 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.java.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jolie.net.CommMessage;
+import jolie.net.SodepProtocol;
+import jolie.runtime.ClosedVariablePath;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.expression.Expression;
+import jolie.util.Pair;
+import joliex.java.Callback;
+import joliex.java.Service;
+import joliex.java.ServiceFactory;
+
+public class SocketSodepServiceTest {
+	private static final String EXECUTOR_THREAD_NAME = "service-factory";
+	private static final long TIMEOUT = 10; // seconds
+
+	/**
+	 * A sodep service running in the test. Its operations are:
+	 * <ul>
+	 * <li>echo: replies with the request;</li>
+	 * <li>delayed: replies with the request after as many milliseconds as the request says;</li>
+	 * <li>fault: replies with a TestFault fault;</li>
+	 * <li>ignore: does not reply;</li>
+	 * <li>disconnect: closes the connection;</li>
+	 * <li>notify: a one-way operation that stores its request in {@link #notifications}.</li>
+	 * </ul>
+	 */
+	private static final class SodepServer implements Closeable {
+		private final ServerSocket serverSocket = new ServerSocket( 0 );
+		private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		private final List< Socket > sockets = new ArrayList<>();
+		private final AtomicInteger accepted = new AtomicInteger( 0 );
+		private final BlockingQueue< Value > notifications = new LinkedBlockingQueue<>();
+
+		private SodepServer()
+			throws IOException {
+			final Thread acceptor = new Thread( this::accept, "sodep-server" );
+			acceptor.setDaemon( true );
+			acceptor.start();
+		}
+
+		private URI location() {
+			return URI.create( "socket://localhost:" + serverSocket.getLocalPort() + "/" );
+		}
+
+		private void accept() {
+			try {
+				while( true ) {
+					final Socket socket = serverSocket.accept();
+					accepted.incrementAndGet();
+					synchronized( sockets ) {
+						sockets.add( socket );
+					}
+					final Thread reader = new Thread( () -> serve( socket ), "sodep-server-connection" );
+					reader.setDaemon( true );
+					reader.start();
+				}
+			} catch( IOException e ) {
+				// closed
+			}
+		}
+
+		private void serve( Socket socket ) {
+			try {
+				final SodepProtocol protocol = protocol();
+				final InputStream istream = new BufferedInputStream( socket.getInputStream() );
+				final OutputStream ostream = new BufferedOutputStream( socket.getOutputStream() );
+				while( true ) {
+					final CommMessage request = protocol.recv( istream, null );
+					switch( request.operationName() ) {
+					case "echo":
+						reply( protocol, ostream, CommMessage.createResponse( request, request.value() ) );
+						break;
+					case "delayed":
+						scheduler.schedule(
+							() -> reply( protocol, ostream, CommMessage.createResponse( request, request.value() ) ),
+							request.value().longValue(), TimeUnit.MILLISECONDS );
+						break;
+					case "fault":
+						reply( protocol, ostream,
+							CommMessage.createFaultResponse( request, new FaultException( "TestFault", "details" ) ) );
+						break;
+					case "notify":
+						notifications.add( request.value() );
+						reply( protocol, ostream, CommMessage.createEmptyResponse( request ) );
+						break;
+					case "disconnect":
+						socket.close();
+						return;
+					default: // ignore
+					}
+				}
+			} catch( IOException e ) {
+				// closed
+			}
+		}
+
+		private static void reply( SodepProtocol protocol, OutputStream ostream, CommMessage response ) {
+			try {
+				synchronized( ostream ) {
+					protocol.send( ostream, response, null );
+					ostream.flush();
+				}
+			} catch( IOException e ) {
+				// closed
+			}
+		}
+
+		@Override
+		public void close()
+			throws IOException {
+			scheduler.shutdownNow();
+			serverSocket.close();
+			synchronized( sockets ) {
+				for( Socket socket : sockets ) {
+					socket.close();
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static Pair< Expression, Expression >[] noPath() {
+		return new Pair[ 0 ];
+	}
+
+	private static SodepProtocol protocol() {
+		return new SodepProtocol( new ClosedVariablePath( noPath(), Value.create() ) );
+	}
+
+	private SodepServer server;
+	private ServiceFactory factory;
+
+	@Before
+	public void start()
+		throws IOException {
+		server = new SodepServer();
+		factory = new ServiceFactory( Executors.newCachedThreadPool( r -> new Thread( r, EXECUTOR_THREAD_NAME ) ) );
+	}
+
+	@After
+	public void stop()
+		throws IOException {
+		factory.shutdown();
+		server.close();
+	}
+
+	private Service create( int connections, long timeout )
+		throws IOException {
+		return factory.create( server.location(), "sodep", Value.create(), connections, timeout );
+	}
+
+	private static Throwable failureOf( CompletableFuture< ? > future )
+		throws Exception {
+		try {
+			future.get( TIMEOUT, TimeUnit.SECONDS );
+		} catch( ExecutionException e ) {
+			return e.getCause();
+		}
+		fail( "The call should have failed" );
+		return null;
+	}
+
+	@Test
+	public void callsOperations()
+		throws Exception {
+		final Service service = create( 1, 0L );
+		final Value request = Value.create( "hello" );
+		request.getFirstChild( "n" ).setValue( 42 );
+		final Value response = service.callRequestResponse( "echo", request ).get( TIMEOUT, TimeUnit.SECONDS );
+		assertEquals( "hello", response.strValue() );
+		assertEquals( 42, response.getFirstChild( "n" ).intValue() );
+
+		service.callOneWay( "notify", Value.create( "event" ) ).get( TIMEOUT, TimeUnit.SECONDS );
+		assertEquals( "event", server.notifications.poll( TIMEOUT, TimeUnit.SECONDS ).strValue() );
+		service.close();
+	}
+
+	@Test
+	public void pipelinesCallsOverTheSameConnection()
+		throws Exception {
+		final Service service = create( 1, 0L );
+		final CompletableFuture< Value > slow = service.callRequestResponse( "delayed", Value.create( 5000L ) );
+		final CompletableFuture< Value > fast = service.callRequestResponse( "echo", Value.create( "fast" ) );
+		assertEquals( "fast", fast.get( TIMEOUT, TimeUnit.SECONDS ).strValue() );
+		assertFalse( "Responses must not wait for the previous requests", slow.isDone() );
+		service.close();
+	}
+
+	@Test
+	public void spreadsCallsOverThePool()
+		throws Exception {
+		final Service service = create( 3, 0L );
+		final List< CompletableFuture< Value > > responses = new ArrayList<>();
+		for( int i = 0; i < 60; i++ ) {
+			responses.add( service.callRequestResponse( "delayed", Value.create( (long) (60 - i) ) ) );
+		}
+		for( int i = 0; i < 60; i++ ) {
+			assertEquals( 60 - i, responses.get( i ).get( TIMEOUT, TimeUnit.SECONDS ).longValue() );
+		}
+		assertEquals( 3, server.accepted.get() );
+		service.close();
+	}
+
+	@Test
+	public void reportsFaults()
+		throws Exception {
+		final Service service = create( 1, 0L );
+		final Throwable failure = failureOf( service.callRequestResponse( "fault", Value.create() ) );
+		assertTrue( failure instanceof FaultException );
+		assertEquals( "TestFault", ((FaultException) failure).faultName() );
+		service.close();
+	}
+
+	@Test
+	public void timesOutCallsWithoutResponse()
+		throws Exception {
+		final Service service = create( 1, 200L );
+		assertTrue( failureOf( service.callRequestResponse( "ignore", Value.create() ) ) instanceof TimeoutException );
+		// the connection is still usable
+		assertEquals( "after", service.callRequestResponse( "echo", Value.create( "after" ) )
+			.get( TIMEOUT, TimeUnit.SECONDS ).strValue() );
+		assertEquals( 1, server.accepted.get() );
+		service.close();
+	}
+
+	@Test
+	public void replacesFailedConnections()
+		throws Exception {
+		final Service service = create( 1, 0L );
+		assertTrue( failureOf( service.callRequestResponse( "disconnect", Value.create() ) ) instanceof IOException );
+		assertEquals( "again", service.callRequestResponse( "echo", Value.create( "again" ) )
+			.get( TIMEOUT, TimeUnit.SECONDS ).strValue() );
+		assertEquals( 2, server.accepted.get() );
+		service.close();
+	}
+
+	@Test
+	public void closingFailsPendingAndLaterCalls()
+		throws Exception {
+		final Service service = create( 1, 0L );
+		final CompletableFuture< Value > pending = service.callRequestResponse( "ignore", Value.create() );
+		service.close();
+		assertTrue( failureOf( pending ) instanceof IOException );
+		assertTrue( failureOf( service.callRequestResponse( "echo", Value.create() ) ) instanceof IOException );
+	}
+
+	@Test
+	public void completesCallsOnTheExecutorOfTheFactory()
+		throws Exception {
+		final Service service = create( 1, 0L );
+		final CompletableFuture< String > callbackThread = new CompletableFuture<>();
+		service.callRequestResponse( "echo", Value.create(), new Callback() {
+			@Override
+			public void onSuccess( Value response ) {
+				callbackThread.complete( Thread.currentThread().getName() );
+			}
+
+			@Override
+			public void onFault( FaultException fault ) {
+				callbackThread.completeExceptionally( fault );
+			}
+
+			@Override
+			public void onError( IOException exception ) {
+				callbackThread.completeExceptionally( exception );
+			}
+		} );
+		assertEquals( EXECUTOR_THREAD_NAME, callbackThread.get( TIMEOUT, TimeUnit.SECONDS ) );
+
+		// the response arrives after the continuation has been attached
+		final String futureThread = service.callRequestResponse( "delayed", Value.create( 200L ) )
+			.thenApply( response -> Thread.currentThread().getName() ).get( TIMEOUT, TimeUnit.SECONDS );
+		assertEquals( EXECUTOR_THREAD_NAME, futureThread );
+		service.close();
+	}
+}
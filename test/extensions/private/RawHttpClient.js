@@ -0,0 +1,55 @@
+/*
+ * Sends all the requests on a single connection before reading any response (HTTP/1.1 pipelining)
+ * and returns the bodies of the responses, separated by commas, in the order they were received.
+ */
+function pipeline( request )
+{
+	var Socket = Java.type( "java.net.Socket" );
+	var StandardCharsets = Java.type( "java.nio.charset.StandardCharsets" );
+	var socket = new Socket( "localhost", request.port );
+	try {
+		var text = "";
+		for( var i = 0; i < request.paths.length; i++ ) {
+			text += "GET " + request.paths[i] + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+		}
+		var out = socket.getOutputStream();
+		out.write( text.getBytes( StandardCharsets.UTF_8 ) );
+		out.flush();
+
+		var input = socket.getInputStream();
+		var bodies = [];
+		for( var i = 0; i < request.paths.length; i++ ) {
+			var contentLength = 0;
+			var line;
+			while( (line = readLine( input )) != "" ) {
+				var separator = line.indexOf( ":" );
+				if ( separator > 0 && line.substring( 0, separator ).trim().toLowerCase() == "content-length" ) {
+					contentLength = parseInt( line.substring( separator + 1 ).trim() );
+				}
+			}
+			var body = "";
+			for( var j = 0; j < contentLength; j++ ) {
+				body += String.fromCharCode( input.read() );
+			}
+			bodies.push( body );
+		}
+		return bodies.join( "," );
+	} finally {
+		socket.close();
+	}
+}
+
+function readLine( input )
+{
+	var line = "";
+	var c;
+	while( (c = input.read()) != 10 ) {
+		if ( c < 0 ) {
+			throw "Connection closed";
+		}
+		if ( c != 13 ) {
+			line += String.fromCharCode( c );
+		}
+	}
+	return line;
+}
@@ -0,0 +1,351 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import jolie.Interpreter;
+import jolie.InterpreterException;
+import jolie.cli.CommandLineException;
+import jolie.cli.CommandLineParser;
+import jolie.monitoring.metrics.Histogram;
+import jolie.net.CommChannel;
+import jolie.net.CommChannelHandler;
+import jolie.net.CommMessage;
+import jolie.net.ports.OutputPort;
+import jolie.runtime.InvalidIdException;
+import jolie.runtime.Value;
+
+/**
+ * Runs a {@link Scenario} against its reference service and measures throughput and latency.
+ *
+ * The service under test and a driver service are started as interpreters in this JVM. Load workers
+ * then call the service through the output port of the driver, using the {@link CommChannel} API
+ * directly: every worker sends a request and waits for its response before sending the next one
+ * (closed loop). Responses received during the warmup period are not measured.
+ *
+ * @author Fabrizio Montesi
+ */
+public class LoadTest {
+	public static final String LOCAL = "local";
+	// Percentiles are reported with a relative error below 1%
+	private static final int LATENCY_SUB_BUCKET_BITS = 7;
+	public static final String SOCKET = "socket";
+
+	private static final long RESPONSE_TIMEOUT = 10000L; // milliseconds
+	private static final long TERMINATION_TIMEOUT = 100L; // milliseconds
+	private static final String TARGET_PORT = "Target";
+
+	private final Scenario scenario;
+	private final String medium;
+	private final String protocol;
+	private final int port;
+	private final int concurrency;
+	private final long warmup; // milliseconds
+	private final long duration; // milliseconds
+	private final List< String > jolieArgs;
+	private final ClassLoader classLoader;
+
+	public LoadTest( Scenario scenario, String medium, String protocol, int port, int concurrency, long warmup,
+		long duration, List< String > jolieArgs, ClassLoader classLoader ) {
+		this.scenario = scenario;
+		this.medium = medium;
+		this.protocol = protocol;
+		this.port = port;
+		this.concurrency = concurrency;
+		this.warmup = warmup;
+		this.duration = duration;
+		this.jolieArgs = jolieArgs;
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * The outcome of a run.
+	 */
+	public static class Result {
+		private final LoadTest test;
+		private final Histogram latencies;
+		private final long errors;
+
+		private Result( LoadTest test, Histogram latencies, long errors ) {
+			this.test = test;
+			this.latencies = latencies;
+			this.errors = errors;
+		}
+
+		public Histogram latencies() {
+			return latencies;
+		}
+
+		public long errors() {
+			return errors;
+		}
+
+		public double throughput() {
+			return latencies.count() * 1000.0 / test.duration;
+		}
+
+		/**
+		 * Returns this result as a JSON object. Latencies are in microseconds.
+		 */
+		public String toJson() {
+			final StringBuilder b = new StringBuilder();
+			b.append( "{\n" )
+				.append( "  \"scenario\": \"" ).append( test.scenario.name() ).append( "\",\n" )
+				.append( "  \"medium\": \"" ).append( test.medium ).append( "\",\n" )
+				.append( "  \"protocol\": \"" ).append( test.protocol ).append( "\",\n" )
+				.append( "  \"concurrency\": " ).append( test.concurrency ).append( ",\n" )
+				.append( "  \"warmupMillis\": " ).append( test.warmup ).append( ",\n" )
+				.append( "  \"durationMillis\": " ).append( test.duration ).append( ",\n" )
+				.append( "  \"requests\": " ).append( latencies.count() ).append( ",\n" )
+				.append( "  \"errors\": " ).append( errors ).append( ",\n" )
+				.append( "  \"throughput\": " ).append( format( throughput() ) ).append( ",\n" )
+				.append( "  \"latencyMicros\": {\n" )
+				.append( "    \"min\": " ).append( micros( latencies.min() ) ).append( ",\n" )
+				.append( "    \"mean\": " ).append( format( latencies.mean() / 1000.0 ) ).append( ",\n" )
+				.append( "    \"p50\": " ).append( micros( latencies.valueAtQuantile( 0.5 ) ) ).append( ",\n" )
+				.append( "    \"p90\": " ).append( micros( latencies.valueAtQuantile( 0.9 ) ) ).append( ",\n" )
+				.append( "    \"p99\": " ).append( micros( latencies.valueAtQuantile( 0.99 ) ) ).append( ",\n" )
+				.append( "    \"p999\": " ).append( micros( latencies.valueAtQuantile( 0.999 ) ) ).append( ",\n" )
+				.append( "    \"p9999\": " ).append( micros( latencies.valueAtQuantile( 0.9999 ) ) ).append( ",\n" )
+				.append( "    \"max\": " ).append( micros( latencies.max() ) ).append( "\n" )
+				.append( "  }\n" )
+				.append( "}\n" );
+			return b.toString();
+		}
+
+		private static String micros( long nanos ) {
+			return format( nanos / 1000.0 );
+		}
+
+		private static String format( double d ) {
+			return String.format( Locale.ROOT, "%.1f", d );
+		}
+	}
+
+	public Result run()
+		throws IOException, CommandLineException, InterpreterException {
+		final Path directory = Files.createTempDirectory( "jolieload" );
+		final List< Path > extracted = new ArrayList<>();
+		Interpreter service = null;
+		Interpreter driver = null;
+		try {
+			final Value serviceParams = Value.create();
+			final Value driverParams = Value.create();
+			serviceParams.getFirstChild( "protocol" ).setValue( protocol );
+			if( "http".equals( protocol ) ) {
+				serviceParams.getFirstChild( "protocol" ).getFirstChild( "format" ).setValue( "json" );
+			}
+			driverParams.getFirstChild( "protocol" ).deepCopy( serviceParams.getFirstChild( "protocol" ) );
+			if( LOCAL.equals( medium ) ) {
+				serviceParams.getFirstChild( "location" ).setValue( "local://jolieload" );
+			} else {
+				serviceParams.getFirstChild( "location" ).setValue( "socket://localhost:" + port );
+			}
+			driverParams.getFirstChild( "location" ).deepCopy( serviceParams.getFirstChild( "location" ) );
+
+			extracted.add( extract( scenario.resource(), directory ) );
+			service = start( extracted.get( 0 ), scenario.serviceName(), serviceParams );
+			extracted.add( extract( "corpus/driver.ol", directory ) );
+			driver = start( extracted.get( 1 ), "Driver", driverParams );
+
+			return measure( driver );
+		} finally {
+			if( driver != null ) {
+				driver.exit( TERMINATION_TIMEOUT );
+			}
+			if( service != null ) {
+				service.exit( TERMINATION_TIMEOUT );
+			}
+			for( Path file : extracted ) {
+				Files.deleteIfExists( file );
+			}
+			Files.deleteIfExists( directory );
+		}
+	}
+
+	private Path extract( String resource, Path directory )
+		throws IOException {
+		final Path file = directory.resolve( resource.substring( resource.lastIndexOf( '/' ) + 1 ) );
+		try( InputStream stream = LoadTest.class.getResourceAsStream( resource ) ) {
+			if( stream == null ) {
+				throw new IOException( "Resource not found: " + resource );
+			}
+			Files.copy( stream, file, StandardCopyOption.REPLACE_EXISTING );
+		}
+		return file;
+	}
+
+	private Interpreter start( Path program, String serviceName, Value params )
+		throws IOException, CommandLineException, InterpreterException {
+		final List< String > args = new ArrayList<>( jolieArgs );
+		args.add( "--service" );
+		args.add( serviceName );
+		args.add( program.toString() );
+		final CommandLineParser parser = new CommandLineParser( args.toArray( new String[ 0 ] ), classLoader );
+		final Interpreter interpreter =
+			new Interpreter( parser.getInterpreterConfiguration(), null, Optional.of( params ) );
+		final Exception e;
+		try {
+			e = interpreter.start().get();
+		} catch( InterruptedException | ExecutionException ex ) {
+			throw new InterpreterException( ex );
+		}
+		if( e != null ) {
+			throw new InterpreterException( e );
+		}
+		return interpreter;
+	}
+
+	private Result measure( Interpreter driver )
+		throws IOException {
+		final OutputPort target;
+		try {
+			target = driver.getOutputPort( TARGET_PORT );
+		} catch( InvalidIdException e ) {
+			throw new IOException( e );
+		}
+
+		// The location of the port is evaluated in the state of the driver, so we need to be in its context
+		final String[] resourcePath = new String[ 1 ];
+		final Exception[] scenarioError = new Exception[ 1 ];
+		runInDriver( driver, () -> {
+			try {
+				resourcePath[ 0 ] = target.getResourcePath();
+				scenario.prepare( ( operation, request ) -> call( target, resourcePath[ 0 ], operation, request ) );
+			} catch( IOException | URISyntaxException e ) {
+				scenarioError[ 0 ] = e;
+			}
+		} );
+		if( scenarioError[ 0 ] != null ) {
+			throw new IOException( scenarioError[ 0 ] );
+		}
+
+		final AtomicLong sequence = new AtomicLong( 0L );
+		final AtomicLong errors = new AtomicLong( 0L );
+		final long measureStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( warmup );
+		final long end = measureStart + TimeUnit.MILLISECONDS.toNanos( duration );
+		final Histogram[] histograms = new Histogram[ concurrency ];
+		final Thread[] workers = new Thread[ concurrency ];
+		for( int i = 0; i < concurrency; i++ ) {
+			final Histogram histogram = new Histogram( LATENCY_SUB_BUCKET_BITS );
+			histograms[ i ] = histogram;
+			workers[ i ] = new CommChannelHandler( () -> {
+				CommChannelHandler.currentThread().setExecutionThread( driver.initThread() );
+				long start;
+				while( (start = System.nanoTime()) < end ) {
+					boolean failed = false;
+					try {
+						call( target, resourcePath[ 0 ], scenario.operation(),
+							scenario.request( sequence.getAndIncrement() ) );
+					} catch( IOException e ) {
+						failed = true;
+					}
+					final long latency = System.nanoTime() - start;
+					if( start >= measureStart ) {
+						if( failed ) {
+							errors.incrementAndGet();
+						} else {
+							histogram.record( latency );
+						}
+					}
+				}
+			} );
+			workers[ i ].start();
+		}
+
+		final Histogram latencies = new Histogram( LATENCY_SUB_BUCKET_BITS );
+		for( int i = 0; i < concurrency; i++ ) {
+			join( workers[ i ] );
+			latencies.merge( histograms[ i ] );
+		}
+
+		runInDriver( driver, () -> {
+			try {
+				scenario.finish( ( operation, request ) -> call( target, resourcePath[ 0 ], operation, request ) );
+			} catch( IOException e ) {
+				scenarioError[ 0 ] = e;
+			}
+		} );
+		if( scenarioError[ 0 ] != null ) {
+			throw new IOException( scenarioError[ 0 ] );
+		}
+		return new Result( this, latencies, errors.get() );
+	}
+
+	private static void runInDriver( Interpreter driver, Runnable runnable ) {
+		final Thread thread = new CommChannelHandler( () -> {
+			CommChannelHandler.currentThread().setExecutionThread( driver.initThread() );
+			runnable.run();
+		} );
+		thread.start();
+		join( thread );
+	}
+
+	private static void join( Thread thread ) {
+		try {
+			thread.join();
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Value call( OutputPort target, String resourcePath, String operation, Value request )
+		throws IOException {
+		final CommChannel channel;
+		try {
+			channel = target.getExclusiveCommChannel();
+		} catch( URISyntaxException e ) {
+			throw new IOException( e );
+		}
+		final CommMessage message = CommMessage.createRequest( operation, resourcePath, request );
+		final CommMessage response;
+		try {
+			channel.send( message );
+			response = channel.recvResponseFor( message ).get( RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS );
+		} catch( InterruptedException | ExecutionException | TimeoutException e ) {
+			channel.setToBeClosed( true );
+			throw new IOException( e );
+		} catch( IOException e ) {
+			channel.setToBeClosed( true );
+			throw e;
+		} finally {
+			channel.release();
+		}
+		if( response.isFault() ) {
+			throw new IOException( response.fault() );
+		}
+		return response.value();
+	}
+}
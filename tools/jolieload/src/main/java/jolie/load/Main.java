@@ -0,0 +1,150 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.load;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import jolie.InterpreterException;
+import jolie.JolieURLStreamHandlerFactory;
+import jolie.cli.CommandLineException;
+
+/**
+ * Command line entry point of jolieload, the load-testing harness of Jolie.
+ *
+ * Options that are not recognised are passed on to the interpreters that run the service under test
+ * and the load driver, so the usual Jolie options (e.g., {@code -l}, {@code -i}) can be used.
+ *
+ * @author Fabrizio Montesi
+ */
+public class Main {
+	private static final String USAGE = "Usage: jolieload [options] [jolie options] <scenario>\n"
+		+ "Scenarios: %s\n"
+		+ "Options:\n"
+		+ "  --medium socket|local   how the driver reaches the service (default: socket)\n"
+		+ "  --protocol sodep|http   the protocol used over socket (default: sodep)\n"
+		+ "  --port <n>              the TCP port of the service (default: 19700)\n"
+		+ "  --concurrency <n>       the number of concurrent clients (default: 8)\n"
+		+ "  --warmup <ms>           the warmup time, not measured (default: 5000)\n"
+		+ "  --duration <ms>         the measured time (default: 20000)\n"
+		+ "  --output <file>         write the JSON report to a file instead of the standard output\n";
+
+	static {
+		JolieURLStreamHandlerFactory.registerInVM();
+	}
+
+	private Main() {}
+
+	public static void main( String[] args ) {
+		String medium = LoadTest.SOCKET;
+		String protocol = "sodep";
+		int port = 19700;
+		int concurrency = 8;
+		long warmup = 5000L;
+		long duration = 20000L;
+		String output = null;
+		String scenarioName = null;
+		final List< String > jolieArgs = new ArrayList<>();
+
+		try {
+			for( int i = 0; i < args.length; i++ ) {
+				switch( args[ i ] ) {
+				case "--medium":
+					medium = value( args, ++i );
+					break;
+				case "--protocol":
+					protocol = value( args, ++i );
+					break;
+				case "--port":
+					port = Integer.parseInt( value( args, ++i ) );
+					break;
+				case "--concurrency":
+					concurrency = Integer.parseInt( value( args, ++i ) );
+					break;
+				case "--warmup":
+					warmup = Long.parseLong( value( args, ++i ) );
+					break;
+				case "--duration":
+					duration = Long.parseLong( value( args, ++i ) );
+					break;
+				case "--output":
+					output = value( args, ++i );
+					break;
+				default:
+					if( i == args.length - 1 ) {
+						scenarioName = args[ i ];
+					} else {
+						jolieArgs.add( args[ i ] );
+					}
+				}
+			}
+		} catch( IllegalArgumentException e ) {
+			usage( e.getMessage() );
+			return;
+		}
+
+		final Scenario scenario = scenarioName == null ? null : Scenario.byName( scenarioName );
+		if( scenario == null ) {
+			usage( scenarioName == null ? "Missing scenario" : "Unknown scenario: " + scenarioName );
+			return;
+		}
+		if( !LoadTest.SOCKET.equals( medium ) && !LoadTest.LOCAL.equals( medium ) ) {
+			usage( "Unsupported medium: " + medium );
+			return;
+		}
+		if( concurrency < 1 || duration < 1 || warmup < 0 ) {
+			usage( "Invalid load parameters" );
+			return;
+		}
+
+		int exitCode = 0;
+		try {
+			final LoadTest.Result result = new LoadTest( scenario, medium, protocol, port, concurrency, warmup,
+				duration, jolieArgs, Main.class.getClassLoader() ).run();
+			if( output == null ) {
+				System.out.print( result.toJson() );
+			} else {
+				Files.write( Paths.get( output ), result.toJson().getBytes( StandardCharsets.UTF_8 ) );
+			}
+		} catch( IOException | CommandLineException | InterpreterException e ) {
+			System.err.println( e.getMessage() );
+			exitCode = 1;
+		}
+		System.exit( exitCode );
+	}
+
+	private static String value( String[] args, int i ) {
+		if( i >= args.length ) {
+			throw new IllegalArgumentException( "Missing value for " + args[ i - 1 ] );
+		}
+		return args[ i ];
+	}
+
+	private static void usage( String error ) {
+		System.err.println( error );
+		System.err.printf( USAGE, Scenario.names() );
+		System.exit( 1 );
+	}
+}
@@ -0,0 +1,204 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by Fabrizio Montesi <famontesi@gmail.com>          *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.load;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import jolie.runtime.Value;
+
+/**
+ * A load scenario: a reference service from the corpus shipped with jolieload, the operation that
+ * is called on it and the requests that are sent.
+ *
+ * @author Fabrizio Montesi
+ */
+public abstract class Scenario {
+	/**
+	 * Sends a request to the service under test and waits for its response.
+	 */
+	@FunctionalInterface
+	public interface Caller {
+		Value call( String operation, Value request )
+			throws IOException;
+	}
+
+	private static final List< Scenario > SCENARIOS = Collections.unmodifiableList( Arrays.asList(
+		new Echo(), new DeepTree(), new Correlation(), new FanOut() ) );
+
+	private final String name;
+	private final String serviceName;
+
+	protected Scenario( String name, String serviceName ) {
+		this.name = name;
+		this.serviceName = serviceName;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Returns the name of the service to run from the program of this scenario.
+	 */
+	public String serviceName() {
+		return serviceName;
+	}
+
+	/**
+	 * Returns the classpath resource of the program of this scenario.
+	 */
+	public String resource() {
+		return "corpus/" + name.replace( '-', '_' ) + ".ol";
+	}
+
+	public String operation() {
+		return "run";
+	}
+
+	/**
+	 * Prepares the service under test before the load starts.
+	 */
+	public void prepare( Caller caller )
+		throws IOException {}
+
+	/**
+	 * Cleans up the service under test after the load ends.
+	 */
+	public void finish( Caller caller )
+		throws IOException {}
+
+	/**
+	 * Returns the request with the given sequence number. This method is called concurrently by the
+	 * load workers.
+	 */
+	public abstract Value request( long sequence );
+
+	public static List< Scenario > all() {
+		return SCENARIOS;
+	}
+
+	public static String names() {
+		return SCENARIOS.stream().map( Scenario::name ).collect( Collectors.joining( ", " ) );
+	}
+
+	public static Scenario byName( String name ) {
+		for( Scenario scenario : SCENARIOS ) {
+			if( scenario.name.equals( name ) ) {
+				return scenario;
+			}
+		}
+		return null;
+	}
+
+	private static class Echo extends Scenario {
+		private Echo() {
+			super( "echo", "Echo" );
+		}
+
+		@Override
+		public Value request( long sequence ) {
+			final Value request = Value.create();
+			request.getFirstChild( "id" ).setValue( sequence );
+			request.getFirstChild( "text" ).setValue( "The quick brown fox jumps over the lazy dog" );
+			return request;
+		}
+	}
+
+	private static class DeepTree extends Scenario {
+		private static final int WIDTH = 8;
+		private static final int LEAVES = 4;
+
+		private DeepTree() {
+			super( "deep-tree", "DeepTree" );
+		}
+
+		@Override
+		public Value request( long sequence ) {
+			final Value request = Value.create();
+			request.getFirstChild( "id" ).setValue( sequence );
+			final Value node = request.getFirstChild( "node" );
+			for( int i = 0; i < WIDTH; i++ ) {
+				final Value child = node.getFirstChild( "a" + i );
+				for( int j = 0; j < WIDTH; j++ ) {
+					final Value grandChild = child.getFirstChild( "b" + j );
+					grandChild.setValue( j );
+					for( int k = 0; k < LEAVES; k++ ) {
+						grandChild.getNewChild( "leaf" ).setValue( "leaf " + k );
+					}
+				}
+			}
+			return request;
+		}
+	}
+
+	private static class Correlation extends Scenario {
+		private static final int SESSIONS = 100;
+
+		private Correlation() {
+			super( "correlation", "Sessions" );
+		}
+
+		@Override
+		public void prepare( Caller caller )
+			throws IOException {
+			for( int i = 0; i < SESSIONS; i++ ) {
+				final Value request = Value.create();
+				request.getFirstChild( "sid" ).setValue( "session" + i );
+				caller.call( "start", request );
+			}
+		}
+
+		@Override
+		public void finish( Caller caller )
+			throws IOException {
+			for( int i = 0; i < SESSIONS; i++ ) {
+				final Value request = Value.create();
+				request.getFirstChild( "sid" ).setValue( "session" + i );
+				caller.call( "end", request );
+			}
+		}
+
+		@Override
+		public Value request( long sequence ) {
+			final Value request = Value.create();
+			request.getFirstChild( "sid" ).setValue( "session" + (sequence % SESSIONS) );
+			request.getFirstChild( "payload" ).setValue( sequence );
+			return request;
+		}
+	}
+
+	private static class FanOut extends Scenario {
+		private FanOut() {
+			super( "fan-out", "FanOut" );
+		}
+
+		@Override
+		public Value request( long sequence ) {
+			final Value request = Value.create();
+			request.getFirstChild( "id" ).setValue( (int) (sequence % 1000) );
+			return request;
+		}
+	}
+}